@@ -9,11 +9,25 @@ echo "1. Генерация тестовых данных (1000 пользова
 curl -X POST "http://localhost:8081/api/admin/performance/generate?userCount=1000&deliveriesPerUser=10"
 echo -e "\n"
 
+# Пакетная вставка большого объёма (ID из последовательностей, JDBC-батчи по 50 строк)
+echo "1a. Генерация 1 000 000 доставок (10000 пользователей, 100 доставок на пользователя)"
+curl -X POST "http://localhost:8081/api/admin/performance/generate?userCount=10000&deliveriesPerUser=100"
+echo -e "\n"
+
+echo "1b. Массовая загрузка 1 000 000 доставок через COPY"
+curl -X POST "http://localhost:8081/api/admin/performance/generate?userCount=10000&deliveriesPerUser=100&mode=copy"
+echo -e "\n"
+
 # Анализ производительности
 echo "2. Анализ производительности запросов"
 curl -s "http://localhost:8081/api/admin/performance/analyze" | jq
 echo -e "\n"
 
+# Бенчмарк: прогрев, 50 измерений на поток, 8 параллельных клиентов
+echo "2a. Бенчмарк запросов (p50/p95/p99, пропускная способность)"
+curl -s "http://localhost:8081/api/admin/performance/benchmark?warmup=5&iterations=50&threads=8" | jq
+echo -e "\n"
+
 # EXPLAIN ANALYZE для самого медленного запроса
 echo "3. EXPLAIN ANALYZE для сложного запроса"
 curl -s "http://localhost:8081/api/admin/performance/explain/complex_query"
@@ -0,0 +1,63 @@
+package com.pharmacy.scs.benchmark;
+
+import com.pharmacy.scs.entity.User;
+import com.pharmacy.scs.util.DataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость пакетной вставки доставок через DataGenerator (строк в секунду) на PostgreSQL.
+ * Нужна запущенная БД (docker-compose up postgres):
+ * mvn -Pjmh compile exec:exec -Djmh.args="DataGeneratorInsert -p jdbcUrl=jdbc:postgresql://localhost:5434/scs_db"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataGeneratorInsertBenchmark {
+
+    private static final int USERS = 100;
+    private static final int DELIVERIES_PER_USER = 100;
+
+    @Param(ServiceContext.DEFAULT_JDBC_URL)
+    public String jdbcUrl;
+
+    private ConfigurableApplicationContext context;
+    private DataGenerator dataGenerator;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        context = ServiceContext.start(jdbcUrl);
+        dataGenerator = context.getBean(DataGenerator.class);
+        users = dataGenerator.generateUsers(USERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS * DELIVERIES_PER_USER)
+    public int generateDeliveries() {
+        return dataGenerator.generateDeliveries(users, DELIVERIES_PER_USER);
+    }
+}
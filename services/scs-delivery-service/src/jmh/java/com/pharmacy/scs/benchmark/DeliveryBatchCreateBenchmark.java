@@ -0,0 +1,92 @@
+package com.pharmacy.scs.benchmark;
+
+import com.pharmacy.scs.dto.BulkCreateResultDTO;
+import com.pharmacy.scs.dto.DeliveryCreateRequest;
+import com.pharmacy.scs.entity.User;
+import com.pharmacy.scs.service.DeliveryService;
+import com.pharmacy.scs.util.DataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость пакетного создания доставок через DeliveryService.createDeliveries (доставок в секунду)
+ * на PostgreSQL: проверки порций, JDBC-батчи INSERT доставок и outbox-событий.
+ * Нужна запущенная БД (docker-compose up postgres):
+ * mvn -Pjmh compile exec:exec -Djmh.args="DeliveryBatchCreate -p jdbcUrl=jdbc:postgresql://localhost:5434/scs_db"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeliveryBatchCreateBenchmark {
+
+    private static final int USERS = 100;
+    private static final int DELIVERIES = 5_000;
+
+    @Param(ServiceContext.DEFAULT_JDBC_URL)
+    public String jdbcUrl;
+
+    private ConfigurableApplicationContext context;
+    private DeliveryService deliveryService;
+    private List<User> users;
+    private List<DeliveryCreateRequest> requests;
+
+    @Setup
+    public void setUp() {
+        context = ServiceContext.start(jdbcUrl);
+        deliveryService = context.getBean(DeliveryService.class);
+        users = context.getBean(DataGenerator.class).generateUsers(USERS);
+    }
+
+    /**
+     * Каждый вызов создаёт новые номера отслеживания, иначе все позиции оказались бы дубликатами.
+     * Вызов длится сотни миллисекунд, поэтому подготовка на уровне Invocation не искажает замер.
+     */
+    @Setup(Level.Invocation)
+    public void prepareRequests() {
+        String prefix = "BENCH" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        LocalDateTime expected = LocalDateTime.now().plusDays(1);
+        requests = new ArrayList<>(DELIVERIES);
+        for (int i = 0; i < DELIVERIES; i++) {
+            DeliveryCreateRequest request = new DeliveryCreateRequest();
+            request.setTrackingNumber(prefix + i);
+            request.setUserId(users.get(i % USERS).getId());
+            request.setDeliveryAddress("Address " + i);
+            request.setExpectedDeliveryTime(expected);
+            request.setStatus("CREATED");
+            requests.add(request);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELIVERIES)
+    public BulkCreateResultDTO createDeliveries() {
+        return deliveryService.createDeliveries(requests);
+    }
+}
@@ -0,0 +1,99 @@
+package com.pharmacy.scs.benchmark;
+
+import com.pharmacy.scs.dto.DeliveryDTO;
+import com.pharmacy.scs.dto.DeliveryEvent;
+import com.pharmacy.scs.dto.DeliveryResponseDTO;
+import com.pharmacy.scs.dto.DeliverySnapshot;
+import com.pharmacy.scs.entity.Delivery;
+import com.pharmacy.scs.entity.DeliveryStatus;
+import com.pharmacy.scs.entity.User;
+import com.pharmacy.scs.mapper.DeliveryMapper;
+import com.pharmacy.scs.mapper.DeliveryMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Микробенчмарки кода, который выполняется на каждый запрос к сервису доставок:
+ * построение событий и DTO, маппинг MapStruct и JSON-сериализация события для Kafka.
+ * Запуск с профилировщиком аллокаций: mvn -Pjmh compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeliveryHotPathBenchmark {
+
+    private Delivery delivery;
+    private DeliverySnapshot snapshot;
+    private DeliveryEvent event;
+    private DeliveryMapper deliveryMapper;
+    private JsonSerializer<DeliveryEvent> eventSerializer;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(42L);
+
+        delivery = new Delivery();
+        delivery.setId(1001L);
+        delivery.setTrackingNumber("TN1234567890ABCDEF");
+        delivery.setUser(user);
+        delivery.setDeliveryAddress("г. Москва, ул. Ленина, д. 10, кв. 25");
+        delivery.setExpectedDeliveryTime(LocalDateTime.of(2024, 6, 1, 12, 0));
+        delivery.setActualDeliveryTime(LocalDateTime.of(2024, 6, 1, 13, 30));
+        delivery.setStatus(DeliveryStatus.DELIVERED);
+        delivery.setCreatedAt(LocalDateTime.of(2024, 5, 30, 9, 0));
+        delivery.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 13, 30));
+
+        snapshot = DeliverySnapshot.from(delivery);
+        event = DeliveryEvent.from(delivery, "COMPLETED");
+        event.getAdditionalData().put("completedAt", delivery.getActualDeliveryTime());
+        deliveryMapper = new DeliveryMapperImpl();
+        // Тот же сериализатор, что настроен для продюсера в application.yml
+        eventSerializer = new JsonSerializer<>();
+    }
+
+    @Benchmark
+    public DeliveryEvent deliveryEventFrom() {
+        return DeliveryEvent.from(delivery, "UPDATED");
+    }
+
+    @Benchmark
+    public DeliveryResponseDTO deliveryResponseFromEntity() {
+        return DeliveryResponseDTO.fromEntity(delivery);
+    }
+
+    @Benchmark
+    public DeliveryDTO mapperToDtoFromEntity() {
+        return deliveryMapper.toDto(delivery);
+    }
+
+    @Benchmark
+    public DeliveryDTO mapperToDtoFromSnapshot() {
+        return deliveryMapper.toDto(snapshot);
+    }
+
+    @Benchmark
+    public DeliverySnapshot snapshotFromEntity() {
+        return DeliverySnapshot.from(delivery);
+    }
+
+    @Benchmark
+    public byte[] serializeDeliveryEvent() {
+        return eventSerializer.serialize("delivery-updates", event);
+    }
+}
@@ -0,0 +1,104 @@
+package com.pharmacy.scs.benchmark;
+
+import com.pharmacy.scs.config.KafkaConfig;
+import com.pharmacy.scs.dto.DeliveryEvent;
+import com.pharmacy.scs.service.KafkaDeliveryEventService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность отправки событий доставок (событий в секунду): пачка через батчирующий
+ * продюсер (KafkaDeliveryEventService.sendDeliveryEvents) против синхронной отправки по одному.
+ * Нужен запущенный брокер (docker-compose up kafka):
+ * mvn -Pjmh compile exec:exec -Djmh.args="KafkaDeliveryEvent -p bootstrapServers=localhost:9092"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KafkaDeliveryEventBenchmark {
+
+    private static final String TOPIC = "delivery-updates-benchmark";
+    private static final int BATCH_EVENTS = 1000;
+    private static final int SYNC_EVENTS = 100;
+
+    @Param("localhost:9092")
+    public String bootstrapServers;
+
+    private AnnotationConfigApplicationContext context;
+    private KafkaDeliveryEventService eventService;
+    private KafkaTemplate<String, DeliveryEvent> kafkaTemplate;
+    private List<DeliveryEvent> batchEvents;
+    private List<DeliveryEvent> syncEvents;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // Те же бины продюсера, что и в сервисе: настройки батчирования из KafkaConfig
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "spring.kafka.bootstrap-servers", bootstrapServers,
+                "kafka.topics.delivery-updates", TOPIC)));
+        context.register(KafkaConfig.class, KafkaDeliveryEventService.class);
+        context.refresh();
+
+        eventService = context.getBean(KafkaDeliveryEventService.class);
+        kafkaTemplate = context.getBean("kafkaTemplate", KafkaTemplate.class);
+        batchEvents = createEvents(BATCH_EVENTS);
+        syncEvents = createEvents(SYNC_EVENTS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_EVENTS)
+    public void batchedSend() throws Exception {
+        eventService.sendDeliveryEvents(batchEvents).get(60, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYNC_EVENTS)
+    public void syncSendOneByOne() throws Exception {
+        for (DeliveryEvent event : syncEvents) {
+            kafkaTemplate.send(TOPIC, event.getDeliveryId().toString(), event).get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static List<DeliveryEvent> createEvents(int count) {
+        List<DeliveryEvent> events = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            long deliveryId = i;
+            events.add(new DeliveryEvent("UPDATED", deliveryId, "IN_TRANSIT", now, Map.of(
+                    "userId", deliveryId % 1000,
+                    "trackingNumber", "TN" + deliveryId,
+                    "deliveryAddress", "г. Москва, ул. Ленина, д. 1, кв. " + (i % 200))));
+        }
+        return events;
+    }
+}
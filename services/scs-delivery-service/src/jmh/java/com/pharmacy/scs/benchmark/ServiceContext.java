@@ -0,0 +1,30 @@
+package com.pharmacy.scs.benchmark;
+
+import com.pharmacy.scs.ScsDeliveryServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Контекст сервиса доставок для бенчмарков с БД: без веб-сервера, ретранслятора outbox и вывода SQL.
+ * Бенчмарки пишут в БД, поэтому jdbcUrl лучше направлять на отдельную базу.
+ */
+final class ServiceContext {
+
+    static final String DEFAULT_JDBC_URL = "jdbc:postgresql://localhost:5434/scs_db";
+
+    private ServiceContext() {
+    }
+
+    static ConfigurableApplicationContext start(String jdbcUrl) {
+        return new SpringApplicationBuilder(ScsDeliveryServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + jdbcUrl,
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "outbox.relay.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+}
@@ -1,22 +1,52 @@
 package com.pharmacy.scs.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(DeliveryCacheProperties.class)
 public class CacheConfig {
 
+    /**
+     * Ограниченные по размеру кэши на Caffeine (политика вытеснения W-TinyLFU).
+     * Каждый кэш настраивается отдельно и собирает статистику попаданий/промахов/вытеснений.
+     * Изменения кэша внутри транзакции применяются только после её фиксации,
+     * чтобы параллельное чтение не вернуло в кэш устаревшую запись.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
-                "userDeliveries",
-                "deliveryByTracking",
-                "userStats"
-        );
+    public CacheManager cacheManager(DeliveryCacheProperties cacheProperties) {
+        List<Cache> caches = cacheProperties.getSpecs().entrySet().stream()
+                .map(entry -> new CaffeineCache(entry.getKey(), buildCache(entry.getValue()).build()))
+                .<Cache>map(TransactionAwareCacheDecorator::new)
+                .toList();
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
         return cacheManager;
     }
-}
\ No newline at end of file
+
+    private Caffeine<Object, Object> buildCache(DeliveryCacheProperties.CacheSpec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .recordStats();
+
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,42 @@
+package com.pharmacy.scs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки кэшей сервиса доставки (delivery.cache.specs.*).
+ * Для каждого кэша задаются ограничение по размеру и время жизни записей.
+ */
+@Data
+@ConfigurationProperties(prefix = "delivery.cache")
+public class DeliveryCacheProperties {
+
+    private Map<String, CacheSpec> specs = new LinkedHashMap<>();
+
+    public DeliveryCacheProperties() {
+        // Значения по умолчанию, переопределяются из application.yml
+        specs.put("userDeliveries", new CacheSpec(10_000, Duration.ofMinutes(10), null));
+        specs.put("deliveryByTracking", new CacheSpec(100_000, Duration.ofMinutes(30), Duration.ofMinutes(10)));
+        specs.put("userStats", new CacheSpec(5_000, Duration.ofMinutes(5), null));
+    }
+
+    @Data
+    public static class CacheSpec {
+        private long maximumSize = 10_000;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+
+        public CacheSpec() {
+        }
+
+        public CacheSpec(long maximumSize, Duration expireAfterWrite, Duration expireAfterAccess) {
+            this.maximumSize = maximumSize;
+            this.expireAfterWrite = expireAfterWrite;
+            this.expireAfterAccess = expireAfterAccess;
+        }
+    }
+}
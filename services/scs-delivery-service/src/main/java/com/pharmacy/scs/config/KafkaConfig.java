@@ -1,6 +1,7 @@
 package com.pharmacy.scs.config;
 
 import com.pharmacy.scs.dto.DeliveryEvent;
+import com.pharmacy.scs.dto.UserDTO;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -22,18 +23,28 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${kafka.producer.max-in-flight:5}")
+    private int maxInFlightRequests;
+
+    @Value("${kafka.producer.delivery-timeout-ms:120000}")
+    private int deliveryTimeoutMs;
+
+    @Value("${kafka.topics.user-updates:user-updates}")
+    private String userUpdatesTopic;
+
     // Конфигурация продюсера
     @Bean
     public ProducerFactory<String, DeliveryEvent> producerFactory() {
-        Map<String, Object> config = new HashMap<>();
-        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        // Важные настройки надёжности
-        config.put(ProducerConfig.ACKS_CONFIG, "all");
-        config.put(ProducerConfig.RETRIES_CONFIG, 3);
-
-        return new DefaultKafkaProducerFactory<>(config);
+        return new DefaultKafkaProducerFactory<>(producerConfig());
     }
 
     @Bean
@@ -41,6 +52,38 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    /**
+     * Продюсер профилей пользователей для топика user-updates (ключ — ID пользователя)
+     */
+    @Bean
+    public ProducerFactory<String, UserDTO> userProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerConfig());
+    }
+
+    @Bean
+    public KafkaTemplate<String, UserDTO> userKafkaTemplate() {
+        return new KafkaTemplate<>(userProducerFactory());
+    }
+
+    private Map<String, Object> producerConfig() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        // Важные настройки надёжности: идемпотентный продюсер не создаёт дубликатов при повторах
+        // и сохраняет порядок событий в партиции при max.in.flight <= 5
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, Math.min(maxInFlightRequests, 5));
+        // Пропускная способность: события копятся до linger.ms или batch.size и сжимаются батчем
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        return config;
+    }
+
     // Конфигурация топиков
     @Bean
     public NewTopic deliveryUpdatesTopic() {
@@ -49,4 +92,17 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
+
+    /**
+     * Компактируемый топик профилей пользователей: брокер хранит последнее значение
+     * для каждого ключа, поэтому потребитель может восстановить полный снимок, прочитав топик с начала
+     */
+    @Bean
+    public NewTopic userUpdatesTopic() {
+        return TopicBuilder.name(userUpdatesTopic)
+                .partitions(3)
+                .replicas(1)
+                .compact()
+                .build();
+    }
 }
@@ -1,25 +1,29 @@
 package com.pharmacy.scs.config;
 
+import jakarta.persistence.EntityManagerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
-import javax.sql.DataSource;
-
 @Configuration
 @EnableTransactionManagement
 public class TransactionConfig {
 
-    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
 
-    public TransactionConfig(DataSource dataSource) {
-        this.dataSource = dataSource;
+    public TransactionConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
     }
 
+    /**
+     * JpaTransactionManager связывает транзакцию с контекстом персистентности:
+     * накопленные INSERT/UPDATE сбрасываются JDBC-батчами при фиксации.
+     * Соединение транзакции доступно и для JdbcTemplate.
+     */
     @Bean(name = "transactionManager") // Здесь нужно явно указать имя бина
     public PlatformTransactionManager transactionManager() {
-        return new DataSourceTransactionManager(dataSource);
+        return new JpaTransactionManager(entityManagerFactory);
     }
 }
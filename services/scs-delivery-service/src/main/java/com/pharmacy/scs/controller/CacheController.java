@@ -0,0 +1,49 @@
+package com.pharmacy.scs.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+@Slf4j
+public class CacheController {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Возвращает статистику по каждому кэшу: попадания, промахи, вытеснения и текущий размер
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        log.info("Запрос статистики кэшей");
+
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                CacheStats stats = nativeCache.stats();
+
+                Map<String, Object> cacheStats = new LinkedHashMap<>();
+                cacheStats.put("size", nativeCache.estimatedSize());
+                cacheStats.put("hitCount", stats.hitCount());
+                cacheStats.put("missCount", stats.missCount());
+                cacheStats.put("hitRate", stats.hitRate());
+                cacheStats.put("evictionCount", stats.evictionCount());
+                result.put(cacheName, cacheStats);
+            }
+        }
+
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,15 +1,32 @@
 package com.pharmacy.scs.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pharmacy.scs.dto.BulkCreateResultDTO;
+import com.pharmacy.scs.dto.BulkStatusUpdateRequest;
+import com.pharmacy.scs.dto.BulkStatusUpdateResultDTO;
 import com.pharmacy.scs.dto.DeliveryCreateRequest;
 import com.pharmacy.scs.dto.DeliveryDTO;
+import com.pharmacy.scs.dto.DeliveryPageDTO;
 import com.pharmacy.scs.dto.DeliveryResponseDTO;
+import com.pharmacy.scs.dto.DeliverySnapshot;
+import com.pharmacy.scs.dto.DeliveryTrackingDTO;
 import com.pharmacy.scs.dto.DeliveryUpdateRequest;
 import com.pharmacy.scs.entity.Delivery;
 import com.pharmacy.scs.exception.DeliveryNotFoundException;
+import com.pharmacy.scs.exception.InvalidStatusTransitionException;
 import com.pharmacy.scs.mapper.DeliveryMapper;
 import com.pharmacy.scs.service.DeliveryService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,19 +36,30 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import static org.apache.kafka.common.requests.FetchMetadata.log;
-
-
 @RestController
 @RequestMapping("/api/deliveries")
 @RequiredArgsConstructor
+@Slf4j
 public class DeliveryController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BULK_STATUS_ITEMS = 10_000;
+    private static final int MAX_BULK_CREATE_ITEMS = 50_000;
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final DeliveryService deliveryService;
     private final DeliveryMapper deliveryMapper;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<DeliveryDTO> createDelivery(@RequestBody DeliveryCreateRequest request) {
@@ -41,6 +69,79 @@ public class DeliveryController {
                 .body(deliveryMapper.toDto(savedDelivery));
     }
 
+    /**
+     * Пакетное создание доставок из JSON-массива. Возвращает исход по каждой позиции в порядке запроса.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkCreateResultDTO> createDeliveries(@RequestBody List<DeliveryCreateRequest> requests) {
+        if (requests.isEmpty() || requests.size() > MAX_BULK_CREATE_ITEMS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(deliveryService.createDeliveries(requests));
+    }
+
+    /**
+     * Пакетное создание доставок из NDJSON (один DeliveryCreateRequest на строку).
+     * Строки разбираются по мере обработки: сервис забирает их порциями (delivery.bulk.chunk-size),
+     * весь запрос в памяти не собирается. Некорректная строка или превышение лимита откатывают пакет.
+     */
+    @PostMapping(value = "/batch", consumes = "application/x-ndjson")
+    public ResponseEntity<BulkCreateResultDTO> createDeliveriesNdjson(InputStream body) throws IOException {
+        try (MappingIterator<DeliveryCreateRequest> lines =
+                     objectMapper.readerFor(DeliveryCreateRequest.class).readValues(body)) {
+            BulkCreateResultDTO result = deliveryService.createDeliveries(ndjsonRequests(lines));
+            if (result.getRequested() == 0) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(result);
+        } catch (JsonProcessingException | InvalidBatchException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Итератор строк NDJSON с лимитом MAX_BULK_CREATE_ITEMS: ошибки чтения выходят непроверяемыми
+     * исключениями, чтобы прервать обработку внутри транзакции сервиса
+     */
+    private static Iterator<DeliveryCreateRequest> ndjsonRequests(MappingIterator<DeliveryCreateRequest> lines) {
+        return new Iterator<>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    return lines.hasNextValue();
+                } catch (JsonProcessingException e) {
+                    throw new InvalidBatchException(e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public DeliveryCreateRequest next() {
+                if (read == MAX_BULK_CREATE_ITEMS) {
+                    throw new InvalidBatchException(null);
+                }
+                try {
+                    DeliveryCreateRequest request = lines.nextValue();
+                    read++;
+                    return request;
+                } catch (JsonProcessingException e) {
+                    throw new InvalidBatchException(e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static class InvalidBatchException extends RuntimeException {
+        InvalidBatchException(Throwable cause) {
+            super(cause);
+        }
+    }
+
     @GetMapping("/{trackingNumber}")
     public ResponseEntity<DeliveryDTO> getDeliveryByTrackingNumber(@PathVariable String trackingNumber) {
         return deliveryService.getDeliveryByTrackingNumber(trackingNumber)
@@ -49,29 +150,138 @@ public class DeliveryController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Страница отслеживания: статус и сроки доставки без остальных полей (см. DeliveryTrackingDTO)
+     */
+    @GetMapping("/{trackingNumber}/tracking")
+    public ResponseEntity<DeliveryTrackingDTO> getDeliveryTracking(@PathVariable String trackingNumber) {
+        return deliveryService.getDeliveryTracking(trackingNumber)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Все доставки пользователя, сначала за последние месяцы (delivery.partitioning.hot-window-months).
+     * Для пользователей с длинной историей — /page или /stream, при необходимости с периодом.
+     */
     @GetMapping
     public ResponseEntity<List<DeliveryDTO>> getDeliveriesByUser(@RequestParam Long userId) {
-        List<Delivery> deliveries = (List<Delivery>) deliveryService.getDeliveriesByUserId(userId);
+        List<DeliverySnapshot> deliveries = deliveryService.getDeliveriesByUserId(userId);
         List<DeliveryDTO> deliveryDTOs = deliveries.stream()
                 .map(deliveryMapper::toDto)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(deliveryDTOs);
     }
 
+    /**
+     * Keyset-пагинация доставок пользователя: следующая страница запрашивается
+     * с afterId = nextCursor из предыдущего ответа.
+     * Период [from, to) по ожидаемому времени доставки необязателен, но с ним запрос
+     * читает только секции этого периода. Задаются оба конца или ни одного.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<DeliveryPageDTO> getDeliveriesPage(
+            @RequestParam Long userId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!isValidPeriod(from, to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<DeliverySnapshot> page = from != null
+                ? deliveryService.getDeliveriesPage(userId, from, to, afterId, pageSize)
+                : deliveryService.getDeliveriesPage(userId, afterId, pageSize);
+        List<DeliveryDTO> items = page.stream()
+                .map(deliveryMapper::toDto)
+                .toList();
+        Long nextCursor = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+        return ResponseEntity.ok(new DeliveryPageDTO(items, nextCursor));
+    }
+
+    /**
+     * Потоковая выгрузка всех доставок пользователя в формате NDJSON (один JSON-объект на строку).
+     * Строки читаются из курсора БД и пишутся в ответ по одной, без сборки списка в памяти.
+     * Необязательный период [from, to) ограничивает выгрузку секциями этого периода.
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamDeliveriesByUser(
+            @RequestParam Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!isValidPeriod(from, to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Поток ответа не закрывается и не сбрасывается после каждой записи — это делает контейнер
+        ObjectWriter writer = objectMapper.writerFor(DeliveryDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            Consumer<DeliverySnapshot> consumer = snapshot -> {
+                try {
+                    writer.writeValue(outputStream, deliveryMapper.toDto(snapshot));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            if (from != null) {
+                deliveryService.streamDeliveriesByUserId(userId, from, to, consumer);
+            } else {
+                deliveryService.streamDeliveriesByUserId(userId, consumer);
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    private static boolean isValidPeriod(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            return from == null && to == null;
+        }
+        return from.isBefore(to);
+    }
+
     @PutMapping("/{deliveryId}/status")
     public ResponseEntity<DeliveryDTO> updateDeliveryStatus(@PathVariable Long deliveryId, @RequestBody DeliveryUpdateRequest request) {
-        Delivery updatedDelivery = deliveryService.updateDeliveryStatus(deliveryId, request.getStatus());
-        return ResponseEntity.ok(deliveryMapper.toDto(updatedDelivery));
+        if (request.getStatus() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            DeliverySnapshot updatedDelivery = deliveryService.updateDeliveryStatus(deliveryId, request.getStatus());
+            return ResponseEntity.ok(deliveryMapper.toDto(updatedDelivery));
+        } catch (DeliveryNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (InvalidStatusTransitionException | OptimisticLockingFailureException e) {
+            log.warn("Status update of delivery {} rejected: {}", deliveryId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Пакетная смена статусов (например, подтверждение паллеты сканером) одним запросом
+     * вместо отдельного PUT на каждую доставку. Возвращает исход по каждой позиции в порядке запроса.
+     */
+    @PostMapping("/status/bulk")
+    public ResponseEntity<BulkStatusUpdateResultDTO> updateDeliveryStatuses(@RequestBody BulkStatusUpdateRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()
+                || request.getItems().size() > MAX_BULK_STATUS_ITEMS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(deliveryService.updateDeliveryStatuses(request.getItems()));
     }
 
     @PutMapping("/{deliveryId}/confirm")
     public ResponseEntity<DeliveryResponseDTO> confirmDelivery(@PathVariable Long deliveryId) {
         try {
-            Delivery delivery = deliveryService.completeDelivery(deliveryId);
-            DeliveryResponseDTO result = DeliveryResponseDTO.fromEntity(delivery);
+            DeliverySnapshot delivery = deliveryService.completeDelivery(deliveryId);
+            DeliveryResponseDTO result = DeliveryResponseDTO.fromSnapshot(delivery);
             return ResponseEntity.accepted().body(result);
         } catch (DeliveryNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (InvalidStatusTransitionException | OptimisticLockingFailureException e) {
+            log.warn("Confirmation of delivery {} rejected: {}", deliveryId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             log.error("Unexpected error while confirming delivery {}", deliveryId, e);
             return ResponseEntity.internalServerError().build();
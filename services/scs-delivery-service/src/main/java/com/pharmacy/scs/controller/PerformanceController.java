@@ -1,6 +1,9 @@
 package com.pharmacy.scs.controller;
 
+import com.pharmacy.scs.dto.BenchmarkResultDTO;
+import com.pharmacy.scs.dto.BulkLoadResultDTO;
 import com.pharmacy.scs.dto.PerformanceResultDTO;
+import com.pharmacy.scs.util.BulkDataLoader;
 import com.pharmacy.scs.util.DataGenerator;
 import com.pharmacy.scs.util.PerformanceAnalyzer;
 import lombok.RequiredArgsConstructor;
@@ -19,27 +22,45 @@ public class PerformanceController {
 
     private final DataGenerator dataGenerator;
     private final PerformanceAnalyzer performanceAnalyzer;
+    private final BulkDataLoader bulkDataLoader;
 
     /**
-     * Генерирует тестовые данные
+     * Генерирует тестовые данные.
+     * mode=jpa — через JPA с пакетной вставкой, mode=copy — массовая загрузка через COPY (только PostgreSQL)
      */
     @PostMapping("/generate")
     public ResponseEntity<Map<String, Object>> generateTestData(
             @RequestParam(defaultValue = "100") int userCount,
-            @RequestParam(defaultValue = "10") int deliveriesPerUser) {
+            @RequestParam(defaultValue = "10") int deliveriesPerUser,
+            @RequestParam(defaultValue = "jpa") String mode) {
 
-        log.info("Запрос на генерацию данных: {} пользователей, {} доставок на пользователя",
-                userCount, deliveriesPerUser);
+        log.info("Запрос на генерацию данных ({}): {} пользователей, {} доставок на пользователя",
+                mode, userCount, deliveriesPerUser);
+
+        if ("copy".equalsIgnoreCase(mode)) {
+            BulkLoadResultDTO loadResult = bulkDataLoader.load(userCount, deliveriesPerUser);
+            return ResponseEntity.ok(Map.of(
+                    "mode", "copy",
+                    "userCount", loadResult.getUserCount(),
+                    "deliveriesPerUser", deliveriesPerUser,
+                    "totalDeliveries", loadResult.getDeliveryCount(),
+                    "threads", loadResult.getThreads(),
+                    "executionTimeMs", loadResult.getExecutionTimeMs(),
+                    "rowsPerSecond", loadResult.getRowsPerSecond()
+            ));
+        }
 
         long startTime = System.currentTimeMillis();
         dataGenerator.generateTestData(userCount, deliveriesPerUser);
         long endTime = System.currentTimeMillis();
 
         Map<String, Object> result = Map.of(
+                "mode", "jpa",
                 "userCount", userCount,
                 "deliveriesPerUser", deliveriesPerUser,
                 "totalDeliveries", userCount * deliveriesPerUser,
-                "executionTimeMs", (endTime - startTime)
+                "executionTimeMs", (endTime - startTime),
+                "rowsPerSecond", userCount * deliveriesPerUser * 1000L / Math.max(1, endTime - startTime)
         );
 
         return ResponseEntity.ok(result);
@@ -54,6 +75,26 @@ public class PerformanceController {
         return ResponseEntity.ok(performanceAnalyzer.runPerformanceTests());
     }
 
+    /**
+     * Бенчмарк запросов: прогрев, многократные измерения, перцентили задержек
+     * и пропускная способность при threads параллельных клиентах.
+     * Без параметра query выполняются все тестовые запросы.
+     */
+    @GetMapping("/benchmark")
+    public ResponseEntity<List<BenchmarkResultDTO>> benchmark(
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "5") int warmup,
+            @RequestParam(defaultValue = "20") int iterations,
+            @RequestParam(defaultValue = "1") int threads) {
+        log.info("Запрос на бенчмарк: query={}, warmup={}, iterations={}, threads={}",
+                query, warmup, iterations, threads);
+
+        if (query != null) {
+            return ResponseEntity.ok(List.of(performanceAnalyzer.benchmarkQuery(query, warmup, iterations, threads)));
+        }
+        return ResponseEntity.ok(performanceAnalyzer.runBenchmark(warmup, iterations, threads));
+    }
+
     /**
      * Анализирует конкретный запрос с использованием EXPLAIN ANALYZE
      */
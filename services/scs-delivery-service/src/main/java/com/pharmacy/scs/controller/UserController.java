@@ -1,5 +1,6 @@
 package com.pharmacy.scs.controller;
 
+import com.pharmacy.scs.dto.UserContactDTO;
 import com.pharmacy.scs.dto.UserCreateRequest;
 import com.pharmacy.scs.dto.UserDTO;
 import com.pharmacy.scs.entity.User;
@@ -10,12 +11,17 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final UserService userService;
     private final UserMapper userMapper;
 
@@ -42,4 +48,17 @@ public class UserController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * Пакетный запрос контактных данных пользователей: один SQL-запрос на весь список ID.
+     * Ненайденные ID в ответ не попадают; не более MAX_BATCH_SIZE уникальных ID за запрос
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserContactDTO>> getUsersByIds(@RequestBody List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userService.getUserContacts(uniqueIds));
+    }
 }
@@ -0,0 +1,25 @@
+package com.pharmacy.scs.dto;
+
+import lombok.Data;
+
+/**
+ * Результат многократного прогона запроса: распределение задержек и пропускная способность
+ */
+@Data
+public class BenchmarkResultDTO {
+    private String queryName;
+    private String querySql;
+    private int warmupIterations;
+    private int measurementIterations;
+    private int threads;
+    private long executions;
+    private long rowsPerExecution;
+    private double minMs;
+    private double meanMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+    private double throughputPerSecond;
+    private String error;
+}
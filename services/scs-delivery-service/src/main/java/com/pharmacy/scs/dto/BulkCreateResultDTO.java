@@ -0,0 +1,36 @@
+package com.pharmacy.scs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Результат пакетного создания доставок: итоговые счётчики и исход по каждой позиции в порядке запроса
+ */
+@Data
+public class BulkCreateResultDTO {
+    private int requested;
+    private int created;
+    private int rejected;
+    private List<ItemResult> items;
+
+    public enum Outcome {
+        CREATED,
+        // Номер отслеживания уже есть в БД или повторяется в том же запросе
+        DUPLICATE,
+        USER_NOT_FOUND,
+        // Не заполнены обязательные поля или неизвестный статус
+        INVALID
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ItemResult {
+        private String trackingNumber;
+        private Long deliveryId;
+        private Outcome outcome;
+    }
+}
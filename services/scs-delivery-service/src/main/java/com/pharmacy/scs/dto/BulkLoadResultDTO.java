@@ -0,0 +1,12 @@
+package com.pharmacy.scs.dto;
+
+import lombok.Data;
+
+@Data
+public class BulkLoadResultDTO {
+    private int userCount;
+    private long deliveryCount;
+    private int threads;
+    private long executionTimeMs;
+    private long rowsPerSecond;
+}
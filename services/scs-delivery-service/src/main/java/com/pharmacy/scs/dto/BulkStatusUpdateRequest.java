@@ -0,0 +1,24 @@
+package com.pharmacy.scs.dto;
+
+import com.pharmacy.scs.entity.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Пакетная смена статусов: пары (ID доставки, целевой статус), например подтверждение паллеты
+ */
+@Data
+public class BulkStatusUpdateRequest {
+    private List<Item> items;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private Long deliveryId;
+        private DeliveryStatus status;
+    }
+}
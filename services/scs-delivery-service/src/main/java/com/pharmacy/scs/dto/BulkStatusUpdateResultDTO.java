@@ -0,0 +1,40 @@
+package com.pharmacy.scs.dto;
+
+import com.pharmacy.scs.entity.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Результат пакетной смены статусов: итоговые счётчики и исход по каждой позиции в порядке запроса
+ */
+@Data
+public class BulkStatusUpdateResultDTO {
+    private int requested;
+    private int updated;
+    private int notFound;
+    private int rejected;
+    private List<ItemResult> items;
+
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND,
+        // Переход из текущего статуса доставки в запрошенный не разрешён
+        INVALID_TRANSITION,
+        // Повтор ID в том же запросе: применяется только первое вхождение
+        DUPLICATE,
+        // Не указан ID доставки или статус
+        INVALID
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ItemResult {
+        private Long deliveryId;
+        private DeliveryStatus status;
+        private Outcome outcome;
+    }
+}
@@ -36,4 +36,23 @@ public class DeliveryEvent {
 
         return event;
     }
+
+    /**
+     * Событие по снимку доставки (например, после пакетного JDBC-обновления без загрузки сущностей)
+     */
+    public static DeliveryEvent from(DeliverySnapshot snapshot, String eventType) {
+        Map<String, Object> additionalData = new HashMap<>();
+
+        additionalData.put("userId", snapshot.getUserId());
+        additionalData.put("trackingNumber", snapshot.getTrackingNumber());
+        additionalData.put("deliveryAddress", snapshot.getDeliveryAddress());
+
+        return new DeliveryEvent(
+                eventType,
+                snapshot.getId(),
+                snapshot.getStatus().toString(),
+                LocalDateTime.now(),
+                additionalData
+        );
+    }
 }
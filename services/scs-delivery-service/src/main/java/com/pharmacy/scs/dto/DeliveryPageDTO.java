@@ -0,0 +1,20 @@
+package com.pharmacy.scs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница доставок при keyset-пагинации.
+ * nextCursor передаётся в параметре afterId для получения следующей страницы,
+ * null означает, что страниц больше нет.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeliveryPageDTO {
+    private List<DeliveryDTO> items;
+    private Long nextCursor;
+}
@@ -46,6 +46,23 @@ public class DeliveryResponseDTO {
                 .build();
     }
 
+    public static DeliveryResponseDTO fromSnapshot(DeliverySnapshot delivery) {
+        return DeliveryResponseDTO.builder()
+                .id(delivery.getId())
+                .trackingNumber(delivery.getTrackingNumber())
+                .userId(delivery.getUserId())
+                .deliveryAddress(delivery.getDeliveryAddress())
+                .expectedDeliveryTime(delivery.getExpectedDeliveryTime())
+                .actualDeliveryTime(delivery.getActualDeliveryTime())
+                .status(delivery.getStatus())
+                .statusDescription(getStatusDescription(delivery.getStatus()))
+                .isDelivered(delivery.getStatus() == DeliveryStatus.DELIVERED)
+                .deliveryDuration(calculateDeliveryDuration(
+                        delivery.getExpectedDeliveryTime(),
+                        delivery.getActualDeliveryTime()))
+                .build();
+    }
+
     private static String getStatusDescription(DeliveryStatus status) {
         return switch (status) {
             case PENDING -> "Ожидает отправки";
@@ -0,0 +1,127 @@
+package com.pharmacy.scs.dto;
+
+import com.pharmacy.scs.entity.Delivery;
+import com.pharmacy.scs.entity.DeliveryStatus;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Компактный неизменяемый снимок доставки для хранения в кэше.
+ * Хранит только примитивы (ID, код статуса, время в epoch-миллисекундах)
+ * и строки, не ссылается на сущности Hibernate и безопасен для использования из разных потоков.
+ */
+@EqualsAndHashCode
+@ToString
+public final class DeliverySnapshot {
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final long id;
+    private final String trackingNumber;
+    private final long userId;
+    private final String deliveryAddress;
+    private final long expectedDeliveryTime;
+    private final long actualDeliveryTime;
+    private final byte status;
+    private final long createdAt;
+    private final long updatedAt;
+
+    private DeliverySnapshot(long id, String trackingNumber, long userId, String deliveryAddress,
+                             long expectedDeliveryTime, long actualDeliveryTime, byte status,
+                             long createdAt, long updatedAt) {
+        this.id = id;
+        this.trackingNumber = trackingNumber;
+        this.userId = userId;
+        this.deliveryAddress = deliveryAddress;
+        this.expectedDeliveryTime = expectedDeliveryTime;
+        this.actualDeliveryTime = actualDeliveryTime;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Создаёт снимок из сущности. Для связанного пользователя читается только ID,
+     * поэтому ленивый прокси User не инициализируется.
+     */
+    public static DeliverySnapshot from(Delivery delivery) {
+        return of(
+                delivery.getId(),
+                delivery.getTrackingNumber(),
+                delivery.getUser().getId(),
+                delivery.getDeliveryAddress(),
+                delivery.getExpectedDeliveryTime(),
+                delivery.getActualDeliveryTime(),
+                delivery.getStatus(),
+                delivery.getCreatedAt(),
+                delivery.getUpdatedAt()
+        );
+    }
+
+    /**
+     * Создаёт снимок из отдельных значений (например, из строки JDBC-выборки)
+     */
+    public static DeliverySnapshot of(long id, String trackingNumber, long userId, String deliveryAddress,
+                                      LocalDateTime expectedDeliveryTime, LocalDateTime actualDeliveryTime,
+                                      DeliveryStatus status, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        return new DeliverySnapshot(
+                id,
+                trackingNumber,
+                userId,
+                deliveryAddress,
+                toEpochMilli(expectedDeliveryTime),
+                toEpochMilli(actualDeliveryTime),
+                (byte) status.getCode(),
+                toEpochMilli(createdAt),
+                toEpochMilli(updatedAt)
+        );
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTrackingNumber() {
+        return trackingNumber;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getDeliveryAddress() {
+        return deliveryAddress;
+    }
+
+    public LocalDateTime getExpectedDeliveryTime() {
+        return toLocalDateTime(expectedDeliveryTime);
+    }
+
+    public LocalDateTime getActualDeliveryTime() {
+        return toLocalDateTime(actualDeliveryTime);
+    }
+
+    public DeliveryStatus getStatus() {
+        return DeliveryStatus.fromCode(status);
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return toLocalDateTime(createdAt);
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return toLocalDateTime(updatedAt);
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : NO_TIME;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return epochMilli != NO_TIME ? LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pharmacy.scs.dto;
+
+import com.pharmacy.scs.entity.DeliveryStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Данные страницы отслеживания: только столбцы покрывающего индекса idx_deliveries_tracking_number,
+ * поэтому запрос читает индекс без обращения к таблице (index-only scan)
+ */
+@Data
+@NoArgsConstructor
+public class DeliveryTrackingDTO {
+    private String trackingNumber;
+    private String status;
+    private LocalDateTime expectedDeliveryTime;
+    private LocalDateTime actualDeliveryTime;
+
+    /**
+     * Конструктор JPQL-проекции (DeliveryRepository.findTrackingByTrackingNumber)
+     */
+    public DeliveryTrackingDTO(String trackingNumber, DeliveryStatus status,
+                               LocalDateTime expectedDeliveryTime, LocalDateTime actualDeliveryTime) {
+        this.trackingNumber = trackingNumber;
+        this.status = status.name();
+        this.expectedDeliveryTime = expectedDeliveryTime;
+        this.actualDeliveryTime = actualDeliveryTime;
+    }
+}
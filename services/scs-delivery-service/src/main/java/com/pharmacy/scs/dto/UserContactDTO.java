@@ -0,0 +1,19 @@
+package com.pharmacy.scs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Компактная запись пользователя для пакетного запроса: только контактные данные,
+ * нужные сервису уведомлений
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserContactDTO {
+    private Long id;
+    private String username;
+    private String email;
+    private String phoneNumber;
+}
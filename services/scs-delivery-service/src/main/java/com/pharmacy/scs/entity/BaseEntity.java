@@ -9,8 +9,14 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 public abstract class BaseEntity {
+    /**
+     * ID из последовательности отдельной для каждой сущности (deliveries_seq, users_seq)
+     * с шагом 50 и оптимизатором pooled: Hibernate резервирует блок из 50 ID за один вызов
+     * nextval и может объединять INSERT в JDBC-батчи, что невозможно при IDENTITY.
+     * Миграция существующих таблиц: sql/migration_identity_to_sequence.sql
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(nullable = false, updatable = false)
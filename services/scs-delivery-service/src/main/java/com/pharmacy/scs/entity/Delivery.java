@@ -10,7 +10,14 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 public class Delivery extends BaseEntity {
-    @Column(unique = true, nullable = false)
+    /**
+     * Уникальность номера обеспечивает БД, а не схема Hibernate: в секционированной таблице
+     * (sql/migration_deliveries_partitioning.sql) уникальный индекс только по tracking_number невозможен,
+     * и ddl-auto не должен пытаться его создать. Триггер trg_deliveries_tracking_number резервирует
+     * номер в delivery_tracking_numbers, дубликат завершает INSERT ошибкой unique_violation.
+     * Пакетное создание дополнительно проверяет занятые номера заранее (findExistingTrackingNumbers).
+     */
+    @Column(nullable = false)
     private String trackingNumber;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -20,6 +27,9 @@ public class Delivery extends BaseEntity {
     @Column(nullable = false)
     private String deliveryAddress;
 
+    /**
+     * Ключ секционирования deliveries: запросы с условием по этому полю читают только секции нужных месяцев
+     */
     @Column(nullable = false)
     private LocalDateTime expectedDeliveryTime;
 
@@ -27,5 +37,15 @@ public class Delivery extends BaseEntity {
 
 
     @Column(nullable = false)
+    @Convert(converter = DeliveryStatusConverter.class)
     private DeliveryStatus status;
+
+    /**
+     * Версия для оптимистической блокировки. Смена статуса условным UPDATE (DeliveryJdbcRepository)
+     * тоже увеличивает версию, поэтому сохранение устаревшей сущности через JPA не перезапишет статус.
+     * Значение по умолчанию в БД нужно для строк, вставленных в обход JPA (COPY в BulkDataLoader).
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
 }
@@ -1,5 +1,55 @@
 package com.pharmacy.scs.entity;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Статус доставки. В БД хранится явный код (см. DeliveryStatusConverter), а не порядковый номер константы,
+ * поэтому порядок констант можно менять. Коды совпадают с прежними ordinal — миграция данных не нужна.
+ * Новым статусам назначаются новые коды; существующие коды не меняются.
+ */
 public enum DeliveryStatus {
-    CONFIRMED, COMPLETED, CREATED, PENDING, CANCELLED, DELIVERED, IN_TRANSIT;
+    CONFIRMED(0), COMPLETED(1), CREATED(2), PENDING(3), CANCELLED(4), DELIVERED(5), IN_TRANSIT(6);
+
+    /**
+     * Активные (незавершённые) доставки: по ним строятся частичные индексы (см. DatabaseOptimizer)
+     */
+    public static final Set<DeliveryStatus> ACTIVE =
+            Collections.unmodifiableSet(EnumSet.of(CREATED, PENDING, CONFIRMED, IN_TRANSIT));
+
+    private static final DeliveryStatus[] BY_CODE = new DeliveryStatus[values().length];
+
+    static {
+        for (DeliveryStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
+
+    private final int code;
+
+    DeliveryStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static DeliveryStatus fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Unknown delivery status code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Коды статусов через запятую для подстановки в SQL: status IN (...)
+     */
+    public static String codes(Set<DeliveryStatus> statuses) {
+        return statuses.stream()
+                .map(status -> Integer.toString(status.code))
+                .collect(Collectors.joining(", "));
+    }
 }
@@ -0,0 +1,21 @@
+package com.pharmacy.scs.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Хранит DeliveryStatus в БД как явный код статуса (DeliveryStatus.getCode)
+ */
+@Converter
+public class DeliveryStatusConverter implements AttributeConverter<DeliveryStatus, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(DeliveryStatus status) {
+        return status != null ? status.getCode() : null;
+    }
+
+    @Override
+    public DeliveryStatus convertToEntityAttribute(Integer code) {
+        return code != null ? DeliveryStatus.fromCode(code) : null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.pharmacy.scs.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Событие доставки, ожидающее публикации в Kafka (transactional outbox).
+ * Пишется в той же транзакции, что и изменение доставки, и удаляется после отправки.
+ */
+@Entity
+@Table(name = "delivery_outbox")
+@Getter
+@Setter
+public class OutboxEvent extends BaseEntity {
+    @Column(name = "delivery_id", nullable = false)
+    private Long deliveryId;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    /**
+     * Порядок публикации, назначается БД при INSERT. ID из pooled-последовательности для этого не годится:
+     * каждый экземпляр сервиса заранее резервирует свой блок ID, и более позднее событие доставки
+     * может получить меньший ID. Изменения одной доставки сериализованы блокировкой её строки,
+     * поэтому её события получают возрастающие номера. Миграция: sql/migration_delivery_outbox_order.sql
+     */
+    @Column(insertable = false, updatable = false, columnDefinition = "bigint generated always as identity")
+    private Long sequenceNumber;
+}
@@ -0,0 +1,21 @@
+package com.pharmacy.scs.exception;
+
+import com.pharmacy.scs.entity.DeliveryStatus;
+import lombok.Getter;
+
+/**
+ * Переход доставки из текущего статуса в запрошенный не разрешён (см. DeliveryStatusTransitions)
+ */
+@Getter
+public class InvalidStatusTransitionException extends RuntimeException {
+    private final Long deliveryId;
+    private final DeliveryStatus currentStatus;
+    private final DeliveryStatus targetStatus;
+
+    public InvalidStatusTransitionException(Long deliveryId, DeliveryStatus currentStatus, DeliveryStatus targetStatus) {
+        super("Delivery " + deliveryId + ": transition " + currentStatus + " -> " + targetStatus + " is not allowed");
+        this.deliveryId = deliveryId;
+        this.currentStatus = currentStatus;
+        this.targetStatus = targetStatus;
+    }
+}
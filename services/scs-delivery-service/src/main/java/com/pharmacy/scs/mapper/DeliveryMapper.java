@@ -2,6 +2,7 @@ package com.pharmacy.scs.mapper;
 
 import com.pharmacy.scs.dto.DeliveryCreateRequest;
 import com.pharmacy.scs.dto.DeliveryDTO;
+import com.pharmacy.scs.dto.DeliverySnapshot;
 import com.pharmacy.scs.entity.Delivery;
 import org.mapstruct.*;
 
@@ -11,9 +12,12 @@ public interface DeliveryMapper {
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "actualDeliveryTime", ignore = true)  // Add this line
+    @Mapping(target = "version", ignore = true)
     @Mapping(source = "userId", target = "user.id")
     Delivery toEntity(DeliveryCreateRequest request);
 
     @Mapping(source = "user.id", target = "userId")
     DeliveryDTO toDto(Delivery delivery);
+
+    DeliveryDTO toDto(DeliverySnapshot snapshot);
 }
\ No newline at end of file
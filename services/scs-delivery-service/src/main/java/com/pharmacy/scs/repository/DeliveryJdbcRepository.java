@@ -0,0 +1,214 @@
+package com.pharmacy.scs.repository;
+
+import com.pharmacy.scs.dto.DeliverySnapshot;
+import com.pharmacy.scs.entity.DeliveryStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Доступ к доставкам через JDBC там, где JPA неэффективен:
+ * потоковое чтение больших выборок без загрузки сущностей в контекст персистентности
+ * и смена статусов условным UPDATE (compare-and-set) на порцию ID.
+ */
+@Repository
+public class DeliveryJdbcRepository {
+
+    // Без условия по expected_delivery_time намеренно: это выгрузка всей истории пользователя,
+    // ей нужны все подключённые секции (их число ограничено delivery.partitioning.retention-months),
+    // в каждой строки находятся по idx_deliveries_user_id. Выгрузка за период — SELECT_BY_USER_IN_PERIOD_SQL.
+    private static final String SELECT_BY_USER_SQL = """
+            SELECT id, tracking_number, user_id, delivery_address, expected_delivery_time,
+                   actual_delivery_time, status, created_at, updated_at
+            FROM deliveries
+            WHERE user_id = ?
+            ORDER BY id
+            """;
+
+    private static final String SELECT_BY_USER_IN_PERIOD_SQL = """
+            SELECT id, tracking_number, user_id, delivery_address, expected_delivery_time,
+                   actual_delivery_time, status, created_at, updated_at
+            FROM deliveries
+            WHERE user_id = ? AND expected_delivery_time >= ? AND expected_delivery_time < ?
+            ORDER BY id
+            """;
+
+    private static final String SNAPSHOT_COLUMNS = """
+            id, tracking_number, user_id, delivery_address, expected_delivery_time,
+            actual_delivery_time, status, created_at, updated_at""";
+
+    // Условный UPDATE: статус меняется только у строк, находящихся в одном из допустимых исходных статусов.
+    // Здесь и в остальных запросах по id условия по expected_delivery_time нет: вызывающий знает только id,
+    // а не секцию. Строка находится пробой индекса первичного ключа (id, expected_delivery_time) в каждой
+    // подключённой секции, их число ограничено delivery.partitioning.retention-months.
+    private static final String UPDATE_STATUS_SQL = """
+            UPDATE deliveries
+            SET status = :status, updated_at = :now, version = version + 1
+            WHERE id IN (:ids) AND status IN (:sources)
+            """;
+
+    private static final String COMPLETE_SQL = """
+            UPDATE deliveries
+            SET status = :status, actual_delivery_time = :now, updated_at = :now, version = version + 1
+            WHERE id IN (:ids) AND status IN (:sources)
+            """;
+
+    private static final String LOCK_UPDATABLE_SQL = """
+            SELECT id FROM deliveries
+            WHERE id IN (:ids) AND status IN (:sources)
+            FOR UPDATE
+            """;
+
+    private static final String SELECT_BY_IDS_SQL = "SELECT " + SNAPSHOT_COLUMNS + " FROM deliveries WHERE id IN (:ids)";
+
+    private static final String SELECT_STATUSES_SQL = "SELECT id, status FROM deliveries WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final int fetchSize;
+    private final int bulkChunkSize;
+    private volatile Boolean returningSupported;
+
+    public DeliveryJdbcRepository(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            @Value("${delivery.stream.fetch-size:500}") int fetchSize,
+            @Value("${delivery.bulk.chunk-size:1000}") int bulkChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.bulkChunkSize = bulkChunkSize;
+    }
+
+    /**
+     * Передаёт доставки пользователя в consumer по мере чтения из курсора.
+     * PostgreSQL читает результат порциями по fetchSize строк только внутри транзакции
+     * (autocommit = false), поэтому вызывать метод нужно из транзакционного контекста.
+     */
+    public void streamByUserId(Long userId, Consumer<DeliverySnapshot> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    SELECT_BY_USER_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, userId);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapSnapshot(rs)));
+    }
+
+    /**
+     * То же, что streamByUserId, но только доставки с ожидаемым временем в [from, to):
+     * в секционированной таблице курсор читает лишь секции этого периода
+     */
+    public void streamByUserIdInPeriod(Long userId, LocalDateTime from, LocalDateTime to,
+                                       Consumer<DeliverySnapshot> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    SELECT_BY_USER_IN_PERIOD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, userId);
+            statement.setTimestamp(2, Timestamp.valueOf(from));
+            statement.setTimestamp(3, Timestamp.valueOf(to));
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapSnapshot(rs)));
+    }
+
+    /**
+     * Переводит доставки в статус status порциями по bulkChunkSize ID (compare-and-set):
+     * UPDATE ... WHERE id IN (...) AND status IN (sources) меняет только строки в допустимом исходном статусе,
+     * поэтому конкурирующие изменения не перезаписываются и не нужен SERIALIZABLE.
+     * В PostgreSQL изменённые строки возвращает тот же UPDATE (RETURNING) — один запрос на порцию;
+     * в остальных БД строки сначала блокируются SELECT ... FOR UPDATE, затем обновляются и читаются.
+     * Для COMPLETED заодно проставляется фактическое время доставки, version увеличивается на 1.
+     * Возвращает снимки обновлённых доставок; остальные ID (нет в таблице или недопустимый переход)
+     * в результат не попадают. Вызывать нужно в транзакции, иначе порции фиксируются независимо.
+     */
+    public List<DeliverySnapshot> updateStatus(List<Long> ids, Collection<DeliveryStatus> sources,
+                                               DeliveryStatus status, LocalDateTime now) {
+        List<DeliverySnapshot> updated = new ArrayList<>(ids.size());
+        if (sources.isEmpty()) {
+            return updated;
+        }
+        String sql = status == DeliveryStatus.COMPLETED ? COMPLETE_SQL : UPDATE_STATUS_SQL;
+        List<Integer> sourceValues = sources.stream().map(DeliveryStatus::getCode).toList();
+
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("ids", ids.subList(from, Math.min(from + bulkChunkSize, ids.size())))
+                    .addValue("sources", sourceValues)
+                    .addValue("status", status.getCode())
+                    .addValue("now", Timestamp.valueOf(now));
+
+            if (returningSupported()) {
+                updated.addAll(namedParameterJdbcTemplate.query(
+                        sql + "RETURNING " + SNAPSHOT_COLUMNS, params, (rs, rowNum) -> mapSnapshot(rs)));
+                continue;
+            }
+
+            List<Long> locked = namedParameterJdbcTemplate.queryForList(LOCK_UPDATABLE_SQL, params, Long.class);
+            if (!locked.isEmpty()) {
+                params.addValue("ids", locked);
+                namedParameterJdbcTemplate.update(sql, params);
+                updated.addAll(namedParameterJdbcTemplate.query(
+                        SELECT_BY_IDS_SQL, params, (rs, rowNum) -> mapSnapshot(rs)));
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Текущие статусы доставок по ID порциями по bulkChunkSize; отсутствующих ID в результате нет
+     */
+    public Map<Long, DeliveryStatus> findStatuses(List<Long> ids) {
+        Map<Long, DeliveryStatus> statuses = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            namedParameterJdbcTemplate.query(SELECT_STATUSES_SQL,
+                    Map.of("ids", ids.subList(from, Math.min(from + bulkChunkSize, ids.size()))),
+                    (RowCallbackHandler) rs -> statuses.put(rs.getLong("id"), DeliveryStatus.fromCode(rs.getInt("status"))));
+        }
+        return statuses;
+    }
+
+    private boolean returningSupported() {
+        Boolean supported = returningSupported;
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            returningSupported = supported;
+        }
+        return supported;
+    }
+
+    private static DeliverySnapshot mapSnapshot(ResultSet rs) throws SQLException {
+        return DeliverySnapshot.of(
+                rs.getLong("id"),
+                rs.getString("tracking_number"),
+                rs.getLong("user_id"),
+                rs.getString("delivery_address"),
+                toLocalDateTime(rs.getTimestamp("expected_delivery_time")),
+                toLocalDateTime(rs.getTimestamp("actual_delivery_time")),
+                DeliveryStatus.fromCode(rs.getInt("status")),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("updated_at"))
+        );
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -1,13 +1,68 @@
 package com.pharmacy.scs.repository;
 
+import com.pharmacy.scs.dto.DeliveryTrackingDTO;
 import com.pharmacy.scs.entity.Delivery;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
-    Optional<Delivery> findByTrackingNumber(String trackingNumber);
-    Iterable<Delivery> findByUserId(Long userId);
+    /**
+     * Поиск по номеру среди доставок с ожидаемым временем не раньше since: в секционированной
+     * таблице читаются только секции последних месяцев. Для более старых доставок — ...LessThan.
+     */
+    Optional<Delivery> findByTrackingNumberAndExpectedDeliveryTimeGreaterThanEqual(String trackingNumber,
+                                                                                   LocalDateTime since);
+    Optional<Delivery> findByTrackingNumberAndExpectedDeliveryTimeLessThan(String trackingNumber,
+                                                                           LocalDateTime before);
+
+    /**
+     * Страница отслеживания: выбираются только столбцы покрывающего индекса по tracking_number.
+     * Как и поиск сущности, разделена на недавние и более старые секции.
+     */
+    @Query("SELECT new com.pharmacy.scs.dto.DeliveryTrackingDTO(" +
+            "d.trackingNumber, d.status, d.expectedDeliveryTime, d.actualDeliveryTime) " +
+            "FROM Delivery d WHERE d.trackingNumber = :trackingNumber AND d.expectedDeliveryTime >= :since")
+    Optional<DeliveryTrackingDTO> findRecentTracking(String trackingNumber, LocalDateTime since);
+
+    @Query("SELECT new com.pharmacy.scs.dto.DeliveryTrackingDTO(" +
+            "d.trackingNumber, d.status, d.expectedDeliveryTime, d.actualDeliveryTime) " +
+            "FROM Delivery d WHERE d.trackingNumber = :trackingNumber AND d.expectedDeliveryTime < :before")
+    Optional<DeliveryTrackingDTO> findOlderTracking(String trackingNumber, LocalDateTime before);
+
+    /**
+     * Доставки пользователя с ожидаемым временем не раньше since (секции последних месяцев).
+     * Более старые — ...LessThan, который не читает секции горячего окна.
+     */
+    List<Delivery> findByUserIdAndExpectedDeliveryTimeGreaterThanEqual(Long userId, LocalDateTime since);
+    List<Delivery> findByUserIdAndExpectedDeliveryTimeLessThan(Long userId, LocalDateTime before);
+
+    /**
+     * Keyset-пагинация: следующая страница доставок пользователя после указанного ID.
+     * В отличие от OFFSET стоимость запроса не растёт с номером страницы.
+     * Условия по ключу секционирования нет намеренно: страницы обходят всю историю пользователя
+     * по порядку id, который не связан с месяцем доставки. Для периода — findPageInPeriod.
+     */
+    List<Delivery> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Limit limit);
+
+    /**
+     * Keyset-страница доставок пользователя с ожидаемым временем доставки в [from, to).
+     * Условие по ключу секционирования позволяет PostgreSQL читать только секции нужных месяцев.
+     */
+    @Query("SELECT d FROM Delivery d WHERE d.user.id = :userId AND d.id > :afterId " +
+            "AND d.expectedDeliveryTime >= :from AND d.expectedDeliveryTime < :to ORDER BY d.id")
+    List<Delivery> findPageInPeriod(Long userId, Long afterId, LocalDateTime from, LocalDateTime to, Limit limit);
+
+    /**
+     * Какие из номеров отслеживания уже заняты — одним запросом по уникальному индексу
+     */
+    @Query("SELECT d.trackingNumber FROM Delivery d WHERE d.trackingNumber IN :trackingNumbers")
+    List<String> findExistingTrackingNumbers(Collection<String> trackingNumbers);
 }
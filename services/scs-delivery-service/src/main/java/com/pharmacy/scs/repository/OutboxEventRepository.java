@@ -0,0 +1,31 @@
+package com.pharmacy.scs.repository;
+
+import com.pharmacy.scs.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Захватывает слот worker для текущей транзакции (advisory-блокировка PostgreSQL, снимается при фиксации).
+     * Слот одновременно обрабатывает только один экземпляр ретранслятора во всём кластере.
+     *
+     * @return false, если слот уже обрабатывает другой экземпляр
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockClass, :worker)", nativeQuery = true)
+    boolean tryLockWorkerSlot(@Param("lockClass") int lockClass, @Param("worker") int worker);
+
+    /**
+     * Пачка событий слота worker в порядке записи. Вызывать только под блокировкой слота (tryLockWorkerSlot):
+     * единственный читатель слота не пропускает строки, поэтому события одной доставки (всегда в одном слоте)
+     * публикуются строго по порядку. Индекс idx_delivery_outbox_sequence_number.
+     */
+    @Query(value = "SELECT * FROM delivery_outbox WHERE MOD(delivery_id, :workers) = :worker " +
+            "ORDER BY sequence_number LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("workers") int workers, @Param("worker") int worker, @Param("limit") int limit);
+}
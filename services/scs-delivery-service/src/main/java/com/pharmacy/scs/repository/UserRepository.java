@@ -1,12 +1,29 @@
 package com.pharmacy.scs.repository;
 
+import com.pharmacy.scs.dto.UserContactDTO;
 import com.pharmacy.scs.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    /**
+     * Контактные данные пользователей одним запросом (WHERE id IN ...) без загрузки сущностей
+     */
+    @Query("SELECT new com.pharmacy.scs.dto.UserContactDTO(u.id, u.username, u.email, u.phoneNumber) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserContactDTO> findContactsByIdIn(Collection<Long> ids);
+
+    /**
+     * Какие из переданных ID пользователей существуют — без загрузки сущностей
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
 }
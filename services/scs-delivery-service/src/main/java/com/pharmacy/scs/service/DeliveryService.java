@@ -1,16 +1,33 @@
 package com.pharmacy.scs.service;
 
+import com.pharmacy.scs.dto.BulkCreateResultDTO;
+import com.pharmacy.scs.dto.BulkStatusUpdateRequest;
+import com.pharmacy.scs.dto.BulkStatusUpdateResultDTO;
+import com.pharmacy.scs.dto.DeliveryCreateRequest;
+import com.pharmacy.scs.dto.DeliverySnapshot;
+import com.pharmacy.scs.dto.DeliveryTrackingDTO;
 import com.pharmacy.scs.entity.Delivery;
 import com.pharmacy.scs.entity.DeliveryStatus;
 import com.pharmacy.scs.exception.DeliveryException;
 
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface DeliveryService {
     Delivery createDelivery(Delivery delivery);
-    Optional<Delivery> getDeliveryByTrackingNumber(String trackingNumber);
-    List<Delivery> getDeliveriesByUserId(Long userId);
-    Delivery updateDeliveryStatus(Long deliveryId, DeliveryStatus status);
-    Delivery completeDelivery(Long deliveryId);
+    BulkCreateResultDTO createDeliveries(List<DeliveryCreateRequest> requests);
+    BulkCreateResultDTO createDeliveries(Iterator<DeliveryCreateRequest> requests);
+    Optional<DeliverySnapshot> getDeliveryByTrackingNumber(String trackingNumber);
+    Optional<DeliveryTrackingDTO> getDeliveryTracking(String trackingNumber);
+    List<DeliverySnapshot> getDeliveriesByUserId(Long userId);
+    List<DeliverySnapshot> getDeliveriesPage(Long userId, Long afterId, int limit);
+    List<DeliverySnapshot> getDeliveriesPage(Long userId, LocalDateTime from, LocalDateTime to, Long afterId, int limit);
+    void streamDeliveriesByUserId(Long userId, Consumer<DeliverySnapshot> consumer);
+    void streamDeliveriesByUserId(Long userId, LocalDateTime from, LocalDateTime to, Consumer<DeliverySnapshot> consumer);
+    DeliverySnapshot updateDeliveryStatus(Long deliveryId, DeliveryStatus status);
+    DeliverySnapshot completeDelivery(Long deliveryId);
+    BulkStatusUpdateResultDTO updateDeliveryStatuses(List<BulkStatusUpdateRequest.Item> items);
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.pharmacy.scs.service;
+
+import com.pharmacy.scs.entity.DeliveryStatus;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.pharmacy.scs.entity.DeliveryStatus.*;
+
+/**
+ * Допустимые переходы статусов доставки.
+ * Для каждого целевого статуса хранится множество исходных, из которых в него можно перейти:
+ * оно подставляется в условие UPDATE ... WHERE status IN (...), поэтому проверка и смена статуса
+ * выполняются одним запросом без предварительного чтения.
+ * COMPLETED и CANCELLED конечные: из них переходов нет.
+ */
+public final class DeliveryStatusTransitions {
+
+    private static final Map<DeliveryStatus, Set<DeliveryStatus>> SOURCES = new EnumMap<>(DeliveryStatus.class);
+
+    static {
+        allow(CREATED, PENDING, CONFIRMED, CANCELLED);
+        allow(PENDING, CONFIRMED, IN_TRANSIT, COMPLETED, CANCELLED);
+        allow(CONFIRMED, IN_TRANSIT, COMPLETED, CANCELLED);
+        allow(IN_TRANSIT, DELIVERED, COMPLETED, CANCELLED);
+        allow(DELIVERED, COMPLETED);
+    }
+
+    private DeliveryStatusTransitions() {
+    }
+
+    /**
+     * Статусы, из которых разрешён переход в target (пустое множество для CREATED)
+     */
+    public static Set<DeliveryStatus> sourcesOf(DeliveryStatus target) {
+        return SOURCES.getOrDefault(target, Collections.emptySet());
+    }
+
+    public static boolean isAllowed(DeliveryStatus from, DeliveryStatus to) {
+        return sourcesOf(to).contains(from);
+    }
+
+    private static void allow(DeliveryStatus from, DeliveryStatus... targets) {
+        for (DeliveryStatus target : targets) {
+            SOURCES.computeIfAbsent(target, t -> EnumSet.noneOf(DeliveryStatus.class)).add(from);
+        }
+    }
+}
@@ -5,35 +5,76 @@ import com.pharmacy.scs.exception.KafkaEventException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
 @Slf4j
 public class KafkaDeliveryEventService {
 
     private final KafkaTemplate<String, DeliveryEvent> kafkaTemplate;
+    private final AtomicLong sentCount = new AtomicLong();
 
     @Value("${kafka.topics.delivery-updates}")
     private String deliveryUpdatesTopic;
 
+    // Каждое N-е успешное событие логируется на INFO, остальные — только на DEBUG
+    @Value("${kafka.producer.log-sample-rate:1000}")
+    private long logSampleRate = 1000;
+
     public KafkaDeliveryEventService(KafkaTemplate<String, DeliveryEvent> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
 
 
     public void sendDeliveryEvent(DeliveryEvent event) {
+        send(event);
+    }
+
+    /**
+     * Отправляет пачку событий, не дожидаясь подтверждения каждого:
+     * продюсер объединяет их в батчи по linger.ms / batch.size.
+     *
+     * @return future, завершающийся после подтверждения всех событий брокером
+     */
+    public CompletableFuture<Void> sendDeliveryEvents(Collection<DeliveryEvent> events) {
+        CompletableFuture<?>[] futures = events.stream()
+                .map(this::send)
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
+    }
+
+    private CompletableFuture<SendResult<String, DeliveryEvent>> send(DeliveryEvent event) {
         try {
             String key = event.getDeliveryId().toString();
 
-            kafkaTemplate.send(deliveryUpdatesTopic, key, event)
-                    .thenAccept(result -> log.info("Delivery event sent successfully: {}", event))
-                    .exceptionally(ex -> {
-                        log.error("Failed to send delivery event: {}", event, ex);
-                        return null;
-                    });
+            CompletableFuture<SendResult<String, DeliveryEvent>> future =
+                    kafkaTemplate.send(deliveryUpdatesTopic, key, event);
+            future.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("Failed to send delivery event: {}", event, ex);
+                } else {
+                    logSuccess(event);
+                }
+            });
+            return future;
         } catch (Exception e) {
             log.error("Error while sending delivery event: {}", e);
             throw new KafkaEventException("Failed to send event", e);
         }
     }
+
+    private void logSuccess(DeliveryEvent event) {
+        long count = sentCount.incrementAndGet();
+        if (logSampleRate > 0 && count % logSampleRate == 0) {
+            log.info("Delivery events sent successfully: {} total, last deliveryId={}",
+                    count, event.getDeliveryId());
+        } else if (log.isDebugEnabled()) {
+            log.debug("Delivery event sent successfully: {}", event);
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package com.pharmacy.scs.service;
+
+import com.pharmacy.scs.dto.UserDTO;
+import com.pharmacy.scs.entity.User;
+import com.pharmacy.scs.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Публикует профили пользователей в компактируемый топик user-updates.
+ * Сервис уведомлений строит по нему локальный кэш и не обращается к REST API за каждым событием.
+ */
+@Service
+@Slf4j
+public class KafkaUserEventService {
+
+    private final KafkaTemplate<String, UserDTO> userKafkaTemplate;
+    private final UserMapper userMapper;
+
+    @Value("${kafka.topics.user-updates:user-updates}")
+    private String userUpdatesTopic;
+
+    public KafkaUserEventService(KafkaTemplate<String, UserDTO> userKafkaTemplate, UserMapper userMapper) {
+        this.userKafkaTemplate = userKafkaTemplate;
+        this.userMapper = userMapper;
+    }
+
+    /**
+     * Отправляет текущий профиль пользователя, ключ — ID пользователя.
+     * Ошибка отправки только логируется: кэш потребителя остаётся read-through и загрузит профиль сам
+     */
+    public void sendUserUpdate(User user) {
+        UserDTO userDTO = userMapper.toDto(user);
+        userKafkaTemplate.send(userUpdatesTopic, user.getId().toString(), userDTO)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to send user update for user ID: {}", user.getId(), ex);
+                    } else {
+                        log.debug("User update sent: userId={}, offset={}",
+                                user.getId(), result.getRecordMetadata().offset());
+                    }
+                });
+    }
+}
@@ -0,0 +1,139 @@
+package com.pharmacy.scs.service;
+
+import com.pharmacy.scs.dto.DeliveryEvent;
+import com.pharmacy.scs.entity.OutboxEvent;
+import com.pharmacy.scs.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Фоновая публикация событий из outbox-таблицы в Kafka.
+ * События делятся на parallelism слотов по delivery_id. Каждый worker в своей транзакции
+ * захватывает advisory-блокировку слота (слот обрабатывает один экземпляр сервиса в кластере),
+ * читает пачку строк по порядку записи, отправляет её одним батчем, дожидается подтверждения
+ * брокера и удаляет строки. При ошибке отправки транзакция откатывается и пачка будет отправлена
+ * повторно (at-least-once). outbox.relay.parallelism должен совпадать на всех экземплярах.
+ */
+@Component
+@ConditionalOnProperty(value = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    // Первый ключ advisory-блокировки слота: отличает блокировки outbox от других блокировок в БД
+    static final int WORKER_SLOT_LOCK_CLASS = 0x0B0C;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxService outboxService;
+    private final KafkaDeliveryEventService eventService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int parallelism;
+    private final long sendTimeoutMs;
+    private final ExecutorService workers;
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            OutboxService outboxService,
+            KafkaDeliveryEventService eventService,
+            PlatformTransactionManager transactionManager,
+            @Value("${outbox.relay.batch-size:500}") int batchSize,
+            @Value("${outbox.relay.parallelism:2}") int parallelism,
+            @Value("${outbox.relay.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxService = outboxService;
+        this.eventService = eventService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.workers = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        List<Future<Integer>> futures = new ArrayList<>(parallelism);
+        for (int worker = 0; worker < parallelism; worker++) {
+            int workerIndex = worker;
+            futures.add(workers.submit(() -> drain(workerIndex)));
+        }
+
+        int published = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                published += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("Outbox relay worker failed", e.getCause());
+            }
+        }
+
+        if (published > 0) {
+            log.debug("Опубликовано {} событий из outbox", published);
+        }
+    }
+
+    /**
+     * Отправляет пачки, пока очередь worker не опустеет (пачка неполная) или не случится ошибка
+     */
+    int drain(int worker) {
+        int total = 0;
+        try {
+            int published;
+            do {
+                published = transactionTemplate.execute(status -> publishBatch(worker));
+                total += published;
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Failed to publish outbox batch (worker {}), will retry on next poll", worker, e);
+        }
+        return total;
+    }
+
+    private int publishBatch(int worker) {
+        if (!outboxEventRepository.tryLockWorkerSlot(WORKER_SLOT_LOCK_CLASS, worker)) {
+            log.debug("Слот outbox {} обрабатывает другой экземпляр", worker);
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxEventRepository.claimBatch(parallelism, worker, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<DeliveryEvent> events = batch.stream()
+                .map(outboxService::readEvent)
+                .toList();
+        try {
+            eventService.sendDeliveryEvents(events).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Outbox relay interrupted", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish " + events.size() + " outbox events", e);
+        }
+
+        outboxEventRepository.deleteAllInBatch(batch);
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
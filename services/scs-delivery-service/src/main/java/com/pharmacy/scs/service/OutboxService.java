@@ -0,0 +1,64 @@
+package com.pharmacy.scs.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.scs.dto.DeliveryEvent;
+import com.pharmacy.scs.entity.OutboxEvent;
+import com.pharmacy.scs.exception.KafkaEventException;
+import com.pharmacy.scs.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Запись событий доставки в outbox-таблицу в транзакции бизнес-операции.
+ * В Kafka события публикует OutboxRelay уже после фиксации транзакции,
+ * поэтому отправка не влияет на время ответа, а откат транзакции отменяет и событие.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    // Тот же ObjectMapper, что использует JsonSerializer продюсера: payload совпадает с сообщением в Kafka
+    private static final ObjectMapper OBJECT_MAPPER = JacksonUtils.enhancedObjectMapper();
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(DeliveryEvent event) {
+        outboxEventRepository.save(toOutboxEvent(event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(Collection<DeliveryEvent> events) {
+        List<OutboxEvent> outboxEvents = events.stream()
+                .map(this::toOutboxEvent)
+                .toList();
+        outboxEventRepository.saveAll(outboxEvents);
+    }
+
+    public DeliveryEvent readEvent(OutboxEvent outboxEvent) {
+        try {
+            return OBJECT_MAPPER.readValue(outboxEvent.getPayload(), DeliveryEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new KafkaEventException("Failed to read outbox event " + outboxEvent.getId(), e);
+        }
+    }
+
+    private OutboxEvent toOutboxEvent(DeliveryEvent event) {
+        try {
+            OutboxEvent outboxEvent = new OutboxEvent();
+            outboxEvent.setDeliveryId(event.getDeliveryId());
+            outboxEvent.setEventType(event.getEventType());
+            outboxEvent.setPayload(OBJECT_MAPPER.writeValueAsString(event));
+            return outboxEvent;
+        } catch (JsonProcessingException e) {
+            throw new KafkaEventException("Failed to serialize delivery event", e);
+        }
+    }
+}
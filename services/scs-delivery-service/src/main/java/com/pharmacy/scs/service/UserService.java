@@ -1,12 +1,16 @@
 package com.pharmacy.scs.service;
 
+import com.pharmacy.scs.dto.UserContactDTO;
 import com.pharmacy.scs.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserService {
     User createUser(User user);
     Optional<User> getUserByEmail(String email);
     Optional<User> getUserById(Long id);
+    List<UserContactDTO> getUserContacts(Collection<Long> ids);
 }
 
@@ -1,84 +1,484 @@
 package com.pharmacy.scs.service.impl;
 
+import com.pharmacy.scs.dto.BulkCreateResultDTO;
+import com.pharmacy.scs.dto.BulkStatusUpdateRequest;
+import com.pharmacy.scs.dto.BulkStatusUpdateResultDTO;
+import com.pharmacy.scs.dto.BulkStatusUpdateResultDTO.ItemResult;
+import com.pharmacy.scs.dto.BulkStatusUpdateResultDTO.Outcome;
+import com.pharmacy.scs.dto.DeliveryCreateRequest;
 import com.pharmacy.scs.dto.DeliveryEvent;
+import com.pharmacy.scs.dto.DeliverySnapshot;
+import com.pharmacy.scs.dto.DeliveryTrackingDTO;
 import com.pharmacy.scs.entity.Delivery;
 import com.pharmacy.scs.entity.DeliveryStatus;
 import com.pharmacy.scs.exception.DeliveryNotFoundException;
+import com.pharmacy.scs.exception.InvalidStatusTransitionException;
+import com.pharmacy.scs.repository.DeliveryJdbcRepository;
 import com.pharmacy.scs.repository.DeliveryRepository;
+import com.pharmacy.scs.repository.UserRepository;
 import com.pharmacy.scs.service.DeliveryService;
-import com.pharmacy.scs.service.KafkaDeliveryEventService;
+import com.pharmacy.scs.service.DeliveryStatusTransitions;
+import com.pharmacy.scs.service.OutboxService;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
-import org.apache.kafka.common.errors.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DeliveryServiceImpl implements DeliveryService {
+    private static final int MAX_TRANSITION_ATTEMPTS = 3;
+
     private final DeliveryRepository deliveryRepository;
-    private final KafkaDeliveryEventService eventService;
+    private final OutboxService outboxService;
+    private final DeliveryJdbcRepository deliveryJdbcRepository;
+    private final CacheManager cacheManager;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+
+    /**
+     * Размер порции при пакетном создании доставок: после каждой порции контекст персистентности
+     * сбрасывается в БД и очищается. Кратно hibernate.jdbc.batch_size, чтобы INSERT уходили полными батчами.
+     */
+    @Value("${delivery.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    /**
+     * Горячее окно частых запросов в месяцах: список доставок пользователя и поиск по номеру
+     * читают секции deliveries с начала месяца (текущий - hotWindowMonths) и позже
+     */
+    @Value("${delivery.partitioning.hot-window-months:6}")
+    private int hotWindowMonths;
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    @CacheEvict(value = {"userDeliveries", "deliveryByTracking"}, allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "userDeliveries", key = "#result.user.id"),
+            @CacheEvict(value = "deliveryByTracking", key = "#result.trackingNumber")
+    })
     public Delivery createDelivery(Delivery request) {
         Delivery delivery = deliveryRepository.save(request);
 
-        // Отправляем событие о создании
-        eventService.sendDeliveryEvent(
+        // Событие о создании публикуется через outbox после фиксации транзакции
+        outboxService.enqueue(
                 DeliveryEvent.from(delivery, "CREATED")
         );
 
         return delivery;
     }
 
+    /**
+     * Пакетное создание доставок (импорт заказов). Позиции обрабатываются порциями по bulkChunkSize:
+     * занятые номера отслеживания и существование пользователей проверяются одним запросом на порцию,
+     * INSERT уходят JDBC-батчами, события пишутся в outbox одним пакетом на порцию.
+     * Кэши очищаются один раз на весь запрос. Невалидные позиции пропускаются и не откатывают остальные.
+     */
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BulkCreateResultDTO createDeliveries(List<DeliveryCreateRequest> requests) {
+        return createDeliveries(requests.iterator());
+    }
+
+    /**
+     * То же для позиций, читаемых по мере обработки (NDJSON): в памяти держится одна порция запросов.
+     * Исключение итератора (например, некорректная строка) откатывает весь пакет.
+     */
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BulkCreateResultDTO createDeliveries(Iterator<DeliveryCreateRequest> requests) {
+        List<BulkCreateResultDTO.ItemResult> results = new ArrayList<>();
+        Set<String> seenTrackingNumbers = new HashSet<>();
+        Set<Object> userIds = new HashSet<>();
+        List<DeliveryCreateRequest> chunk = new ArrayList<>(bulkChunkSize);
+
+        while (requests.hasNext()) {
+            chunk.add(requests.next());
+            if (chunk.size() == bulkChunkSize) {
+                results.addAll(createChunk(chunk, seenTrackingNumbers, userIds));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(createChunk(chunk, seenTrackingNumbers, userIds));
+        }
+
+        Set<Object> trackingNumbers = new HashSet<>();
+        for (BulkCreateResultDTO.ItemResult item : results) {
+            if (item.getOutcome() == BulkCreateResultDTO.Outcome.CREATED) {
+                trackingNumbers.add(item.getTrackingNumber());
+            }
+        }
+        // Отсутствие доставки по номеру тоже кэшируется, поэтому очищаются и новые номера
+        evict("userDeliveries", userIds);
+        evict("deliveryByTracking", trackingNumbers);
+
+        BulkCreateResultDTO result = new BulkCreateResultDTO();
+        result.setRequested(results.size());
+        result.setCreated(trackingNumbers.size());
+        result.setRejected(results.size() - result.getCreated());
+        result.setItems(results);
+        return result;
+    }
+
+    /**
+     * @param createdUserIds дополняется пользователями созданных доставок (для очистки кэша)
+     */
+    private List<BulkCreateResultDTO.ItemResult> createChunk(List<DeliveryCreateRequest> chunk,
+                                                             Set<String> seenTrackingNumbers,
+                                                             Set<Object> createdUserIds) {
+        List<BulkCreateResultDTO.ItemResult> results = new ArrayList<>(chunk.size());
+        List<Integer> candidates = new ArrayList<>(chunk.size());
+        for (DeliveryCreateRequest request : chunk) {
+            BulkCreateResultDTO.Outcome outcome = null;
+            if (!isValid(request)) {
+                outcome = BulkCreateResultDTO.Outcome.INVALID;
+            } else if (!seenTrackingNumbers.add(request.getTrackingNumber())) {
+                outcome = BulkCreateResultDTO.Outcome.DUPLICATE;
+            } else {
+                candidates.add(results.size());
+            }
+            results.add(new BulkCreateResultDTO.ItemResult(
+                    request != null ? request.getTrackingNumber() : null, null, outcome));
+        }
+        if (candidates.isEmpty()) {
+            return results;
+        }
+
+        Set<String> takenTrackingNumbers = new HashSet<>(deliveryRepository.findExistingTrackingNumbers(
+                candidates.stream().map(i -> chunk.get(i).getTrackingNumber()).toList()));
+        Set<Long> knownUserIds = new HashSet<>(userRepository.findExistingIds(
+                candidates.stream().map(i -> chunk.get(i).getUserId()).collect(Collectors.toSet())));
+
+        List<Delivery> deliveries = new ArrayList<>(candidates.size());
+        List<BulkCreateResultDTO.ItemResult> createdResults = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            DeliveryCreateRequest request = chunk.get(i);
+            BulkCreateResultDTO.ItemResult result = results.get(i);
+            if (takenTrackingNumbers.contains(request.getTrackingNumber())) {
+                result.setOutcome(BulkCreateResultDTO.Outcome.DUPLICATE);
+            } else if (!knownUserIds.contains(request.getUserId())) {
+                result.setOutcome(BulkCreateResultDTO.Outcome.USER_NOT_FOUND);
+            } else {
+                deliveries.add(toEntity(request));
+                createdResults.add(result);
+                createdUserIds.add(request.getUserId());
+            }
+        }
+
+        if (!deliveries.isEmpty()) {
+            List<Delivery> saved = deliveryRepository.saveAll(deliveries);
+            List<DeliveryEvent> events = new ArrayList<>(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                createdResults.get(i).setDeliveryId(saved.get(i).getId());
+                createdResults.get(i).setOutcome(BulkCreateResultDTO.Outcome.CREATED);
+                events.add(DeliveryEvent.from(saved.get(i), "CREATED"));
+            }
+            outboxService.enqueueAll(events);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        return results;
+    }
+
+    private static boolean isValid(DeliveryCreateRequest request) {
+        return request != null
+                && request.getTrackingNumber() != null && !request.getTrackingNumber().isBlank()
+                && request.getUserId() != null
+                && request.getDeliveryAddress() != null && !request.getDeliveryAddress().isBlank()
+                && request.getExpectedDeliveryTime() != null
+                && isKnownStatus(request.getStatus());
+    }
+
+    private static boolean isKnownStatus(String status) {
+        for (DeliveryStatus value : DeliveryStatus.values()) {
+            if (value.name().equals(status)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Delivery toEntity(DeliveryCreateRequest request) {
+        Delivery delivery = new Delivery();
+        delivery.setTrackingNumber(request.getTrackingNumber());
+        // Ссылка по ID без SELECT: существование пользователя уже проверено
+        delivery.setUser(userRepository.getReferenceById(request.getUserId()));
+        delivery.setDeliveryAddress(request.getDeliveryAddress());
+        delivery.setExpectedDeliveryTime(request.getExpectedDeliveryTime());
+        delivery.setStatus(DeliveryStatus.valueOf(request.getStatus()));
+        return delivery;
+    }
+
+    /**
+     * Сначала ищет среди доставок горячего окна (секции последних месяцев),
+     * затем, если не найдено, в более старых секциях
+     */
     @Override
     @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     @Cacheable(value = "deliveryByTracking", key = "#trackingNumber")
-    public Optional<Delivery> getDeliveryByTrackingNumber(String trackingNumber) {
-        return deliveryRepository.findByTrackingNumber(trackingNumber);
+    public Optional<DeliverySnapshot> getDeliveryByTrackingNumber(String trackingNumber) {
+        LocalDateTime since = hotWindowStart();
+        return deliveryRepository.findByTrackingNumberAndExpectedDeliveryTimeGreaterThanEqual(trackingNumber, since)
+                .or(() -> deliveryRepository.findByTrackingNumberAndExpectedDeliveryTimeLessThan(trackingNumber, since))
+                .map(DeliverySnapshot::from);
     }
 
+    /**
+     * Статус доставки для страницы отслеживания: проекция читается из покрывающего индекса,
+     * сущность не загружается. Не кэшируется, поэтому всегда отражает текущий статус.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public Optional<DeliveryTrackingDTO> getDeliveryTracking(String trackingNumber) {
+        LocalDateTime since = hotWindowStart();
+        return deliveryRepository.findRecentTracking(trackingNumber, since)
+                .or(() -> deliveryRepository.findOlderTracking(trackingNumber, since));
+    }
+
+    /**
+     * Все доставки пользователя: сначала горячее окно, затем более старые секции.
+     * Оба запроса ограничены по ключу секционирования, а результат не зависит от границы окна,
+     * поэтому кэш по userId не устаревает при её сдвиге в начале месяца.
+     */
     @Override
     @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     @Cacheable(value = "userDeliveries", key = "#userId")
-    public List<Delivery> getDeliveriesByUserId(Long userId) {
-        return (List<Delivery>) deliveryRepository.findByUserId(userId);
+    public List<DeliverySnapshot> getDeliveriesByUserId(Long userId) {
+        LocalDateTime since = hotWindowStart();
+        List<DeliverySnapshot> deliveries = new ArrayList<>();
+        deliveryRepository.findByUserIdAndExpectedDeliveryTimeGreaterThanEqual(userId, since).stream()
+                .map(DeliverySnapshot::from)
+                .forEach(deliveries::add);
+        deliveryRepository.findByUserIdAndExpectedDeliveryTimeLessThan(userId, since).stream()
+                .map(DeliverySnapshot::from)
+                .forEach(deliveries::add);
+        return deliveries;
     }
 
+    /**
+     * Начало горячего окна выровнено по началу месяца, то есть по границе секции
+     */
+    private LocalDateTime hotWindowStart() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(hotWindowMonths).atStartOfDay();
+    }
+
+    /**
+     * Страница доставок пользователя с ID больше afterId (keyset-пагинация), не кэшируется
+     */
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
-    @CacheEvict(value = {"userDeliveries", "deliveryByTracking"}, allEntries = true)
-    public Delivery updateDeliveryStatus(Long deliveryId, DeliveryStatus status) {
-        Delivery delivery = deliveryRepository.findById(deliveryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery not found"));
-        delivery.setStatus(status);
-        return deliveryRepository.save(delivery);
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public List<DeliverySnapshot> getDeliveriesPage(Long userId, Long afterId, int limit) {
+        return deliveryRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(
+                        userId, afterId != null ? afterId : 0L, Limit.of(limit)).stream()
+                .map(DeliverySnapshot::from)
+                .toList();
     }
 
+    /**
+     * Страница доставок пользователя с ожидаемым временем доставки в [from, to):
+     * в секционированной таблице читаются только секции этого периода
+     */
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    @CacheEvict(value = {"userDeliveries", "deliveryByTracking"}, allEntries = true)
-    public Delivery completeDelivery(Long deliveryId) {
-        Delivery delivery = deliveryRepository.findById(deliveryId)
-                .orElseThrow(() -> new DeliveryNotFoundException(deliveryId));
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public List<DeliverySnapshot> getDeliveriesPage(Long userId, LocalDateTime from, LocalDateTime to,
+                                                    Long afterId, int limit) {
+        return deliveryRepository.findPageInPeriod(
+                        userId, afterId != null ? afterId : 0L, from, to, Limit.of(limit)).stream()
+                .map(DeliverySnapshot::from)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public void streamDeliveriesByUserId(Long userId, Consumer<DeliverySnapshot> consumer) {
+        deliveryJdbcRepository.streamByUserId(userId, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public void streamDeliveriesByUserId(Long userId, LocalDateTime from, LocalDateTime to,
+                                         Consumer<DeliverySnapshot> consumer) {
+        deliveryJdbcRepository.streamByUserIdInPeriod(userId, from, to, consumer);
+    }
 
-        delivery.setStatus(DeliveryStatus.COMPLETED);
-        delivery.setActualDeliveryTime(LocalDateTime.now());
-        delivery = deliveryRepository.save(delivery);
+    /**
+     * Смена статуса одним условным UPDATE (compare-and-set) вместо findById + save:
+     * конкурирующие запросы не перезаписывают друг друга, недопустимый переход отклоняется.
+     * Событие то же, что и при пакетной смене: COMPLETED для завершения, иначе UPDATED.
+     */
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Caching(evict = {
+            @CacheEvict(value = "userDeliveries", key = "#result.userId"),
+            @CacheEvict(value = "deliveryByTracking", key = "#result.trackingNumber")
+    })
+    public DeliverySnapshot updateDeliveryStatus(Long deliveryId, DeliveryStatus status) {
+        DeliverySnapshot delivery = transition(deliveryId, status);
+
+        // Событие о смене статуса публикуется через outbox после фиксации транзакции
+        outboxService.enqueue(toStatusEvent(delivery));
+
+        return delivery;
+    }
+
+    /**
+     * Завершение доставки тем же условным UPDATE: уровень READ_COMMITTED достаточен,
+     * так как проверка исходного статуса и запись выполняются одним запросом,
+     * и одновременные подтверждения не приводят к ошибкам сериализации
+     */
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Caching(evict = {
+            @CacheEvict(value = "userDeliveries", key = "#result.userId"),
+            @CacheEvict(value = "deliveryByTracking", key = "#result.trackingNumber")
+    })
+    public DeliverySnapshot completeDelivery(Long deliveryId) {
+        DeliverySnapshot delivery = transition(deliveryId, DeliveryStatus.COMPLETED);
 
-        // Отправляем событие о завершении
-        DeliveryEvent event = DeliveryEvent.from(delivery, "COMPLETED");
-        event.getAdditionalData().put("completedAt", delivery.getActualDeliveryTime());
-        eventService.sendDeliveryEvent(event);
+        // Событие о завершении публикуется через outbox после фиксации транзакции
+        outboxService.enqueue(toStatusEvent(delivery));
 
         return delivery;
     }
+
+    /**
+     * Переводит доставку в статус target условным UPDATE. Если строка не изменилась, читается текущий статус:
+     * нет доставки — DeliveryNotFoundException, переход запрещён — InvalidStatusTransitionException.
+     * Если переход из текущего статуса допустим, статус успели изменить между UPDATE и чтением —
+     * попытка повторяется, но не более MAX_TRANSITION_ATTEMPTS раз.
+     */
+    private DeliverySnapshot transition(Long deliveryId, DeliveryStatus target) {
+        Set<DeliveryStatus> sources = DeliveryStatusTransitions.sourcesOf(target);
+        for (int attempt = 1; attempt <= MAX_TRANSITION_ATTEMPTS; attempt++) {
+            List<DeliverySnapshot> updated = deliveryJdbcRepository.updateStatus(
+                    List.of(deliveryId), sources, target, LocalDateTime.now());
+            if (!updated.isEmpty()) {
+                return updated.get(0);
+            }
+
+            DeliveryStatus current = deliveryJdbcRepository.findStatuses(List.of(deliveryId)).get(deliveryId);
+            if (current == null) {
+                throw new DeliveryNotFoundException(deliveryId);
+            }
+            if (!DeliveryStatusTransitions.isAllowed(current, target)) {
+                throw new InvalidStatusTransitionException(deliveryId, current, target);
+            }
+        }
+        throw new OptimisticLockingFailureException("Delivery " + deliveryId + " status changed concurrently, "
+                + MAX_TRANSITION_ATTEMPTS + " attempts to set " + target + " failed");
+    }
+
+    /**
+     * Пакетная смена статусов: доставки группируются по целевому статусу и обновляются
+     * условным set-based UPDATE порциями (только из допустимых исходных статусов),
+     * события всех изменённых доставок записываются в outbox одним пакетом.
+     * Повтор ID в запросе не применяется (действует первое вхождение), позиции без ID или статуса отклоняются.
+     */
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BulkStatusUpdateResultDTO updateDeliveryStatuses(List<BulkStatusUpdateRequest.Item> items) {
+        Map<Long, DeliveryStatus> targets = new LinkedHashMap<>();
+        List<ItemResult> results = new ArrayList<>(items.size());
+        for (BulkStatusUpdateRequest.Item item : items) {
+            Outcome outcome = null;
+            if (item == null || item.getDeliveryId() == null || item.getStatus() == null) {
+                outcome = Outcome.INVALID;
+            } else if (targets.putIfAbsent(item.getDeliveryId(), item.getStatus()) != null) {
+                outcome = Outcome.DUPLICATE;
+            }
+            results.add(item == null
+                    ? new ItemResult(null, null, outcome)
+                    : new ItemResult(item.getDeliveryId(), item.getStatus(), outcome));
+        }
+
+        Map<DeliveryStatus, List<Long>> idsByStatus = new EnumMap<>(DeliveryStatus.class);
+        targets.forEach((id, status) -> idsByStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(id));
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> updatedIds = new HashSet<>();
+        List<DeliveryEvent> events = new ArrayList<>(targets.size());
+        Set<Object> userIds = new HashSet<>();
+        Set<Object> trackingNumbers = new HashSet<>();
+
+        idsByStatus.forEach((status, ids) -> {
+            for (DeliverySnapshot snapshot : deliveryJdbcRepository.updateStatus(
+                    ids, DeliveryStatusTransitions.sourcesOf(status), status, now)) {
+                updatedIds.add(snapshot.getId());
+                userIds.add(snapshot.getUserId());
+                trackingNumbers.add(snapshot.getTrackingNumber());
+                events.add(toStatusEvent(snapshot));
+            }
+        });
+
+        // События публикуются через outbox после фиксации транзакции, кэши очищаются тогда же
+        outboxService.enqueueAll(events);
+        evict("userDeliveries", userIds);
+        evict("deliveryByTracking", trackingNumbers);
+
+        // Не изменённые доставки: либо их нет, либо переход из текущего статуса запрещён
+        List<Long> notUpdatedIds = targets.keySet().stream()
+                .filter(id -> !updatedIds.contains(id))
+                .toList();
+        Set<Long> existingIds = notUpdatedIds.isEmpty()
+                ? Set.of()
+                : deliveryJdbcRepository.findStatuses(notUpdatedIds).keySet();
+
+        BulkStatusUpdateResultDTO result = new BulkStatusUpdateResultDTO();
+        for (ItemResult itemResult : results) {
+            if (itemResult.getOutcome() == null) {
+                Long deliveryId = itemResult.getDeliveryId();
+                itemResult.setOutcome(updatedIds.contains(deliveryId) ? Outcome.UPDATED
+                        : existingIds.contains(deliveryId) ? Outcome.INVALID_TRANSITION
+                        : Outcome.NOT_FOUND);
+            }
+            switch (itemResult.getOutcome()) {
+                case UPDATED -> result.setUpdated(result.getUpdated() + 1);
+                case NOT_FOUND -> result.setNotFound(result.getNotFound() + 1);
+                default -> result.setRejected(result.getRejected() + 1);
+            }
+        }
+        result.setRequested(items.size());
+        result.setItems(results);
+        return result;
+    }
+
+    private static DeliveryEvent toStatusEvent(DeliverySnapshot snapshot) {
+        if (snapshot.getStatus() != DeliveryStatus.COMPLETED) {
+            return DeliveryEvent.from(snapshot, "UPDATED");
+        }
+        DeliveryEvent event = DeliveryEvent.from(snapshot, "COMPLETED");
+        event.getAdditionalData().put("completedAt", snapshot.getActualDeliveryTime());
+        return event;
+    }
+
+    private void evict(String cacheName, Set<Object> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            keys.forEach(cache::evict);
+        }
+    }
 }
\ No newline at end of file
@@ -1,21 +1,29 @@
 package com.pharmacy.scs.service.impl;
 
+import com.pharmacy.scs.dto.UserContactDTO;
 import com.pharmacy.scs.entity.User;
 import com.pharmacy.scs.repository.UserRepository;
+import com.pharmacy.scs.service.KafkaUserEventService;
 import com.pharmacy.scs.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final KafkaUserEventService userEventService;
 
     @Override
     public User createUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userEventService.sendUserUpdate(savedUser);
+        return savedUser;
     }
 
     @Override
@@ -27,4 +35,10 @@ public class UserServiceImpl implements UserService {
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserContactDTO> getUserContacts(Collection<Long> ids) {
+        return ids.isEmpty() ? List.of() : userRepository.findContactsByIdIn(ids);
+    }
 }
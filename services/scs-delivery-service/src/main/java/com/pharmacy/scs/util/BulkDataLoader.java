@@ -0,0 +1,253 @@
+package com.pharmacy.scs.util;
+
+import com.pharmacy.scs.dto.BulkLoadResultDTO;
+import com.pharmacy.scs.entity.DeliveryStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Массовая загрузка тестовых данных в PostgreSQL через COPY ... FROM STDIN (CSV).
+ * Строки генерируются порциями и сразу пишутся в поток COPY, не создавая сущностей JPA.
+ * Порции обрабатываются параллельно, каждая — в своём соединении и своей транзакции.
+ */
+@Component
+@Slf4j
+public class BulkDataLoader {
+
+    // Шаг последовательностей совпадает с allocationSize Hibernate (см. BaseEntity)
+    static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private static final String COPY_USERS_SQL =
+            "COPY users (id, username, email, password, phone_number, role, created_at, updated_at) " +
+                    "FROM STDIN WITH (FORMAT csv)";
+    private static final String COPY_DELIVERIES_SQL =
+            "COPY deliveries (id, tracking_number, user_id, delivery_address, expected_delivery_time, " +
+                    "actual_delivery_time, status, created_at, updated_at) FROM STDIN WITH (FORMAT csv)";
+    private static final String RESERVE_IDS_SQL = "SELECT nextval(?) FROM generate_series(1, ?)";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final int chunkSize;
+    private final int threads;
+
+    public BulkDataLoader(
+            DataSource dataSource,
+            @Value("${delivery.bulk-load.chunk-size:50000}") int chunkSize,
+            @Value("${delivery.bulk-load.threads:4}") int threads) {
+        this.dataSource = dataSource;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+    }
+
+    /**
+     * Загружает пользователей и их доставки
+     *
+     * @param userCount количество пользователей
+     * @param deliveriesPerUser количество доставок на пользователя
+     * @return количество строк, время загрузки и скорость в строках в секунду
+     */
+    public BulkLoadResultDTO load(int userCount, int deliveriesPerUser) {
+        log.info("Массовая загрузка через COPY: {} пользователей, {} доставок на пользователя, {} потоков",
+                userCount, deliveriesPerUser, threads);
+
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long[] userIds = loadUsers(executor, userCount);
+            long deliveryCount = loadDeliveries(executor, userIds, deliveriesPerUser);
+            long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+            BulkLoadResultDTO result = new BulkLoadResultDTO();
+            result.setUserCount(userCount);
+            result.setDeliveryCount(deliveryCount);
+            result.setThreads(threads);
+            result.setExecutionTimeMs(elapsedMs);
+            result.setRowsPerSecond((userCount + deliveryCount) * 1000 / Math.max(1, elapsedMs));
+
+            log.info("Массовая загрузка завершена: {} пользователей, {} доставок за {} мс ({} строк/с)",
+                    userCount, deliveryCount, elapsedMs, result.getRowsPerSecond());
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] loadUsers(ExecutorService executor, int userCount) {
+        long[] userIds = new long[userCount];
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int from = 0; from < userCount; from += chunkSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(from + chunkSize, userCount);
+            futures.add(executor.submit(() -> copyChunk("users_seq", COPY_USERS_SQL, chunkTo - chunkFrom,
+                    (ids, writer) -> {
+                        LocalDateTime now = LocalDateTime.now();
+                        Random random = ThreadLocalRandom.current();
+                        for (int i = 0; i < ids.length; i++) {
+                            userIds[chunkFrom + i] = ids[i];
+                            writeUser(writer, ids[i], chunkFrom + i, now, random);
+                        }
+                    })));
+        }
+
+        awaitAll(futures);
+        return userIds;
+    }
+
+    private long loadDeliveries(ExecutorService executor, long[] userIds, int deliveriesPerUser) {
+        long total = (long) userIds.length * deliveriesPerUser;
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (long from = 0; from < total; from += chunkSize) {
+            long chunkFrom = from;
+            int rows = (int) Math.min(chunkSize, total - from);
+            futures.add(executor.submit(() -> copyChunk("deliveries_seq", COPY_DELIVERIES_SQL, rows,
+                    (ids, writer) -> {
+                        LocalDateTime now = LocalDateTime.now();
+                        Random random = ThreadLocalRandom.current();
+                        for (int i = 0; i < ids.length; i++) {
+                            long userId = userIds[(int) ((chunkFrom + i) / deliveriesPerUser)];
+                            writeDelivery(writer, ids[i], userId, now, random);
+                        }
+                    })));
+        }
+
+        awaitAll(futures);
+        return total;
+    }
+
+    /**
+     * Резервирует ID из последовательности и передаёт порцию в PostgreSQL одной командой COPY.
+     * Порция фиксируется отдельной транзакцией, поэтому сбой затрагивает только её.
+     */
+    private Void copyChunk(String sequence, String copySql, int rows, ChunkWriter chunkWriter)
+            throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long[] ids = expandIdBlocks(reserveIdBlocks(connection, sequence, rows), rows);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new PGCopyOutputStream(pgConnection, copySql, COPY_BUFFER_SIZE), StandardCharsets.UTF_8),
+                        COPY_BUFFER_SIZE)) {
+                    chunkWriter.write(ids, writer);
+                }
+
+                connection.commit();
+                log.debug("Загружена порция из {} строк ({})", rows, sequence);
+                return null;
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Вызывает nextval столько раз, сколько блоков по SEQUENCE_ALLOCATION_SIZE нужно для rows строк.
+     * Блоки резервируются так же, как это делает Hibernate, поэтому не пересекаются с ID,
+     * выданными приложением
+     */
+    private long[] reserveIdBlocks(Connection connection, String sequence, int rows) throws SQLException {
+        int blocks = (rows + SEQUENCE_ALLOCATION_SIZE - 1) / SEQUENCE_ALLOCATION_SIZE;
+        long[] hiValues = new long[blocks];
+
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_IDS_SQL)) {
+            statement.setString(1, sequence);
+            statement.setInt(2, blocks);
+            try (ResultSet rs = statement.executeQuery()) {
+                int i = 0;
+                while (rs.next()) {
+                    hiValues[i++] = rs.getLong(1);
+                }
+            }
+        }
+        return hiValues;
+    }
+
+    /**
+     * Разворачивает зарезервированные блоки в список ID: значение последовательности X
+     * (оптимизатор pooled) соответствует блоку X - 49 .. X
+     */
+    static long[] expandIdBlocks(long[] hiValues, int rows) {
+        long[] ids = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            long hi = hiValues[i / SEQUENCE_ALLOCATION_SIZE];
+            ids[i] = hi - SEQUENCE_ALLOCATION_SIZE + 1 + i % SEQUENCE_ALLOCATION_SIZE;
+        }
+        return ids;
+    }
+
+    static void writeUser(Writer writer, long id, int index, LocalDateTime now, Random random) throws IOException {
+        String username = "bulk_user_" + id;
+        writer.append(Long.toString(id)).append(',')
+                .append(username).append(',')
+                .append(username).append("@example.com,")
+                .append("password").append(Integer.toString(index)).append(',')
+                .append("+7").append(Long.toString(9000000000L + random.nextInt(999999999))).append(',')
+                .append("USER,")
+                .append(now.toString()).append(',')
+                .append(now.toString()).append('\n');
+    }
+
+    static void writeDelivery(Writer writer, long id, long userId, LocalDateTime now, Random random)
+            throws IOException {
+        DeliveryStatus status = DataGenerator.randomStatus(random);
+        LocalDateTime expectedDelivery = DataGenerator.randomExpectedDeliveryTime(now, random);
+        LocalDateTime actualDelivery = DataGenerator.randomActualDeliveryTime(status, expectedDelivery, random);
+
+        writer.append(Long.toString(id)).append(',')
+                .append("TNB").append(Long.toString(id)).append(',')
+                .append(Long.toString(userId)).append(',')
+                .append('"').append(DataGenerator.randomAddress(random)).append("\",")
+                .append(expectedDelivery.toString()).append(',')
+                // Пустое поле без кавычек в CSV-режиме COPY — это NULL
+                .append(actualDelivery != null ? actualDelivery.toString() : "").append(',')
+                .append(Integer.toString(status.getCode())).append(',')
+                .append(now.toString()).append(',')
+                .append(now.toString()).append('\n');
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Массовая загрузка прервана", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Ошибка массовой загрузки", e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(long[] ids, Writer writer) throws IOException;
+    }
+}
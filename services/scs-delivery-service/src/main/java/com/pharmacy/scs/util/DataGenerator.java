@@ -5,8 +5,10 @@ import com.pharmacy.scs.entity.DeliveryStatus;
 import com.pharmacy.scs.entity.User;
 import com.pharmacy.scs.repository.DeliveryRepository;
 import com.pharmacy.scs.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,8 +25,19 @@ public class DataGenerator {
 
     private final UserRepository userRepository;
     private final DeliveryRepository deliveryRepository;
+    private final EntityManager entityManager;
     private static final Random random = new Random();
 
+    private static final String[] STREETS = {"Ленина", "Пушкина", "Гагарина", "Мира", "Советская", "Октябрьская", "Строителей"};
+    private static final String[] CITIES = {"Москва", "Санкт-Петербург", "Казань", "Екатеринбург", "Новосибирск", "Краснодар"};
+
+    /**
+     * Количество доставок, после которого контекст персистентности сбрасывается в БД и очищается.
+     * Кратно hibernate.jdbc.batch_size, чтобы INSERT уходили полными батчами.
+     */
+    @Value("${delivery.generator.flush-size:1000}")
+    private int flushSize;
+
     /**
      * Генерирует тестовые данные пользователей
      *
@@ -51,56 +64,72 @@ public class DataGenerator {
     }
 
     /**
-     * Генерирует тестовые данные доставок
+     * Генерирует тестовые данные доставок.
+     * Доставки сохраняются порциями по flushSize: после каждой порции выполняются flush и clear,
+     * поэтому память не растёт с объёмом генерации, а INSERT отправляются JDBC-батчами.
      *
      * @param users список пользователей
      * @param deliveriesPerUser количество доставок на пользователя
-     * @return список созданных доставок
+     * @return количество созданных доставок
      */
     @Transactional
-    public List<Delivery> generateDeliveries(List<User> users, int deliveriesPerUser) {
+    public int generateDeliveries(List<User> users, int deliveriesPerUser) {
         log.info("Генерация доставок для {} пользователей, {} доставок на пользователя",
                 users.size(), deliveriesPerUser);
 
-        List<Delivery> deliveries = new ArrayList<>();
+        List<Delivery> batch = new ArrayList<>(flushSize);
         LocalDateTime now = LocalDateTime.now();
+        int created = 0;
 
         for (User user : users) {
+            // Ссылка по ID: после clear() исходные сущности пользователей отсоединены
+            User userReference = entityManager.getReference(User.class, user.getId());
+
             for (int i = 0; i < deliveriesPerUser; i++) {
-                DeliveryStatus status = getRandomStatus();
-
-                Delivery delivery = new Delivery();
-                delivery.setTrackingNumber("TN" + UUID.randomUUID().toString().substring(0, 16));
-                delivery.setUser(user);
-                delivery.setDeliveryAddress(generateRandomAddress());
-
-                // Случайная дата ожидаемой доставки от текущего дня до +10 дней
-                LocalDateTime expectedDelivery = now.plusDays(random.nextInt(10) + 1)
-                        .plusHours(random.nextInt(24))
-                        .plusMinutes(random.nextInt(60));
-                delivery.setExpectedDeliveryTime(expectedDelivery);
-
-                // Для завершенных доставок устанавливаем фактическое время доставки
-                if (status == DeliveryStatus.COMPLETED || status == DeliveryStatus.DELIVERED) {
-                    LocalDateTime actualDelivery = expectedDelivery
-                            .plusHours(random.nextInt(5) - 2) // +/- 2 часа от ожидаемого времени
-                            .plusMinutes(random.nextInt(60));
-
-                    delivery.setActualDeliveryTime(actualDelivery);
-                }
+                batch.add(createRandomDelivery(userReference, now));
 
-                delivery.setStatus(status);
-                deliveries.add(delivery);
+                if (batch.size() >= flushSize) {
+                    created += flushBatch(batch);
+                }
             }
         }
+        created += flushBatch(batch);
+
+        return created;
+    }
+
+    private Delivery createRandomDelivery(User user, LocalDateTime now) {
+        DeliveryStatus status = randomStatus(random);
+        LocalDateTime expectedDelivery = randomExpectedDeliveryTime(now, random);
+
+        Delivery delivery = new Delivery();
+        delivery.setTrackingNumber("TN" + UUID.randomUUID().toString().substring(0, 16));
+        delivery.setUser(user);
+        delivery.setDeliveryAddress(randomAddress(random));
+        delivery.setExpectedDeliveryTime(expectedDelivery);
+        delivery.setActualDeliveryTime(randomActualDeliveryTime(status, expectedDelivery, random));
+        delivery.setStatus(status);
+        return delivery;
+    }
+
+    private int flushBatch(List<Delivery> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        deliveryRepository.saveAll(batch);
+        entityManager.flush();
+        entityManager.clear();
 
-        return deliveryRepository.saveAll(deliveries);
+        int size = batch.size();
+        batch.clear();
+        return size;
     }
 
     /**
      * Генерирует случайный статус доставки с разной вероятностью
      */
-    private DeliveryStatus getRandomStatus() {
+    static DeliveryStatus randomStatus(Random random) {
         int rand = random.nextInt(100);
 
         if (rand < 20) return DeliveryStatus.CREATED;
@@ -112,14 +141,33 @@ public class DataGenerator {
     }
 
     /**
-     * Генерирует случайный адрес доставки
+     * Случайная дата ожидаемой доставки от текущего дня до +10 дней
+     */
+    static LocalDateTime randomExpectedDeliveryTime(LocalDateTime now, Random random) {
+        return now.plusDays(random.nextInt(10) + 1)
+                .plusHours(random.nextInt(24))
+                .plusMinutes(random.nextInt(60));
+    }
+
+    /**
+     * Для завершенных доставок возвращает фактическое время доставки, для остальных null
      */
-    private String generateRandomAddress() {
-        String[] streets = {"Ленина", "Пушкина", "Гагарина", "Мира", "Советская", "Октябрьская", "Строителей"};
-        String[] cities = {"Москва", "Санкт-Петербург", "Казань", "Екатеринбург", "Новосибирск", "Краснодар"};
+    static LocalDateTime randomActualDeliveryTime(DeliveryStatus status, LocalDateTime expectedDelivery,
+                                                  Random random) {
+        if (status != DeliveryStatus.COMPLETED && status != DeliveryStatus.DELIVERED) {
+            return null;
+        }
+        return expectedDelivery
+                .plusHours(random.nextInt(5) - 2) // +/- 2 часа от ожидаемого времени
+                .plusMinutes(random.nextInt(60));
+    }
 
-        String street = streets[random.nextInt(streets.length)];
-        String city = cities[random.nextInt(cities.length)];
+    /**
+     * Генерирует случайный адрес доставки
+     */
+    static String randomAddress(Random random) {
+        String street = STREETS[random.nextInt(STREETS.length)];
+        String city = CITIES[random.nextInt(CITIES.length)];
         int houseNumber = random.nextInt(100) + 1;
         int apartment = random.nextInt(200) + 1;
 
@@ -140,11 +188,11 @@ public class DataGenerator {
         long startTime = System.currentTimeMillis();
 
         List<User> users = generateUsers(userCount);
-        List<Delivery> deliveries = generateDeliveries(users, deliveriesPerUser);
+        int deliveryCount = generateDeliveries(users, deliveriesPerUser);
 
         long endTime = System.currentTimeMillis();
 
         log.info("Генерация завершена: создано {} пользователей и {} доставок за {} мс",
-                users.size(), deliveries.size(), (endTime - startTime));
+                users.size(), deliveryCount, (endTime - startTime));
     }
 }
@@ -1,5 +1,6 @@
 package com.pharmacy.scs.util;
 
+import com.pharmacy.scs.entity.DeliveryStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -45,21 +46,26 @@ public class DatabaseOptimizer {
     public void createRecommendedIndexes() {
         log.info("Создание рекомендуемых индексов");
 
-        // Индекс для поиска по статусу доставки (часто используемый фильтр)
-        createIndex("deliveries", "idx_deliveries_status", "status");
-
         // Индекс для поиска по пользователю (связь один-ко-многим)
         createIndex("deliveries", "idx_deliveries_user_id", "user_id");
 
-        // Индекс для поиска по номеру отслеживания (уникальное значение)
-        createIndex("deliveries", "idx_deliveries_tracking_number", "tracking_number");
+        // Покрывающий индекс страницы отслеживания: проекция DeliveryRepository.findTrackingByTrackingNumber
+        // читается без обращения к таблице (index-only scan)
+        createIndex("deliveries", "idx_deliveries_tracking_number", "tracking_number",
+                "status, expected_delivery_time, actual_delivery_time", null);
 
         // Индекс для диапазона дат (для запросов за период)
         createIndex("deliveries", "idx_deliveries_expected_delivery_time", "expected_delivery_time");
 
-        // Составной индекс для сложных запросов
-        createIndex("deliveries", "idx_deliveries_status_dates",
-                "status, expected_delivery_time, actual_delivery_time");
+        // Частичные индексы только по активным доставкам: завершённые (большая часть таблицы)
+        // в них не попадают, поэтому индексы малы и не обновляются при изменении старых записей.
+        // Полные индексы по status (idx_deliveries_status, idx_deliveries_status_dates) удаляет
+        // migration_delivery_status_codes.sql
+        String activeDeliveries = "status IN (" + DeliveryStatus.codes(DeliveryStatus.ACTIVE) + ")";
+        createIndex("deliveries", "idx_deliveries_active_expected", "expected_delivery_time",
+                "status", activeDeliveries);
+        createIndex("deliveries", "idx_deliveries_active_user", "user_id, expected_delivery_time",
+                "tracking_number, status", activeDeliveries);
 
         // Индекс для email (поиск пользователя по email)
         createIndex("users", "idx_users_email", "email");
@@ -71,6 +77,14 @@ public class DatabaseOptimizer {
      * Создает индекс, если он еще не существует
      */
     private void createIndex(String tableName, String indexName, String columns) {
+        createIndex(tableName, indexName, columns, null, null);
+    }
+
+    /**
+     * Создает индекс, если он еще не существует.
+     * include — неключевые столбцы покрывающего индекса, where — условие частичного индекса (могут быть null)
+     */
+    private void createIndex(String tableName, String indexName, String columns, String include, String where) {
         try {
             // Проверяем, существует ли индекс
             String checkSql = """
@@ -82,12 +96,18 @@ public class DatabaseOptimizer {
 
             if (result.isEmpty()) {
                 // Индекс не существует, создаем его
-                String createSql = String.format(
+                StringBuilder createSql = new StringBuilder(String.format(
                         "CREATE INDEX %s ON %s (%s)",
                         indexName, tableName, columns
-                );
-
-                jdbcTemplate.execute(createSql);
+                ));
+                if (include != null) {
+                    createSql.append(" INCLUDE (").append(include).append(')');
+                }
+                if (where != null) {
+                    createSql.append(" WHERE ").append(where);
+                }
+
+                jdbcTemplate.execute(createSql.toString());
                 log.info("Создан индекс: {} на таблице {} для столбцов {}",
                         indexName, tableName, columns);
             } else {
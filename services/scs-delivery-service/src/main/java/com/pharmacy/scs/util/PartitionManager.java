@@ -0,0 +1,164 @@
+package com.pharmacy.scs.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Обслуживание месячных секций таблицы deliveries (sql/migration_deliveries_partitioning.sql):
+ * заранее создаёт секции на monthsAhead месяцев вперёд, чтобы новые доставки не попадали
+ * в секцию по умолчанию, и отсоединяет секции старше retentionMonths.
+ * Отсоединённая секция остаётся обычной таблицей (архив) и удаляется вручную,
+ * номера отслеживания её доставок освобождаются в delivery_tracking_numbers.
+ */
+@Component
+@ConditionalOnProperty(value = "delivery.partitioning.enabled", havingValue = "true")
+@Slf4j
+public class PartitionManager {
+
+    static final String PARTITION_PREFIX = "deliveries_p";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT child.relname
+            FROM pg_inherits
+            JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+            JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+            WHERE parent.relname = 'deliveries'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public PartitionManager(
+            JdbcTemplate jdbcTemplate,
+            @Value("${delivery.partitioning.months-ahead:3}") int monthsAhead,
+            @Value("${delivery.partitioning.retention-months:24}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(cron = "${delivery.partitioning.cron:0 15 3 * * *}")
+    public void maintainPartitions() {
+        LocalDate today = LocalDate.now();
+        createFuturePartitions(today);
+        detachExpiredPartitions(today);
+    }
+
+    /**
+     * Создаёт недостающие секции с текущего месяца по текущий + monthsAhead.
+     * Если в секции по умолчанию уже есть строки нужного месяца, PostgreSQL отклоняет создание —
+     * ошибка логируется, остальные месяцы обрабатываются.
+     *
+     * @return имена созданных секций
+     */
+    public List<String> createFuturePartitions(LocalDate today) {
+        Set<String> existing = new HashSet<>(listPartitions());
+        List<String> created = new ArrayList<>();
+        YearMonth current = YearMonth.from(today);
+
+        for (int offset = 0; offset <= monthsAhead; offset++) {
+            YearMonth month = current.plusMonths(offset);
+            String name = partitionName(month);
+            if (existing.contains(name)) {
+                continue;
+            }
+            String sql = String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF deliveries FOR VALUES FROM ('%s') TO ('%s')",
+                    name, month.atDay(1), month.plusMonths(1).atDay(1));
+            try {
+                jdbcTemplate.execute(sql);
+                created.add(name);
+                log.info("Создана секция {} для доставок за {}", name, month);
+            } catch (DataAccessException e) {
+                log.error("Ошибка при создании секции {}: {}", name, e.getMessage());
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Отсоединяет секции месяцев раньше текущего - retentionMonths и освобождает их номера отслеживания:
+     * триггер резервирования на DETACH не срабатывает, без очистки delivery_tracking_numbers рос бы бесконечно.
+     * Секция по умолчанию и таблицы с другими именами не трогаются.
+     *
+     * @return имена отсоединённых секций
+     */
+    public List<String> detachExpiredPartitions(LocalDate today) {
+        YearMonth oldestRetained = YearMonth.from(today).minusMonths(retentionMonths);
+        List<String> detached = new ArrayList<>();
+
+        for (String name : listPartitions()) {
+            YearMonth month = monthOf(name);
+            if (month == null || !month.isBefore(oldestRetained)) {
+                continue;
+            }
+            try {
+                // Без CONCURRENTLY: он недоступен при наличии секции по умолчанию
+                jdbcTemplate.execute("ALTER TABLE deliveries DETACH PARTITION " + name);
+                detached.add(name);
+                log.info("Секция {} отсоединена от deliveries", name);
+            } catch (DataAccessException e) {
+                log.error("Ошибка при отсоединении секции {}: {}", name, e.getMessage());
+                continue;
+            }
+            releaseTrackingNumbers(name);
+        }
+        return detached;
+    }
+
+    /**
+     * Удаляет резервы номеров отслеживания доставок отсоединённой секции.
+     * Выполняется отдельно от DETACH, чтобы не держать блокировку deliveries на время удаления.
+     */
+    void releaseTrackingNumbers(String detachedPartition) {
+        String sql = String.format(
+                "DELETE FROM delivery_tracking_numbers t USING %s p WHERE t.tracking_number = p.tracking_number",
+                detachedPartition);
+        try {
+            int released = jdbcTemplate.update(sql);
+            log.info("Освобождено {} номеров отслеживания секции {}", released, detachedPartition);
+        } catch (DataAccessException e) {
+            log.error("Ошибка при освобождении номеров секции {}, выполните вручную: {}; {}",
+                    detachedPartition, sql, e.getMessage());
+        }
+    }
+
+    public List<String> listPartitions() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX_FORMAT);
+    }
+
+    /**
+     * Месяц секции по её имени или null, если имя не соответствует deliveries_pYYYYMM
+     */
+    static YearMonth monthOf(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)
+                || partitionName.length() != PARTITION_PREFIX.length() + 6) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), SUFFIX_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -1,36 +1,75 @@
 package com.pharmacy.scs.util;
 
+import com.pharmacy.scs.dto.BenchmarkResultDTO;
 import com.pharmacy.scs.dto.PerformanceResultDTO;
-import lombok.RequiredArgsConstructor;
+import com.pharmacy.scs.entity.DeliveryStatus;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class PerformanceAnalyzer {
 
+    // Больше потоков, чем соединений в пуле Hikari, измеряет уже ожидание соединения, а не запрос
+    private static final int MAX_BENCHMARK_THREADS = 64;
+
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Размер порции, которой драйвер читает результат бенчмарка (как у потоковой выгрузки)
+     */
+    @Value("${delivery.stream.fetch-size:500}")
+    private int fetchSize;
 
-    // Карта тестовых запросов
+    // Карта тестовых запросов; статусы подставляются явными кодами (DeliveryStatus.getCode)
     private final Map<String, String> testQueries = Map.of(
             "all_deliveries", "SELECT * FROM deliveries",
             "user_deliveries", "SELECT * FROM deliveries WHERE user_id = 1",
-            "pending_deliveries", "SELECT * FROM deliveries WHERE status = '3'",
+            "user_deliveries_period", "SELECT * FROM deliveries WHERE user_id = 1 " +
+                    "AND expected_delivery_time >= date_trunc('month', NOW()) " +
+                    "AND expected_delivery_time < date_trunc('month', NOW()) + INTERVAL '1 month'",
+            "pending_deliveries", "SELECT * FROM deliveries WHERE status = " + DeliveryStatus.PENDING.getCode(),
+            "active_deliveries", "SELECT id, tracking_number, status, expected_delivery_time FROM deliveries " +
+                    "WHERE status IN (" + DeliveryStatus.codes(DeliveryStatus.ACTIVE) + ") " +
+                    "AND expected_delivery_time < NOW() ORDER BY expected_delivery_time LIMIT 100",
+            "tracking_page", "SELECT tracking_number, status, expected_delivery_time, actual_delivery_time " +
+                    "FROM deliveries WHERE tracking_number = 'TRK-1'",
             "date_range", "SELECT * FROM deliveries WHERE expected_delivery_time BETWEEN NOW() - INTERVAL '7 days' AND NOW() + INTERVAL '7 days'",
             "status_count", "SELECT status, COUNT(*) FROM deliveries GROUP BY status",
             "user_stats", "SELECT u.id, u.username, COUNT(d.id) as delivery_count FROM users u JOIN deliveries d ON u.id = d.user_id GROUP BY u.id, u.username",
             "complex_query", "SELECT u.username, d.tracking_number, d.status, d.expected_delivery_time, d.actual_delivery_time " +
                     "FROM users u JOIN deliveries d ON u.id = d.user_id " +
-                    "WHERE d.status IN ('5', '1') " +
+                    "WHERE d.status IN (" + DeliveryStatus.codes(EnumSet.of(DeliveryStatus.DELIVERED, DeliveryStatus.COMPLETED)) + ") " +
                     "AND d.actual_delivery_time > d.expected_delivery_time"
     );
 
+    public PerformanceAnalyzer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
     /**
      * Запускает все тесты производительности и возвращает результаты
      */
@@ -110,4 +149,162 @@ public class PerformanceAnalyzer {
             return "Ошибка: " + e.getMessage();
         }
     }
+
+    /**
+     * Бенчмарк всех тестовых запросов
+     *
+     * @param warmupIterations количество прогревочных выполнений (не учитываются в результатах)
+     * @param measurementIterations количество измеряемых выполнений на каждый поток
+     * @param threads количество параллельных клиентов
+     */
+    public List<BenchmarkResultDTO> runBenchmark(int warmupIterations, int measurementIterations, int threads) {
+        List<BenchmarkResultDTO> results = new ArrayList<>();
+        for (String queryName : testQueries.keySet()) {
+            results.add(benchmarkQuery(queryName, warmupIterations, measurementIterations, threads));
+        }
+        return results;
+    }
+
+    /**
+     * Бенчмарк одного запроса. Каждое выполнение читает все строки и столбцы результата,
+     * время измеряется через System.nanoTime(). Параллельные клиенты стартуют одновременно,
+     * пропускная способность считается по общему времени измерения.
+     */
+    public BenchmarkResultDTO benchmarkQuery(String queryName, int warmupIterations,
+                                             int measurementIterations, int threads) {
+        BenchmarkResultDTO result = new BenchmarkResultDTO();
+        result.setQueryName(queryName);
+        result.setWarmupIterations(warmupIterations);
+        result.setMeasurementIterations(measurementIterations);
+
+        String querySql = testQueries.get(queryName);
+        if (querySql == null) {
+            result.setError("Запрос с типом '" + queryName + "' не найден");
+            return result;
+        }
+        result.setQuerySql(querySql);
+
+        int clientThreads = Math.max(1, Math.min(threads, MAX_BENCHMARK_THREADS));
+        result.setThreads(clientThreads);
+
+        log.info("Бенчмарк запроса '{}': {} прогревочных, {} измеряемых выполнений, {} потоков",
+                queryName, warmupIterations, measurementIterations, clientThreads);
+
+        AtomicLong rowsPerExecution = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(clientThreads);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                fetchAllRows(querySql);
+            }
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < clientThreads; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[measurementIterations];
+                    start.await();
+                    for (int i = 0; i < measurementIterations; i++) {
+                        long startTime = System.nanoTime();
+                        long rows = fetchAllRows(querySql);
+                        latencies[i] = System.nanoTime() - startTime;
+                        rowsPerExecution.set(rows);
+                    }
+                    return latencies;
+                }));
+            }
+
+            long measurementStart = System.nanoTime();
+            start.countDown();
+            long[] latencies = new long[clientThreads * measurementIterations];
+            int offset = 0;
+            for (Future<long[]> future : futures) {
+                long[] threadLatencies = future.get();
+                System.arraycopy(threadLatencies, 0, latencies, offset, threadLatencies.length);
+                offset += threadLatencies.length;
+            }
+            long measurementNanos = System.nanoTime() - measurementStart;
+
+            result.setRowsPerExecution(rowsPerExecution.get());
+            fillLatencyStats(result, latencies, measurementNanos);
+            log.info("Запрос '{}': p50={} мс, p99={} мс, {} выполнений/с",
+                    queryName, result.getP50Ms(), result.getP99Ms(), result.getThroughputPerSecond());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setError("Бенчмарк прерван");
+        } catch (ExecutionException e) {
+            log.error("Ошибка при выполнении бенчмарка для запроса: {}", queryName, e.getCause());
+            result.setError("Ошибка: " + e.getCause().getMessage());
+        } catch (Exception e) {
+            log.error("Ошибка при выполнении бенчмарка для запроса: {}", queryName, e);
+            result.setError("Ошибка: " + e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return result;
+    }
+
+    /**
+     * Выполняет запрос и читает каждое значение результата, как это делал бы реальный клиент.
+     * Результат читается порциями по fetchSize строк: PostgreSQL делает это только
+     * внутри транзакции, иначе весь результат сначала загружается в память.
+     */
+    private long fetchAllRows(String querySql) {
+        RowCountingHandler handler = new RowCountingHandler();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    querySql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, handler));
+        return handler.rows;
+    }
+
+    static void fillLatencyStats(BenchmarkResultDTO result, long[] latencies, long measurementNanos) {
+        result.setExecutions(latencies.length);
+        if (latencies.length == 0) {
+            return;
+        }
+
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+
+        result.setMinMs(toMillis(sorted[0]));
+        result.setMeanMs(toMillis((long) Arrays.stream(sorted).average().orElse(0)));
+        result.setP50Ms(toMillis(percentile(sorted, 50)));
+        result.setP95Ms(toMillis(percentile(sorted, 95)));
+        result.setP99Ms(toMillis(percentile(sorted, 99)));
+        result.setMaxMs(toMillis(sorted[sorted.length - 1]));
+        result.setThroughputPerSecond(latencies.length * 1_000_000_000.0 / Math.max(1, measurementNanos));
+    }
+
+    /**
+     * Перцентиль по методу ближайшего ранга для отсортированного массива
+     */
+    static long percentile(long[] sorted, double percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)];
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private static class RowCountingHandler implements RowCallbackHandler {
+        private long rows;
+        // Набор столбцов одинаков для всех строк: метаданные читаются один раз
+        private int columnCount = -1;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (columnCount < 0) {
+                columnCount = rs.getMetaData().getColumnCount();
+            }
+            for (int i = 1; i <= columnCount; i++) {
+                rs.getObject(i);
+            }
+            rows++;
+        }
+    }
 }
@@ -0,0 +1,95 @@
+-- Секционирование deliveries по диапазону expected_delivery_time (одна секция на месяц).
+-- Запросы с условием по expected_delivery_time читают только секции нужных месяцев (partition pruning),
+-- старые секции отсоединяются целиком вместо DELETE (см. PartitionManager).
+-- Выполнять при остановленном сервисе, затем включить delivery.partitioning.enabled.
+-- Повторный запуск безопасен: если deliveries уже секционирована, перенос пропускается.
+--
+-- Ограничения секционированной таблицы:
+--  * первичный ключ обязан включать ключ секционирования: PRIMARY KEY (id, expected_delivery_time);
+--  * уникальный индекс только по tracking_number невозможен, поэтому номера отслеживания
+--    резервируются триггером в несекционированной таблице delivery_tracking_numbers.
+--    Дубликат по-прежнему завершает INSERT ошибкой unique_violation; номера из отсоединённых
+--    секций освобождает PartitionManager.
+
+BEGIN;
+
+-- Глобальная уникальность номеров отслеживания
+CREATE TABLE IF NOT EXISTS delivery_tracking_numbers (
+    tracking_number VARCHAR(255) PRIMARY KEY,
+    delivery_id     BIGINT NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION deliveries_reserve_tracking_number() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO delivery_tracking_numbers (tracking_number, delivery_id) VALUES (NEW.tracking_number, NEW.id);
+        RETURN NEW;
+    END IF;
+    DELETE FROM delivery_tracking_numbers WHERE tracking_number = OLD.tracking_number;
+    RETURN OLD;
+END $$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    month      DATE;
+    last_month DATE := date_trunc('month', now()) + INTERVAL '3 months';
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'deliveries'::regclass) = 'p' THEN
+        RAISE NOTICE 'deliveries уже секционирована, перенос пропущен';
+        RETURN;
+    END IF;
+
+    ALTER TABLE deliveries RENAME TO deliveries_unpartitioned;
+    ALTER TABLE deliveries_unpartitioned RENAME CONSTRAINT deliveries_pkey TO deliveries_unpartitioned_pkey;
+    -- Имена индексов общие для схемы: освобождаем их для индексов новой таблицы
+    DROP INDEX IF EXISTS idx_deliveries_user_id, idx_deliveries_tracking_number, idx_deliveries_expected_delivery_time,
+        idx_deliveries_active_expected, idx_deliveries_active_user, idx_deliveries_status, idx_deliveries_status_dates;
+
+    -- LIKE копирует типы столбцов, NOT NULL, DEFAULT и CHECK; ключи и индексы создаются ниже
+    CREATE TABLE deliveries (
+        LIKE deliveries_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS
+    ) PARTITION BY RANGE (expected_delivery_time);
+
+    ALTER TABLE deliveries ADD CONSTRAINT deliveries_pkey PRIMARY KEY (id, expected_delivery_time);
+    ALTER TABLE deliveries ADD CONSTRAINT fk_deliveries_user FOREIGN KEY (user_id) REFERENCES users (id);
+
+    -- Секции от месяца самой ранней доставки до текущего месяца + 3 (дальше их создаёт PartitionManager)
+    month := date_trunc('month', LEAST(
+                 COALESCE((SELECT MIN(expected_delivery_time) FROM deliveries_unpartitioned), now()),
+                 now()));
+    WHILE month <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF deliveries FOR VALUES FROM (%L) TO (%L)',
+                       'deliveries_p' || to_char(month, 'YYYYMM'), month, month + INTERVAL '1 month');
+        month := month + INTERVAL '1 month';
+    END LOOP;
+
+    -- Доставки за пределами созданных секций (дальнее будущее) попадают сюда, а не завершаются ошибкой
+    CREATE TABLE IF NOT EXISTS deliveries_default PARTITION OF deliveries DEFAULT;
+
+    -- Индексы родительской таблицы создаются в каждой секции, в том числе в будущих
+    CREATE INDEX IF NOT EXISTS idx_deliveries_user_id ON deliveries (user_id);
+    CREATE INDEX IF NOT EXISTS idx_deliveries_tracking_number ON deliveries (tracking_number)
+        INCLUDE (status, expected_delivery_time, actual_delivery_time);
+    CREATE INDEX IF NOT EXISTS idx_deliveries_expected_delivery_time ON deliveries (expected_delivery_time);
+    CREATE INDEX IF NOT EXISTS idx_deliveries_active_expected ON deliveries (expected_delivery_time)
+        INCLUDE (status)
+        WHERE status IN (0, 2, 3, 6);
+    CREATE INDEX IF NOT EXISTS idx_deliveries_active_user ON deliveries (user_id, expected_delivery_time)
+        INCLUDE (tracking_number, status)
+        WHERE status IN (0, 2, 3, 6);
+
+    DROP TRIGGER IF EXISTS trg_deliveries_tracking_number ON deliveries;
+    CREATE TRIGGER trg_deliveries_tracking_number
+        AFTER INSERT OR DELETE ON deliveries
+        FOR EACH ROW EXECUTE FUNCTION deliveries_reserve_tracking_number();
+
+    -- Перенос данных: строки распределяются по секциям, триггер заполняет delivery_tracking_numbers
+    INSERT INTO deliveries SELECT * FROM deliveries_unpartitioned;
+END $$;
+
+COMMIT;
+
+ANALYZE deliveries;
+
+-- После проверки работы сервиса:
+-- DROP TABLE IF EXISTS deliveries_unpartitioned;
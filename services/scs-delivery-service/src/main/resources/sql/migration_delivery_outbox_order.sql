@@ -0,0 +1,13 @@
+-- Порядок публикации outbox-событий (OutboxEvent.sequenceNumber) и индекс для OutboxEventRepository.claimBatch.
+-- Номер назначается БД при вставке и, в отличие от ID из pooled-последовательности, возрастает
+-- в порядке записи событий одной доставки независимо от того, какой экземпляр сервиса их записал.
+-- Выполнять после остановки ретранслятора и публикации накопленных событий: существующим строкам
+-- номера присваиваются в произвольном порядке.
+
+ALTER TABLE delivery_outbox ADD COLUMN IF NOT EXISTS sequence_number BIGINT GENERATED ALWAYS AS IDENTITY;
+
+-- Захват пачки читает индекс по порядку записи; delivery_id в индексе позволяет отфильтровать
+-- строки чужих слотов (MOD(delivery_id, workers)) без обращения к таблице
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_delivery_outbox_sequence_number
+    ON delivery_outbox (sequence_number)
+    INCLUDE (delivery_id);
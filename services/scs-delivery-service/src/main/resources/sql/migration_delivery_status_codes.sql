@@ -0,0 +1,29 @@
+-- Явные коды статусов доставки (DeliveryStatus.getCode, DeliveryStatusConverter).
+-- Коды совпадают с прежними порядковыми номерами констант, поэтому данные не меняются:
+-- CONFIRMED=0, COMPLETED=1, CREATED=2, PENDING=3, CANCELLED=4, DELIVERED=5, IN_TRANSIT=6.
+-- Частичные индексы содержат только активные доставки (CREATED, PENDING, CONFIRMED, IN_TRANSIT);
+-- при добавлении активного статуса индексы нужно пересоздать с новым условием.
+-- CONCURRENTLY не блокирует запись, но не выполняется внутри транзакции.
+
+-- Страница отслеживания (GET /api/deliveries/{trackingNumber}/tracking) читает только индекс (index-only scan)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_deliveries_tracking_number_covering
+    ON deliveries (tracking_number)
+    INCLUDE (status, expected_delivery_time, actual_delivery_time);
+DROP INDEX CONCURRENTLY IF EXISTS idx_deliveries_tracking_number;
+ALTER INDEX idx_deliveries_tracking_number_covering RENAME TO idx_deliveries_tracking_number;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_deliveries_active_expected
+    ON deliveries (expected_delivery_time)
+    INCLUDE (status)
+    WHERE status IN (0, 2, 3, 6);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_deliveries_active_user
+    ON deliveries (user_id, expected_delivery_time)
+    INCLUDE (tracking_number, status)
+    WHERE status IN (0, 2, 3, 6);
+
+-- Полные индексы по status заменены частичными
+DROP INDEX CONCURRENTLY IF EXISTS idx_deliveries_status;
+DROP INDEX CONCURRENTLY IF EXISTS idx_deliveries_status_dates;
+
+ANALYZE deliveries;
@@ -0,0 +1,6 @@
+-- Версия доставки для оптимистической блокировки (Delivery.version).
+-- Смена статуса выполняется условным UPDATE ... WHERE status IN (...) и увеличивает version,
+-- поэтому сохранение устаревшей сущности через JPA завершается ошибкой, а не перезаписывает статус.
+-- DEFAULT 0 нужен для существующих строк и для вставок через COPY (BulkDataLoader).
+
+ALTER TABLE deliveries ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
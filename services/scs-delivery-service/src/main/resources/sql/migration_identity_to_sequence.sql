@@ -0,0 +1,21 @@
+-- Переход ID доставок и пользователей с IDENTITY на последовательности с шагом 50
+-- (оптимизатор pooled в Hibernate: nextval = X резервирует ID X-49..X).
+-- Выполнить до запуска новой версии сервиса, иначе ddl-auto создаст последовательности,
+-- начинающиеся с 1, и первые вставки упадут на дубликатах ID.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS deliveries_seq INCREMENT BY 50;
+
+-- Следующий nextval должен вернуть MAX(id) + 50, чтобы первый блок начинался с MAX(id) + 1
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM users), false);
+SELECT setval('deliveries_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM deliveries), false);
+
+-- ID теперь всегда задаёт приложение, генерация на стороне БД больше не нужна
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE deliveries ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE deliveries ALTER COLUMN id DROP DEFAULT;
+
+COMMIT;
@@ -0,0 +1,96 @@
+package com.pharmacy.scs.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты конфигурации ограниченных кэшей на Caffeine.
+ */
+class CacheConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(CacheConfig.class);
+
+    @Test
+    @DisplayName("Создаются все кэши сервиса доставки со статистикой")
+    void shouldCreateDefaultCaches() {
+        contextRunner.run(context -> {
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+
+            assertTrue(cacheManager.getCacheNames().containsAll(
+                    List.of("userDeliveries", "deliveryByTracking", "userStats")));
+
+            Cache cache = cacheManager.getCache("deliveryByTracking");
+            assertNotNull(cache);
+            cache.put("TRACK1", "value");
+            assertNotNull(cache.get("TRACK1"));
+            assertNull(cache.get("TRACK2"));
+
+            assertEquals(1, nativeCache(cache).stats().hitCount());
+            assertEquals(1, nativeCache(cache).stats().missCount());
+        });
+    }
+
+    @Test
+    @DisplayName("Размер кэша ограничен значением из настроек")
+    void shouldEvictEntriesAboveMaximumSize() {
+        contextRunner
+                .withPropertyValues("delivery.cache.specs.userDeliveries.maximum-size=100")
+                .run(context -> {
+                    Cache cache = context.getBean(CacheManager.class).getCache("userDeliveries");
+                    assertNotNull(cache);
+
+                    for (long i = 0; i < 1_000; i++) {
+                        cache.put(i, "deliveries-" + i);
+                    }
+                    nativeCache(cache).cleanUp();
+
+                    assertTrue(nativeCache(cache).estimatedSize() <= 100);
+                    assertTrue(nativeCache(cache).stats().evictionCount() >= 900);
+                });
+    }
+
+    @Test
+    @DisplayName("Изменения кэша внутри транзакции откладываются до её фиксации")
+    void shouldDeferEvictionUntilCommit() {
+        contextRunner.run(context -> {
+            Cache cache = context.getBean(CacheManager.class).getCache("deliveryByTracking");
+            assertNotNull(cache);
+            cache.put("TRACK1", "value");
+
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                cache.evict("TRACK1");
+                assertNotNull(cache.get("TRACK1"));
+
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(synchronization -> synchronization.afterCommit());
+                assertNull(cache.get("TRACK1"));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Неизвестный кэш не создаётся")
+    void shouldNotCreateUnknownCache() {
+        contextRunner.run(context -> {
+            Cache cache = context.getBean(CacheManager.class).getCache("unknown");
+            assertNull(cache);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache(Cache cache) {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+    }
+}
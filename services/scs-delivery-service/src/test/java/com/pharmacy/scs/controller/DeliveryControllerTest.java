@@ -2,14 +2,20 @@ package com.pharmacy.scs.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pharmacy.scs.dto.BulkCreateResultDTO;
+import com.pharmacy.scs.dto.BulkStatusUpdateRequest;
+import com.pharmacy.scs.dto.BulkStatusUpdateResultDTO;
 import com.pharmacy.scs.dto.DeliveryCreateRequest;
 import com.pharmacy.scs.dto.DeliveryDTO;
 import com.pharmacy.scs.dto.DeliveryResponseDTO;
+import com.pharmacy.scs.dto.DeliverySnapshot;
+import com.pharmacy.scs.dto.DeliveryTrackingDTO;
 import com.pharmacy.scs.dto.DeliveryUpdateRequest;
 import com.pharmacy.scs.entity.Delivery;
 import com.pharmacy.scs.entity.DeliveryStatus;
 import com.pharmacy.scs.entity.User;
 import com.pharmacy.scs.exception.DeliveryNotFoundException;
+import com.pharmacy.scs.exception.InvalidStatusTransitionException;
 import com.pharmacy.scs.mapper.DeliveryMapper;
 import com.pharmacy.scs.service.DeliveryService;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,20 +24,36 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -50,6 +72,9 @@ public class DeliveryControllerTest {
     @Mock
     private DeliveryMapper deliveryMapper;
 
+    @Spy
+    private ObjectMapper controllerObjectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
     @InjectMocks
     private DeliveryController deliveryController;
 
@@ -129,8 +154,10 @@ public class DeliveryControllerTest {
         deliveryDTO.setUserId(1L);
         deliveryDTO.setStatus("IN_TRANSIT");
 
-        when(deliveryService.getDeliveryByTrackingNumber(trackingNumber)).thenReturn(Optional.of(delivery));
-        when(deliveryMapper.toDto(delivery)).thenReturn(deliveryDTO);
+        DeliverySnapshot snapshot = DeliverySnapshot.from(delivery);
+
+        when(deliveryService.getDeliveryByTrackingNumber(trackingNumber)).thenReturn(Optional.of(snapshot));
+        when(deliveryMapper.toDto(snapshot)).thenReturn(deliveryDTO);
 
         // Act & Assert
         mockMvc.perform(get("/api/deliveries/{trackingNumber}", trackingNumber))
@@ -154,21 +181,48 @@ public class DeliveryControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Страница отслеживания: 200 OK только со статусом и сроками")
+    void testGetDeliveryTracking() throws Exception {
+        // Arrange
+        DeliveryTrackingDTO tracking = new DeliveryTrackingDTO(
+                "TRACK123", DeliveryStatus.IN_TRANSIT, LocalDateTime.now().plusDays(1), null);
+        when(deliveryService.getDeliveryTracking("TRACK123")).thenReturn(Optional.of(tracking));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/deliveries/{trackingNumber}/tracking", "TRACK123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trackingNumber", is("TRACK123")))
+                .andExpect(jsonPath("$.status", is("IN_TRANSIT")))
+                .andExpect(jsonPath("$.id").doesNotExist());
+
+        verify(deliveryService, never()).getDeliveryByTrackingNumber(anyString());
+    }
+
     @Test
     @DisplayName("Получение доставок пользователя: 200 OK")
     void testGetDeliveriesByUser() throws Exception {
         // Arrange
         Long userId = 1L;
 
+        User user = new User();
+        user.setId(userId);
+
         Delivery delivery1 = new Delivery();
         delivery1.setId(1L);
         delivery1.setTrackingNumber("TRACK1");
+        delivery1.setUser(user);
+        delivery1.setStatus(DeliveryStatus.PENDING);
 
         Delivery delivery2 = new Delivery();
         delivery2.setId(2L);
         delivery2.setTrackingNumber("TRACK2");
+        delivery2.setUser(user);
+        delivery2.setStatus(DeliveryStatus.IN_TRANSIT);
 
-        List<Delivery> deliveries = Arrays.asList(delivery1, delivery2);
+        DeliverySnapshot snapshot1 = DeliverySnapshot.from(delivery1);
+        DeliverySnapshot snapshot2 = DeliverySnapshot.from(delivery2);
+        List<DeliverySnapshot> deliveries = Arrays.asList(snapshot1, snapshot2);
 
         DeliveryDTO dto1 = new DeliveryDTO();
         dto1.setId(1L);
@@ -179,8 +233,8 @@ public class DeliveryControllerTest {
         dto2.setTrackingNumber("TRACK2");
 
         when(deliveryService.getDeliveriesByUserId(userId)).thenReturn(deliveries);
-        when(deliveryMapper.toDto(delivery1)).thenReturn(dto1);
-        when(deliveryMapper.toDto(delivery2)).thenReturn(dto2);
+        when(deliveryMapper.toDto(snapshot1)).thenReturn(dto1);
+        when(deliveryMapper.toDto(snapshot2)).thenReturn(dto2);
 
         // Act & Assert
         mockMvc.perform(get("/api/deliveries")
@@ -193,6 +247,157 @@ public class DeliveryControllerTest {
                 .andExpect(jsonPath("$[1].trackingNumber", is("TRACK2")));
     }
 
+    @Test
+    @DisplayName("Страница доставок пользователя: полная страница возвращает курсор")
+    void testGetDeliveriesPage() throws Exception {
+        // Arrange
+        Long userId = 1L;
+
+        User user = new User();
+        user.setId(userId);
+
+        Delivery delivery1 = new Delivery();
+        delivery1.setId(11L);
+        delivery1.setTrackingNumber("TRACK11");
+        delivery1.setUser(user);
+        delivery1.setStatus(DeliveryStatus.PENDING);
+
+        Delivery delivery2 = new Delivery();
+        delivery2.setId(12L);
+        delivery2.setTrackingNumber("TRACK12");
+        delivery2.setUser(user);
+        delivery2.setStatus(DeliveryStatus.IN_TRANSIT);
+
+        DeliverySnapshot snapshot1 = DeliverySnapshot.from(delivery1);
+        DeliverySnapshot snapshot2 = DeliverySnapshot.from(delivery2);
+
+        DeliveryDTO dto1 = new DeliveryDTO();
+        dto1.setId(11L);
+        DeliveryDTO dto2 = new DeliveryDTO();
+        dto2.setId(12L);
+
+        when(deliveryService.getDeliveriesPage(userId, 10L, 2)).thenReturn(List.of(snapshot1, snapshot2));
+        when(deliveryMapper.toDto(snapshot1)).thenReturn(dto1);
+        when(deliveryMapper.toDto(snapshot2)).thenReturn(dto2);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/deliveries/page")
+                        .param("userId", userId.toString())
+                        .param("afterId", "10")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(11)))
+                .andExpect(jsonPath("$.items[1].id", is(12)))
+                .andExpect(jsonPath("$.nextCursor", is(12)));
+    }
+
+    @Test
+    @DisplayName("Страница доставок пользователя: последняя страница без курсора")
+    void testGetDeliveriesLastPage() throws Exception {
+        // Arrange
+        when(deliveryService.getDeliveriesPage(eq(1L), eq(null), eq(1000))).thenReturn(List.of());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/deliveries/page")
+                        .param("userId", "1")
+                        .param("limit", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Страница доставок пользователя за период ожидаемой доставки")
+    void testGetDeliveriesPageInPeriod() throws Exception {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2026, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 4, 1, 0, 0);
+        when(deliveryService.getDeliveriesPage(1L, from, to, null, 100)).thenReturn(List.of());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/deliveries/page")
+                        .param("userId", "1")
+                        .param("from", "2026-03-01T00:00:00")
+                        .param("to", "2026-04-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+
+        verify(deliveryService, never()).getDeliveriesPage(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Период без одной из границ или с to не позже from отклоняется")
+    void testGetDeliveriesPageInvalidPeriod() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/deliveries/page")
+                        .param("userId", "1")
+                        .param("from", "2026-03-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/deliveries/stream")
+                        .param("userId", "1")
+                        .param("from", "2026-04-01T00:00:00")
+                        .param("to", "2026-03-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(deliveryService);
+    }
+
+    @Test
+    @DisplayName("Потоковая выгрузка доставок пользователя в NDJSON")
+    void testStreamDeliveriesByUser() throws Exception {
+        // Arrange
+        User user = new User();
+        user.setId(1L);
+
+        Delivery delivery1 = new Delivery();
+        delivery1.setId(1L);
+        delivery1.setUser(user);
+        delivery1.setStatus(DeliveryStatus.PENDING);
+
+        Delivery delivery2 = new Delivery();
+        delivery2.setId(2L);
+        delivery2.setUser(user);
+        delivery2.setStatus(DeliveryStatus.DELIVERED);
+
+        DeliverySnapshot snapshot1 = DeliverySnapshot.from(delivery1);
+        DeliverySnapshot snapshot2 = DeliverySnapshot.from(delivery2);
+
+        DeliveryDTO dto1 = new DeliveryDTO();
+        dto1.setId(1L);
+        dto1.setTrackingNumber("TRACK1");
+        DeliveryDTO dto2 = new DeliveryDTO();
+        dto2.setId(2L);
+        dto2.setTrackingNumber("TRACK2");
+
+        doAnswer(invocation -> {
+            Consumer<DeliverySnapshot> consumer = invocation.getArgument(1);
+            consumer.accept(snapshot1);
+            consumer.accept(snapshot2);
+            return null;
+        }).when(deliveryService).streamDeliveriesByUserId(eq(1L), any());
+        when(deliveryMapper.toDto(snapshot1)).thenReturn(dto1);
+        when(deliveryMapper.toDto(snapshot2)).thenReturn(dto2);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/deliveries/stream").param("userId", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString()
+                .split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals("TRACK1",
+                objectMapper.readValue(lines[0], DeliveryDTO.class).getTrackingNumber());
+        assertEquals("TRACK2",
+                objectMapper.readValue(lines[1], DeliveryDTO.class).getTrackingNumber());
+    }
+
     @Test
     @DisplayName("Обновление статуса доставки: 200 OK")
     void testUpdateDeliveryStatus() throws Exception {
@@ -202,13 +407,9 @@ public class DeliveryControllerTest {
         DeliveryUpdateRequest request = new DeliveryUpdateRequest();
         request.setStatus(DeliveryStatus.DELIVERED);
 
-        Delivery updatedDelivery = new Delivery();
-        updatedDelivery.setId(deliveryId);
-        updatedDelivery.setStatus(DeliveryStatus.DELIVERED);
-
-        User user = new User();
-        user.setId(1L);
-        updatedDelivery.setUser(user);
+        LocalDateTime now = LocalDateTime.now();
+        DeliverySnapshot updatedDelivery = DeliverySnapshot.of(deliveryId, "TRACK123", 1L, "Test Address",
+                now.plusDays(1), null, DeliveryStatus.DELIVERED, now, now);
 
         DeliveryDTO deliveryDTO = new DeliveryDTO();
         deliveryDTO.setId(deliveryId);
@@ -227,24 +428,33 @@ public class DeliveryControllerTest {
     }
 
     @Test
-    @DisplayName("Подтверждение доставки: 202 Accepted")
-    void testConfirmDelivery() throws Exception {
+    @DisplayName("Недопустимый переход статуса: 409 Conflict")
+    void testUpdateDeliveryStatusInvalidTransition() throws Exception {
         // Arrange
         Long deliveryId = 1L;
 
-        Delivery completedDelivery = new Delivery();
-        completedDelivery.setId(deliveryId);
-        completedDelivery.setStatus(DeliveryStatus.COMPLETED);
-        completedDelivery.setActualDeliveryTime(LocalDateTime.now());
+        DeliveryUpdateRequest request = new DeliveryUpdateRequest();
+        request.setStatus(DeliveryStatus.IN_TRANSIT);
 
-        User user = new User();
-        user.setId(1L);
-        completedDelivery.setUser(user);
+        doThrow(new InvalidStatusTransitionException(deliveryId, DeliveryStatus.COMPLETED, DeliveryStatus.IN_TRANSIT))
+                .when(deliveryService).updateDeliveryStatus(deliveryId, DeliveryStatus.IN_TRANSIT);
 
-        DeliveryResponseDTO responseDTO = new DeliveryResponseDTO();
-        responseDTO.setId(deliveryId);
-        responseDTO.setStatus(DeliveryStatus.COMPLETED);
-        //responseDTO.setIsDelivered(true);
+        // Act & Assert
+        mockMvc.perform(put("/api/deliveries/{deliveryId}/status", deliveryId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("Подтверждение доставки: 202 Accepted")
+    void testConfirmDelivery() throws Exception {
+        // Arrange
+        Long deliveryId = 1L;
+
+        LocalDateTime now = LocalDateTime.now();
+        DeliverySnapshot completedDelivery = DeliverySnapshot.of(deliveryId, "TRACK123", 1L, "Test Address",
+                now.plusDays(1), now, DeliveryStatus.COMPLETED, now, now);
 
         when(deliveryService.completeDelivery(deliveryId)).thenReturn(completedDelivery);
 
@@ -253,7 +463,20 @@ public class DeliveryControllerTest {
                 .andExpect(status().isAccepted())
                 .andExpect(jsonPath("$.id", is(1)))
                 .andExpect(jsonPath("$.status", is("COMPLETED")));
-                //.andExpect(jsonPath("$.delivered", is(true)));
+    }
+
+    @Test
+    @DisplayName("Повторное подтверждение завершённой доставки: 409 Conflict")
+    void testConfirmCompletedDelivery() throws Exception {
+        // Arrange
+        Long deliveryId = 1L;
+
+        doThrow(new InvalidStatusTransitionException(deliveryId, DeliveryStatus.COMPLETED, DeliveryStatus.COMPLETED))
+                .when(deliveryService).completeDelivery(deliveryId);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/deliveries/{deliveryId}/confirm", deliveryId))
+                .andExpect(status().isConflict());
     }
 
     @Test
@@ -269,4 +492,159 @@ public class DeliveryControllerTest {
         mockMvc.perform(put("/api/deliveries/{deliveryId}/confirm", deliveryId))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Пакетная смена статусов: 200 OK с исходом по каждой позиции")
+    void testUpdateDeliveryStatuses() throws Exception {
+        // Arrange
+        BulkStatusUpdateRequest request = new BulkStatusUpdateRequest();
+        request.setItems(List.of(
+                new BulkStatusUpdateRequest.Item(1L, DeliveryStatus.COMPLETED),
+                new BulkStatusUpdateRequest.Item(999L, DeliveryStatus.COMPLETED)));
+
+        BulkStatusUpdateResultDTO result = new BulkStatusUpdateResultDTO();
+        result.setRequested(2);
+        result.setUpdated(1);
+        result.setNotFound(1);
+        result.setItems(List.of(
+                new BulkStatusUpdateResultDTO.ItemResult(1L, DeliveryStatus.COMPLETED, BulkStatusUpdateResultDTO.Outcome.UPDATED),
+                new BulkStatusUpdateResultDTO.ItemResult(999L, DeliveryStatus.COMPLETED, BulkStatusUpdateResultDTO.Outcome.NOT_FOUND)));
+
+        when(deliveryService.updateDeliveryStatuses(request.getItems())).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/deliveries/status/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.notFound", is(1)))
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[1].deliveryId", is(999)))
+                .andExpect(jsonPath("$.items[1].outcome", is("NOT_FOUND")));
+    }
+
+    @Test
+    @DisplayName("Пакетная смена статусов: пустой или слишком большой пакет — 400 Bad Request")
+    void testUpdateDeliveryStatusesRejectsInvalidBatch() throws Exception {
+        // Arrange
+        BulkStatusUpdateRequest tooLarge = new BulkStatusUpdateRequest();
+        tooLarge.setItems(LongStream.rangeClosed(1, 10_001)
+                .mapToObj(id -> new BulkStatusUpdateRequest.Item(id, DeliveryStatus.COMPLETED))
+                .toList());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/deliveries/status/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/deliveries/status/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tooLarge)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(deliveryService);
+    }
+
+    @Test
+    @DisplayName("Пакетное создание доставок из JSON-массива: 200 OK с исходом по каждой позиции")
+    void testCreateDeliveriesFromJsonArray() throws Exception {
+        // Arrange
+        List<DeliveryCreateRequest> requests = List.of(batchRequest("TRACK1"), batchRequest("TRACK2"));
+
+        BulkCreateResultDTO result = new BulkCreateResultDTO();
+        result.setRequested(2);
+        result.setCreated(1);
+        result.setRejected(1);
+        result.setItems(List.of(
+                new BulkCreateResultDTO.ItemResult("TRACK1", 10L, BulkCreateResultDTO.Outcome.CREATED),
+                new BulkCreateResultDTO.ItemResult("TRACK2", null, BulkCreateResultDTO.Outcome.DUPLICATE)));
+
+        when(deliveryService.createDeliveries(anyList())).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/deliveries/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.items[0].deliveryId", is(10)))
+                .andExpect(jsonPath("$.items[1].outcome", is("DUPLICATE")));
+    }
+
+    @Test
+    @DisplayName("Пакетное создание доставок из NDJSON: строки передаются сервису в порядке следования")
+    void testCreateDeliveriesFromNdjson() throws Exception {
+        // Arrange
+        StringBuilder body = new StringBuilder();
+        for (String trackingNumber : List.of("TRACK1", "TRACK2", "TRACK3")) {
+            body.append(objectMapper.writeValueAsString(batchRequest(trackingNumber))).append('\n');
+        }
+
+        List<String> received = new ArrayList<>();
+        when(deliveryService.createDeliveries(anyIterator())).thenAnswer(invocation -> {
+            Iterator<DeliveryCreateRequest> requests = invocation.getArgument(0);
+            requests.forEachRemaining(request -> received.add(request.getTrackingNumber()));
+            BulkCreateResultDTO result = new BulkCreateResultDTO();
+            result.setRequested(received.size());
+            result.setCreated(received.size());
+            return result;
+        });
+
+        // Act & Assert
+        mockMvc.perform(post("/api/deliveries/batch")
+                        .contentType("application/x-ndjson")
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(3)));
+
+        assertEquals(List.of("TRACK1", "TRACK2", "TRACK3"), received);
+        verify(deliveryService, never()).createDeliveries(anyList());
+    }
+
+    @Test
+    @DisplayName("Пакетное создание доставок из некорректного NDJSON: 400 Bad Request")
+    void testCreateDeliveriesFromMalformedNdjson() throws Exception {
+        // Arrange
+        when(deliveryService.createDeliveries(anyIterator())).thenAnswer(invocation -> {
+            Iterator<DeliveryCreateRequest> requests = invocation.getArgument(0);
+            requests.forEachRemaining(request -> { });
+            return new BulkCreateResultDTO();
+        });
+
+        // Act & Assert
+        mockMvc.perform(post("/api/deliveries/batch")
+                        .contentType("application/x-ndjson")
+                        .content("{\"trackingNumber\":\"TRACK1\"}\n{not json\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Пакетное создание доставок из пустого NDJSON: 400 Bad Request")
+    void testCreateDeliveriesFromEmptyNdjson() throws Exception {
+        // Arrange
+        BulkCreateResultDTO empty = new BulkCreateResultDTO();
+        when(deliveryService.createDeliveries(anyIterator())).thenReturn(empty);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/deliveries/batch")
+                        .contentType("application/x-ndjson")
+                        .content(""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Iterator<DeliveryCreateRequest> anyIterator() {
+        return any(Iterator.class);
+    }
+
+    private static DeliveryCreateRequest batchRequest(String trackingNumber) {
+        DeliveryCreateRequest request = new DeliveryCreateRequest();
+        request.setTrackingNumber(trackingNumber);
+        request.setUserId(1L);
+        request.setDeliveryAddress("Test Address");
+        request.setExpectedDeliveryTime(LocalDateTime.now().plusDays(1));
+        request.setStatus("CREATED");
+        return request;
+    }
+}
@@ -0,0 +1,88 @@
+package com.pharmacy.scs.controller;
+
+import com.pharmacy.scs.dto.UserContactDTO;
+import com.pharmacy.scs.mapper.UserMapper;
+import com.pharmacy.scs.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты пакетного запроса пользователей в UserController
+ */
+@ExtendWith(MockitoExtension.class)
+class UserControllerTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @InjectMocks
+    private UserController userController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+    }
+
+    @Test
+    @DisplayName("Пакетный запрос возвращает контакты найденных пользователей и убирает дубликаты ID")
+    void getUsersByIds_ReturnsContacts() throws Exception {
+        // Arrange
+        when(userService.getUserContacts(Set.of(1L, 2L))).thenReturn(List.of(
+                new UserContactDTO(1L, "user1", "user1@example.com", "+100"),
+                new UserContactDTO(2L, "user2", "user2@example.com", "+200")));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2, 2, 1]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].email", is("user1@example.com")))
+                .andExpect(jsonPath("$[1].phoneNumber", is("+200")));
+    }
+
+    @Test
+    @DisplayName("Пакетный запрос больше допустимого размера отклоняется")
+    void getUsersByIds_RejectsTooLargeBatch() throws Exception {
+        // Arrange
+        String ids = LongStream.rangeClosed(1, 1001)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ids))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).getUserContacts(any());
+    }
+}
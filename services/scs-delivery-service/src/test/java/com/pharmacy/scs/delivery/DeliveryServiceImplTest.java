@@ -1,14 +1,23 @@
 package com.pharmacy.scs.delivery;
 
+import com.pharmacy.scs.dto.BulkCreateResultDTO;
+import com.pharmacy.scs.dto.BulkStatusUpdateRequest;
+import com.pharmacy.scs.dto.BulkStatusUpdateResultDTO;
+import com.pharmacy.scs.dto.DeliveryCreateRequest;
 import com.pharmacy.scs.dto.DeliveryEvent;
+import com.pharmacy.scs.dto.DeliverySnapshot;
 import com.pharmacy.scs.entity.Delivery;
 import com.pharmacy.scs.entity.DeliveryStatus;
 import com.pharmacy.scs.entity.User;
 import com.pharmacy.scs.exception.DeliveryNotFoundException;
+import com.pharmacy.scs.exception.InvalidStatusTransitionException;
+import com.pharmacy.scs.repository.DeliveryJdbcRepository;
 import com.pharmacy.scs.repository.DeliveryRepository;
-import com.pharmacy.scs.service.KafkaDeliveryEventService;
+import com.pharmacy.scs.repository.UserRepository;
+import com.pharmacy.scs.service.DeliveryStatusTransitions;
+import com.pharmacy.scs.service.OutboxService;
 import com.pharmacy.scs.service.impl.DeliveryServiceImpl;
-import org.apache.kafka.common.errors.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,14 +28,21 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -41,7 +57,19 @@ class DeliveryServiceImplTest {
     private DeliveryRepository deliveryRepository;
 
     @Mock
-    private KafkaDeliveryEventService eventService;
+    private OutboxService outboxService;
+
+    @Mock
+    private DeliveryJdbcRepository deliveryJdbcRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EntityManager entityManager;
 
     @InjectMocks
     private DeliveryServiceImpl deliveryService;
@@ -83,7 +111,7 @@ class DeliveryServiceImplTest {
         void shouldCreateDeliveryAndSendEvent() {
             // Arrange - настраиваем поведение моков
             when(deliveryRepository.save(any(Delivery.class))).thenReturn(testDelivery);
-            doNothing().when(eventService).sendDeliveryEvent(any(DeliveryEvent.class));
+            doNothing().when(outboxService).enqueue(any(DeliveryEvent.class));
 
             // Act - вызываем тестируемый метод
             Delivery result = deliveryService.createDelivery(testDelivery);
@@ -96,8 +124,8 @@ class DeliveryServiceImplTest {
             // Проверяем, что был вызван метод сохранения в репозитории
             verify(deliveryRepository).save(testDelivery);
 
-            // Проверяем, что было отправлено событие с правильными данными
-            verify(eventService).sendDeliveryEvent(eventCaptor.capture());
+            // Проверяем, что событие с правильными данными записано в outbox
+            verify(outboxService).enqueue(eventCaptor.capture());
             DeliveryEvent capturedEvent = eventCaptor.getValue();
             assertEquals("CREATED", capturedEvent.getEventType());
             assertEquals(testDelivery.getId(), capturedEvent.getDeliveryId());
@@ -117,16 +145,20 @@ class DeliveryServiceImplTest {
         void shouldReturnDeliveryByTrackingNumber() {
             // Arrange
             String trackingNumber = "TRACK123";
-            when(deliveryRepository.findByTrackingNumber(trackingNumber))
+            when(deliveryRepository.findByTrackingNumberAndExpectedDeliveryTimeGreaterThanEqual(eq(trackingNumber), any()))
                     .thenReturn(Optional.of(testDelivery));
 
             // Act
-            Optional<Delivery> result = deliveryService.getDeliveryByTrackingNumber(trackingNumber);
+            Optional<DeliverySnapshot> result = deliveryService.getDeliveryByTrackingNumber(trackingNumber);
 
-            // Assert
+            // Assert - в кэш попадает снимок, а не управляемая сущность
             assertTrue(result.isPresent());
-            assertEquals(testDelivery, result.get());
-            verify(deliveryRepository).findByTrackingNumber(trackingNumber);
+            assertEquals(DeliverySnapshot.from(testDelivery), result.get());
+            assertEquals(testDelivery.getId(), result.get().getId());
+            assertEquals(testUser.getId(), result.get().getUserId());
+            assertEquals(testDelivery.getStatus(), result.get().getStatus());
+            // Найдена в горячем окне: старые секции не читаются
+            verify(deliveryRepository, never()).findByTrackingNumberAndExpectedDeliveryTimeLessThan(any(), any());
         }
 
         @Test
@@ -134,15 +166,38 @@ class DeliveryServiceImplTest {
         void shouldReturnEmptyOptionalWhenDeliveryNotFound() {
             // Arrange
             String trackingNumber = "NONEXISTENT";
-            when(deliveryRepository.findByTrackingNumber(trackingNumber))
+            when(deliveryRepository.findByTrackingNumberAndExpectedDeliveryTimeGreaterThanEqual(eq(trackingNumber), any()))
+                    .thenReturn(Optional.empty());
+            when(deliveryRepository.findByTrackingNumberAndExpectedDeliveryTimeLessThan(eq(trackingNumber), any()))
                     .thenReturn(Optional.empty());
 
             // Act
-            Optional<Delivery> result = deliveryService.getDeliveryByTrackingNumber(trackingNumber);
+            Optional<DeliverySnapshot> result = deliveryService.getDeliveryByTrackingNumber(trackingNumber);
 
             // Assert
             assertFalse(result.isPresent());
-            verify(deliveryRepository).findByTrackingNumber(trackingNumber);
+            verify(deliveryRepository).findByTrackingNumberAndExpectedDeliveryTimeLessThan(eq(trackingNumber), any());
+        }
+
+        @Test
+        @DisplayName("Должен искать в старых секциях с той же границей, если в горячем окне доставки нет")
+        void shouldFallBackToOlderPartitions() {
+            // Arrange
+            String trackingNumber = "OLD123";
+            ReflectionTestUtils.setField(deliveryService, "hotWindowMonths", 6);
+            when(deliveryRepository.findByTrackingNumberAndExpectedDeliveryTimeGreaterThanEqual(eq(trackingNumber), any()))
+                    .thenReturn(Optional.empty());
+            when(deliveryRepository.findByTrackingNumberAndExpectedDeliveryTimeLessThan(eq(trackingNumber), any()))
+                    .thenReturn(Optional.of(testDelivery));
+
+            // Act
+            Optional<DeliverySnapshot> result = deliveryService.getDeliveryByTrackingNumber(trackingNumber);
+
+            // Assert
+            assertTrue(result.isPresent());
+            LocalDateTime windowStart = LocalDate.now().withDayOfMonth(1).minusMonths(6).atStartOfDay();
+            verify(deliveryRepository).findByTrackingNumberAndExpectedDeliveryTimeGreaterThanEqual(trackingNumber, windowStart);
+            verify(deliveryRepository).findByTrackingNumberAndExpectedDeliveryTimeLessThan(trackingNumber, windowStart);
         }
     }
 
@@ -161,22 +216,34 @@ class DeliveryServiceImplTest {
             Delivery delivery1 = new Delivery();
             delivery1.setId(1L);
             delivery1.setUser(testUser);
+            delivery1.setStatus(DeliveryStatus.PENDING);
 
             Delivery delivery2 = new Delivery();
             delivery2.setId(2L);
             delivery2.setUser(testUser);
+            delivery2.setStatus(DeliveryStatus.IN_TRANSIT);
 
-            List<Delivery> expectedDeliveries = Arrays.asList(delivery1, delivery2);
+            Delivery olderDelivery = new Delivery();
+            olderDelivery.setId(3L);
+            olderDelivery.setUser(testUser);
+            olderDelivery.setStatus(DeliveryStatus.COMPLETED);
 
-            when(deliveryRepository.findByUserId(userId)).thenReturn(expectedDeliveries);
+            List<Delivery> expectedDeliveries = Arrays.asList(delivery1, delivery2, olderDelivery);
+            LocalDateTime hotWindowStart = LocalDate.now().withDayOfMonth(1).minusMonths(6).atStartOfDay();
+
+            ReflectionTestUtils.setField(deliveryService, "hotWindowMonths", 6);
+            when(deliveryRepository.findByUserIdAndExpectedDeliveryTimeGreaterThanEqual(userId, hotWindowStart))
+                    .thenReturn(List.of(delivery1, delivery2));
+            when(deliveryRepository.findByUserIdAndExpectedDeliveryTimeLessThan(userId, hotWindowStart))
+                    .thenReturn(List.of(olderDelivery));
 
             // Act
-            List<Delivery> result = deliveryService.getDeliveriesByUserId(userId);
+            List<DeliverySnapshot> result = deliveryService.getDeliveriesByUserId(userId);
 
             // Assert
+            // Доставки старше горячего окна (выровненного по началу месяца) не теряются и идут после недавних
             assertEquals(expectedDeliveries.size(), result.size());
-            assertEquals(expectedDeliveries, result);
-            verify(deliveryRepository).findByUserId(userId);
+            assertEquals(expectedDeliveries.stream().map(DeliverySnapshot::from).toList(), result);
         }
 
         @Test
@@ -184,14 +251,14 @@ class DeliveryServiceImplTest {
         void shouldReturnEmptyListWhenNoDeliveriesFound() {
             // Arrange
             Long userId = 999L;
-            when(deliveryRepository.findByUserId(userId)).thenReturn(List.of());
+            when(deliveryRepository.findByUserIdAndExpectedDeliveryTimeGreaterThanEqual(eq(userId), any()))
+                    .thenReturn(List.of());
 
             // Act
-            List<Delivery> result = deliveryService.getDeliveriesByUserId(userId);
+            List<DeliverySnapshot> result = deliveryService.getDeliveriesByUserId(userId);
 
             // Assert
             assertTrue(result.isEmpty());
-            verify(deliveryRepository).findByUserId(userId);
         }
     }
 
@@ -203,31 +270,84 @@ class DeliveryServiceImplTest {
     class UpdateDeliveryStatusTests {
 
         @Test
-        @DisplayName("Должен обновить статус доставки")
+        @DisplayName("Должен обновить статус одним условным UPDATE без чтения сущности")
         void shouldUpdateDeliveryStatus() {
             // Arrange
             Long deliveryId = 1L;
             DeliveryStatus newStatus = DeliveryStatus.IN_TRANSIT;
+            DeliverySnapshot updated = snapshot(deliveryId, newStatus);
+
+            when(deliveryJdbcRepository.updateStatus(eq(List.of(deliveryId)),
+                    eq(DeliveryStatusTransitions.sourcesOf(newStatus)), eq(newStatus), any()))
+                    .thenReturn(List.of(updated));
 
-            Delivery deliveryToUpdate = new Delivery();
-            deliveryToUpdate.setId(deliveryId);
-            deliveryToUpdate.setStatus(DeliveryStatus.PENDING);
+            // Act
+            DeliverySnapshot result = deliveryService.updateDeliveryStatus(deliveryId, newStatus);
 
-            Delivery updatedDelivery = new Delivery();
-            updatedDelivery.setId(deliveryId);
-            updatedDelivery.setStatus(newStatus);
+            // Assert
+            assertEquals(newStatus, result.getStatus());
+            verify(deliveryJdbcRepository, never()).findStatuses(anyList());
+            verify(deliveryRepository, never()).findById(any());
+            verify(deliveryRepository, never()).save(any(Delivery.class));
 
-            when(deliveryRepository.findById(deliveryId)).thenReturn(Optional.of(deliveryToUpdate));
-            when(deliveryRepository.save(any(Delivery.class))).thenReturn(updatedDelivery);
+            // Проверяем запись события в outbox
+            verify(outboxService).enqueue(eventCaptor.capture());
+            DeliveryEvent capturedEvent = eventCaptor.getValue();
+            assertEquals("UPDATED", capturedEvent.getEventType());
+            assertEquals(deliveryId, capturedEvent.getDeliveryId());
+            assertEquals(newStatus.toString(), capturedEvent.getStatus());
+        }
+
+        @Test
+        @DisplayName("Должен записать событие COMPLETED с временем завершения при переводе в COMPLETED")
+        void shouldEnqueueCompletedEventWhenStatusSetToCompleted() {
+            // Arrange
+            Long deliveryId = 1L;
+            LocalDateTime now = LocalDateTime.now();
+            DeliverySnapshot completed = DeliverySnapshot.of(deliveryId, "TRACK123", testUser.getId(),
+                    "Test Address", now.plusDays(1), now, DeliveryStatus.COMPLETED, now, now);
+
+            when(deliveryJdbcRepository.updateStatus(eq(List.of(deliveryId)),
+                    eq(DeliveryStatusTransitions.sourcesOf(DeliveryStatus.COMPLETED)), eq(DeliveryStatus.COMPLETED), any()))
+                    .thenReturn(List.of(completed));
 
             // Act
-            Delivery result = deliveryService.updateDeliveryStatus(deliveryId, newStatus);
+            deliveryService.updateDeliveryStatus(deliveryId, DeliveryStatus.COMPLETED);
 
             // Assert
-            assertNotNull(result);
-            assertEquals(newStatus, result.getStatus());
-            verify(deliveryRepository).findById(deliveryId);
-            verify(deliveryRepository).save(deliveryToUpdate);
+            verify(outboxService).enqueue(eventCaptor.capture());
+            DeliveryEvent capturedEvent = eventCaptor.getValue();
+            assertEquals("COMPLETED", capturedEvent.getEventType());
+            assertEquals(completed.getActualDeliveryTime(), capturedEvent.getAdditionalData().get("completedAt"));
+        }
+
+        @Test
+        @DisplayName("Одиночная и пакетная смена статуса записывают одинаковое событие")
+        @SuppressWarnings("unchecked")
+        void shouldEnqueueSameEventAsBulkUpdate() {
+            // Arrange
+            Long deliveryId = 1L;
+            DeliverySnapshot updated = snapshot(deliveryId, DeliveryStatus.DELIVERED);
+            when(deliveryJdbcRepository.updateStatus(eq(List.of(deliveryId)),
+                    eq(DeliveryStatusTransitions.sourcesOf(DeliveryStatus.DELIVERED)), eq(DeliveryStatus.DELIVERED), any()))
+                    .thenReturn(List.of(updated));
+            when(cacheManager.getCache(anyString())).thenReturn(mock(Cache.class));
+
+            // Act
+            deliveryService.updateDeliveryStatus(deliveryId, DeliveryStatus.DELIVERED);
+            deliveryService.updateDeliveryStatuses(List.of(
+                    new BulkStatusUpdateRequest.Item(deliveryId, DeliveryStatus.DELIVERED)));
+
+            // Assert
+            verify(outboxService).enqueue(eventCaptor.capture());
+            ArgumentCaptor<List<DeliveryEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+            verify(outboxService).enqueueAll(eventsCaptor.capture());
+            DeliveryEvent single = eventCaptor.getValue();
+            DeliveryEvent bulk = eventsCaptor.getValue().get(0);
+            assertEquals(bulk.getEventType(), single.getEventType());
+            assertEquals(bulk.getDeliveryId(), single.getDeliveryId());
+            assertEquals(bulk.getStatus(), single.getStatus());
+            assertEquals(bulk.getAdditionalData(), single.getAdditionalData());
         }
 
         @Test
@@ -237,14 +357,72 @@ class DeliveryServiceImplTest {
             Long deliveryId = 999L;
             DeliveryStatus newStatus = DeliveryStatus.IN_TRANSIT;
 
-            when(deliveryRepository.findById(deliveryId)).thenReturn(Optional.empty());
+            when(deliveryJdbcRepository.updateStatus(anyList(), any(), any(), any())).thenReturn(List.of());
+            when(deliveryJdbcRepository.findStatuses(List.of(deliveryId))).thenReturn(Map.of());
 
             // Act & Assert
-            assertThrows(ResourceNotFoundException.class, () ->
+            assertThrows(DeliveryNotFoundException.class, () ->
                     deliveryService.updateDeliveryStatus(deliveryId, newStatus));
 
-            verify(deliveryRepository).findById(deliveryId);
-            verify(deliveryRepository, never()).save(any(Delivery.class));
+            verify(deliveryJdbcRepository).updateStatus(anyList(), any(), any(), any());
+            verify(outboxService, never()).enqueue(any(DeliveryEvent.class));
+        }
+
+        @Test
+        @DisplayName("Должен отклонить недопустимый переход без повторных попыток")
+        void shouldRejectInvalidTransition() {
+            // Arrange
+            Long deliveryId = 1L;
+
+            when(deliveryJdbcRepository.updateStatus(anyList(), any(), any(), any())).thenReturn(List.of());
+            when(deliveryJdbcRepository.findStatuses(List.of(deliveryId)))
+                    .thenReturn(Map.of(deliveryId, DeliveryStatus.COMPLETED));
+
+            // Act & Assert
+            InvalidStatusTransitionException exception = assertThrows(InvalidStatusTransitionException.class, () ->
+                    deliveryService.updateDeliveryStatus(deliveryId, DeliveryStatus.IN_TRANSIT));
+
+            assertEquals(DeliveryStatus.COMPLETED, exception.getCurrentStatus());
+            assertEquals(DeliveryStatus.IN_TRANSIT, exception.getTargetStatus());
+            verify(deliveryJdbcRepository, times(1)).updateStatus(anyList(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Должен повторить UPDATE, если статус изменили между попыткой и чтением")
+        void shouldRetryWhenStatusChangedConcurrently() {
+            // Arrange
+            Long deliveryId = 1L;
+            DeliverySnapshot updated = snapshot(deliveryId, DeliveryStatus.IN_TRANSIT);
+
+            when(deliveryJdbcRepository.updateStatus(anyList(), any(), any(), any()))
+                    .thenReturn(List.of())
+                    .thenReturn(List.of(updated));
+            when(deliveryJdbcRepository.findStatuses(List.of(deliveryId)))
+                    .thenReturn(Map.of(deliveryId, DeliveryStatus.PENDING));
+
+            // Act
+            DeliverySnapshot result = deliveryService.updateDeliveryStatus(deliveryId, DeliveryStatus.IN_TRANSIT);
+
+            // Assert
+            assertEquals(DeliveryStatus.IN_TRANSIT, result.getStatus());
+            verify(deliveryJdbcRepository, times(2)).updateStatus(anyList(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Должен прекратить повторы после ограниченного числа попыток")
+        void shouldGiveUpAfterBoundedRetries() {
+            // Arrange
+            Long deliveryId = 1L;
+
+            when(deliveryJdbcRepository.updateStatus(anyList(), any(), any(), any())).thenReturn(List.of());
+            when(deliveryJdbcRepository.findStatuses(List.of(deliveryId)))
+                    .thenReturn(Map.of(deliveryId, DeliveryStatus.PENDING));
+
+            // Act & Assert
+            assertThrows(OptimisticLockingFailureException.class, () ->
+                    deliveryService.updateDeliveryStatus(deliveryId, DeliveryStatus.IN_TRANSIT));
+
+            verify(deliveryJdbcRepository, times(3)).updateStatus(anyList(), any(), any(), any());
         }
     }
 
@@ -260,43 +438,28 @@ class DeliveryServiceImplTest {
         void shouldCompleteDeliveryAndSendEvent() {
             // Arrange
             Long deliveryId = 1L;
+            LocalDateTime now = LocalDateTime.now();
+            DeliverySnapshot completedDelivery = DeliverySnapshot.of(deliveryId, "TRACK123", testUser.getId(),
+                    "Test Address", now.plusDays(1), now, DeliveryStatus.COMPLETED, now, now);
 
-            // Клонируем тестовую доставку для дальнейшей модификации
-            Delivery deliveryToComplete = new Delivery();
-            deliveryToComplete.setId(deliveryId);
-            deliveryToComplete.setUser(testUser);
-            deliveryToComplete.setStatus(DeliveryStatus.IN_TRANSIT);
-            deliveryToComplete.setTrackingNumber("TRACK123");
-            deliveryToComplete.setDeliveryAddress("Test Address");
-            deliveryToComplete.setExpectedDeliveryTime(LocalDateTime.now().plusDays(1));
-
-            // Создаем объект завершенной доставки
-            Delivery completedDelivery = new Delivery();
-            completedDelivery.setId(deliveryId);
-            completedDelivery.setUser(testUser);
-            completedDelivery.setStatus(DeliveryStatus.COMPLETED);
-            completedDelivery.setTrackingNumber("TRACK123");
-            completedDelivery.setDeliveryAddress("Test Address");
-            completedDelivery.setExpectedDeliveryTime(LocalDateTime.now().plusDays(1));
-            completedDelivery.setActualDeliveryTime(LocalDateTime.now());
-
-            when(deliveryRepository.findById(deliveryId)).thenReturn(Optional.of(deliveryToComplete));
-            when(deliveryRepository.save(any(Delivery.class))).thenReturn(completedDelivery);
-            doNothing().when(eventService).sendDeliveryEvent(any(DeliveryEvent.class));
+            when(deliveryJdbcRepository.updateStatus(eq(List.of(deliveryId)),
+                    eq(DeliveryStatusTransitions.sourcesOf(DeliveryStatus.COMPLETED)), eq(DeliveryStatus.COMPLETED), any()))
+                    .thenReturn(List.of(completedDelivery));
+            doNothing().when(outboxService).enqueue(any(DeliveryEvent.class));
 
             // Act
-            Delivery result = deliveryService.completeDelivery(deliveryId);
+            DeliverySnapshot result = deliveryService.completeDelivery(deliveryId);
 
             // Assert
             assertNotNull(result);
             assertEquals(DeliveryStatus.COMPLETED, result.getStatus());
             assertNotNull(result.getActualDeliveryTime());
 
-            verify(deliveryRepository).findById(deliveryId);
-            verify(deliveryRepository).save(any(Delivery.class));
+            verify(deliveryRepository, never()).findById(any());
+            verify(deliveryRepository, never()).save(any(Delivery.class));
 
-            // Проверяем отправку события
-            verify(eventService).sendDeliveryEvent(eventCaptor.capture());
+            // Проверяем запись события в outbox
+            verify(outboxService).enqueue(eventCaptor.capture());
             DeliveryEvent capturedEvent = eventCaptor.getValue();
             assertEquals("COMPLETED", capturedEvent.getEventType());
             assertEquals(deliveryId, capturedEvent.getDeliveryId());
@@ -309,15 +472,220 @@ class DeliveryServiceImplTest {
         void shouldThrowExceptionWhenDeliveryNotFound() {
             // Arrange
             Long deliveryId = 999L;
-            when(deliveryRepository.findById(deliveryId)).thenReturn(Optional.empty());
+            when(deliveryJdbcRepository.updateStatus(anyList(), any(), any(), any())).thenReturn(List.of());
+            when(deliveryJdbcRepository.findStatuses(List.of(deliveryId))).thenReturn(Map.of());
 
             // Act & Assert
             assertThrows(DeliveryNotFoundException.class, () ->
                     deliveryService.completeDelivery(deliveryId));
 
-            verify(deliveryRepository).findById(deliveryId);
+            verify(outboxService, never()).enqueue(any(DeliveryEvent.class));
+        }
+
+        @Test
+        @DisplayName("Повторное подтверждение завершённой доставки отклоняется без события")
+        void shouldRejectRepeatedCompletion() {
+            // Arrange
+            Long deliveryId = 1L;
+            when(deliveryJdbcRepository.updateStatus(anyList(), any(), any(), any())).thenReturn(List.of());
+            when(deliveryJdbcRepository.findStatuses(List.of(deliveryId)))
+                    .thenReturn(Map.of(deliveryId, DeliveryStatus.COMPLETED));
+
+            // Act & Assert
+            assertThrows(InvalidStatusTransitionException.class, () ->
+                    deliveryService.completeDelivery(deliveryId));
+
+            verify(outboxService, never()).enqueue(any(DeliveryEvent.class));
+        }
+    }
+
+    private static DeliverySnapshot snapshot(Long deliveryId, DeliveryStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        return DeliverySnapshot.of(deliveryId, "TRACK123", 1L, "Test Address",
+                now.plusDays(1), null, status, now, now);
+    }
+
+    /**
+     * Тесты для метода updateDeliveryStatuses
+     */
+    @Nested
+    @DisplayName("Тесты для updateDeliveryStatuses")
+    class UpdateDeliveryStatusesTests {
+
+        @Test
+        @DisplayName("Должен обновить доставки одним вызовом на статус и записать события одним пакетом")
+        @SuppressWarnings("unchecked")
+        void shouldUpdateGroupedByStatusAndEnqueueEventsOnce() {
+            // Arrange
+            LocalDateTime now = LocalDateTime.now();
+            DeliverySnapshot inTransit = DeliverySnapshot.of(1L, "TRACK1", 10L, "Address 1",
+                    now.plusDays(1), null, DeliveryStatus.IN_TRANSIT, now, now);
+            DeliverySnapshot completed = DeliverySnapshot.of(3L, "TRACK3", 20L, "Address 3",
+                    now.plusDays(1), now, DeliveryStatus.COMPLETED, now, now);
+
+            when(deliveryJdbcRepository.updateStatus(eq(List.of(1L, 2L, 4L)),
+                    eq(DeliveryStatusTransitions.sourcesOf(DeliveryStatus.IN_TRANSIT)), eq(DeliveryStatus.IN_TRANSIT), any()))
+                    .thenReturn(List.of(inTransit));
+            when(deliveryJdbcRepository.updateStatus(eq(List.of(3L)),
+                    eq(DeliveryStatusTransitions.sourcesOf(DeliveryStatus.COMPLETED)), eq(DeliveryStatus.COMPLETED), any()))
+                    .thenReturn(List.of(completed));
+            // Доставка 4 существует, но уже завершена: переход в IN_TRANSIT запрещён
+            when(deliveryJdbcRepository.findStatuses(List.of(2L, 4L)))
+                    .thenReturn(Map.of(4L, DeliveryStatus.COMPLETED));
+            Cache cache = mock(Cache.class);
+            when(cacheManager.getCache(anyString())).thenReturn(cache);
+
+            List<BulkStatusUpdateRequest.Item> items = Arrays.asList(
+                    new BulkStatusUpdateRequest.Item(1L, DeliveryStatus.IN_TRANSIT),
+                    new BulkStatusUpdateRequest.Item(2L, DeliveryStatus.IN_TRANSIT),
+                    new BulkStatusUpdateRequest.Item(3L, DeliveryStatus.COMPLETED),
+                    new BulkStatusUpdateRequest.Item(1L, DeliveryStatus.CANCELLED),
+                    new BulkStatusUpdateRequest.Item(null, DeliveryStatus.DELIVERED),
+                    new BulkStatusUpdateRequest.Item(4L, DeliveryStatus.IN_TRANSIT));
+
+            // Act
+            BulkStatusUpdateResultDTO result = deliveryService.updateDeliveryStatuses(items);
+
+            // Assert
+            assertEquals(6, result.getRequested());
+            assertEquals(2, result.getUpdated());
+            assertEquals(1, result.getNotFound());
+            assertEquals(3, result.getRejected());
+            assertEquals(List.of(
+                    BulkStatusUpdateResultDTO.Outcome.UPDATED,
+                    BulkStatusUpdateResultDTO.Outcome.NOT_FOUND,
+                    BulkStatusUpdateResultDTO.Outcome.UPDATED,
+                    BulkStatusUpdateResultDTO.Outcome.DUPLICATE,
+                    BulkStatusUpdateResultDTO.Outcome.INVALID,
+                    BulkStatusUpdateResultDTO.Outcome.INVALID_TRANSITION
+            ), result.getItems().stream().map(BulkStatusUpdateResultDTO.ItemResult::getOutcome).toList());
+
+            // Проверяем, что события записаны в outbox одним вызовом
+            ArgumentCaptor<List<DeliveryEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+            verify(outboxService).enqueueAll(eventsCaptor.capture());
+            List<DeliveryEvent> events = eventsCaptor.getValue();
+            assertEquals(2, events.size());
+            DeliveryEvent updatedEvent = events.stream()
+                    .filter(e -> e.getDeliveryId().equals(1L)).findFirst().orElseThrow();
+            DeliveryEvent completedEvent = events.stream()
+                    .filter(e -> e.getDeliveryId().equals(3L)).findFirst().orElseThrow();
+            assertEquals("UPDATED", updatedEvent.getEventType());
+            assertEquals("COMPLETED", completedEvent.getEventType());
+            assertEquals(completed.getActualDeliveryTime(), completedEvent.getAdditionalData().get("completedAt"));
+            verify(outboxService, never()).enqueue(any(DeliveryEvent.class));
+            verify(deliveryRepository, never()).save(any(Delivery.class));
+
+            // Кэши очищаются по затронутым пользователям и номерам отслеживания
+            verify(cache).evict(10L);
+            verify(cache).evict(20L);
+            verify(cache).evict("TRACK1");
+            verify(cache).evict("TRACK3");
+        }
+    }
+
+    /**
+     * Тесты для метода createDeliveries
+     */
+    @Nested
+    @DisplayName("Тесты для createDeliveries")
+    class CreateDeliveriesTests {
+
+        @Test
+        @DisplayName("Должен проверить порцию двумя запросами, сохранить валидные позиции и записать события одним пакетом")
+        @SuppressWarnings("unchecked")
+        void shouldCreateValidItemsAndReportRejected() {
+            // Arrange
+            ReflectionTestUtils.setField(deliveryService, "bulkChunkSize", 1000);
+            List<DeliveryCreateRequest> requests = List.of(
+                    createRequest("TRACK1", 1L, "CREATED"),
+                    createRequest("TRACK2", 2L, "CREATED"),
+                    createRequest("TRACK1", 1L, "CREATED"),
+                    createRequest("TRACK3", 1L, "UNKNOWN"),
+                    createRequest("TAKEN", 1L, "PENDING"));
+
+            when(deliveryRepository.findExistingTrackingNumbers(any())).thenReturn(List.of("TAKEN"));
+            when(userRepository.findExistingIds(any())).thenReturn(List.of(1L));
+            when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(deliveryRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<Delivery> deliveries = invocation.getArgument(0);
+                deliveries.forEach(delivery -> delivery.setId(100L));
+                return deliveries;
+            });
+            Cache cache = mock(Cache.class);
+            when(cacheManager.getCache(anyString())).thenReturn(cache);
+
+            // Act
+            BulkCreateResultDTO result = deliveryService.createDeliveries(requests);
+
+            // Assert
+            assertEquals(5, result.getRequested());
+            assertEquals(1, result.getCreated());
+            assertEquals(4, result.getRejected());
+            assertEquals(List.of(
+                    BulkCreateResultDTO.Outcome.CREATED,
+                    BulkCreateResultDTO.Outcome.USER_NOT_FOUND,
+                    BulkCreateResultDTO.Outcome.DUPLICATE,
+                    BulkCreateResultDTO.Outcome.INVALID,
+                    BulkCreateResultDTO.Outcome.DUPLICATE
+            ), result.getItems().stream().map(BulkCreateResultDTO.ItemResult::getOutcome).toList());
+            assertEquals(100L, result.getItems().get(0).getDeliveryId());
+
+            // Проверяем, что события записаны в outbox одним вызовом, а порция сброшена в БД
+            ArgumentCaptor<List<DeliveryEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+            verify(outboxService).enqueueAll(eventsCaptor.capture());
+            assertEquals(1, eventsCaptor.getValue().size());
+            assertEquals("CREATED", eventsCaptor.getValue().get(0).getEventType());
             verify(deliveryRepository, never()).save(any(Delivery.class));
-            verify(eventService, never()).sendDeliveryEvent(any(DeliveryEvent.class));
+            verify(entityManager).flush();
+            verify(entityManager).clear();
+
+            // Кэши очищаются только по созданным доставкам
+            verify(cache).evict(1L);
+            verify(cache).evict("TRACK1");
+            verify(cache, never()).evict("TAKEN");
+        }
+
+        @Test
+        @DisplayName("Должен забирать позиции из итератора порциями по bulkChunkSize")
+        void shouldConsumeIteratorInChunks() {
+            // Arrange
+            ReflectionTestUtils.setField(deliveryService, "bulkChunkSize", 2);
+            List<DeliveryCreateRequest> requests = List.of(
+                    createRequest("TRACK1", 1L, "CREATED"),
+                    createRequest("TRACK2", 1L, "CREATED"),
+                    createRequest("TRACK3", 1L, "CREATED"));
+
+            when(deliveryRepository.findExistingTrackingNumbers(any())).thenReturn(List.of());
+            when(userRepository.findExistingIds(any())).thenReturn(List.of(1L));
+            when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(deliveryRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+            Cache cache = mock(Cache.class);
+            when(cacheManager.getCache(anyString())).thenReturn(cache);
+
+            // Act
+            BulkCreateResultDTO result = deliveryService.createDeliveries(requests.iterator());
+
+            // Assert
+            assertEquals(3, result.getRequested());
+            assertEquals(3, result.getCreated());
+            assertEquals(List.of("TRACK1", "TRACK2", "TRACK3"), result.getItems().stream()
+                    .map(BulkCreateResultDTO.ItemResult::getTrackingNumber).toList());
+
+            // Две порции: 2 + 1 позиция, каждая проверяется и сбрасывается в БД отдельно
+            verify(deliveryRepository).findExistingTrackingNumbers(List.of("TRACK1", "TRACK2"));
+            verify(deliveryRepository).findExistingTrackingNumbers(List.of("TRACK3"));
+            verify(entityManager, times(2)).flush();
+            verify(entityManager, times(2)).clear();
+        }
+
+        private DeliveryCreateRequest createRequest(String trackingNumber, Long userId, String status) {
+            DeliveryCreateRequest request = new DeliveryCreateRequest();
+            request.setTrackingNumber(trackingNumber);
+            request.setUserId(userId);
+            request.setDeliveryAddress("Test Address");
+            request.setExpectedDeliveryTime(LocalDateTime.now().plusDays(1));
+            request.setStatus(status);
+            return request;
         }
     }
 }
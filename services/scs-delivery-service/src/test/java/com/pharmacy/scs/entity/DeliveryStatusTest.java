@@ -0,0 +1,67 @@
+package com.pharmacy.scs.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Коды статусов хранятся в БД, в индексах и в миграциях, поэтому не должны меняться
+ */
+class DeliveryStatusTest {
+
+    @Test
+    @DisplayName("Коды статусов совпадают с сохранёнными в БД значениями")
+    void codes_AreStable() {
+        // Arrange
+        Map<DeliveryStatus, Integer> expected = Map.of(
+                DeliveryStatus.CONFIRMED, 0,
+                DeliveryStatus.COMPLETED, 1,
+                DeliveryStatus.CREATED, 2,
+                DeliveryStatus.PENDING, 3,
+                DeliveryStatus.CANCELLED, 4,
+                DeliveryStatus.DELIVERED, 5,
+                DeliveryStatus.IN_TRANSIT, 6);
+
+        // Act & Assert
+        assertEquals(DeliveryStatus.values().length, expected.size());
+        expected.forEach((status, code) -> {
+            assertEquals(code, status.getCode());
+            assertEquals(status, DeliveryStatus.fromCode(code));
+        });
+    }
+
+    @Test
+    @DisplayName("Неизвестный код статуса отклоняется")
+    void fromCode_UnknownCode() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> DeliveryStatus.fromCode(-1));
+        assertThrows(IllegalArgumentException.class, () -> DeliveryStatus.fromCode(DeliveryStatus.values().length));
+    }
+
+    @Test
+    @DisplayName("Конвертер сохраняет код статуса и пропускает null")
+    void converter_RoundTrip() {
+        // Arrange
+        DeliveryStatusConverter converter = new DeliveryStatusConverter();
+
+        // Act & Assert
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            assertEquals(status, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(status)));
+        }
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    @DisplayName("Активные статусы подставляются в SQL кодами")
+    void active_CodesForPartialIndexes() {
+        // Act & Assert
+        assertEquals(EnumSet.of(DeliveryStatus.CREATED, DeliveryStatus.PENDING,
+                DeliveryStatus.CONFIRMED, DeliveryStatus.IN_TRANSIT), DeliveryStatus.ACTIVE);
+        assertEquals("0, 2, 3, 6", DeliveryStatus.codes(DeliveryStatus.ACTIVE));
+    }
+}
@@ -0,0 +1,96 @@
+package com.pharmacy.scs.service;
+
+import com.pharmacy.scs.config.CacheConfig;
+import com.pharmacy.scs.dto.BulkCreateResultDTO;
+import com.pharmacy.scs.dto.DeliveryCreateRequest;
+import com.pharmacy.scs.entity.User;
+import com.pharmacy.scs.repository.DeliveryJdbcRepository;
+import com.pharmacy.scs.repository.DeliveryRepository;
+import com.pharmacy.scs.repository.OutboxEventRepository;
+import com.pharmacy.scs.service.impl.DeliveryServiceImpl;
+import com.pharmacy.scs.util.DataGenerator;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Пакетное создание доставок через DeliveryService.createDeliveries на H2: число SQL-операторов.
+ * Скорость создания измеряется в src/jmh/.../DeliveryBatchCreateBenchmark.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "delivery.bulk.chunk-size=1000",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Import({DeliveryServiceImpl.class, OutboxService.class, DeliveryJdbcRepository.class,
+        CacheConfig.class, DataGenerator.class})
+class DeliveryBatchCreateTest {
+
+    private static final int USERS = 100;
+    private static final int DELIVERIES = 5_000;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private DataGenerator dataGenerator;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Пакетное создание: INSERT доставок и outbox-событий уходят JDBC-батчами, проверки — запросом на порцию")
+    void shouldBatchInsertsAndChunkValidation() {
+        List<User> users = dataGenerator.generateUsers(USERS);
+        entityManager.flush();
+
+        LocalDateTime expected = LocalDateTime.now().plusDays(1);
+        List<DeliveryCreateRequest> requests = new ArrayList<>(DELIVERIES);
+        for (int i = 0; i < DELIVERIES; i++) {
+            DeliveryCreateRequest request = new DeliveryCreateRequest();
+            request.setTrackingNumber("BATCH" + i);
+            request.setUserId(users.get(i % USERS).getId());
+            request.setDeliveryAddress("Address " + i);
+            request.setExpectedDeliveryTime(expected);
+            request.setStatus("CREATED");
+            requests.add(request);
+        }
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BulkCreateResultDTO result = deliveryService.createDeliveries(requests);
+
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(DELIVERIES, result.getCreated());
+        assertEquals(0, result.getRejected());
+        assertEquals(DELIVERIES, deliveryRepository.count());
+        assertEquals(DELIVERIES, outboxEventRepository.count());
+        // INSERT по 50 строк и nextval на 50 ID для доставок и outbox плюс две проверки на порцию из 1000
+        assertTrue(statements <= DELIVERIES / 50 * 4 + DELIVERIES / 1000 * 2 + 10,
+                "prepared statements: " + statements);
+    }
+}
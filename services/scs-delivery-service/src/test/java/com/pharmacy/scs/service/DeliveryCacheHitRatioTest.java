@@ -0,0 +1,203 @@
+package com.pharmacy.scs.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pharmacy.scs.config.CacheConfig;
+import com.pharmacy.scs.dto.DeliverySnapshot;
+import com.pharmacy.scs.entity.Delivery;
+import com.pharmacy.scs.entity.DeliveryStatus;
+import com.pharmacy.scs.entity.User;
+import com.pharmacy.scs.repository.DeliveryJdbcRepository;
+import com.pharmacy.scs.repository.DeliveryRepository;
+import com.pharmacy.scs.repository.UserRepository;
+import com.pharmacy.scs.service.impl.DeliveryServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Доля попаданий в кэш при смешанной нагрузке 90% чтений / 10% записей (детерминированный поток операций).
+ * Сравнивает прежнюю стратегию (полная очистка кэшей при каждой записи, allEntries = true)
+ * с точечной инвалидацией записей по номеру отслеживания и ID пользователя.
+ */
+@SpringJUnitConfig(DeliveryCacheHitRatioTest.WorkloadConfig.class)
+class DeliveryCacheHitRatioTest {
+
+    private static final int USERS = 200;
+    private static final int DELIVERIES_PER_USER = 10;
+    private static final int OPERATIONS = 50_000;
+    private static final int WRITE_PERCENT = 10;
+
+    private static final List<String> CACHE_NAMES = List.of("userDeliveries", "deliveryByTracking");
+
+    private final Map<String, CacheStats> statsBeforeRun = new HashMap<>();
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        clearAndResetCaches();
+    }
+
+    @Test
+    @DisplayName("Точечная инвалидация сохраняет высокую долю попаданий при нагрузке 90/10")
+    void targetedEvictionKeepsHitRatioHigh() {
+        double allEntriesHitRatio = runWorkload(true);
+        clearAndResetCaches();
+        double targetedHitRatio = runWorkload(false);
+
+        assertTrue(targetedHitRatio > 0.7, "targeted hit ratio: " + targetedHitRatio);
+        assertTrue(targetedHitRatio > allEntriesHitRatio * 2,
+                "targeted=" + targetedHitRatio + ", allEntries=" + allEntriesHitRatio);
+    }
+
+    private double runWorkload(boolean clearAllOnWrite) {
+        Random random = new Random(42);
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            long userId = random.nextInt(USERS) + 1;
+            long deliveryId = (userId - 1) * DELIVERIES_PER_USER + random.nextInt(DELIVERIES_PER_USER) + 1;
+
+            if (random.nextInt(100) < WRITE_PERCENT) {
+                deliveryService.updateDeliveryStatus(deliveryId, DeliveryStatus.IN_TRANSIT);
+                if (clearAllOnWrite) {
+                    // Поведение до изменения: @CacheEvict(allEntries = true)
+                    cache("userDeliveries").clear();
+                    cache("deliveryByTracking").clear();
+                }
+            } else if (random.nextBoolean()) {
+                deliveryService.getDeliveryByTrackingNumber(trackingNumber(deliveryId));
+            } else {
+                deliveryService.getDeliveriesByUserId(userId);
+            }
+        }
+
+        return CACHE_NAMES.stream().mapToDouble(this::hitRatio).average().orElse(0);
+    }
+
+    private double hitRatio(String cacheName) {
+        return nativeCache(cacheName).stats().minus(statsBeforeRun.get(cacheName)).hitRate();
+    }
+
+    /**
+     * Очищает кэши и запоминает текущие счётчики: статистика Caffeine накопительная,
+     * поэтому доля попаданий считается по разнице счётчиков за прогон
+     */
+    private void clearAndResetCaches() {
+        for (String cacheName : CACHE_NAMES) {
+            nativeCache(cacheName).invalidateAll();
+            statsBeforeRun.put(cacheName, nativeCache(cacheName).stats());
+        }
+    }
+
+    private Cache cache(String cacheName) {
+        return cacheManager.getCache(cacheName);
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache(String cacheName) {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache(cacheName).getNativeCache();
+    }
+
+    private static String trackingNumber(long deliveryId) {
+        return "TRACK" + deliveryId;
+    }
+
+    @Configuration
+    @Import(CacheConfig.class)
+    static class WorkloadConfig {
+
+        @Bean
+        DeliveryRepository deliveryRepository() {
+            Map<Long, Delivery> deliveries = new HashMap<>();
+            Map<String, Delivery> byTracking = new HashMap<>();
+            Map<Long, List<Delivery>> byUser = new HashMap<>();
+
+            for (long userId = 1; userId <= USERS; userId++) {
+                User user = new User();
+                user.setId(userId);
+                for (int i = 0; i < DELIVERIES_PER_USER; i++) {
+                    long deliveryId = (userId - 1) * DELIVERIES_PER_USER + i + 1;
+                    Delivery delivery = new Delivery();
+                    delivery.setId(deliveryId);
+                    delivery.setUser(user);
+                    delivery.setTrackingNumber(trackingNumber(deliveryId));
+                    delivery.setDeliveryAddress("Address " + deliveryId);
+                    delivery.setExpectedDeliveryTime(LocalDateTime.now().plusDays(1));
+                    delivery.setStatus(DeliveryStatus.PENDING);
+
+                    deliveries.put(deliveryId, delivery);
+                    byTracking.put(delivery.getTrackingNumber(), delivery);
+                    byUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(delivery);
+                }
+            }
+
+            DeliveryRepository repository = mock(DeliveryRepository.class, withSettings().stubOnly());
+            when(repository.findById(anyLong()))
+                    .thenAnswer(invocation -> Optional.ofNullable(deliveries.get(invocation.<Long>getArgument(0))));
+            when(repository.findByTrackingNumberAndExpectedDeliveryTimeGreaterThanEqual(anyString(), any()))
+                    .thenAnswer(invocation -> Optional.ofNullable(byTracking.get(invocation.<String>getArgument(0))));
+            when(repository.findByUserIdAndExpectedDeliveryTimeGreaterThanEqual(anyLong(), any()))
+                    .thenAnswer(invocation -> byUser.getOrDefault(invocation.<Long>getArgument(0), List.of()));
+            when(repository.save(any(Delivery.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            return repository;
+        }
+
+        @Bean
+        OutboxService outboxService() {
+            return mock(OutboxService.class, withSettings().stubOnly());
+        }
+
+        @Bean
+        DeliveryJdbcRepository deliveryJdbcRepository(DeliveryRepository deliveryRepository) {
+            // Условный UPDATE возвращает снимок доставки с новым статусом
+            DeliveryJdbcRepository repository = mock(DeliveryJdbcRepository.class, withSettings().stubOnly());
+            when(repository.updateStatus(anyList(), any(), any(DeliveryStatus.class), any()))
+                    .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).stream()
+                            .map(id -> deliveryRepository.findById(id).orElseThrow())
+                            .peek(delivery -> delivery.setStatus(invocation.getArgument(2)))
+                            .map(DeliverySnapshot::from)
+                            .toList());
+            return repository;
+        }
+
+        @Bean
+        DeliveryService deliveryService(DeliveryRepository deliveryRepository,
+                                        OutboxService outboxService,
+                                        DeliveryJdbcRepository deliveryJdbcRepository,
+                                        CacheManager cacheManager) {
+            return new DeliveryServiceImpl(deliveryRepository, outboxService, deliveryJdbcRepository, cacheManager,
+                    mock(UserRepository.class, withSettings().stubOnly()),
+                    mock(EntityManager.class, withSettings().stubOnly()));
+        }
+    }
+}
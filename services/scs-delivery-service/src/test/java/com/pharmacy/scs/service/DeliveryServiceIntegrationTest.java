@@ -1,11 +1,19 @@
 package com.pharmacy.scs.service;
 
+import com.pharmacy.scs.dto.BulkStatusUpdateRequest;
+import com.pharmacy.scs.dto.BulkStatusUpdateResultDTO;
+import com.pharmacy.scs.dto.DeliverySnapshot;
+import com.pharmacy.scs.dto.DeliveryTrackingDTO;
 import com.pharmacy.scs.entity.Delivery;
 import com.pharmacy.scs.entity.DeliveryStatus;
+import com.pharmacy.scs.entity.OutboxEvent;
 import com.pharmacy.scs.entity.User;
 import com.pharmacy.scs.exception.DeliveryNotFoundException;
+import com.pharmacy.scs.exception.InvalidStatusTransitionException;
 import com.pharmacy.scs.repository.DeliveryRepository;
+import com.pharmacy.scs.repository.OutboxEventRepository;
 import com.pharmacy.scs.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.transaction.annotation.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,12 +24,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 /**
  * Интеграционные тесты для DeliveryService с использованием H2 вместо TestContainers
@@ -41,6 +52,12 @@ public class DeliveryServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @MockBean
     private KafkaDeliveryEventService kafkaEventService;
 
@@ -50,6 +67,7 @@ public class DeliveryServiceIntegrationTest {
     @BeforeEach
     void setUp() {
         // Очищаем базу перед каждым тестом
+        outboxEventRepository.deleteAll();
         deliveryRepository.deleteAll();
         userRepository.deleteAll();
 
@@ -95,14 +113,48 @@ public class DeliveryServiceIntegrationTest {
         assertNotNull(createdDelivery.getId());
 
         // Получаем доставку по номеру отслеживания
-        Optional<Delivery> foundDelivery = deliveryService.getDeliveryByTrackingNumber(createdDelivery.getTrackingNumber());
+        Optional<DeliverySnapshot> foundDelivery = deliveryService.getDeliveryByTrackingNumber(createdDelivery.getTrackingNumber());
 
         assertTrue(foundDelivery.isPresent());
         assertEquals(createdDelivery.getId(), foundDelivery.get().getId());
-        assertEquals(testUser.getId(), foundDelivery.get().getUser().getId());
+        assertEquals(testUser.getId(), foundDelivery.get().getUserId());
         assertEquals(DeliveryStatus.PENDING, foundDelivery.get().getStatus());
     }
 
+    @Test
+    @DisplayName("Интеграционный тест: Страница отслеживания читает проекцию без загрузки сущности")
+    void testGetDeliveryTracking() {
+        // Создаем доставку
+        Delivery createdDelivery = deliveryService.createDelivery(testDelivery);
+
+        // Получаем проекцию по номеру отслеживания
+        Optional<DeliveryTrackingDTO> tracking = deliveryService.getDeliveryTracking(createdDelivery.getTrackingNumber());
+
+        assertTrue(tracking.isPresent());
+        assertEquals(createdDelivery.getTrackingNumber(), tracking.get().getTrackingNumber());
+        assertEquals("PENDING", tracking.get().getStatus());
+        assertNotNull(tracking.get().getExpectedDeliveryTime());
+        assertNull(tracking.get().getActualDeliveryTime());
+        assertTrue(deliveryService.getDeliveryTracking("NONEXISTENT").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Интеграционный тест: Событие о создании пишется в outbox, а не отправляется в Kafka")
+    void testCreateDeliveryWritesOutboxEvent() {
+        // Создаем доставку
+        Delivery createdDelivery = deliveryService.createDelivery(testDelivery);
+
+        // Событие сохранено в той же транзакции
+        List<OutboxEvent> outboxEvents = outboxEventRepository.findAll();
+        assertEquals(1, outboxEvents.size());
+        assertEquals(createdDelivery.getId(), outboxEvents.get(0).getDeliveryId());
+        assertEquals("CREATED", outboxEvents.get(0).getEventType());
+        assertTrue(outboxEvents.get(0).getPayload().contains(createdDelivery.getTrackingNumber()));
+
+        // Kafka не вызывается на пути запроса
+        verify(kafkaEventService, never()).sendDeliveryEvent(any());
+    }
+
     @Test
     @DisplayName("Интеграционный тест: Получение доставок пользователя")
     void testGetDeliveriesByUserId() {
@@ -119,7 +171,7 @@ public class DeliveryServiceIntegrationTest {
         deliveryService.createDelivery(secondDelivery);
 
         // Получаем доставки пользователя
-        List<Delivery> userDeliveries = deliveryService.getDeliveriesByUserId(testUser.getId());
+        List<DeliverySnapshot> userDeliveries = deliveryService.getDeliveriesByUserId(testUser.getId());
 
         assertEquals(2, userDeliveries.size());
         assertTrue(userDeliveries.stream()
@@ -128,22 +180,54 @@ public class DeliveryServiceIntegrationTest {
                 .anyMatch(d -> d.getTrackingNumber().equals(secondDelivery.getTrackingNumber())));
     }
 
+    @Test
+    @DisplayName("Интеграционный тест: Страница и выгрузка доставок ограничены периодом ожидаемой доставки")
+    void testGetDeliveriesInPeriod() {
+        // Доставки в соседних месяцах (в секционированной таблице — разные секции)
+        LocalDateTime from = LocalDateTime.of(2026, 3, 1, 0, 0);
+        LocalDateTime to = from.plusMonths(1);
+        testDelivery.setExpectedDeliveryTime(from.plusDays(10));
+        deliveryService.createDelivery(testDelivery);
+
+        Delivery nextMonthDelivery = new Delivery();
+        nextMonthDelivery.setTrackingNumber("TRACK3" + System.currentTimeMillis());
+        nextMonthDelivery.setUser(testUser);
+        nextMonthDelivery.setDeliveryAddress("Another Address");
+        nextMonthDelivery.setExpectedDeliveryTime(to);
+        nextMonthDelivery.setStatus(DeliveryStatus.PENDING);
+        deliveryService.createDelivery(nextMonthDelivery);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Граница to не входит в период
+        List<DeliverySnapshot> page = deliveryService.getDeliveriesPage(testUser.getId(), from, to, null, 10);
+        List<DeliverySnapshot> streamed = new ArrayList<>();
+        deliveryService.streamDeliveriesByUserId(testUser.getId(), from, to, streamed::add);
+
+        assertEquals(List.of(testDelivery.getTrackingNumber()),
+                page.stream().map(DeliverySnapshot::getTrackingNumber).toList());
+        assertEquals(page, streamed);
+    }
+
     @Test
     @DisplayName("Интеграционный тест: Обновление статуса доставки")
     void testUpdateDeliveryStatus() {
-        // Создаем доставку
+        // Создаем доставку и сбрасываем ее в БД: статус меняется условным UPDATE через JDBC
         Delivery createdDelivery = deliveryService.createDelivery(testDelivery);
+        entityManager.flush();
+        entityManager.clear();
 
         // Обновляем статус
-        Delivery updatedDelivery = deliveryService.updateDeliveryStatus(
+        DeliverySnapshot updatedDelivery = deliveryService.updateDeliveryStatus(
                 createdDelivery.getId(), DeliveryStatus.IN_TRANSIT);
 
         assertEquals(DeliveryStatus.IN_TRANSIT, updatedDelivery.getStatus());
 
-        // Проверяем, что статус обновлен в базе
+        // Проверяем, что статус обновлен в базе, а версия увеличена
         Optional<Delivery> foundDelivery = deliveryRepository.findById(createdDelivery.getId());
         assertTrue(foundDelivery.isPresent());
         assertEquals(DeliveryStatus.IN_TRANSIT, foundDelivery.get().getStatus());
+        assertEquals(createdDelivery.getVersion() + 1, foundDelivery.get().getVersion());
     }
 
     @Test
@@ -151,9 +235,11 @@ public class DeliveryServiceIntegrationTest {
     void testCompleteDelivery() {
         // Создаем доставку
         Delivery createdDelivery = deliveryService.createDelivery(testDelivery);
+        entityManager.flush();
+        entityManager.clear();
 
         // Завершаем доставку
-        Delivery completedDelivery = deliveryService.completeDelivery(createdDelivery.getId());
+        DeliverySnapshot completedDelivery = deliveryService.completeDelivery(createdDelivery.getId());
 
         assertEquals(DeliveryStatus.COMPLETED, completedDelivery.getStatus());
         assertNotNull(completedDelivery.getActualDeliveryTime());
@@ -164,6 +250,24 @@ public class DeliveryServiceIntegrationTest {
         assertEquals(DeliveryStatus.COMPLETED, foundDelivery.get().getStatus());
     }
 
+    @Test
+    @DisplayName("Интеграционный тест: Недопустимый переход не меняет статус")
+    void testInvalidStatusTransition() {
+        // Завершаем доставку, после чего переход в IN_TRANSIT запрещен
+        Delivery createdDelivery = deliveryService.createDelivery(testDelivery);
+        entityManager.flush();
+        entityManager.clear();
+        deliveryService.completeDelivery(createdDelivery.getId());
+
+        assertThrows(InvalidStatusTransitionException.class, () ->
+                deliveryService.updateDeliveryStatus(createdDelivery.getId(), DeliveryStatus.IN_TRANSIT));
+        assertThrows(InvalidStatusTransitionException.class, () ->
+                deliveryService.completeDelivery(createdDelivery.getId()));
+
+        assertEquals(DeliveryStatus.COMPLETED,
+                deliveryRepository.findById(createdDelivery.getId()).orElseThrow().getStatus());
+    }
+
     @Test
     @DisplayName("Интеграционный тест: Исключение при несуществующей доставке")
     void testDeliveryNotFoundException() {
@@ -171,4 +275,53 @@ public class DeliveryServiceIntegrationTest {
         assertThrows(DeliveryNotFoundException.class, () ->
                 deliveryService.completeDelivery(999L));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Интеграционный тест: Пакетная смена статусов одним UPDATE на статус и пакет событий в outbox")
+    void testUpdateDeliveryStatuses() {
+        // Создаем две доставки и сбрасываем их в БД: пакетное обновление идет через JDBC
+        Delivery first = deliveryService.createDelivery(testDelivery);
+
+        Delivery secondDelivery = new Delivery();
+        secondDelivery.setTrackingNumber("TRACK2" + System.currentTimeMillis());
+        secondDelivery.setUser(testUser);
+        secondDelivery.setDeliveryAddress("Another Address");
+        secondDelivery.setExpectedDeliveryTime(LocalDateTime.now().plusDays(2));
+        secondDelivery.setStatus(DeliveryStatus.PENDING);
+        Delivery second = deliveryService.createDelivery(secondDelivery);
+
+        entityManager.flush();
+        entityManager.clear();
+        outboxEventRepository.deleteAll();
+
+        // Пакетно меняем статусы, включая несуществующую доставку и повтор ID
+        BulkStatusUpdateResultDTO result = deliveryService.updateDeliveryStatuses(List.of(
+                new BulkStatusUpdateRequest.Item(first.getId(), DeliveryStatus.IN_TRANSIT),
+                new BulkStatusUpdateRequest.Item(999L, DeliveryStatus.DELIVERED),
+                new BulkStatusUpdateRequest.Item(second.getId(), DeliveryStatus.COMPLETED),
+                new BulkStatusUpdateRequest.Item(first.getId(), DeliveryStatus.CANCELLED)));
+
+        assertEquals(4, result.getRequested());
+        assertEquals(2, result.getUpdated());
+        assertEquals(1, result.getNotFound());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of(BulkStatusUpdateResultDTO.Outcome.UPDATED, BulkStatusUpdateResultDTO.Outcome.NOT_FOUND,
+                        BulkStatusUpdateResultDTO.Outcome.UPDATED, BulkStatusUpdateResultDTO.Outcome.DUPLICATE),
+                result.getItems().stream().map(BulkStatusUpdateResultDTO.ItemResult::getOutcome).toList());
+
+        // Проверяем статусы в базе: применено первое вхождение ID
+        assertEquals(DeliveryStatus.IN_TRANSIT, deliveryRepository.findById(first.getId()).orElseThrow().getStatus());
+        Delivery completed = deliveryRepository.findById(second.getId()).orElseThrow();
+        assertEquals(DeliveryStatus.COMPLETED, completed.getStatus());
+        assertNotNull(completed.getActualDeliveryTime());
+
+        // События записаны в outbox, Kafka на пути запроса не вызывается
+        List<OutboxEvent> outboxEvents = outboxEventRepository.findAll();
+        assertEquals(2, outboxEvents.size());
+        assertTrue(outboxEvents.stream().anyMatch(e ->
+                e.getDeliveryId().equals(second.getId()) && e.getEventType().equals("COMPLETED")));
+        assertTrue(outboxEvents.stream().anyMatch(e ->
+                e.getDeliveryId().equals(first.getId()) && e.getEventType().equals("UPDATED")));
+        verify(kafkaEventService, never()).sendDeliveryEvent(any());
+    }
+}
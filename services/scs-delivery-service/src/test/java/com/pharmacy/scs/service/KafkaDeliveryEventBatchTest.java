@@ -0,0 +1,86 @@
+package com.pharmacy.scs.service;
+
+import com.pharmacy.scs.config.KafkaConfig;
+import com.pharmacy.scs.dto.DeliveryEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Отправка пачки событий о массовом обновлении статусов на встроенном Kafka.
+ * Пропускная способность (пачка против отправки по одному) измеряется в
+ * src/jmh/.../KafkaDeliveryEventBenchmark.
+ */
+@SpringJUnitConfig({KafkaConfig.class, KafkaDeliveryEventService.class})
+@EmbeddedKafka(partitions = 3, topics = "delivery-updates-test")
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "kafka.topics.delivery-updates=delivery-updates-test"
+})
+class KafkaDeliveryEventBatchTest {
+
+    private static final int EVENTS = 2_000;
+
+    @Autowired
+    private KafkaDeliveryEventService eventService;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Test
+    @DisplayName("Future пачки завершается после подтверждения всех событий, каждое событие доставлено с ключом deliveryId")
+    void bulkStatusUpdateEventsAreAllDelivered() throws Exception {
+        // Arrange
+        List<DeliveryEvent> events = createEvents(EVENTS);
+
+        // Act
+        eventService.sendDeliveryEvents(events).get(60, TimeUnit.SECONDS);
+
+        // Assert
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("batch-test", "false", embeddedKafka);
+        consumerProps.put("auto.offset.reset", "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(
+                consumerProps, new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "delivery-updates-test");
+            Set<String> keys = new HashSet<>();
+            for (ConsumerRecord<String, String> record
+                    : KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(30), EVENTS)) {
+                keys.add(record.key());
+            }
+            assertEquals(EVENTS, keys.size());
+        }
+    }
+
+    private static List<DeliveryEvent> createEvents(int count) {
+        List<DeliveryEvent> events = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            long deliveryId = i;
+            events.add(new DeliveryEvent("UPDATED", deliveryId, "IN_TRANSIT", now, Map.of(
+                    "userId", deliveryId % 1000,
+                    "trackingNumber", "TN" + deliveryId,
+                    "deliveryAddress", "г. Москва, ул. Ленина, д. 1, кв. " + (i % 200))));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,130 @@
+package com.pharmacy.scs.service;
+
+import com.pharmacy.scs.dto.DeliveryEvent;
+import com.pharmacy.scs.entity.OutboxEvent;
+import com.pharmacy.scs.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Модульные тесты ретранслятора outbox-событий в Kafka.
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private KafkaDeliveryEventService eventService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, outboxService, eventService,
+                transactionManager, BATCH_SIZE, 2, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRelay.shutdown();
+    }
+
+    @Test
+    @DisplayName("Полные пачки отправляются подряд, после подтверждения строки удаляются")
+    void shouldDrainBatchesUntilQueueIsEmpty() {
+        // Arrange: полная пачка, затем неполная
+        List<OutboxEvent> fullBatch = outboxEvents(1, 2, 3);
+        List<OutboxEvent> lastBatch = outboxEvents(5);
+        when(outboxEventRepository.tryLockWorkerSlot(OutboxRelay.WORKER_SLOT_LOCK_CLASS, 1)).thenReturn(true);
+        when(outboxEventRepository.claimBatch(2, 1, BATCH_SIZE)).thenReturn(fullBatch, lastBatch);
+        when(outboxService.readEvent(any(OutboxEvent.class))).thenReturn(new DeliveryEvent());
+        when(eventService.sendDeliveryEvents(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        int published = outboxRelay.drain(1);
+
+        // Assert
+        assertEquals(4, published);
+        verify(eventService, times(2)).sendDeliveryEvents(anyList());
+        verify(outboxEventRepository).deleteAllInBatch(fullBatch);
+        verify(outboxEventRepository).deleteAllInBatch(lastBatch);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    @DisplayName("При ошибке отправки строки не удаляются и транзакция откатывается")
+    void shouldKeepEventsWhenSendFails() {
+        // Arrange
+        List<OutboxEvent> batch = outboxEvents(1, 3);
+        when(outboxEventRepository.tryLockWorkerSlot(OutboxRelay.WORKER_SLOT_LOCK_CLASS, 1)).thenReturn(true);
+        when(outboxEventRepository.claimBatch(2, 1, BATCH_SIZE)).thenReturn(batch);
+        when(outboxService.readEvent(any(OutboxEvent.class))).thenReturn(new DeliveryEvent());
+        when(eventService.sendDeliveryEvents(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        // Act
+        int published = outboxRelay.drain(1);
+
+        // Assert
+        assertEquals(0, published);
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    @DisplayName("Слот, захваченный другим экземпляром, не читается")
+    void shouldSkipSlotLockedByAnotherInstance() {
+        // Arrange
+        when(outboxEventRepository.tryLockWorkerSlot(OutboxRelay.WORKER_SLOT_LOCK_CLASS, 1)).thenReturn(false);
+
+        // Act
+        int published = outboxRelay.drain(1);
+
+        // Assert
+        assertEquals(0, published);
+        verify(outboxEventRepository, never()).claimBatch(anyInt(), anyInt(), anyInt());
+        verify(eventService, never()).sendDeliveryEvents(anyList());
+    }
+
+    private static List<OutboxEvent> outboxEvents(long... deliveryIds) {
+        return LongStream.of(deliveryIds)
+                .mapToObj(deliveryId -> {
+                    OutboxEvent outboxEvent = new OutboxEvent();
+                    outboxEvent.setId(deliveryId);
+                    outboxEvent.setDeliveryId(deliveryId);
+                    outboxEvent.setEventType("UPDATED");
+                    outboxEvent.setPayload("{}");
+                    return outboxEvent;
+                })
+                .toList();
+    }
+}
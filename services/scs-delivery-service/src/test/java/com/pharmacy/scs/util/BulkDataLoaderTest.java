@@ -0,0 +1,68 @@
+package com.pharmacy.scs.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты формирования CSV и распределения ID для массовой загрузки через COPY.
+ */
+class BulkDataLoaderTest {
+
+    @Test
+    @DisplayName("Блоки последовательности разворачиваются в ID по правилу оптимизатора pooled")
+    void shouldExpandPooledIdBlocks() {
+        // Arrange: nextval вернул 50 и 150 (блок 51..100 занят другим процессом)
+        long[] hiValues = {50, 150};
+
+        // Act
+        long[] ids = BulkDataLoader.expandIdBlocks(hiValues, 60);
+
+        // Assert
+        assertEquals(1, ids[0]);
+        assertEquals(50, ids[49]);
+        assertEquals(101, ids[50]);
+        assertEquals(110, ids[59]);
+    }
+
+    @Test
+    @DisplayName("Строка доставки в CSV: адрес в кавычках, пустое время доставки — NULL")
+    void shouldWriteDeliveryCsvLine() throws IOException {
+        // Arrange
+        StringWriter writer = new StringWriter();
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        // Act
+        BulkDataLoader.writeDelivery(writer, 42, 7, now, new Random(1));
+
+        // Assert
+        String line = writer.toString();
+        assertTrue(line.startsWith("42,TNB42,7,\"г. "));
+        assertTrue(line.endsWith("," + now + "," + now + "\n"));
+        assertEquals(1, line.chars().filter(c -> c == '\n').count());
+    }
+
+    @Test
+    @DisplayName("Строка пользователя в CSV содержит уникальные имя и email на основе ID")
+    void shouldWriteUserCsvLine() throws IOException {
+        // Arrange
+        StringWriter writer = new StringWriter();
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        // Act
+        BulkDataLoader.writeUser(writer, 5, 0, now, new Random(1));
+
+        // Assert
+        String[] fields = writer.toString().trim().split(",");
+        assertEquals(8, fields.length);
+        assertEquals("bulk_user_5", fields[1]);
+        assertEquals("bulk_user_5@example.com", fields[2]);
+        assertEquals("USER", fields[5]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.pharmacy.scs.util;
+
+import com.pharmacy.scs.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Пакетная вставка доставок через DataGenerator на H2: число SQL-операторов.
+ * Скорость вставки измеряется в src/jmh/.../DataGeneratorInsertBenchmark.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Import(DataGenerator.class)
+class DataGeneratorBatchInsertTest {
+
+    private static final int USERS = 100;
+    private static final int DELIVERIES = 5_000;
+
+    @Autowired
+    private DataGenerator dataGenerator;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Доставки вставляются JDBC-батчами с ID из последовательности")
+    void shouldBatchDeliveryInserts() {
+        List<User> users = dataGenerator.generateUsers(USERS);
+        entityManager.flush();
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        int created = dataGenerator.generateDeliveries(users, DELIVERIES / USERS);
+
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(DELIVERIES / USERS * USERS, created);
+        assertEquals(created, statistics.getEntityInsertCount());
+        // INSERT по 50 строк плюс один nextval на 50 ID; при IDENTITY было бы не меньше created
+        assertTrue(statements <= created / 50 * 2 + 10, "prepared statements: " + statements);
+    }
+}
@@ -0,0 +1,128 @@
+package com.pharmacy.scs.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты создания и отсоединения месячных секций deliveries.
+ */
+@ExtendWith(MockitoExtension.class)
+class PartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 11, 17);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() {
+        partitionManager = new PartitionManager(jdbcTemplate, 2, 12);
+    }
+
+    @Test
+    @DisplayName("Создаются только недостающие секции с текущего месяца на monthsAhead вперёд")
+    void shouldCreateMissingFuturePartitions() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("deliveries_p202611", "deliveries_default"));
+
+        // Act
+        List<String> created = partitionManager.createFuturePartitions(TODAY);
+
+        // Assert
+        assertEquals(List.of("deliveries_p202612", "deliveries_p202701"), created);
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS deliveries_p202612 PARTITION OF deliveries " +
+                "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS deliveries_p202701 PARTITION OF deliveries " +
+                "FOR VALUES FROM ('2027-01-01') TO ('2027-02-01')");
+        verify(jdbcTemplate, never()).execute(
+                "CREATE TABLE IF NOT EXISTS deliveries_p202611 PARTITION OF deliveries " +
+                "FOR VALUES FROM ('2026-11-01') TO ('2026-12-01')");
+    }
+
+    @Test
+    @DisplayName("Ошибка создания одной секции не прерывает создание остальных")
+    void shouldContinueAfterFailedPartition() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of());
+        doAnswer(invocation -> {
+            if (invocation.<String>getArgument(0).startsWith("CREATE TABLE IF NOT EXISTS deliveries_p202612 ")) {
+                throw new DataIntegrityViolationException("default partition contains rows");
+            }
+            return null;
+        }).when(jdbcTemplate).execute(anyString());
+
+        // Act
+        List<String> created = partitionManager.createFuturePartitions(TODAY);
+
+        // Assert
+        assertEquals(List.of("deliveries_p202611", "deliveries_p202701"), created);
+    }
+
+    @Test
+    @DisplayName("Отсоединяются только секции старше срока хранения")
+    void shouldDetachExpiredPartitionsOnly() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "deliveries_p202510", "deliveries_p202511", "deliveries_p202611",
+                "deliveries_default", "deliveries_p2025xx"));
+
+        // Act
+        List<String> detached = partitionManager.detachExpiredPartitions(TODAY);
+
+        // Assert
+        assertEquals(List.of("deliveries_p202510"), detached);
+        verify(jdbcTemplate).execute("ALTER TABLE deliveries DETACH PARTITION deliveries_p202510");
+        verify(jdbcTemplate).update("DELETE FROM delivery_tracking_numbers t USING deliveries_p202510 p " +
+                "WHERE t.tracking_number = p.tracking_number");
+    }
+
+    @Test
+    @DisplayName("Номера отслеживания не освобождаются, если секцию не удалось отсоединить")
+    void shouldKeepTrackingNumbersWhenDetachFails() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("deliveries_p202510"));
+        doAnswer(invocation -> {
+            throw new CannotAcquireLockException("lock timeout");
+        }).when(jdbcTemplate).execute(anyString());
+
+        // Act
+        List<String> detached = partitionManager.detachExpiredPartitions(TODAY);
+
+        // Assert
+        assertTrue(detached.isEmpty());
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+
+    @Test
+    @DisplayName("Месяц секции определяется по имени deliveries_pYYYYMM")
+    void shouldParsePartitionMonth() {
+        // Act & Assert
+        assertEquals(YearMonth.of(2026, 3), PartitionManager.monthOf("deliveries_p202603"));
+        assertEquals("deliveries_p202603", PartitionManager.partitionName(YearMonth.of(2026, 3)));
+        assertNull(PartitionManager.monthOf("deliveries_default"));
+        assertNull(PartitionManager.monthOf("deliveries_p2026033"));
+        assertNull(PartitionManager.monthOf("deliveries_p202613"));
+    }
+}
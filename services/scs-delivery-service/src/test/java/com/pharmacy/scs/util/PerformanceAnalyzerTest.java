@@ -0,0 +1,123 @@
+package com.pharmacy.scs.util;
+
+import com.pharmacy.scs.dto.BenchmarkResultDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты режима бенчмарка PerformanceAnalyzer.
+ */
+@ExtendWith(MockitoExtension.class)
+class PerformanceAnalyzerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PerformanceAnalyzer performanceAnalyzer;
+
+    @Test
+    @DisplayName("Перцентили считаются по методу ближайшего ранга")
+    void shouldComputeNearestRankPercentiles() {
+        // Arrange
+        long[] sorted = new long[100];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i + 1;
+        }
+
+        // Act & Assert
+        assertEquals(50, PerformanceAnalyzer.percentile(sorted, 50));
+        assertEquals(95, PerformanceAnalyzer.percentile(sorted, 95));
+        assertEquals(99, PerformanceAnalyzer.percentile(sorted, 99));
+        assertEquals(100, PerformanceAnalyzer.percentile(sorted, 100));
+        assertEquals(7, PerformanceAnalyzer.percentile(new long[]{7}, 99));
+    }
+
+    @Test
+    @DisplayName("Бенчмарк выполняет прогрев и заданное число измерений в каждом потоке")
+    void shouldRunWarmupAndMeasurementIterationsPerThread() {
+        // Act
+        BenchmarkResultDTO result = performanceAnalyzer.benchmarkQuery("user_deliveries", 3, 10, 4);
+
+        // Assert
+        verify(jdbcTemplate, times(3 + 4 * 10)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        assertNull(result.getError());
+        assertEquals(4, result.getThreads());
+        assertEquals(40, result.getExecutions());
+        assertTrue(result.getP50Ms() <= result.getP95Ms());
+        assertTrue(result.getP95Ms() <= result.getP99Ms());
+        assertTrue(result.getP99Ms() <= result.getMaxMs());
+        assertTrue(result.getThroughputPerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("Неизвестный запрос возвращает ошибку без выполнения")
+    void shouldReportUnknownQuery() {
+        // Act
+        BenchmarkResultDTO result = performanceAnalyzer.benchmarkQuery("unknown", 1, 1, 1);
+
+        // Assert
+        assertNotNull(result.getError());
+        verify(jdbcTemplate, times(0)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("Результат читается в read-only транзакции порциями по fetchSize, метаданные — один раз")
+    void shouldFetchRowsInTransactionWithFetchSize() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(performanceAnalyzer, "fetchSize", 250);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(2);
+
+        // Act
+        BenchmarkResultDTO result = performanceAnalyzer.benchmarkQuery("user_deliveries", 0, 1, 1);
+
+        // Assert
+        ArgumentCaptor<PreparedStatementCreator> creatorCaptor = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        ArgumentCaptor<RowCallbackHandler> handlerCaptor = ArgumentCaptor.forClass(RowCallbackHandler.class);
+        verify(jdbcTemplate).query(creatorCaptor.capture(), handlerCaptor.capture());
+        verify(transactionManager).getTransaction(any());
+        assertNull(result.getError());
+
+        creatorCaptor.getValue().createPreparedStatement(connection);
+        verify(statement).setFetchSize(250);
+
+        for (int i = 0; i < 3; i++) {
+            handlerCaptor.getValue().processRow(resultSet);
+        }
+        verify(resultSet, times(1)).getMetaData();
+        verify(resultSet, times(3)).getObject(2);
+    }
+}
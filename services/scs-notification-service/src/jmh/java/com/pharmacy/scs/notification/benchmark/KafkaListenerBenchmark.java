@@ -0,0 +1,182 @@
+package com.pharmacy.scs.notification.benchmark;
+
+import com.pharmacy.scs.notification.NotificationServiceApplication;
+import com.pharmacy.scs.notification.dto.DeliveryEvent;
+import com.pharmacy.scs.notification.service.KafkaListenerService.UserDTO;
+import com.pharmacy.scs.notification.service.UserProfileCache;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность обработки событий доставки (событий в секунду):
+ * слушатель по одной записи (deliveryUpdatesSingle) против пакетного (deliveryUpdatesBatch).
+ * Контейнер слушателя стоит на паузе; перед каждым вызовом в топик отправляется порция событий
+ * с новыми ID доставок, замер — от снятия паузы до сохранения уведомлений по всей порции.
+ * Профили пользователей заранее кладутся в UserProfileCache, User Service не нужен.
+ * Бенчмарк пишет в БД уведомлений, поэтому jdbcUrl лучше направлять на отдельную базу.
+ * Нужны запущенные Kafka и PostgreSQL (docker-compose up kafka postgres-notification):
+ * mvn -Pjmh compile exec:exec -Djmh.args="KafkaListener -p bootstrapServers=localhost:9092"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KafkaListenerBenchmark {
+
+    private static final int EVENTS = 2000;
+    private static final int USERS = 200;
+    private static final String TOPIC = "delivery-updates";
+
+    @Param({"deliveryUpdatesSingle", "deliveryUpdatesBatch"})
+    public String listenerId;
+
+    @Param("localhost:9092")
+    public String bootstrapServers;
+
+    @Param("jdbc:postgresql://localhost:5433/scs_notification_db")
+    public String jdbcUrl;
+
+    private ConfigurableApplicationContext context;
+    private KafkaTemplate<String, DeliveryEvent> kafkaTemplate;
+    private MessageListenerContainer container;
+    private JdbcTemplate jdbcTemplate;
+
+    // ID доставок от момента запуска, чтобы не совпадать с уведомлениями прошлых прогонов
+    private long nextDeliveryId = System.currentTimeMillis() * 1_000_000L;
+    private long firstDeliveryId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(NotificationServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + jdbcUrl,
+                        "spring.kafka.bootstrap-servers=" + bootstrapServers,
+                        "spring.jpa.show-sql=false",
+                        // Контейнеры delivery-updates создаются остановленными, запускается только замеряемый
+                        "notification.listener.mode=none",
+                        "notification.retry.scheduler.enabled=false",
+                        "notification.user-cache.listener-enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.com.pharmacy.scs=WARN")
+                .run();
+
+        UserProfileCache userProfileCache = context.getBean(UserProfileCache.class);
+        for (long userId = 1; userId <= USERS; userId++) {
+            userProfileCache.put(user(userId));
+        }
+
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        kafkaTemplate = kafkaTemplate(bootstrapServers);
+        container = context.getBean(KafkaListenerEndpointRegistry.class).getListenerContainer(listenerId);
+        container.start();
+        container.pause();
+    }
+
+    /**
+     * Порция событий отправляется до замера; вызов длится сотни миллисекунд,
+     * поэтому подготовка на уровне Invocation не искажает результат
+     */
+    @Setup(Level.Invocation)
+    public void sendEvents() {
+        firstDeliveryId = nextDeliveryId;
+        for (int i = 0; i < EVENTS; i++) {
+            long deliveryId = nextDeliveryId++;
+            kafkaTemplate.send(TOPIC, "delivery-" + deliveryId, event(deliveryId));
+        }
+        kafkaTemplate.flush();
+    }
+
+    @TearDown
+    public void tearDown() {
+        container.stop();
+        kafkaTemplate.destroy();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long processEvents() throws InterruptedException {
+        container.resume();
+        try {
+            long processed;
+            while ((processed = processedEvents()) < EVENTS) {
+                Thread.sleep(1);
+            }
+            return processed;
+        } finally {
+            container.pause();
+        }
+    }
+
+    /**
+     * Количество доставок текущей порции, по которым уже сохранено уведомление
+     */
+    private long processedEvents() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notifications WHERE delivery_id >= ? AND delivery_id < ? AND status <> 'PENDING'",
+                Long.class, firstDeliveryId, firstDeliveryId + EVENTS);
+    }
+
+    private static KafkaTemplate<String, DeliveryEvent> kafkaTemplate(String bootstrapServers) {
+        Map<String, Object> producerProps = new HashMap<>();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+    }
+
+    private static DeliveryEvent event(long deliveryId) {
+        DeliveryEvent event = new DeliveryEvent();
+        event.setEventType("UPDATED");
+        event.setDeliveryId(deliveryId);
+        event.setStatus("IN_TRANSIT");
+        event.setTimestamp(LocalDateTime.now());
+
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("trackingNumber", "TRACK" + deliveryId);
+        additionalData.put("userId", Math.floorMod(deliveryId, USERS) + 1L);
+        additionalData.put("deliveryAddress", "Address " + deliveryId);
+        event.setAdditionalData(additionalData);
+        return event;
+    }
+
+    private static UserDTO user(long userId) {
+        UserDTO user = new UserDTO();
+        user.setId(userId);
+        user.setUsername("User " + userId);
+        user.setEmail("user" + userId + "@example.com");
+        return user;
+    }
+}
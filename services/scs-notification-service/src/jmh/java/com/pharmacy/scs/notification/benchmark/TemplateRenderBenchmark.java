@@ -0,0 +1,95 @@
+package com.pharmacy.scs.notification.benchmark;
+
+import com.pharmacy.scs.notification.template.NotificationTemplateRenderer;
+import com.pharmacy.scs.notification.template.TemplateParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рендеринг email-уведомления о событии доставки.
+ * baseline — как было: HashMap параметров, новый Context с копией переменных и рендер в новую строку;
+ * renderer — NotificationTemplateRenderer с TemplateParams без копирования и буфером потока.
+ * Результат — рендеров в секунду; аллокации на рендер — gc.alloc.rate.norm (-prof gc).
+ * Запуск: mvn -Pjmh compile exec:exec -Djmh.args="TemplateRender -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRenderBenchmark {
+
+    @Param({"CREATED", "UPDATED"})
+    private String eventType;
+
+    private TemplateEngine templateEngine;
+    private NotificationTemplateRenderer renderer;
+    private Map<String, Object> additionalData;
+
+    @Setup
+    public void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        renderer = new NotificationTemplateRenderer(templateEngine, new DefaultResourceLoader(),
+                "classpath:/templates/", ".html", Locale.forLanguageTag("ru"));
+
+        additionalData = new HashMap<>();
+        additionalData.put("estimatedDeliveryTime", LocalDateTime.of(2024, 6, 1, 12, 0));
+        additionalData.put("deliveryAddress", "г. Москва, ул. Ленина, д. 10, кв. 25");
+    }
+
+    @Benchmark
+    public String baseline() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userName", "Иван Петров");
+        params.put("trackingNumber", "TN1234567890ABCDEF");
+        params.put("status", "IN_TRANSIT");
+        params.put("trackingUrl", "http://tracking.pharmacy.com/" + "TN1234567890ABCDEF");
+        params.put("statusDescription", TemplateParams.statusDescription("IN_TRANSIT"));
+        additionalData.forEach((key, value) -> {
+            if (value != null) {
+                params.put(key, value);
+            }
+        });
+
+        Context context = new Context();
+        context.setVariables(params);
+        return templateEngine.process("email-templates/delivery-status", context);
+    }
+
+    @Benchmark
+    public String renderer() {
+        return renderer.render(eventType,
+                new TemplateParams("Иван Петров", "TN1234567890ABCDEF", "IN_TRANSIT", additionalData));
+    }
+}
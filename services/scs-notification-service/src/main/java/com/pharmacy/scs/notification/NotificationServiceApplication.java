@@ -3,11 +3,9 @@ package com.pharmacy.scs.notification;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync // Для асинхронной обработки уведомлений
-@EnableScheduling // Для обработки повторных попыток отправки
 public class NotificationServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,120 @@
+package com.pharmacy.scs.notification.config;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Маршрут неуспешно обработанного события delivery-updates: delivery-updates-retry-0, -retry-1, ...
+ * с растущими задержками, затем notification-dlq. Номер попытки и срок следующей обработки
+ * передаются в заголовках записи, поэтому основной топик не ждёт повторов и не блокирует партицию.
+ * Записи, которые не удалось десериализовать, отправляются сразу в DLQ.
+ * Используется в SpEL: #{@deliveryRetryTopics.names()}
+ */
+@Component("deliveryRetryTopics")
+public class DeliveryRetryTopics {
+
+    static final String ATTEMPT_HEADER = "notification-retry-attempt";
+    static final String DUE_AT_HEADER = "notification-retry-due-at";
+
+    private final String mainTopic;
+    private final String dlqTopic;
+    private final List<Long> delaysMs;
+
+    public DeliveryRetryTopics(
+            @Value("${kafka.topics.delivery-updates}") String mainTopic,
+            @Value("${kafka.topics.notification-dlq}") String dlqTopic,
+            @Value("${notification.kafka-retry.delays-ms:5000,30000,300000}") List<Long> delaysMs) {
+        this.mainTopic = mainTopic;
+        this.dlqTopic = dlqTopic;
+        this.delaysMs = List.copyOf(delaysMs);
+    }
+
+    /**
+     * Имена retry-топиков по порядку попыток
+     */
+    public String[] names() {
+        return IntStream.range(0, delaysMs.size())
+                .mapToObj(this::retryTopic)
+                .toArray(String[]::new);
+    }
+
+    public String dlqTopic() {
+        return dlqTopic;
+    }
+
+    /**
+     * Куда переслать запись после ошибки обработки (для DeadLetterPublishingRecoverer).
+     * Партиция -1: продюсер выбирает её по ключу, порядок событий одной доставки сохраняется
+     */
+    public TopicPartition destination(ConsumerRecord<?, ?> record, Exception exception) {
+        int attempt = attempt(record);
+        if (isDeserializationFailure(record, exception) || attempt >= delaysMs.size()) {
+            return new TopicPartition(dlqTopic, -1);
+        }
+        return new TopicPartition(retryTopic(attempt), -1);
+    }
+
+    /**
+     * Заголовки, добавляемые к пересылаемой записи: номер следующей попытки и её срок
+     */
+    public Headers headers(ConsumerRecord<?, ?> record, Exception exception) {
+        return headers(record, System.currentTimeMillis());
+    }
+
+    Headers headers(ConsumerRecord<?, ?> record, long nowMillis) {
+        int attempt = attempt(record);
+        Headers headers = new RecordHeaders();
+        if (attempt < delaysMs.size()) {
+            headers.add(ATTEMPT_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(attempt + 1).array());
+            headers.add(DUE_AT_HEADER, ByteBuffer.allocate(Long.BYTES)
+                    .putLong(nowMillis + delaysMs.get(attempt)).array());
+        }
+        return headers;
+    }
+
+    /**
+     * Срок обработки записи из retry-топика, epoch-миллисекунды (0 — обрабатывать сразу)
+     */
+    public long dueAt(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(DUE_AT_HEADER);
+        return header != null ? ByteBuffer.wrap(header.value()).getLong() : 0L;
+    }
+
+    /**
+     * Сколько повторов запись уже прошла (0 — запись из основного топика)
+     */
+    int attempt(ConsumerRecord<?, ?> record) {
+        if (mainTopic.equals(record.topic())) {
+            return 0;
+        }
+        Header header = record.headers().lastHeader(ATTEMPT_HEADER);
+        return header != null ? ByteBuffer.wrap(header.value()).getInt() : 0;
+    }
+
+    private String retryTopic(int attempt) {
+        return mainTopic + "-retry-" + attempt;
+    }
+
+    private static boolean isDeserializationFailure(ConsumerRecord<?, ?> record, Exception exception) {
+        if (record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+            return true;
+        }
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeserializationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
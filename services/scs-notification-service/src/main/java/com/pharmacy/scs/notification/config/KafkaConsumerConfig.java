@@ -1,18 +1,24 @@
 package com.pharmacy.scs.notification.config;
 
 import com.pharmacy.scs.notification.dto.DeliveryEvent;
+import com.pharmacy.scs.notification.service.KafkaListenerService.UserDTO;
 import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.util.backoff.FixedBackOff;
 
@@ -30,6 +36,14 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${kafka.topics.user-updates:user-updates}")
+    private String userUpdatesTopic;
+
+    @Value("${kafka.topics.user-updates-partitions:3}")
+    private int userUpdatesPartitions;
+
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
     @Bean
     public ConsumerFactory<String, DeliveryEvent> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -51,10 +65,12 @@ public class KafkaConsumerConfig {
         jsonDeserializer.addTrustedPackages("com.pharmacy.scs.notification.dto", "com.pharmacy.scs.dto");
         jsonDeserializer.setUseTypeMapperForKey(true);
 
+        // Запись, которую не удалось десериализовать, приходит с пустым значением и исключением
+        // в заголовке и уходит в DLQ, а не останавливает партицию бесконечными повторами
         return new DefaultKafkaConsumerFactory<>(
                 props,
                 new StringDeserializer(),
-                jsonDeserializer);
+                new ErrorHandlingDeserializer<>(jsonDeserializer));
     }
 
     @Bean
@@ -66,10 +82,8 @@ public class KafkaConsumerConfig {
         // Ручное подтверждение получения сообщений (для exactly-once)
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
 
-        // Настройка обработки ошибок с повторными попытками
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(
-                new FixedBackOff(1000L, 3)); // 3 повторные попытки с интервалом 1 секунда
-        factory.setCommonErrorHandler(errorHandler);
+        // Ошибка обработки: без повторов на месте, запись уходит в retry-топик (см. KafkaRetryConfig)
+        factory.setCommonErrorHandler(deliveryUpdatesErrorHandler());
 
         // Количество потоков для обработки сообщений
         factory.setConcurrency(3);
@@ -77,16 +91,109 @@ public class KafkaConsumerConfig {
         return factory;
     }
 
-    // Можно добавить еще один factory для Dead Letter Queue
+    /**
+     * Фабрика для пакетного слушателя: метод получает весь результат poll (до max.poll.records)
+     * и подтверждает его одним вызовом Acknowledgment, офсеты фиксируются один раз на пакет.
+     * При ошибке записи пакета пересылаются в retry-топик — повторная обработка безопасна
+     * благодаря проверке идемпотентности; недесериализуемая запись уходит в DLQ,
+     * а предшествующие ей записи подтверждаются.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, DeliveryEvent> kafkaDltListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, DeliveryEvent> kafkaBatchListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, DeliveryEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        factory.setCommonErrorHandler(deliveryUpdatesErrorHandler());
+
+        factory.setConcurrency(3);
+
+        return factory;
+    }
+
+    /**
+     * Потребитель топика user-updates. Заголовки типа игнорируются: продюсер пишет
+     * UserDTO сервиса доставок, а здесь он читается в локальный UserDTO
+     */
+    @Bean
+    public ConsumerFactory<String, UserDTO> userUpdatesConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-user-cache");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1000);
+
+        JsonDeserializer<UserDTO> jsonDeserializer = new JsonDeserializer<>(UserDTO.class, false);
+        jsonDeserializer.addTrustedPackages("*");
+
+        return new DefaultKafkaConsumerFactory<>(
+                props,
+                new StringDeserializer(),
+                jsonDeserializer);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, UserDTO> userUpdatesListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, UserDTO> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(userUpdatesConsumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    /**
+     * Топик создаётся и сервисом доставок; объявление здесь избавляет от зависимости
+     * от порядка запуска сервисов
+     */
+    @Bean
+    public NewTopic userUpdatesTopic() {
+        return TopicBuilder.name(userUpdatesTopic)
+                .partitions(userUpdatesPartitions)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+
+    /**
+     * Потребитель DLQ читает значения как сырые байты: в хранилище попадают и события,
+     * которые не удалось десериализовать
+     */
+    @Bean
+    public ConsumerFactory<String, byte[]> deadLetterConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-dlq");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+
+        return new DefaultKafkaConsumerFactory<>(
+                props,
+                new StringDeserializer(),
+                new ByteArrayDeserializer());
+    }
+
+    /**
+     * Пакетный слушатель DLQ: весь poll сохраняется одним saveAll и подтверждается один раз
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaDltListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(deadLetterConsumerFactory());
+        factory.setBatchListener(true);
 
         // DLQ не требует дополнительных повторных попыток
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
 
         return factory;
     }
-}
\ No newline at end of file
+
+    private DefaultErrorHandler deliveryUpdatesErrorHandler() {
+        return new DefaultErrorHandler(deadLetterPublishingRecoverer, new FixedBackOff(0L, 0L));
+    }
+}
@@ -0,0 +1,142 @@
+package com.pharmacy.scs.notification.config;
+
+import com.pharmacy.scs.notification.dto.DeliveryEvent;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Неблокирующие повторы событий delivery-updates: запись, которую не удалось обработать,
+ * публикуется в retry-топик со сроком следующей попытки (см. DeliveryRetryTopics), а после
+ * последней попытки — в notification-dlq. Слушатель retry-топиков не спит до срока, а
+ * приостанавливает партицию, поэтому ни основной топик, ни другие партиции не простаивают.
+ * RetryTopicConfiguration/@RetryableTopic здесь не подходят: основной режим слушателя пакетный,
+ * а неблокирующие повторы Spring Kafka пакетные слушатели не поддерживают; кроме того, цепочка
+ * общая для одиночного и пакетного слушателей и заканчивается существующим notification-dlq.
+ */
+@Configuration
+public class KafkaRetryConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${kafka.topics.delivery-updates-partitions:3}")
+    private int deliveryUpdatesPartitions;
+
+    /**
+     * Продюсер для событий (retry-топики): значение сериализуется в JSON
+     */
+    @Bean
+    public ProducerFactory<String, Object> jsonProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerProps(), new StringSerializer(), new JsonSerializer<>());
+    }
+
+    /**
+     * Продюсер для сырых байтов: записи, которые не удалось десериализовать, и повторная
+     * публикация сохранённых в DLQ событий без повторной сериализации
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> byteArrayProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerProps(), new StringSerializer(), new ByteArraySerializer());
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate() {
+        return new KafkaTemplate<>(jsonProducerFactory());
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> byteArrayKafkaTemplate() {
+        return new KafkaTemplate<>(byteArrayProducerFactory());
+    }
+
+    /**
+     * Пересылка неуспешно обработанных записей в следующий retry-топик или в DLQ.
+     * Шаблон выбирается по типу значения: byte[] — без сериализации, остальное — JSON
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(DeliveryRetryTopics deliveryRetryTopics) {
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, byteArrayKafkaTemplate());
+        templates.put(Object.class, kafkaTemplate());
+
+        DeadLetterPublishingRecoverer recoverer =
+                new DeadLetterPublishingRecoverer(templates, deliveryRetryTopics::destination);
+        recoverer.setHeadersFunction(deliveryRetryTopics::headers);
+        // Исходные топик/партиция/офсет сохраняются с первой ошибки, а не перезаписываются на каждом шаге
+        recoverer.setAppendOriginalHeaders(false);
+        return recoverer;
+    }
+
+    /**
+     * Приостанавливает партицию retry-топика до срока следующей попытки и снимает паузу по расписанию
+     */
+    @Bean
+    public ListenerContainerPauseService deliveryRetryPauseService(KafkaListenerEndpointRegistry registry) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("delivery-retry-resume-");
+        scheduler.initialize();
+        return new ListenerContainerPauseService(registry, scheduler);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, DeliveryEvent> kafkaRetryListenerContainerFactory(
+            ConsumerFactory<String, DeliveryEvent> consumerFactory,
+            DeadLetterPublishingRecoverer deadLetterPublishingRecoverer) {
+        ConcurrentKafkaListenerContainerFactory<String, DeliveryEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        // Ошибка повтора сразу пересылает запись дальше по цепочке retry-топиков
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterPublishingRecoverer, new FixedBackOff(0L, 0L)));
+        return factory;
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics deliveryRetryTopicsDeclaration(DeliveryRetryTopics deliveryRetryTopics) {
+        NewTopic[] topics = new NewTopic[deliveryRetryTopics.names().length + 1];
+        for (int i = 0; i < deliveryRetryTopics.names().length; i++) {
+            topics[i] = TopicBuilder.name(deliveryRetryTopics.names()[i])
+                    .partitions(deliveryUpdatesPartitions)
+                    .replicas(1)
+                    .build();
+        }
+        topics[topics.length - 1] = TopicBuilder.name(deliveryRetryTopics.dlqTopic())
+                .partitions(deliveryUpdatesPartitions)
+                .replicas(1)
+                .build();
+        return new KafkaAdmin.NewTopics(topics);
+    }
+
+    private Map<String, Object> producerProps() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return props;
+    }
+}
@@ -0,0 +1,40 @@
+package com.pharmacy.scs.notification.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class NotificationExecutorConfig {
+
+    @Value("${notification.pipeline.email-concurrency:32}")
+    private int emailConcurrency;
+
+    @Value("${notification.pipeline.sms-concurrency:16}")
+    private int smsConcurrency;
+
+    /**
+     * Исполнитель конвейера уведомлений (шаблон, отправка): пул platform-потоков notification-pipeline-N.
+     * Сервис собирается под Java 17, виртуальные потоки недоступны.
+     * Размер пула равен сумме лимитов каналов NotificationDispatcher: задачи обоих каналов
+     * могут выполняться одновременно, лишние потоки не простаивали бы в ожидании семафора.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService notificationExecutor() {
+        return Executors.newFixedThreadPool(emailConcurrency + smsConcurrency, namedThreadFactory("notification-pipeline-"));
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.pharmacy.scs.notification.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Определяет партиции топика для слушателей с ручным назначением партиций
+ * (используется в SpEL: #{@partitionFinder.partitions('topic', 3)}).
+ * Если топик ещё не создан (его создаст KafkaAdmin после инициализации бинов),
+ * возвращаются партиции 0..defaultPartitions-1 из объявления топика.
+ */
+@Component("partitionFinder")
+@Slf4j
+public class PartitionFinder {
+
+    private final String bootstrapServers;
+
+    public PartitionFinder(@Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+        this.bootstrapServers = bootstrapServers;
+    }
+
+    public String[] partitions(String topic, int defaultPartitions) {
+        Map<String, Object> props = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                // Запрос метаданных не должен создавать топик с настройками брокера по умолчанию
+                ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, false);
+
+        try (Consumer<String, String> consumer =
+                     new KafkaConsumer<>(props, new StringDeserializer(), new StringDeserializer())) {
+            List<PartitionInfo> partitions = consumer.partitionsFor(topic, Duration.ofSeconds(10));
+            if (partitions != null && !partitions.isEmpty()) {
+                return partitions.stream()
+                        .map(info -> String.valueOf(info.partition()))
+                        .toArray(String[]::new);
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось получить партиции топика {}: {}", topic, e.getMessage());
+        }
+
+        log.info("Topic {} not found, using {} declared partitions", topic, defaultPartitions);
+        return IntStream.range(0, defaultPartitions)
+                .mapToObj(String::valueOf)
+                .toArray(String[]::new);
+    }
+}
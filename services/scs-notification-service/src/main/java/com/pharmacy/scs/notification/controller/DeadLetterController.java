@@ -0,0 +1,86 @@
+package com.pharmacy.scs.notification.controller;
+
+import com.pharmacy.scs.notification.dto.DeadLetterReplayJob;
+import com.pharmacy.scs.notification.entity.DeadLetter;
+import com.pharmacy.scs.notification.repository.DeadLetterRepository;
+import com.pharmacy.scs.notification.repository.DeadLetterRepository.DeadLetterSummary;
+import com.pharmacy.scs.notification.service.DeadLetterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Просмотр и повторная публикация событий из notification-dlq.
+ * В реальном проекте следует добавить проверку авторизации.
+ */
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterController {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_REPLAY_LIMIT = 10_000;
+    // Не ниже MIN_REPLAY_RATE: порция из 100 событий должна успеть отправиться до истечения аренды захвата
+    private static final double MIN_REPLAY_RATE = 1;
+    private static final double MAX_REPLAY_RATE = 1_000;
+
+    private final DeadLetterRepository deadLetterRepository;
+    private final DeadLetterService deadLetterService;
+
+    /**
+     * Список событий DLQ без содержимого, от новых к старым (keyset по beforeId)
+     */
+    @GetMapping
+    public ResponseEntity<List<DeadLetterSummary>> getDeadLetters(
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.debug("Getting dead letters, beforeId: {}, limit: {}", beforeId, limit);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(deadLetterRepository.findSummaries(
+                beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, limit)));
+    }
+
+    /**
+     * Количество событий, ожидающих повторной публикации, публикуемых сейчас и уже переотправленных
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Long>> getDeadLetterStats() {
+        return ResponseEntity.ok(Map.of(
+                "new", deadLetterService.countByStatus(DeadLetter.Status.NEW),
+                "replaying", deadLetterService.countByStatus(DeadLetter.Status.REPLAYING),
+                "replayed", deadLetterService.countByStatus(DeadLetter.Status.REPLAYED)));
+    }
+
+    /**
+     * Запускает повторную публикацию до limit событий в исходный топик не чаще ratePerSecond в секунду.
+     * Ответ 202 содержит задание; его состояние доступно по GET /replay/{jobId}
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<DeadLetterReplayJob> replay(
+            @RequestParam(defaultValue = "1000") int limit,
+            @RequestParam(defaultValue = "50") double ratePerSecond) {
+        log.info("Запрос на повторную публикацию событий DLQ: limit={}, ratePerSecond={}", limit, ratePerSecond);
+        if (limit < 1 || limit > MAX_REPLAY_LIMIT || !(ratePerSecond >= MIN_REPLAY_RATE && ratePerSecond <= MAX_REPLAY_RATE)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.accepted().body(deadLetterService.startReplay(limit, ratePerSecond));
+    }
+
+    /**
+     * Состояние задания повторной публикации (задания хранятся в памяти экземпляра, запустившего их)
+     */
+    @GetMapping("/replay/{jobId}")
+    public ResponseEntity<DeadLetterReplayJob> getReplayJob(@PathVariable String jobId) {
+        return deadLetterService.getReplayJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
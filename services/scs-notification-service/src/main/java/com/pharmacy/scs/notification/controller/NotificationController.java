@@ -1,13 +1,16 @@
 package com.pharmacy.scs.notification.controller;
 
+import com.pharmacy.scs.notification.dto.NotificationHistoryPage;
 import com.pharmacy.scs.notification.entity.Notification;
 import com.pharmacy.scs.notification.repository.NotificationRepository;
+import com.pharmacy.scs.notification.repository.NotificationRepository.NotificationSummary;
+import com.pharmacy.scs.notification.service.NotificationStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,50 +24,52 @@ import java.util.Map;
 @Slf4j
 public class NotificationController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final NotificationRepository notificationRepository;
+    private final NotificationStatsService notificationStatsService;
 
     /**
-     * Получает список всех уведомлений для пользователя
+     * Получает историю уведомлений пользователя постранично (от новых к старым).
+     * Возвращает краткие записи без содержимого писем; содержимое — в GET /api/notifications/{id}
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Notification>> getNotificationsByUser(@PathVariable Long userId) {
-        log.debug("Getting notifications for user ID: {}", userId);
-        // Используем новый метод вместо findByUserIdAndDeliveryId
-        List<Notification> notifications = notificationRepository.findByUserId(userId);
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<NotificationHistoryPage> getNotificationsByUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.debug("Getting notifications for user ID: {}, beforeId: {}, limit: {}", userId, beforeId, limit);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(page(notificationRepository.findSummariesByUserId(
+                userId, cursor(beforeId), PageRequest.of(0, limit)), limit));
     }
 
     /**
-     * Получает список уведомлений для конкретной доставки
+     * Получает историю уведомлений для конкретной доставки постранично (от новых к старым)
      */
     @GetMapping("/delivery/{deliveryId}")
-    public ResponseEntity<List<Notification>> getNotificationsByDelivery(@PathVariable Long deliveryId) {
-        log.debug("Getting notifications for delivery ID: {}", deliveryId);
-        // Используем новый метод вместо findByUserIdAndDeliveryId
-        List<Notification> notifications = notificationRepository.findByDeliveryId(deliveryId);
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<NotificationHistoryPage> getNotificationsByDelivery(
+            @PathVariable Long deliveryId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.debug("Getting notifications for delivery ID: {}, beforeId: {}, limit: {}", deliveryId, beforeId, limit);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(page(notificationRepository.findSummariesByDeliveryId(
+                deliveryId, cursor(beforeId), PageRequest.of(0, limit)), limit));
     }
 
     /**
-     * Получает статистику по уведомлениям
+     * Получает статистику по уведомлениям: итоги по статусам и окна 5m/1h/24h
+     * по типу уведомления, типу события и статусу
      */
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getNotificationStats() {
         log.debug("Getting notification statistics");
-
-        long totalCount = notificationRepository.count();
-        long sentCount = notificationRepository.findByStatus(Notification.NotificationStatus.SENT).size();
-        long failedCount = notificationRepository.findByStatus(Notification.NotificationStatus.FAILED).size();
-        long pendingCount = notificationRepository.findByStatus(Notification.NotificationStatus.PENDING).size();
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalCount", totalCount);
-        stats.put("sentCount", sentCount);
-        stats.put("failedCount", failedCount);
-        stats.put("pendingCount", pendingCount);
-        stats.put("successRate", totalCount > 0 ? (double) sentCount / totalCount : 0);
-
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(notificationStatsService.getStats());
     }
 
     /**
@@ -77,4 +82,13 @@ public class NotificationController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
-}
\ No newline at end of file
+
+    private static Long cursor(Long beforeId) {
+        return beforeId != null ? beforeId : Long.MAX_VALUE;
+    }
+
+    private static NotificationHistoryPage page(List<NotificationSummary> items, int limit) {
+        Long nextBeforeId = items.size() == limit ? items.get(items.size() - 1).getId() : null;
+        return new NotificationHistoryPage(items, nextBeforeId);
+    }
+}
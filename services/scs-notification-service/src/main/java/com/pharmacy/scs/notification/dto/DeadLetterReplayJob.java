@@ -0,0 +1,55 @@
+package com.pharmacy.scs.notification.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Задание повторной публикации событий DLQ. Выполняется асинхронно в потоке DeadLetterService,
+ * клиент получает id при запуске и опрашивает состояние по нему.
+ * Поля меняет только поток задания, поэтому достаточно volatile.
+ */
+@Getter
+public class DeadLetterReplayJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final int limit;
+    private final double ratePerSecond;
+    private final LocalDateTime requestedAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int replayed;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public DeadLetterReplayJob(int limit, double ratePerSecond) {
+        this.limit = limit;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    public void markAsRunning() {
+        status = Status.RUNNING;
+        startedAt = LocalDateTime.now();
+    }
+
+    public void addReplayed(int count) {
+        replayed += count;
+    }
+
+    public void markAsCompleted() {
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    public void markAsFailed(String error) {
+        this.status = Status.FAILED;
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+    }
+}
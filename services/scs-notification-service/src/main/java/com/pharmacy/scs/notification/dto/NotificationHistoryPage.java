@@ -0,0 +1,20 @@
+package com.pharmacy.scs.notification.dto;
+
+import com.pharmacy.scs.notification.repository.NotificationRepository.NotificationSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница истории уведомлений (keyset-пагинация по ID, от новых к старым).
+ * nextBeforeId передаётся в параметре beforeId для следующей страницы; null — страниц больше нет.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationHistoryPage {
+    private List<NotificationSummary> items;
+    private Long nextBeforeId;
+}
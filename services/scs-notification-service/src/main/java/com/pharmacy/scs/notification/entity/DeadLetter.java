@@ -0,0 +1,125 @@
+package com.pharmacy.scs.notification.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ResultCheckStyle;
+import org.hibernate.annotations.SQLInsert;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие из notification-dlq, сохранённое для анализа и повторной публикации.
+ * Хранится исходное значение записи в байтах (сжатое, если оно больше порога), исходные координаты
+ * и краткое описание ошибки без стека. Позиция записи в DLQ (dlqPartition, dlqOffset) уникальна:
+ * повторное чтение DLQ после сбоя не создаёт дубликатов (ON CONFLICT DO NOTHING).
+ * Повторная публикация сначала захватывает событие (REPLAYING с id задания и временем захвата),
+ * поэтому параллельные задания и экземпляры сервиса не отправляют его дважды.
+ * Индексы создаёт миграция sql/migration_notification_dead_letters.sql.
+ * Порядок столбцов в @SQLInsert совпадает с порядком параметров Hibernate: атрибуты по алфавиту, затем id.
+ */
+@Entity
+@Table(name = "notification_dead_letters",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_notification_dead_letters_dlq_position",
+                columnNames = {"dlq_partition", "dlq_offset"}))
+@SQLInsert(sql = "INSERT INTO notification_dead_letters (compressed, dlq_offset, dlq_partition, exception_class, " +
+        "exception_message, failed_at, message_key, payload, replay_claimed_at, replay_job_id, replayed_at, source_offset, source_partition, " +
+        "source_topic, status, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING",
+        check = ResultCheckStyle.NONE)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetter {
+
+    public static final int MAX_EXCEPTION_MESSAGE_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    @Column(nullable = false)
+    private String sourceTopic;
+
+    @Column
+    private Integer sourcePartition;
+
+    @Column
+    private Long sourceOffset;
+
+    @Column(nullable = false)
+    private Integer dlqPartition;
+
+    @Column(nullable = false)
+    private Long dlqOffset;
+
+    @Column
+    private String messageKey;
+
+    /**
+     * Исходное значение записи (JSON события или байты, которые не удалось десериализовать)
+     */
+    @Column(length = 1048576)
+    private byte[] payload;
+
+    /**
+     * payload сжат GZIP
+     */
+    @Column(nullable = false)
+    private boolean compressed;
+
+    @Column
+    private String exceptionClass;
+
+    @Column(length = MAX_EXCEPTION_MESSAGE_LENGTH)
+    private String exceptionMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime failedAt;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column
+    private LocalDateTime replayedAt;
+
+    /**
+     * Задание повторной публикации, захватившее или переотправившее событие
+     */
+    @Column(length = 36)
+    private String replayJobId;
+
+    /**
+     * Время захвата заданием: по истечении аренды событие в REPLAYING может захватить другое задание
+     */
+    @Column
+    private LocalDateTime replayClaimedAt;
+
+    public enum Status {
+        NEW, REPLAYING, REPLAYED
+    }
+
+    public void claimForReplay(String jobId, LocalDateTime claimedAt) {
+        status = Status.REPLAYING;
+        replayJobId = jobId;
+        replayClaimedAt = claimedAt;
+    }
+
+    public void markAsReplayed() {
+        status = Status.REPLAYED;
+        replayedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Возвращает захваченное, но не отправленное событие в очередь повторной публикации
+     */
+    public void releaseReplayClaim() {
+        status = Status.NEW;
+        replayJobId = null;
+        replayClaimedAt = null;
+    }
+}
@@ -5,19 +5,41 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ResultCheckStyle;
+import org.hibernate.annotations.SQLInsert;
 
 import java.time.LocalDateTime;
 
+/**
+ * Уведомление. Ключ идемпотентности (deliveryId, eventType, type) защищён уникальным ограничением;
+ * вставка дубликата пропускается (ON CONFLICT DO NOTHING) и не прерывает JDBC-пакет —
+ * на этом построен захват ключа слушателем до отправки (см. KafkaListenerService).
+ * Порядок столбцов в @SQLInsert совпадает с порядком параметров Hibernate: атрибуты по алфавиту, затем id
+ * (проверяется NotificationRepositoryTest).
+ * Покрывающие индексы истории и частичный индекс повторов создают миграции
+ * sql/migration_notification_history_indexes.sql и sql/migration_notification_retry_schedule.sql.
+ */
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_notifications_delivery_event_type",
+                columnNames = {"delivery_id", "event_type", "type"}))
+@SQLInsert(sql = "INSERT INTO notifications (content, created_at, delivery_id, error_message, event_type, " +
+        "next_attempt_at, recipient, retry_count, sent_at, status, type, user_id, id) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING",
+        check = ResultCheckStyle.NONE)
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Notification {
 
+    /**
+     * ID из последовательности notifications_seq (шаг 50): в отличие от IDENTITY,
+     * Hibernate получает ID заранее и может объединять INSERT в JDBC-пакеты
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(nullable = false)
@@ -55,12 +77,23 @@ public class Notification {
     @Column
     private Integer retryCount;
 
+    /**
+     * Время следующей попытки отправки (FAILED) или окончания аренды: захвата ключа слушателем (PENDING)
+     * или попытки планировщика (RETRY); null — повторная отправка не запланирована
+     */
+    @Column
+    private LocalDateTime nextAttemptAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         if (retryCount == null) {
             retryCount = 0;
         }
+        // Первая неудачная отправка: повтор доступен планировщику сразу
+        if (status == NotificationStatus.FAILED && nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
     }
 
     public enum NotificationType {
@@ -84,6 +117,7 @@ public class Notification {
     public void markAsSent() {
         status = NotificationStatus.SENT;
         sentAt = LocalDateTime.now();
+        nextAttemptAt = null;
     }
 
     public void markAsFailed(String error) {
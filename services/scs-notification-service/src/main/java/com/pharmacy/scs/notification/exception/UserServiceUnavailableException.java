@@ -0,0 +1,12 @@
+package com.pharmacy.scs.notification.exception;
+
+/**
+ * User Service не ответил (ошибка сети, таймаут, 5xx): пользователь не обязательно отсутствует,
+ * поэтому событие не подтверждается, а уходит на повтор
+ */
+public class UserServiceUnavailableException extends NotificationException {
+
+    public UserServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,62 @@
+package com.pharmacy.scs.notification.repository;
+
+import com.pharmacy.scs.notification.entity.DeadLetter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DeadLetterRepository extends JpaRepository<DeadLetter, Long> {
+
+    /**
+     * Захват событий для повторной публикации от старых к новым: NEW и REPLAYING с истекшей арендой
+     * (экземпляр сервиса упал во время публикации). Условие по статусу повторяет предикат частичного
+     * индекса idx_notification_dead_letters_replay_queue. SKIP LOCKED пропускает строки, захваченные
+     * другими заданиями. Вызывать в транзакции: блокировки держатся до её завершения
+     */
+    @Query(value = "SELECT * FROM notification_dead_letters " +
+            "WHERE status IN ('NEW', 'REPLAYING') AND (status = 'NEW' OR replay_claimed_at < :leaseExpiredBefore) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<DeadLetter> claimForReplay(LocalDateTime leaseExpiredBefore, int limit);
+
+    /**
+     * Список событий DLQ без содержимого: keyset-страница от новых к старым
+     */
+    @Query("SELECT d.id AS id, d.sourceTopic AS sourceTopic, d.sourcePartition AS sourcePartition, " +
+            "d.sourceOffset AS sourceOffset, d.messageKey AS messageKey, d.exceptionClass AS exceptionClass, " +
+            "d.exceptionMessage AS exceptionMessage, d.failedAt AS failedAt, d.status AS status, " +
+            "d.replayedAt AS replayedAt " +
+            "FROM DeadLetter d WHERE d.id < :beforeId ORDER BY d.id DESC")
+    List<DeadLetterSummary> findSummaries(Long beforeId, Pageable pageable);
+
+    long countByStatus(DeadLetter.Status status);
+
+    /**
+     * Краткая запись о событии DLQ (без payload)
+     */
+    interface DeadLetterSummary {
+        Long getId();
+
+        String getSourceTopic();
+
+        Integer getSourcePartition();
+
+        Long getSourceOffset();
+
+        String getMessageKey();
+
+        String getExceptionClass();
+
+        String getExceptionMessage();
+
+        LocalDateTime getFailedAt();
+
+        DeadLetter.Status getStatus();
+
+        LocalDateTime getReplayedAt();
+    }
+}
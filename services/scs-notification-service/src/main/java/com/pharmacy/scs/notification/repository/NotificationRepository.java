@@ -1,11 +1,13 @@
 package com.pharmacy.scs.notification.repository;
 
 import com.pharmacy.scs.notification.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,16 +21,113 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     List<Notification> findByDeliveryId(Long deliveryId);
 
-    @Query("SELECT n FROM Notification n WHERE n.status = :status AND n.retryCount < :maxRetries AND n.createdAt > :since")
-    List<Notification> findFailedNotificationsForRetry(
-            Notification.NotificationStatus status,
-            int maxRetries,
-            LocalDateTime since);
+    /**
+     * История уведомлений пользователя: keyset-страница по индексу (user_id, id), без содержимого писем
+     */
+    @Query("SELECT n.id AS id, n.type AS type, n.status AS status, n.sentAt AS sentAt, n.eventType AS eventType " +
+            "FROM Notification n WHERE n.userId = :userId AND n.id < :beforeId ORDER BY n.id DESC")
+    List<NotificationSummary> findSummariesByUserId(Long userId, Long beforeId, Pageable pageable);
+
+    /**
+     * История уведомлений доставки: keyset-страница по индексу (delivery_id, id), без содержимого писем
+     */
+    @Query("SELECT n.id AS id, n.type AS type, n.status AS status, n.sentAt AS sentAt, n.eventType AS eventType " +
+            "FROM Notification n WHERE n.deliveryId = :deliveryId AND n.id < :beforeId ORDER BY n.id DESC")
+    List<NotificationSummary> findSummariesByDeliveryId(Long deliveryId, Long beforeId, Pageable pageable);
+
+    /**
+     * Захват повторных отправок, срок которых наступил: FAILED с наступившим next_attempt_at,
+     * RETRY с истекшей арендой (экземпляр сервиса упал во время повтора) и PENDING с истекшей арендой захвата
+     * (экземпляр упал или не сохранил статус между захватом ключа слушателем и отправкой).
+     * Условие по статусу повторяет предикат частичного индекса idx_notifications_next_attempt.
+     * SKIP LOCKED пропускает строки, захваченные другими экземплярами, поэтому они делят работу без ожиданий.
+     * Вызывать в транзакции: блокировки держатся до её завершения
+     */
+    @Query(value = "SELECT * FROM notifications " +
+            "WHERE status IN ('PENDING', 'FAILED', 'RETRY') AND next_attempt_at <= :now AND retry_count < :maxRetries " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Notification> claimDueRetries(LocalDateTime now, int maxRetries, int limit);
 
-    // Индексированный запрос для быстрого поиска (будет использоваться часто)
-    @Query(value = "SELECT n FROM Notification n WHERE n.deliveryId = :deliveryId AND n.eventType = :eventType AND n.type = :type")
-    List<Notification> findByDeliveryAndEventTypeAndNotificationType(
+    /**
+     * Захват уведомлений, исчерпавших попытки, но оставшихся в очереди повторов: например, экземпляр упал
+     * во время последнего повтора, и RETRY с истекшей арендой уже не подходит под claimDueRetries.
+     * Вызывающий переводит их в конечный FAILED в той же транзакции.
+     */
+    @Query(value = "SELECT * FROM notifications " +
+            "WHERE status IN ('PENDING', 'FAILED', 'RETRY') AND next_attempt_at <= :now AND retry_count >= :maxRetries " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Notification> claimExhaustedRetries(LocalDateTime now, int maxRetries, int limit);
+
+    /**
+     * Проверка идемпотентности одного уведомления по уникальному индексу без загрузки строки
+     */
+    boolean existsByDeliveryIdAndEventTypeAndType(
             Long deliveryId,
             String eventType,
             Notification.NotificationType type);
-}
\ No newline at end of file
+
+    /**
+     * Пакетная проверка идемпотентности: ключи (deliveryId, eventType) уже созданных
+     * уведомлений заданного типа для набора доставок — один запрос вместо запроса на событие
+     */
+    @Query("SELECT n.deliveryId AS deliveryId, n.eventType AS eventType FROM Notification n " +
+            "WHERE n.deliveryId IN :deliveryIds AND n.type = :type")
+    List<NotificationKey> findKeysByDeliveryIdInAndType(
+            Collection<Long> deliveryIds,
+            Notification.NotificationType type);
+
+    /**
+     * ID из списка, строки которых есть в таблице. После вставки с ON CONFLICT DO NOTHING
+     * среди них нет ID уведомлений, чей ключ идемпотентности уже был занят
+     */
+    @Query("SELECT n.id FROM Notification n WHERE n.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Ключи уведомлений заданного типа, созданных после указанного момента (прогрев фильтра недавних ключей)
+     */
+    @Query("SELECT n.deliveryId AS deliveryId, n.eventType AS eventType FROM Notification n " +
+            "WHERE n.type = :type AND n.createdAt > :since")
+    List<NotificationKey> findKeysByTypeAndCreatedAtAfter(
+            Notification.NotificationType type,
+            LocalDateTime since);
+
+    /**
+     * Количество уведомлений по статусам одним запросом
+     */
+    @Query("SELECT n.status AS status, COUNT(n) AS count FROM Notification n GROUP BY n.status")
+    List<StatusCount> countByStatus();
+
+    /**
+     * Краткая запись истории уведомлений
+     */
+    interface NotificationSummary {
+        Long getId();
+
+        Notification.NotificationType getType();
+
+        Notification.NotificationStatus getStatus();
+
+        LocalDateTime getSentAt();
+
+        String getEventType();
+    }
+
+    /**
+     * Проекция ключа идемпотентности уведомления
+     */
+    interface NotificationKey {
+        Long getDeliveryId();
+
+        String getEventType();
+    }
+
+    /**
+     * Проекция количества уведомлений в статусе
+     */
+    interface StatusCount {
+        Notification.NotificationStatus getStatus();
+
+        long getCount();
+    }
+}
@@ -0,0 +1,61 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение скорости отправки по каналу (равномерный интервал между разрешениями, без всплесков).
+ * Используется планировщиком повторных отправок, чтобы повторы не перегружали почтовый сервер и SMS-шлюз
+ */
+@Component
+public class ChannelRateLimiter {
+
+    private final Map<NotificationType, Channel> channels = new EnumMap<>(NotificationType.class);
+
+    public ChannelRateLimiter(
+            @Value("${notification.retry.rate-limit.email-per-second:20}") double emailPerSecond,
+            @Value("${notification.retry.rate-limit.sms-per-second:5}") double smsPerSecond) {
+        channels.put(NotificationType.EMAIL, new Channel(emailPerSecond));
+        channels.put(NotificationType.SMS, new Channel(smsPerSecond));
+    }
+
+    /**
+     * Ожидает разрешения на одну отправку по каналу
+     */
+    public void acquire(NotificationType type) throws InterruptedException {
+        long waitNanos = channels.get(type).reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static final class Channel {
+
+        private final long intervalNanos;
+        private long nextFreeNanos = System.nanoTime();
+
+        private Channel(double permitsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        }
+
+        /**
+         * Резервирует ближайшее свободное разрешение
+         *
+         * @return сколько нужно подождать до него, нс
+         */
+        private synchronized long reserve() {
+            long now = System.nanoTime();
+            if (nextFreeNanos - now < 0) {
+                nextFreeNanos = now;
+            }
+            long waitNanos = nextFreeNanos - now;
+            nextFreeNanos += intervalNanos;
+            return waitNanos;
+        }
+    }
+}
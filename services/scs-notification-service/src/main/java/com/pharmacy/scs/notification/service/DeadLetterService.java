@@ -0,0 +1,293 @@
+package com.pharmacy.scs.notification.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharmacy.scs.notification.dto.DeadLetterReplayJob;
+import com.pharmacy.scs.notification.entity.DeadLetter;
+import com.pharmacy.scs.notification.exception.NotificationException;
+import com.pharmacy.scs.notification.repository.DeadLetterRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Хранилище событий notification-dlq: слушатель сохраняет каждый poll DLQ одним saveAll,
+ * повторная публикация отправляет сохранённые события в исходный топик с ограничением скорости,
+ * чтобы восстановление после сбоя не создавало всплеск нагрузки на конвейер уведомлений.
+ * Публикация выполняется заданием в собственном потоке: HTTP-запрос только ставит его в очередь.
+ * Аренда захвата (replay-lease) должна превышать время отправки порции при минимальной скорости.
+ */
+@Service
+@Slf4j
+public class DeadLetterService {
+
+    private static final int REPLAY_CHUNK_SIZE = 100;
+    private static final int MAX_TRACKED_REPLAY_JOBS = 100;
+
+    private final DeadLetterRepository deadLetterRepository;
+    private final KafkaTemplate<String, byte[]> byteArrayKafkaTemplate;
+    private final String defaultTopic;
+    private final int compressThresholdBytes;
+    private final Duration replayLease;
+    private final TransactionTemplate transactionTemplate;
+
+    // Последние задания повторной публикации для запросов состояния; хранятся только в этом экземпляре
+    private final Cache<String, DeadLetterReplayJob> replayJobs = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_REPLAY_JOBS)
+            .build();
+
+    private final ExecutorService replayExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dead-letter-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DeadLetterService(
+            DeadLetterRepository deadLetterRepository,
+            KafkaTemplate<String, byte[]> byteArrayKafkaTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${kafka.topics.delivery-updates}") String defaultTopic,
+            @Value("${notification.dead-letters.compress-threshold-bytes:512}") int compressThresholdBytes,
+            @Value("${notification.dead-letters.replay-lease:5m}") Duration replayLease) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.byteArrayKafkaTemplate = byteArrayKafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTopic = defaultTopic;
+        this.compressThresholdBytes = compressThresholdBytes;
+        this.replayLease = replayLease;
+    }
+
+    /**
+     * Слушатель для Dead Letter Queue (DLQ).
+     * Сюда попадают события после последнего retry-топика и записи, которые не удалось десериализовать.
+     */
+    @KafkaListener(
+            id = "deliveryUpdatesDlq",
+            topics = "${kafka.topics.notification-dlq}",
+            groupId = "${spring.kafka.consumer.group-id}-dlq",
+            containerFactory = "kafkaDltListenerContainerFactory"
+    )
+    public void listenDeliveryUpdatesDLQ(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        log.warn("Storing {} messages from DLQ", records.size());
+        store(records);
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Сохраняет записи DLQ. Исходные топик, партиция, офсет и ошибка берутся из заголовков
+     * DeadLetterPublishingRecoverer; стек исключения не сохраняется
+     */
+    public List<DeadLetter> store(List<ConsumerRecord<String, byte[]>> records) {
+        List<DeadLetter> deadLetters = new ArrayList<>(records.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            Headers headers = record.headers();
+            byte[] payload = record.value();
+            boolean compress = payload != null && payload.length > compressThresholdBytes;
+
+            String exceptionClass = string(headers, KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN);
+            deadLetters.add(DeadLetter.builder()
+                    .sourceTopic(stringOrDefault(headers, KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic()))
+                    .sourcePartition(intHeader(headers, KafkaHeaders.DLT_ORIGINAL_PARTITION))
+                    .sourceOffset(longHeader(headers, KafkaHeaders.DLT_ORIGINAL_OFFSET))
+                    .dlqPartition(record.partition())
+                    .dlqOffset(record.offset())
+                    .messageKey(record.key())
+                    .payload(compress ? gzip(payload) : payload)
+                    .compressed(compress)
+                    .exceptionClass(exceptionClass != null
+                            ? exceptionClass : string(headers, KafkaHeaders.DLT_EXCEPTION_FQCN))
+                    .exceptionMessage(truncate(string(headers, KafkaHeaders.DLT_EXCEPTION_MESSAGE)))
+                    .failedAt(now)
+                    .status(DeadLetter.Status.NEW)
+                    .build());
+        }
+        // Записи, уже сохранённые до сбоя слушателя, отбрасывает ON CONFLICT DO NOTHING
+        return deadLetterRepository.saveAll(deadLetters);
+    }
+
+    /**
+     * Ставит в очередь задание повторной публикации до limit событий (от старых к новым)
+     * не чаще ratePerSecond в секунду; задания выполняются по одному в потоке dead-letter-replay
+     */
+    public DeadLetterReplayJob startReplay(int limit, double ratePerSecond) {
+        DeadLetterReplayJob job = new DeadLetterReplayJob(limit, ratePerSecond);
+        replayJobs.put(job.getId(), job);
+        replayExecutor.execute(() -> run(job));
+        log.info("Dead letter replay job {} queued: limit={}, ratePerSecond={}", job.getId(), limit, ratePerSecond);
+        return job;
+    }
+
+    public Optional<DeadLetterReplayJob> getReplayJob(String jobId) {
+        return Optional.ofNullable(replayJobs.getIfPresent(jobId));
+    }
+
+    /**
+     * Прерывает текущее задание: его незавершённые события возвращаются в NEW
+     * или захватываются другим заданием после аренды
+     */
+    @PreDestroy
+    public void shutdown() {
+        replayExecutor.shutdownNow();
+    }
+
+    private void run(DeadLetterReplayJob job) {
+        job.markAsRunning();
+        try {
+            replay(job);
+            job.markAsCompleted();
+            log.info("Dead letter replay job {} completed: {} replayed at up to {} per second",
+                    job.getId(), job.getReplayed(), job.getRatePerSecond());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.markAsFailed("Interrupted");
+            log.warn("Dead letter replay job {} interrupted after {} replayed", job.getId(), job.getReplayed());
+        } catch (RuntimeException e) {
+            job.markAsFailed(e.getMessage());
+            log.error("Dead letter replay job {} failed after {} replayed", job.getId(), job.getReplayed(), e);
+        }
+    }
+
+    /**
+     * Публикует события порциями: порция захватывается (REPLAYING) в короткой транзакции, затем
+     * отправляется вне транзакции. Событие помечается REPLAYED после подтверждения записи брокером;
+     * при ошибке отправки задание останавливается, неотправленные события порции возвращаются в NEW
+     */
+    void replay(DeadLetterReplayJob job) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / job.getRatePerSecond());
+        long nextSendNanos = System.nanoTime();
+
+        while (job.getReplayed() < job.getLimit()) {
+            List<DeadLetter> claimed = claim(job.getId(), Math.min(REPLAY_CHUNK_SIZE, job.getLimit() - job.getReplayed()));
+            if (claimed.isEmpty()) {
+                break;
+            }
+
+            int sent = 0;
+            try {
+                for (DeadLetter deadLetter : claimed) {
+                    long waitNanos = nextSendNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                    nextSendNanos = Math.max(nextSendNanos, System.nanoTime()) + intervalNanos;
+
+                    byteArrayKafkaTemplate.send(topic(deadLetter), deadLetter.getMessageKey(), payload(deadLetter)).get();
+                    deadLetter.markAsReplayed();
+                    sent++;
+                }
+            } catch (ExecutionException e) {
+                finishChunk(job, claimed, sent);
+                throw new NotificationException("Failed to replay dead letter " + claimed.get(sent).getId(), e.getCause());
+            } catch (InterruptedException e) {
+                finishChunk(job, claimed, sent);
+                throw e;
+            }
+            finishChunk(job, claimed, sent);
+        }
+    }
+
+    /**
+     * Захватывает следующую порцию событий для задания
+     */
+    private List<DeadLetter> claim(String jobId, int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<DeadLetter> claimed = deadLetterRepository.claimForReplay(now.minus(replayLease), limit);
+            claimed.forEach(deadLetter -> deadLetter.claimForReplay(jobId, now));
+            return claimed;
+        });
+    }
+
+    /**
+     * Сохраняет итог порции: первые sent событий переотправлены, остальные возвращаются в очередь
+     */
+    private void finishChunk(DeadLetterReplayJob job, List<DeadLetter> claimed, int sent) {
+        claimed.subList(sent, claimed.size()).forEach(DeadLetter::releaseReplayClaim);
+        deadLetterRepository.saveAll(claimed);
+        job.addReplayed(sent);
+    }
+
+    public long countByStatus(DeadLetter.Status status) {
+        return deadLetterRepository.countByStatus(status);
+    }
+
+    private String topic(DeadLetter deadLetter) {
+        return deadLetter.getSourceTopic() != null ? deadLetter.getSourceTopic() : defaultTopic;
+    }
+
+    static byte[] payload(DeadLetter deadLetter) {
+        if (!deadLetter.isCompressed()) {
+            return deadLetter.getPayload();
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(deadLetter.getPayload()))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new NotificationException("Failed to decompress dead letter " + deadLetter.getId(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > DeadLetter.MAX_EXCEPTION_MESSAGE_LENGTH
+                ? message.substring(0, DeadLetter.MAX_EXCEPTION_MESSAGE_LENGTH)
+                : message;
+    }
+
+    private static String string(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static String stringOrDefault(Headers headers, String name, String defaultValue) {
+        String value = string(headers, name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static Integer intHeader(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null ? ByteBuffer.wrap(header.value()).getInt() : null;
+    }
+
+    private static Long longHeader(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null ? ByteBuffer.wrap(header.value()).getLong() : null;
+    }
+}
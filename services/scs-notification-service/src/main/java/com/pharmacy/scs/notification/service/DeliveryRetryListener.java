@@ -0,0 +1,71 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.config.DeliveryRetryTopics;
+import com.pharmacy.scs.notification.dto.DeliveryEvent;
+import com.pharmacy.scs.notification.entity.Notification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Читает retry-топики delivery-updates. Запись обрабатывается не раньше срока из её заголовка:
+ * до него потребитель возвращается к офсету записи, а партиция приостанавливается,
+ * поток слушателя не блокируется и другие партиции читаются дальше.
+ * Ошибка обработки пересылает запись в следующий retry-топик, после последнего — в notification-dlq.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeliveryRetryListener {
+
+    static final String LISTENER_ID = "deliveryUpdatesRetry";
+
+    private final KafkaListenerService kafkaListenerService;
+    private final DeliveryRetryTopics deliveryRetryTopics;
+    private final ListenerContainerPauseService deliveryRetryPauseService;
+    private final KafkaListenerEndpointRegistry registry;
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "#{@deliveryRetryTopics.names()}",
+            groupId = "${spring.kafka.consumer.group-id}-retry",
+            containerFactory = "kafkaRetryListenerContainerFactory"
+    )
+    public void listenDeliveryUpdatesRetry(
+            ConsumerRecord<String, DeliveryEvent> record,
+            Acknowledgment acknowledgment,
+            Consumer<?, ?> consumer) {
+
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        if (consumer.position(partition) <= record.offset()) {
+            // Партицию уже вернули к более ранней записи этого poll: запись будет прочитана снова после паузы
+            return;
+        }
+
+        long delayMs = deliveryRetryTopics.dueAt(record) - System.currentTimeMillis();
+        if (delayMs > 0) {
+            consumer.seek(partition, record.offset());
+            deliveryRetryPauseService.pausePartition(
+                    registry.getListenerContainer(LISTENER_ID), partition, Duration.ofMillis(delayMs));
+            return;
+        }
+
+        log.info("Retrying delivery event: deliveryId={}, from topic={}, partition={}, offset={}",
+                record.value().getDeliveryId(), record.topic(), record.partition(), record.offset());
+
+        Notification notification = kafkaListenerService.processRetry(record.value());
+        if (notification != null) {
+            log.info("Notification sent on retry: {}", notification);
+        }
+        acknowledgment.acknowledge();
+    }
+}
@@ -5,18 +5,17 @@ import com.pharmacy.scs.notification.entity.Notification;
 import com.pharmacy.scs.notification.entity.Notification.NotificationStatus;
 import com.pharmacy.scs.notification.entity.Notification.NotificationType;
 import com.pharmacy.scs.notification.repository.NotificationRepository;
+import com.pharmacy.scs.notification.template.NotificationTemplateRenderer;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -26,11 +25,14 @@ import java.util.concurrent.CompletableFuture;
 public class EmailNotificationService implements NotificationService {
 
     private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final NotificationTemplateRenderer templateRenderer;
     private final NotificationRepository notificationRepository;
 
+    /**
+     * Отправляет уведомление и сохраняет его одной записью с итоговым статусом.
+     * Вызывается из потока конвейера (NotificationDispatcher), поэтому выполняется синхронно
+     */
     @Override
-    @Async
     @Transactional
     public CompletableFuture<Notification> sendNotification(
             DeliveryEvent event,
@@ -39,7 +41,12 @@ public class EmailNotificationService implements NotificationService {
 
         log.debug("Preparing to send email notification for delivery ID: {}", event.getDeliveryId());
 
-        // Создаем запись о уведомлении
+        Notification notification = deliverNotification(prepareNotification(event, recipientEmail, templateParams));
+        return CompletableFuture.completedFuture(notificationRepository.save(notification));
+    }
+
+    @Override
+    public Notification prepareNotification(DeliveryEvent event, String recipientEmail, Map<String, Object> templateParams) {
         Notification notification = Notification.builder()
                 .userId(event.getUserId())
                 .deliveryId(event.getDeliveryId())
@@ -48,65 +55,73 @@ public class EmailNotificationService implements NotificationService {
                 .recipient(recipientEmail)
                 .status(NotificationStatus.PENDING)
                 .build();
+        try {
+            notification.setContent(templateRenderer.render(event.getEventType(), templateParams));
+        } catch (Exception e) {
+            log.error("Failed to render email notification for delivery ID: {}", event.getDeliveryId(), e);
+            // Без содержимого отправлять нечего: повторная отправка завершит уведомление окончательно
+            notification.markAsFailed(e.getMessage());
+        }
+        return notification;
+    }
 
-        notification = notificationRepository.save(notification);
-
+    @Override
+    public Notification deliverNotification(Notification notification) {
+        if (notification.getStatus() != NotificationStatus.PENDING) {
+            return notification;
+        }
         try {
-            // Формируем содержимое письма с использованием Thymeleaf
-            Context context = new Context();
-            context.setVariables(templateParams);
-            String emailContent = templateEngine.process("email-templates/delivery-status", context);
-
-            // Формируем тему письма
-            String subject = getSubjectByEventType(event.getEventType());
-
-            // Вместо отправки письма - логируем в консоль
-            log.info("===== СИМУЛЯЦИЯ ОТПРАВКИ EMAIL =====");
-            log.info("Кому: {}", recipientEmail);
-            log.info("Тема: {}", subject);
-            log.info("Параметры шаблона: {}", templateParams);
-            log.info("Тип события: {}", event.getEventType());
-            log.info("=====================================");
-
-            // Обновляем статус уведомления
-            notification.setContent(emailContent);
-            notification.markAsSent();
-            log.info("Email notification simulated successfully to {} for delivery ID: {}",
-                    recipientEmail, event.getDeliveryId());
+            // Вместо отправки письма - логируем (на уровне DEBUG, чтобы не тормозить пакетную обработку)
+            log.debug("Симуляция отправки email: кому={}, тема={}, deliveryId={}",
+                    notification.getRecipient(), templateRenderer.subject(notification.getEventType()),
+                    notification.getDeliveryId());
 
+            notification.markAsSent();
         } catch (Exception e) {
             log.error("Failed to simulate email notification for delivery ID: {}",
-                    event.getDeliveryId(), e);
+                    notification.getDeliveryId(), e);
             notification.markAsFailed(e.getMessage());
+            // Первая неудачная отправка: повтор доступен планировщику сразу
+            // (уведомление, сохранённое при захвате ключа, @PrePersist уже не обработает)
+            notification.setNextAttemptAt(LocalDateTime.now());
         }
 
-        // Сохраняем обновленный статус уведомления
-        notification = notificationRepository.save(notification);
-        return CompletableFuture.completedFuture(notification);
+        return notification;
     }
 
+    /**
+     * Повторная отправка. Вызывается планировщиком повторов в потоке конвейера, поэтому выполняется синхронно
+     */
     @Override
-    @Async
     @Transactional
     public CompletableFuture<Notification> resendNotification(Notification notification) {
         log.debug("Attempting to resend email notification ID: {}", notification.getId());
 
-        try {
-            // Восстанавливаем содержимое письма
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setTo(notification.getRecipient());
-            helper.setSubject(getSubjectByEventType(notification.getEventType()));
-            helper.setText(notification.getContent(), true);
-
-            mailSender.send(message);
-
-            notification.markAsSent();
-            log.info("Email notification resent successfully, ID: {}", notification.getId());
-
-        } catch (MessagingException e) {
-            log.error("Failed to resend email notification ID: {}", notification.getId(), e);
-            notification.markAsFailed(e.getMessage());
+        if (notification.getContent() == null) {
+            // Шаблон не удалось отрисовать при первой отправке: повтор не поможет, ошибка конечная
+            log.error("Email notification ID: {} has no content, giving up", notification.getId());
+            notification.markAsFailed("Notification content is missing");
+            notification.setNextAttemptAt(null);
+        } else {
+            try {
+                // Восстанавливаем содержимое письма
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+                helper.setTo(notification.getRecipient());
+                helper.setSubject(templateRenderer.subject(notification.getEventType()));
+                helper.setText(notification.getContent(), true);
+
+                mailSender.send(message);
+
+                notification.markAsSent();
+                log.info("Email notification resent successfully, ID: {}", notification.getId());
+
+            } catch (MessagingException | RuntimeException e) {
+                // Любая ошибка сохраняется как FAILED со сроком, назначенным планировщиком,
+                // иначе строка осталась бы в RETRY до истечения аренды
+                log.error("Failed to resend email notification ID: {}", notification.getId(), e);
+                notification.markAsFailed(e.getMessage());
+            }
         }
 
         notification = notificationRepository.save(notification);
@@ -117,14 +132,4 @@ public class EmailNotificationService implements NotificationService {
     public boolean supports(NotificationType type) {
         return NotificationType.EMAIL.equals(type);
     }
-
-    // Вспомогательный метод для формирования темы письма
-    private String getSubjectByEventType(String eventType) {
-        return switch (eventType) {
-            case "CREATED" -> "Ваш заказ принят в обработку";
-            case "UPDATED" -> "Статус вашего заказа изменен";
-            case "COMPLETED" -> "Ваш заказ доставлен";
-            default -> "Обновление статуса доставки";
-        };
-    }
-}
\ No newline at end of file
+}
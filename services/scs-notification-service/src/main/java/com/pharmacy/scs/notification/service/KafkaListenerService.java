@@ -4,45 +4,73 @@ import com.pharmacy.scs.notification.dto.DeliveryEvent;
 import com.pharmacy.scs.notification.entity.Notification;
 import com.pharmacy.scs.notification.exception.NotificationException;
 import com.pharmacy.scs.notification.repository.NotificationRepository;
-import lombok.RequiredArgsConstructor;
+import com.pharmacy.scs.notification.template.TemplateParams;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class KafkaListenerService {
 
     private final List<NotificationService> notificationServices;
     private final NotificationRepository notificationRepository;
-    private final UserServiceClient userServiceClient; // Этот клиент нужно будет определить
-
-    @Value("${notification.retry.max-attempts}")
-    private int maxRetryAttempts;
+    private final UserProfileCache userProfileCache;
+    private final NotificationDispatcher notificationDispatcher;
+    private final RecentNotificationFilter recentNotifications;
+    private final NotificationStatsService notificationStats;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration claimLease;
+
+    public KafkaListenerService(
+            List<NotificationService> notificationServices,
+            NotificationRepository notificationRepository,
+            UserProfileCache userProfileCache,
+            NotificationDispatcher notificationDispatcher,
+            RecentNotificationFilter recentNotifications,
+            NotificationStatsService notificationStats,
+            TransactionTemplate transactionTemplate,
+            @Value("${notification.dedup.claim-lease:5m}") Duration claimLease) {
+        this.notificationServices = notificationServices;
+        this.notificationRepository = notificationRepository;
+        this.userProfileCache = userProfileCache;
+        this.notificationDispatcher = notificationDispatcher;
+        this.recentNotifications = recentNotifications;
+        this.notificationStats = notificationStats;
+        this.transactionTemplate = transactionTemplate;
+        this.claimLease = claimLease;
+    }
 
     /**
      * Слушатель сообщений из топика delivery-updates.
-     * Ack Mode: MANUAL_IMMEDIATE для гарантии обработки (at-least-once)
+     * Ack Mode: MANUAL_IMMEDIATE.
+     * Активен при notification.listener.mode=single
      */
     @KafkaListener(
+            id = "deliveryUpdatesSingle",
             topics = "${kafka.topics.delivery-updates}",
             groupId = "${spring.kafka.consumer.group-id}",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{'${notification.listener.mode:batch}' == 'single'}"
     )
-    @Transactional
     public void listenDeliveryUpdates(
             @Payload DeliveryEvent event,
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
@@ -53,185 +81,316 @@ public class KafkaListenerService {
         log.info("Received delivery event: type={}, deliveryId={}, from topic={}, partition={}, offset={}",
                 event.getEventType(), event.getDeliveryId(), topic, partition, offset);
 
+        if (event.getUserId() == null) {
+            log.error("User ID is missing in delivery event: {}", event);
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        // Поиск пользователя, шаблон, отправка и сохранение выполняются на исполнителе конвейера
+        // (с лимитом канала), слушатель ждёт результата: событие подтверждается только после сохранения
+        // уведомления, а ошибка передаётся обработчику ошибок контейнера (retry-топик, затем DLQ)
         try {
-            // Получаем информацию о пользователе для отправки уведомления
-            Long userId = event.getUserId();
-            if (userId == null) {
-                log.error("User ID is missing in delivery event: {}", event);
-                acknowledgment.acknowledge();
-                return;
+            Notification notification = notificationDispatcher
+                    .dispatch(Notification.NotificationType.EMAIL, () -> processEvent(event))
+                    .join();
+            if (notification != null) {
+                log.info("Notification sent successfully: {}", notification);
             }
+        } catch (CompletionException e) {
+            log.error("Error processing delivery event: {}", event, e.getCause());
+            throw new NotificationException("Failed to process delivery event", e.getCause());
+        }
 
-            // Получаем информацию о пользователе из UserService
-            UserDTO user = userServiceClient.getUserById(userId);
-            if (user == null) {
-                log.error("User with ID {} not found", userId);
-                acknowledgment.acknowledge();
-                return;
-            }
+        acknowledgment.acknowledge();
+    }
 
-            // Подготавливаем параметры для шаблона уведомления
-            Map<String, Object> templateParams = prepareTemplateParams(event, user);
+    /**
+     * Конвейер обработки одного события: пользователь, параметры шаблона, отправка
+     *
+     * @return сохранённое уведомление или null, если отправлять нечего
+     */
+    private Notification processEvent(DeliveryEvent event) {
+        // Получаем информацию о пользователе из локального кэша (при промахе — из UserService)
+        UserDTO user = userProfileCache.get(event.getUserId());
+        if (user == null) {
+            log.error("User with ID {} not found", event.getUserId());
+            return null;
+        }
 
-            // Отправляем email уведомление
-            if (user.getEmail() != null && !user.getEmail().isEmpty()) {
-                sendNotificationByType(event, user.getEmail(), templateParams, Notification.NotificationType.EMAIL);
-            }
+        // Подготавливаем параметры для шаблона уведомления
+        Map<String, Object> templateParams = prepareTemplateParams(event, user);
 
-            // Отправляем SMS уведомление, если есть номер телефона
-            if (user.getPhoneNumber() != null && !user.getPhoneNumber().isEmpty()) {
-                //sendNotificationByType(event, user.getPhoneNumber(), templateParams, Notification.NotificationType.SMS);
-            }
+        // Отправляем email уведомление
+        if (user.getEmail() != null && !user.getEmail().isEmpty()) {
+            return sendNotificationByType(event, user.getEmail(), templateParams, Notification.NotificationType.EMAIL);
+        }
 
-            // Подтверждаем обработку сообщения только после успешной отправки уведомлений
-            acknowledgment.acknowledge();
+        // SMS уведомления пока отключены
+        // sendNotificationByType(event, user.getPhoneNumber(), templateParams, Notification.NotificationType.SMS);
+        return null;
+    }
 
-        } catch (Exception e) {
-            log.error("Error processing delivery event: {}", event, e);
-            // Мы не вызываем ack.acknowledge() здесь, что приведет к повторной обработке
-            // сообщения после таймаута или перебалансировке
-            throw new NotificationException("Failed to process delivery event", e);
+    /**
+     * Синхронная обработка события из retry-топика: исключение не перехватывается,
+     * чтобы обработчик ошибок контейнера переслал запись на следующую попытку или в DLQ
+     *
+     * @return сохранённое уведомление или null, если отправлять нечего
+     */
+    public Notification processRetry(DeliveryEvent event) {
+        if (event.getUserId() == null) {
+            log.error("User ID is missing in delivery event: {}", event);
+            return null;
         }
+        return notificationDispatcher.dispatch(Notification.NotificationType.EMAIL, () -> processEvent(event)).join();
     }
 
     /**
-     * Слушатель для Dead Letter Queue (DLQ).
-     * Сообщения, которые не удалось обработать, будут помещены сюда.
+     * Пакетный слушатель топика delivery-updates (notification.listener.mode=batch).
+     * За один poll: дедупликация событий по (deliveryId, eventType), один запрос пользователей,
+     * захват ключей идемпотентности одним пакетным INSERT PENDING-строк (ON CONFLICT DO NOTHING),
+     * отправка только захваченных уведомлений, одно пакетное обновление статусов и одно подтверждение офсетов.
+     * Захват фиксируется отдельной короткой транзакцией до отправки вместе с содержимым писем и арендой
+     * (next_attempt_at = now + claim-lease), статусы — второй транзакцией после неё. Повторная доставка событий
+     * занятые ключи не захватывает; если экземпляр упадёт или сохранение статусов не удастся, уведомления
+     * пакета останутся в PENDING до конца аренды, после чего их отправит планировщик повторов
+     * (письмо, отправленное до сбоя без сохранения статуса, может уйти повторно).
+     * При исключении записи пакета пересылаются в retry-топик.
+     * Если в пакете есть запись, которую не удалось десериализовать, обрабатываются записи до неё,
+     * а сама она через BatchListenerFailedException уходит в DLQ; остальные будут прочитаны снова.
      */
     @KafkaListener(
-            topics = "${kafka.topics.notification-dlq}",
-            groupId = "${spring.kafka.consumer.group-id}-dlq",
-            containerFactory = "kafkaDltListenerContainerFactory"
+            id = "deliveryUpdatesBatch",
+            topics = "${kafka.topics.delivery-updates}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "kafkaBatchListenerContainerFactory",
+            autoStartup = "#{'${notification.listener.mode:batch}' == 'batch'}"
     )
-    public void listenDeliveryUpdatesDLQ(
-            @Payload DeliveryEvent event,
-            Acknowledgment acknowledgment) {
+    public void listenDeliveryUpdatesBatch(List<DeliveryEvent> events, Acknowledgment acknowledgment) {
+        log.info("Received batch of {} delivery events", events.size());
 
-        log.warn("Processing message from DLQ: {}", event);
+        int poisonIndex = firstUndeserializable(events);
+        List<DeliveryEvent> processable = poisonIndex < 0 ? events : events.subList(0, poisonIndex);
 
-        // Здесь можно реализовать специальную логику для обработки
-        // "мертвых" сообщений, например, сохранение их в БД для
-        // последующего анализа или специальной обработки
+        try {
+            processBatch(processable);
+        } catch (Exception e) {
+            log.error("Error processing batch of {} delivery events", events.size(), e);
+            throw new NotificationException("Failed to process delivery events batch", e);
+        }
 
-        // Всегда подтверждаем получение из DLQ
+        if (poisonIndex >= 0) {
+            log.error("Delivery event at index {} of batch could not be deserialized", poisonIndex);
+            throw new BatchListenerFailedException("Failed to deserialize delivery event", poisonIndex);
+        }
         acknowledgment.acknowledge();
     }
 
+    private void processBatch(List<DeliveryEvent> events) {
+        // Дедупликация: повтор события для той же доставки и типа события в пределах пакета
+        // породил бы то же самое уведомление
+        Map<String, DeliveryEvent> uniqueEvents = new LinkedHashMap<>();
+        for (DeliveryEvent event : events) {
+            if (event.getUserId() == null) {
+                log.error("User ID is missing in delivery event: {}", event);
+                continue;
+            }
+            uniqueEvents.putIfAbsent(idempotencyKey(event.getDeliveryId(), event.getEventType()), event);
+        }
+
+        if (uniqueEvents.isEmpty()) {
+            return;
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> suspectedDeliveryIds = new HashSet<>();
+        for (DeliveryEvent event : uniqueEvents.values()) {
+            userIds.add(event.getUserId());
+            // Ключи, которые фильтр недавних уведомлений уже видел, подтверждаются в БД и отсеиваются до захвата
+            if (recentNotifications.mightContain(
+                    event.getDeliveryId(), event.getEventType(), Notification.NotificationType.EMAIL)) {
+                suspectedDeliveryIds.add(event.getDeliveryId());
+            }
+        }
+
+        Map<Long, UserDTO> users = userProfileCache.getAll(userIds);
+
+        NotificationService emailService = findService(Notification.NotificationType.EMAIL);
+        Set<String> alreadySent = new HashSet<>();
+        if (!suspectedDeliveryIds.isEmpty()) {
+            notificationRepository.findKeysByDeliveryIdInAndType(
+                            suspectedDeliveryIds, Notification.NotificationType.EMAIL)
+                    .forEach(key -> alreadySent.add(idempotencyKey(key.getDeliveryId(), key.getEventType())));
+        }
+
+        // Шаблоны формируются параллельно на исполнителе конвейера до захвата:
+        // содержимое сохраняется вместе с захватом ключа
+        List<CompletableFuture<Notification>> prepared = new ArrayList<>(uniqueEvents.size());
+        uniqueEvents.forEach((key, event) -> {
+            UserDTO user = users.get(event.getUserId());
+            if (user == null) {
+                log.error("User with ID {} not found", event.getUserId());
+                return;
+            }
+            if (alreadySent.contains(key)) {
+                log.info("Notification already sent for delivery ID: {}, event type: {}, notification type: {}",
+                        event.getDeliveryId(), event.getEventType(), Notification.NotificationType.EMAIL);
+                return;
+            }
+            if (user.getEmail() != null && !user.getEmail().isEmpty()) {
+                Map<String, Object> params = prepareTemplateParams(event, user);
+                prepared.add(notificationDispatcher.dispatch(Notification.NotificationType.EMAIL,
+                        () -> emailService.prepareNotification(event, user.getEmail(), params)));
+            }
+        });
+        List<Notification> pending = prepared.stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        // Ключи, которые фильтр не распознал (созданы другим экземпляром или раньше окна фильтра),
+        // отсеивает захват: их строки не вставляются, и уведомления не отправляются повторно
+        List<Notification> claimed = claim(pending);
+
+        // Отправка выполняется параллельно на исполнителе конвейера (с лимитом канала),
+        // итоговые статусы сохраняются пакетом после завершения всех отправок
+        List<CompletableFuture<Notification>> deliveries = new ArrayList<>(claimed.size());
+        for (Notification notification : claimed) {
+            deliveries.add(notificationDispatcher.dispatch(Notification.NotificationType.EMAIL,
+                    () -> emailService.deliverNotification(notification)));
+        }
+
+        List<Notification> notifications = deliveries.stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Строки загружаются одним запросом, после чего merge в saveAll не выполняет SELECT на каждую
+            notificationRepository.findAllById(notifications.stream().map(Notification::getId).toList());
+            notificationRepository.saveAll(notifications);
+        });
+        notifications.forEach(this::remember);
+
+        log.info("Processed batch: received={}, unique={}, claimed={}, notifications={}",
+                events.size(), uniqueEvents.size(), claimed.size(), notifications.size());
+    }
+
+    /**
+     * Захват ключей идемпотентности: уведомления сохраняются в статусе PENDING, вставка строки
+     * с уже занятым ключом пропускается (ON CONFLICT DO NOTHING). Выданный такой строке ID в таблице
+     * отсутствует, поэтому захваченные уведомления определяются одним запросом по первичному ключу.
+     * Захват фиксируется до отправки; конкурирующая вставка того же ключа ждёт завершения
+     * транзакции, вставившей его первой. PENDING-уведомления захватываются с арендой: если итоговый статус
+     * не будет сохранён до её окончания, уведомление подхватит планировщик повторов
+     *
+     * @return уведомления, ключи которых захвачены этим вызовом
+     */
+    private List<Notification> claim(List<Notification> pending) {
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plus(claimLease);
+        for (Notification notification : pending) {
+            if (notification.getStatus() == Notification.NotificationStatus.PENDING) {
+                notification.setNextAttemptAt(leaseExpiresAt);
+            }
+        }
+        Set<Long> inserted = transactionTemplate.execute(status -> {
+            notificationRepository.saveAllAndFlush(pending);
+            return new HashSet<>(notificationRepository.findExistingIds(
+                    pending.stream().map(Notification::getId).toList()));
+        });
+
+        List<Notification> claimed = new ArrayList<>(inserted.size());
+        for (Notification notification : pending) {
+            if (inserted.contains(notification.getId())) {
+                claimed.add(notification);
+                notificationStats.record(notification);
+            } else {
+                log.info("Notification already sent for delivery ID: {}, event type: {}, notification type: {}",
+                        notification.getDeliveryId(), notification.getEventType(), notification.getType());
+                // Ключ уже есть в БД: повторная доставка отсеется фильтром и проверкой по индексу
+                recentNotifications.put(notification.getDeliveryId(), notification.getEventType(),
+                        notification.getType());
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Индекс первой записи пакета, которую не удалось десериализовать
+     * (ErrorHandlingDeserializer вернул null, в пакет она попадает как KafkaNull), или -1
+     */
+    private static int firstUndeserializable(List<?> events) {
+        for (int i = 0; i < events.size(); i++) {
+            if (!(events.get(i) instanceof DeliveryEvent)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
-     * Отправляет уведомление выбранного типа
+     * Захватывает ключ идемпотентности, отправляет уведомление выбранного типа
+     * и сохраняет итоговый статус (в потоке конвейера)
+     *
+     * @return сохранённое уведомление или null, если оно уже было отправлено
      */
-    private void sendNotificationByType(
+    private Notification sendNotificationByType(
             DeliveryEvent event,
             String recipient,
             Map<String, Object> templateParams,
             Notification.NotificationType type) {
 
         // Находим подходящий сервис для отправки уведомления
-        NotificationService service = notificationServices.stream()
-                .filter(s -> s.supports(type))
-                .findFirst()
-                .orElseThrow(() -> new NotificationException("No service found for notification type: " + type));
+        NotificationService service = findService(type);
 
-        // Проверяем, не отправляли ли мы уже это уведомление
-        // Это важно для идемпотентности при повторной обработке сообщений
-        List<Notification> existingNotifications = notificationRepository
-                .findByDeliveryAndEventTypeAndNotificationType(
-                        event.getDeliveryId(), event.getEventType(), type);
-
-        if (!existingNotifications.isEmpty()) {
+        // Положительный ответ фильтра недавних уведомлений подтверждается по индексу:
+        // повторная доставка отсеивается без вставки и рендеринга шаблона
+        if (recentNotifications.mightContain(event.getDeliveryId(), event.getEventType(), type)
+                && notificationRepository.existsByDeliveryIdAndEventTypeAndType(
+                        event.getDeliveryId(), event.getEventType(), type)) {
             log.info("Notification already sent for delivery ID: {}, event type: {}, notification type: {}",
                     event.getDeliveryId(), event.getEventType(), type);
-            return;
+            return null;
         }
 
-        // Асинхронно отправляем уведомление
-        CompletableFuture<Notification> future = service.sendNotification(event, recipient, templateParams);
+        // Отрицательный ответ фильтра новизну ключа не гарантирует — её решает захват
+        List<Notification> claimed = claim(List.of(service.prepareNotification(event, recipient, templateParams)));
+        if (claimed.isEmpty()) {
+            return null;
+        }
 
-        // Добавляем обработчик для логирования результата
-        future.whenComplete((notification, throwable) -> {
-            if (throwable != null) {
-                log.error("Failed to send notification asynchronously", throwable);
-            } else {
-                log.info("Notification sent successfully: {}", notification);
-            }
-        });
+        Notification notification = notificationRepository.save(service.deliverNotification(claimed.get(0)));
+        remember(notification);
+        return notification;
     }
 
     /**
-     * Планировщик для повторной отправки неудавшихся уведомлений.
-     * Запускается по расписанию, например, каждые 15 минут.
+     * Учитывает уведомление с итоговым статусом в фильтре недавних ключей и в оконной статистике
      */
-    // @Scheduled(fixedDelayString = "${notification.retry.fixed-delay:900000}")
-    @Transactional
-    public void retryFailedNotifications() {
-        log.info("Starting retry job for failed notifications");
-
-        // Получаем неудавшиеся уведомления за последние 24 часа
-        LocalDateTime since = LocalDateTime.now().minusDays(1);
-        List<Notification> failedNotifications = notificationRepository
-                .findFailedNotificationsForRetry(Notification.NotificationStatus.FAILED, maxRetryAttempts, since);
-
-        log.info("Found {} failed notifications for retry", failedNotifications.size());
-
-        for (Notification notification : failedNotifications) {
-            Notification finalNotification = notification;
-            NotificationService service = notificationServices.stream()
-                    .filter(s -> s.supports(finalNotification.getType()))
-                    .findFirst()
-                    .orElse(null);
-
-            if (service == null) {
-                log.warn("No service found for notification type: {}", notification.getType());
-                continue;
-            }
+    private void remember(Notification notification) {
+        recentNotifications.put(notification.getDeliveryId(), notification.getEventType(), notification.getType());
+        notificationStats.record(notification);
+    }
 
-            // Обновляем статус перед повторной отправкой
-            notification.markAsRetry();
-            notification = notificationRepository.save(notification);
-
-            // Повторно отправляем уведомление
-            Notification finalNotification1 = notification;
-            service.resendNotification(notification)
-                    .whenComplete((updatedNotification, throwable) -> {
-                        if (throwable != null) {
-                            log.error("Failed to resend notification ID: {}", finalNotification1.getId(), throwable);
-                        } else {
-                            log.info("Successfully resent notification ID: {}", finalNotification1.getId());
-                        }
-                    });
-        }
+    private NotificationService findService(Notification.NotificationType type) {
+        return notificationServices.stream()
+                .filter(s -> s.supports(type))
+                .findFirst()
+                .orElseThrow(() -> new NotificationException("No service found for notification type: " + type));
+    }
+
+    private static String idempotencyKey(Long deliveryId, String eventType) {
+        return deliveryId + ":" + eventType;
     }
 
     /**
      * Подготавливает параметры для шаблонов уведомлений
      */
     private Map<String, Object> prepareTemplateParams(DeliveryEvent event, UserDTO user) {
-        Map<String, Object> params = new HashMap<>();
-
-        // Базовые параметры
-        params.put("userName", user.getUsername());
-        params.put("trackingNumber", event.getTrackingNumber());
-        params.put("status", event.getStatus());
-        params.put("trackingUrl", "http://tracking.pharmacy.com/" + event.getTrackingNumber());
-
-        // Отображаемый статус
-        String statusDescription = switch (event.getStatus()) {
-            case "PENDING" -> "Ожидает отправки";
-            case "IN_TRANSIT" -> "В пути";
-            case "DELIVERED" -> "Доставлено";
-            case "CANCELLED" -> "Отменено";
-            default -> event.getStatus();
-        };
-        params.put("statusDescription", statusDescription);
-
-        // Дополнительные данные из события
-        event.getAdditionalData().forEach((key, value) -> {
-            if (value != null) {
-                params.put(key, value);
-            }
-        });
-
-        return params;
+        // Базовые параметры, отображаемый статус и дополнительные данные события без копирования в HashMap
+        return new TemplateParams(user.getUsername(), event.getTrackingNumber(), event.getStatus(),
+                event.getAdditionalData());
     }
 
     // Внутренний класс для данных пользователя
@@ -0,0 +1,55 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Запускает задачи конвейера уведомлений на notificationExecutor.
+ * Параллелизм каждого канала (EMAIL, SMS) ограничен семафором, чтобы не перегрузить
+ * почтовый/SMS-шлюз независимо от числа потоков.
+ * Отдельная backpressure не нужна: слушатели delivery-updates и планировщик повторов ждут завершения
+ * задач своего пакета, поэтому в работе не больше max.poll.records × concurrency контейнеров
+ * (100 × 3 для пакетного слушателя) плюс пакет планировщика, а следующий poll начинается
+ * только после обработки предыдущего.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private final ExecutorService executor;
+    private final Map<NotificationType, Semaphore> channelPermits = new EnumMap<>(NotificationType.class);
+
+    public NotificationDispatcher(
+            @Qualifier("notificationExecutor") ExecutorService executor,
+            @Value("${notification.pipeline.email-concurrency:32}") int emailConcurrency,
+            @Value("${notification.pipeline.sms-concurrency:16}") int smsConcurrency) {
+        this.executor = executor;
+        this.channelPermits.put(NotificationType.EMAIL, new Semaphore(emailConcurrency));
+        this.channelPermits.put(NotificationType.SMS, new Semaphore(smsConcurrency));
+    }
+
+    /**
+     * Выполняет задачу асинхронно с учётом лимита канала
+     *
+     * @return future с результатом задачи
+     */
+    public <T> CompletableFuture<T> dispatch(NotificationType channel, Supplier<T> task) {
+        Semaphore permits = channelPermits.get(channel);
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,222 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Повторная отправка неудавшихся уведомлений и уведомлений, захваченных слушателем, но оставшихся
+ * в PENDING после окончания аренды захвата (сбой между захватом ключа и сохранением статуса).
+ * - Захват: небольшими пакетами через SELECT ... FOR UPDATE SKIP LOCKED в короткой транзакции;
+ *   захваченные уведомления переводятся в RETRY с арендой до now + lease, поэтому несколько
+ *   экземпляров сервиса делят работу, а попытки упавшего экземпляра подхватываются после аренды.
+ * - Отправка: вне транзакции, через исполнитель конвейера и с ограничением скорости по каналу.
+ * - Неудача: следующая попытка через экспоненциальную задержку со случайным разбросом
+ *   (половина задержки фиксирована, половина случайна); после max-attempts повторы прекращаются.
+ * - Запуск: раз в poll-interval-ms в собственном потоке notification-retry, а не в общем потоке
+ *   @Scheduled — ожидание ограничителя скорости не задерживает другие задачи по расписанию.
+ */
+@Service
+@Slf4j
+public class NotificationRetryScheduler {
+
+    private final NotificationRepository notificationRepository;
+    private final List<NotificationService> notificationServices;
+    private final NotificationDispatcher notificationDispatcher;
+    private final ChannelRateLimiter rateLimiter;
+    private final NotificationStatsService notificationStats;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration lease;
+    private final long initialIntervalMs;
+    private final double multiplier;
+    private final long maxIntervalMs;
+    private final long pollIntervalMs;
+
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NotificationRetryScheduler(
+            NotificationRepository notificationRepository,
+            List<NotificationService> notificationServices,
+            NotificationDispatcher notificationDispatcher,
+            ChannelRateLimiter rateLimiter,
+            NotificationStatsService notificationStats,
+            PlatformTransactionManager transactionManager,
+            @Value("${notification.retry.scheduler.enabled:true}") boolean enabled,
+            @Value("${notification.retry.max-attempts}") int maxAttempts,
+            @Value("${notification.retry.scheduler.batch-size:50}") int batchSize,
+            @Value("${notification.retry.scheduler.max-batches-per-run:20}") int maxBatchesPerRun,
+            @Value("${notification.retry.scheduler.poll-interval-ms:10000}") long pollIntervalMs,
+            @Value("${notification.retry.scheduler.lease:5m}") Duration lease,
+            @Value("${notification.retry.backoff.initial-interval}") long initialIntervalMs,
+            @Value("${notification.retry.backoff.multiplier}") double multiplier,
+            @Value("${notification.retry.backoff.max-interval}") long maxIntervalMs) {
+        this.notificationRepository = notificationRepository;
+        this.notificationServices = notificationServices;
+        this.notificationDispatcher = notificationDispatcher;
+        this.rateLimiter = rateLimiter;
+        this.notificationStats = notificationStats;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxAttempts = maxAttempts;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pollIntervalMs = pollIntervalMs;
+        this.lease = lease;
+        this.initialIntervalMs = initialIntervalMs;
+        this.multiplier = multiplier;
+        this.maxIntervalMs = maxIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            retryExecutor.scheduleWithFixedDelay(this::runRetryJob, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Прерывает текущий запуск: незавершённые попытки подхватит другой экземпляр после аренды
+     */
+    @PreDestroy
+    public void shutdown() {
+        retryExecutor.shutdownNow();
+    }
+
+    private void runRetryJob() {
+        try {
+            retryDueNotifications();
+        } catch (RuntimeException e) {
+            // Исключение из задачи scheduleWithFixedDelay отменило бы все следующие запуски
+            log.error("Retry job failed", e);
+        }
+    }
+
+    public void retryDueNotifications() {
+        if (!enabled) {
+            return;
+        }
+
+        int retried = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Notification> claimed = claimBatch();
+            if (claimed.isEmpty()) {
+                break;
+            }
+            try {
+                retried += retryBatch(claimed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Retry job interrupted; unfinished retries will be reclaimed after the lease expires");
+                return;
+            }
+            if (claimed.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (retried > 0) {
+            log.info("Retry job finished: {} notifications retried", retried);
+        }
+    }
+
+    /**
+     * Захватывает пакет уведомлений, срок повтора которых наступил, и в той же транзакции
+     * переводит исчерпавшие попытки в конечный FAILED (без next_attempt_at);
+     * переходы учитываются в статистике после фиксации захвата
+     */
+    List<Notification> claimBatch() {
+        List<Notification> exhausted = new ArrayList<>();
+        List<Notification> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (Notification notification : notificationRepository.claimExhaustedRetries(now, maxAttempts, batchSize)) {
+                notification.markAsFailed("Retry attempts exhausted: " + notification.getRetryCount());
+                notification.setNextAttemptAt(null);
+                exhausted.add(notification);
+            }
+            List<Notification> due = notificationRepository.claimDueRetries(now, maxAttempts, batchSize);
+            for (Notification notification : due) {
+                notification.markAsRetry();
+                notification.setNextAttemptAt(now.plus(lease));
+            }
+            return due;
+        });
+        if (!exhausted.isEmpty()) {
+            log.warn("{} notifications exhausted retry attempts and were marked as FAILED", exhausted.size());
+        }
+        exhausted.forEach(notificationStats::record);
+        claimed.forEach(notificationStats::record);
+        return claimed;
+    }
+
+    /**
+     * Отправляет захваченные уведомления с ограничением скорости по каналу и ждёт завершения пакета
+     */
+    private int retryBatch(List<Notification> claimed) throws InterruptedException {
+        List<CompletableFuture<Notification>> retries = new ArrayList<>(claimed.size());
+        for (Notification notification : claimed) {
+            NotificationService service = notificationServices.stream()
+                    .filter(s -> s.supports(notification.getType()))
+                    .findFirst()
+                    .orElse(null);
+            if (service == null) {
+                log.warn("No service found for notification type: {}", notification.getType());
+                continue;
+            }
+
+            // Если попытка не удастся, уведомление сохранится уже с временем следующей попытки
+            notification.setNextAttemptAt(notification.getRetryCount() < maxAttempts
+                    ? LocalDateTime.now().plus(backoff(notification.getRetryCount()))
+                    : null);
+
+            rateLimiter.acquire(notification.getType());
+            retries.add(notificationDispatcher.dispatch(notification.getType(), () -> {
+                Notification resent = service.resendNotification(notification).join();
+                notificationStats.record(resent);
+                return resent;
+            }));
+        }
+
+        for (CompletableFuture<Notification> retry : retries) {
+            retry.exceptionally(throwable -> {
+                log.error("Failed to resend notification", throwable);
+                return null;
+            }).join();
+        }
+        return retries.size();
+    }
+
+    /**
+     * Задержка перед следующей попыткой после attempt неудачных повторов
+     */
+    Duration backoff(int attempt) {
+        double exponential = initialIntervalMs * Math.pow(multiplier, Math.max(0, attempt - 1));
+        long delayMs = (long) Math.min(maxIntervalMs, exponential);
+        long half = delayMs / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+}
@@ -25,6 +25,29 @@ public interface NotificationService {
             String recipientContact,
             Map<String, Object> templateParams);
 
+    /**
+     * Создаёт несохранённое уведомление в статусе PENDING с готовым содержимым. Вызывающий сохраняет его
+     * до отправки, захватывая ключ идемпотентности (deliveryId, eventType, type); содержимое сохраняется
+     * вместе с захватом, чтобы после сбоя экземпляра уведомление мог отправить планировщик повторов.
+     * Если содержимое сформировать не удалось, уведомление возвращается в статусе FAILED
+     *
+     * @param event Событие доставки из Kafka
+     * @param recipientContact Контактная информация получателя (email или телефон)
+     * @param templateParams Параметры шаблона уведомления
+     * @return Несохранённая сущность уведомления со статусом PENDING (или FAILED)
+     */
+    Notification prepareNotification(DeliveryEvent event, String recipientContact, Map<String, Object> templateParams);
+
+    /**
+     * Синхронно отправляет захваченное уведомление без сохранения в БД.
+     * Используется слушателем delivery-updates: вызывающий сохраняет итоговые статусы сам
+     * (пакетный слушатель — одним saveAll). Уведомление не в статусе PENDING возвращается без изменений
+     *
+     * @param notification Уведомление, полученное из prepareNotification
+     * @return То же уведомление со статусом SENT или FAILED
+     */
+    Notification deliverNotification(Notification notification);
+
     /**
      * Повторно отправляет уведомление, которое ранее не удалось отправить
      *
@@ -0,0 +1,200 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Статистика уведомлений для дашборда.
+ * - Итоги по статусам: один запрос GROUP BY status, результат переиспользуется в течение totals-ttl.
+ * - Окна 5m/1h/24h: счётчики в памяти — кольцевой буфер поминутных корзин за сутки.
+ *   Учитывается каждый переход статуса: захват ключа слушателем (PENDING), итог отправки (SENT/FAILED),
+ *   захват и итог повтора планировщиком (RETRY, затем SENT/FAILED). Поэтому byStatus — число переходов
+ *   в статус за окно, а не текущие статусы уведомлений, и total больше числа уведомлений.
+ *   Окна относятся только к этому экземпляру сервиса и к времени с его запуска: в ответе это
+ *   отмечено полями windowsScope и windowsSince, для суммарной картины окна экземпляров складываются.
+ *   Ответ не зависит от размера таблицы.
+ */
+@Service
+@Slf4j
+public class NotificationStatsService {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final long MILLIS_PER_MINUTE = 60_000;
+    private static final Map<String, Integer> WINDOWS_MINUTES = windows();
+
+    private final NotificationRepository notificationRepository;
+    private final long totalsTtlMillis;
+
+    private final AtomicReferenceArray<MinuteBucket> buckets = new AtomicReferenceArray<>(MINUTES_PER_DAY);
+    private final Instant windowsSince = Instant.now();
+
+    private volatile Map<Notification.NotificationStatus, Long> cachedTotals;
+    private volatile long cachedTotalsAt;
+
+    public NotificationStatsService(
+            NotificationRepository notificationRepository,
+            @Value("${notification.stats.totals-ttl:30s}") Duration totalsTtl) {
+        this.notificationRepository = notificationRepository;
+        this.totalsTtlMillis = totalsTtl.toMillis();
+    }
+
+    /**
+     * Учитывает переход уведомления в его текущий статус в поминутных счётчиках
+     */
+    public void record(Notification notification) {
+        record(notification, System.currentTimeMillis());
+    }
+
+    void record(Notification notification, long nowMillis) {
+        MinuteBucket bucket = bucketFor(nowMillis / MILLIS_PER_MINUTE);
+        bucket.total.increment();
+        increment(bucket.byType, notification.getType());
+        increment(bucket.byEventType, notification.getEventType());
+        increment(bucket.byStatus, notification.getStatus());
+    }
+
+    /**
+     * Статистика: итоги по статусам из БД (прежние поля ответа) и окна 5m/1h/24h этого экземпляра
+     */
+    public Map<String, Object> getStats() {
+        return getStats(System.currentTimeMillis());
+    }
+
+    Map<String, Object> getStats(long nowMillis) {
+        Map<Notification.NotificationStatus, Long> totals = totals(nowMillis);
+        long totalCount = totals.values().stream().mapToLong(Long::longValue).sum();
+        long sentCount = totals.getOrDefault(Notification.NotificationStatus.SENT, 0L);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalCount", totalCount);
+        stats.put("sentCount", sentCount);
+        stats.put("failedCount", totals.getOrDefault(Notification.NotificationStatus.FAILED, 0L));
+        stats.put("pendingCount", totals.getOrDefault(Notification.NotificationStatus.PENDING, 0L));
+        stats.put("retryCount", totals.getOrDefault(Notification.NotificationStatus.RETRY, 0L));
+        stats.put("successRate", totalCount > 0 ? (double) sentCount / totalCount : 0);
+
+        long nowMinute = nowMillis / MILLIS_PER_MINUTE;
+        Map<String, Object> windows = new LinkedHashMap<>();
+        WINDOWS_MINUTES.forEach((name, minutes) -> windows.put(name, window(nowMinute, minutes)));
+        stats.put("windows", windows);
+        stats.put("windowsScope", "instance");
+        stats.put("windowsSince", windowsSince.toString());
+
+        return stats;
+    }
+
+    private Map<Notification.NotificationStatus, Long> totals(long nowMillis) {
+        Map<Notification.NotificationStatus, Long> totals = cachedTotals;
+        if (totals == null || nowMillis - cachedTotalsAt >= totalsTtlMillis) {
+            totals = new EnumMap<>(Notification.NotificationStatus.class);
+            for (NotificationRepository.StatusCount count : notificationRepository.countByStatus()) {
+                totals.put(count.getStatus(), count.getCount());
+            }
+            cachedTotals = totals;
+            cachedTotalsAt = nowMillis;
+        }
+        return totals;
+    }
+
+    /**
+     * Сумма поминутных корзин за последние minutes минут, включая текущую
+     */
+    private Map<String, Object> window(long nowMinute, int minutes) {
+        long total = 0;
+        Map<String, Long> byType = new TreeMap<>();
+        Map<String, Long> byEventType = new TreeMap<>();
+        Map<String, Long> byStatus = new TreeMap<>();
+
+        for (long minute = nowMinute - minutes + 1; minute <= nowMinute; minute++) {
+            MinuteBucket bucket = buckets.get(index(minute));
+            if (bucket == null || bucket.minute != minute) {
+                continue;
+            }
+            total += bucket.total.sum();
+            sum(bucket.byType, byType);
+            sum(bucket.byEventType, byEventType);
+            sum(bucket.byStatus, byStatus);
+        }
+
+        Map<String, Object> window = new LinkedHashMap<>();
+        window.put("total", total);
+        window.put("perMinute", (double) total / minutes);
+        window.put("byType", byType);
+        window.put("byEventType", byEventType);
+        window.put("byStatus", byStatus);
+        return window;
+    }
+
+    /**
+     * Корзина текущей минуты; корзина той же ячейки кольца, оставшаяся с прошлых суток, заменяется
+     */
+    private MinuteBucket bucketFor(long minute) {
+        int index = index(minute);
+        while (true) {
+            MinuteBucket bucket = buckets.get(index);
+            if (bucket != null && bucket.minute == minute) {
+                return bucket;
+            }
+            if (bucket != null && bucket.minute > minute) {
+                // Запись с отстающими часами другого потока — учитываем в более новой корзине
+                return bucket;
+            }
+            MinuteBucket fresh = new MinuteBucket(minute);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static int index(long minute) {
+        return (int) Math.floorMod(minute, (long) MINUTES_PER_DAY);
+    }
+
+    private static void increment(Map<String, LongAdder> counters, Object key) {
+        if (key != null) {
+            counters.computeIfAbsent(key.toString(), k -> new LongAdder()).increment();
+        }
+    }
+
+    private static void sum(Map<String, LongAdder> counters, Map<String, Long> target) {
+        counters.forEach((key, counter) -> target.merge(key, counter.sum(), Long::sum));
+    }
+
+    private static Map<String, Integer> windows() {
+        Map<String, Integer> windows = new LinkedHashMap<>();
+        windows.put("5m", 5);
+        windows.put("1h", 60);
+        windows.put("24h", MINUTES_PER_DAY);
+        return windows;
+    }
+
+    /**
+     * Счётчики уведомлений за одну минуту
+     */
+    private static final class MinuteBucket {
+
+        private final long minute;
+        private final LongAdder total = new LongAdder();
+        private final Map<String, LongAdder> byType = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> byEventType = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+
+        private MinuteBucket(long minute) {
+            this.minute = minute;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Фильтр Блума недавно созданных уведомлений по ключу (deliveryId, eventType, type) — подсказка для слушателя,
+ * а не проверка идемпотентности.
+ * - Положительный ответ может быть ложным (false-positive-rate), поэтому подтверждается запросом по индексу;
+ *   подтверждённый дубликат отсеивается без вставки и отправки.
+ * - Отрицательный ответ означает лишь, что ключ не встречался этому экземпляру за время жизни фильтра:
+ *   ключ мог создать другой экземпляр или уведомление старше warmup-window. Новизну ключа решает
+ *   захват — вставка PENDING-строки с ON CONFLICT DO NOTHING по уникальному ограничению.
+ * Память ограничена двумя поколениями: когда в текущее добавлено expected-keys ключей,
+ * оно становится предыдущим, а самое старое отбрасывается.
+ * При старте фильтр заполняется ключами уведомлений за warmup-window.
+ */
+@Component
+@Slf4j
+public class RecentNotificationFilter {
+
+    private final NotificationRepository notificationRepository;
+    private final int expectedKeys;
+    private final int bitCount;
+    private final int hashCount;
+    private final Duration warmupWindow;
+
+    private final AtomicReference<Generation> current;
+    private volatile Generation previous;
+
+    public RecentNotificationFilter(
+            NotificationRepository notificationRepository,
+            @Value("${notification.dedup.expected-keys:1000000}") int expectedKeys,
+            @Value("${notification.dedup.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${notification.dedup.warmup-window:24h}") Duration warmupWindow) {
+        this.notificationRepository = notificationRepository;
+        this.expectedKeys = expectedKeys;
+        this.warmupWindow = warmupWindow;
+
+        // Оптимальные параметры: m = -n * ln(p) / ln(2)^2, k = m / n * ln(2)
+        long bits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, bits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+        this.current = new AtomicReference<>(new Generation(bitCount));
+        this.previous = new Generation(bitCount);
+    }
+
+    /**
+     * Заполняет фильтр ключами недавних уведомлений, чтобы повторная доставка событий
+     * после перезапуска сервиса не проходила мимо фильтра
+     */
+    @PostConstruct
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minus(warmupWindow);
+        try {
+            int loaded = 0;
+            for (Notification.NotificationType type : Notification.NotificationType.values()) {
+                for (NotificationRepository.NotificationKey key : notificationRepository.findKeysByTypeAndCreatedAtAfter(type, since)) {
+                    put(key.getDeliveryId(), key.getEventType(), type);
+                    loaded++;
+                }
+            }
+            log.info("Recent notification filter warmed up: {} keys since {} (bits={}, hashes={})",
+                    loaded, since, bitCount, hashCount);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось прогреть фильтр недавних уведомлений: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return false — ключ не встречался этому экземпляру за время жизни фильтра
+     * (уведомление с таким ключом всё равно может быть в БД)
+     */
+    public boolean mightContain(Long deliveryId, String eventType, Notification.NotificationType type) {
+        long hash = hash(deliveryId, eventType, type);
+        return current.get().mightContain(hash) || previous.mightContain(hash);
+    }
+
+    /**
+     * Запоминает ключ созданного уведомления
+     */
+    public void put(Long deliveryId, String eventType, Notification.NotificationType type) {
+        long hash = hash(deliveryId, eventType, type);
+        Generation generation = current.get();
+        generation.put(hash);
+        if (generation.insertions.incrementAndGet() == expectedKeys) {
+            rotate(generation);
+        }
+    }
+
+    private synchronized void rotate(Generation full) {
+        if (current.get() == full) {
+            previous = full;
+            current.set(new Generation(bitCount));
+            log.debug("Recent notification filter rotated after {} keys", expectedKeys);
+        }
+    }
+
+    /**
+     * 64-битный хеш ключа (FNV-1a с финальным перемешиванием)
+     */
+    private static long hash(Long deliveryId, String eventType, Notification.NotificationType type) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ deliveryId) * 0x100000001b3L;
+        for (int i = 0; i < eventType.length(); i++) {
+            hash = (hash ^ eventType.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ type.ordinal()) * 0x100000001b3L;
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Одно поколение фильтра: битовый массив и счётчик добавленных ключей.
+     * Позиции битов — двойное хеширование (h1 + i * h2) по половинам 64-битного хеша
+     */
+    private final class Generation {
+
+        private final AtomicLongArray words;
+        private final AtomicInteger insertions = new AtomicInteger();
+
+        private Generation(int bits) {
+            this.words = new AtomicLongArray((bits + 63) >>> 6);
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int bit = index(h1 + i * h2);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int bit = index(h1 + i * h2);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long value;
+                do {
+                    value = words.get(word);
+                    if ((value & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        private int index(int combinedHash) {
+            return (combinedHash & Integer.MAX_VALUE) % bitCount;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pharmacy.scs.notification.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pharmacy.scs.notification.exception.UserServiceUnavailableException;
+import com.pharmacy.scs.notification.service.KafkaListenerService.UserDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Локальный ограниченный кэш профилей пользователей (Caffeine).
+ * Работает как read-through: промахи загружаются через UserServiceClient,
+ * а UserUpdatesListener прогревает и обновляет записи из компактируемого топика user-updates,
+ * так что в установившемся режиме обработка событий не ходит в сеть.
+ * Ненайденные пользователи не кэшируются. Ошибка User Service пробрасывается вызывающему
+ * (ничего не кэшируя), чтобы слушатель не подтвердил событие и обработчик ошибок отправил его на повтор.
+ */
+@Service
+@Slf4j
+public class UserProfileCache {
+
+    private final UserServiceClient userServiceClient;
+    private final Cache<Long, UserDTO> cache;
+
+    public UserProfileCache(
+            UserServiceClient userServiceClient,
+            @Value("${notification.user-cache.maximum-size:100000}") long maximumSize,
+            @Value("${notification.user-cache.expire-after-write:6h}") Duration expireAfterWrite) {
+        this.userServiceClient = userServiceClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает профиль пользователя, при промахе загружает его из User Service
+     *
+     * @return профиль или null, если пользователь не найден
+     * @throws UserServiceUnavailableException если User Service не ответил
+     */
+    public UserDTO get(Long userId) {
+        return cache.get(userId, userServiceClient::getUserById);
+    }
+
+    /**
+     * Возвращает профили нескольких пользователей; отсутствующие в кэше загружаются одним вызовом клиента
+     *
+     * @throws UserServiceUnavailableException если User Service не ответил: частичный результат не возвращается,
+     * иначе события пользователей без профиля были бы подтверждены без уведомления
+     */
+    public Map<Long, UserDTO> getAll(Collection<Long> userIds) {
+        return cache.getAll(userIds, missingIds -> {
+            log.debug("User profile cache miss for {} users", missingIds.size());
+            return userServiceClient.getUsersByIds(missingIds);
+        });
+    }
+
+    /**
+     * Сохраняет актуальный профиль (из топика user-updates)
+     */
+    public void put(UserDTO user) {
+        cache.put(user.getId(), user);
+    }
+
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
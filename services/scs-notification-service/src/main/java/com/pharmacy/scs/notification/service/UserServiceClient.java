@@ -1,16 +1,33 @@
 package com.pharmacy.scs.notification.service;
 
+import com.pharmacy.scs.notification.exception.UserServiceUnavailableException;
 import com.pharmacy.scs.notification.service.KafkaListenerService.UserDTO;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Клиент для взаимодействия с User Service.
+ * Одиночные запросы не уходят в сеть сразу: запросы из разных потоков, пришедшие
+ * в пределах coalescing-window-ms, объединяются в один POST /api/users/batch.
  * В реальном проекте лучше использовать Spring Cloud Feign или WebClient.
  */
 @Service
@@ -19,55 +36,148 @@ public class UserServiceClient {
 
     private final RestTemplate restTemplate;
     private final String userServiceUrl;
+    private final long coalescingWindowMs;
+    private final int batchSize;
+    private final long waitTimeoutMs;
+
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-lookup-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Ожидающие одиночные запросы текущего окна; защищено монитором this
+    private Map<Long, CompletableFuture<UserDTO>> pending = new HashMap<>();
 
     public UserServiceClient(
             RestTemplate restTemplate,
-            @Value("${services.user-service.url:http://localhost:8081}") String userServiceUrl) {
+            @Value("${services.user-service.url:http://localhost:8081}") String userServiceUrl,
+            @Value("${services.user-service.coalescing-window-ms:5}") long coalescingWindowMs,
+            @Value("${services.user-service.batch-size:200}") int batchSize,
+            @Value("${services.user-service.http.read-timeout-ms:2000}") long readTimeoutMs) {
         this.restTemplate = restTemplate;
         this.userServiceUrl = userServiceUrl;
+        this.coalescingWindowMs = coalescingWindowMs;
+        this.batchSize = batchSize;
+        // Ожидание результата: окно + время HTTP-запроса с запасом
+        this.waitTimeoutMs = coalescingWindowMs + readTimeoutMs * 2;
     }
 
     /**
-     * Получает информацию о пользователе по ID
+     * Получает информацию о пользователе по ID.
+     * Запрос ставится в очередь текущего окна и выполняется пакетом вместе с запросами других потоков
      *
      * @param userId ID пользователя
      * @return Информация о пользователе или null, если пользователь не найден
+     * @throws UserServiceUnavailableException если User Service не ответил
      */
     public UserDTO getUserById(Long userId) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(userServiceUrl)
-                    .path("/api/users/{userId}")
-                    .buildAndExpand(userId)
-                    .toUriString();
+        CompletableFuture<UserDTO> future;
+        boolean firstInWindow;
+        boolean batchFull;
+        synchronized (this) {
+            future = pending.computeIfAbsent(userId, id -> new CompletableFuture<>());
+            firstInWindow = pending.size() == 1;
+            batchFull = pending.size() >= batchSize;
+        }
 
-            log.debug("Requesting user info from: {}", url);
+        if (batchFull) {
+            flushPending();
+        } else if (firstInWindow) {
+            flushScheduler.schedule(this::flushPending, coalescingWindowMs, TimeUnit.MILLISECONDS);
+        }
 
-            return restTemplate.getForObject(url, UserDTO.class);
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UserServiceUnavailableException("Interrupted while waiting for user " + userId, e);
+        } catch (ExecutionException e) {
+            // Ошибка пакетного запроса уже записана в лог в fetchUsers
+            if (e.getCause() instanceof UserServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new UserServiceUnavailableException("Failed to get user " + userId, e.getCause());
+        } catch (TimeoutException e) {
+            throw new UserServiceUnavailableException("Timed out waiting for user " + userId, e);
+        }
+    }
 
-        } catch (RestClientException e) {
-            log.error("Failed to get user information for user ID: {}", userId, e);
+    /**
+     * Получает информацию о нескольких пользователях пакетными запросами (не более batch-size ID в каждом)
+     *
+     * @param userIds ID пользователей
+     * @return Найденные пользователи по ID (ненайденных в результате нет)
+     * @throws UserServiceUnavailableException если User Service не ответил хотя бы на один пакет
+     */
+    public Map<Long, UserDTO> getUsersByIds(Collection<? extends Long> userIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Map<Long, UserDTO> users = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            users.putAll(fetchUsers(ids.subList(from, Math.min(from + batchSize, ids.size()))));
+        }
+        return users;
+    }
 
-            // Возвращаем временные данные для тестирования
-            // В реальном проекте следует реализовать полноценную обработку ошибок
-            if (e.getMessage() != null && e.getMessage().contains(HttpStatus.NOT_FOUND.toString())) {
-                log.warn("User not found, using fallback data for testing");
-                return createTestUser(userId);
+    /**
+     * Забирает запросы текущего окна и выполняет их одним пакетным вызовом
+     */
+    private void flushPending() {
+        Map<Long, CompletableFuture<UserDTO>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
             }
+            batch = pending;
+            pending = new HashMap<>();
+        }
 
-            return null;
+        try {
+            Map<Long, UserDTO> users = fetchUsers(batch.keySet());
+            batch.forEach((userId, future) -> future.complete(users.get(userId)));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
         }
     }
 
     /**
-     * Создает тестового пользователя (для разработки и тестирования)
-     * В продакшн-версии этот метод следует удалить
+     * POST /api/users/batch. Пользователей, которых User Service не вернул или на которых ответил 404,
+     * в результате нет: getUserById вернёт для них null, а UserProfileCache их не закэширует.
+     * Остальные ошибки (сеть, таймаут, 5xx) не означают отсутствия пользователей
+     * и выбрасываются как UserServiceUnavailableException.
      */
-    private UserDTO createTestUser(Long userId) {
-        UserDTO user = new UserDTO();
-        user.setId(userId);
-        user.setUsername("Test User");
-        user.setEmail("test@example.com");
-        user.setPhoneNumber("+11234567890");
-        return user;
+    private Map<Long, UserDTO> fetchUsers(Collection<Long> userIds) {
+        String url = UriComponentsBuilder.fromHttpUrl(userServiceUrl)
+                .path("/api/users/batch")
+                .toUriString();
+
+        log.debug("Requesting info for {} users from: {}", userIds.size(), url);
+
+        UserDTO[] response;
+        try {
+            response = restTemplate.postForObject(url, userIds, UserDTO[].class);
+        } catch (HttpClientErrorException.NotFound e) {
+            log.warn("User Service found none of {} requested users", userIds.size());
+            return Map.of();
+        } catch (RestClientException e) {
+            log.error("Failed to get user information for {} users", userIds.size(), e);
+            throw new UserServiceUnavailableException("Failed to get " + userIds.size() + " users", e);
+        }
+
+        Map<Long, UserDTO> users = new HashMap<>();
+        if (response != null) {
+            for (UserDTO user : response) {
+                users.put(user.getId(), user);
+            }
+        }
+        if (users.size() < userIds.size()) {
+            log.warn("User Service returned {} of {} requested users", users.size(), userIds.size());
+        }
+        return users;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdown();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.service.KafkaListenerService.UserDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Читает компактируемый топик user-updates и поддерживает актуальность UserProfileCache.
+ * Каждый экземпляр сервиса назначает себе все партиции и при старте читает топик с начала,
+ * поэтому кэш прогревается последними профилями всех пользователей.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserUpdatesListener {
+
+    private final UserProfileCache userProfileCache;
+
+    @KafkaListener(
+            id = "userUpdates",
+            topicPartitions = @TopicPartition(
+                    topic = "${kafka.topics.user-updates:user-updates}",
+                    partitions = "#{@partitionFinder.partitions('${kafka.topics.user-updates:user-updates}', ${kafka.topics.user-updates-partitions:3})}",
+                    partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")),
+            containerFactory = "userUpdatesListenerContainerFactory",
+            autoStartup = "${notification.user-cache.listener-enabled:true}"
+    )
+    public void onUserUpdates(List<ConsumerRecord<String, UserDTO>> records) {
+        for (ConsumerRecord<String, UserDTO> record : records) {
+            UserDTO user = record.value();
+            if (user == null) {
+                // Tombstone: пользователь удалён
+                userProfileCache.evict(Long.valueOf(record.key()));
+            } else {
+                userProfileCache.put(user);
+            }
+        }
+        log.debug("Applied {} user profile updates", records.size());
+    }
+}
@@ -0,0 +1,42 @@
+package com.pharmacy.scs.notification.template;
+
+import org.thymeleaf.context.IContext;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Контекст Thymeleaf поверх готовой Map: в отличие от Context.setVariables,
+ * параметры не копируются во внутреннюю карту контекста
+ */
+final class MapTemplateContext implements IContext {
+
+    private final Locale locale;
+    private final Map<String, Object> variables;
+
+    MapTemplateContext(Locale locale, Map<String, Object> variables) {
+        this.locale = locale;
+        this.variables = variables;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public boolean containsVariable(String name) {
+        return variables.containsKey(name);
+    }
+
+    @Override
+    public Set<String> getVariableNames() {
+        return variables.keySet();
+    }
+
+    @Override
+    public Object getVariable(String name) {
+        return variables.get(name);
+    }
+}
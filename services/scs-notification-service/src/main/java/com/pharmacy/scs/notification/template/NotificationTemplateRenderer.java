@@ -0,0 +1,117 @@
+package com.pharmacy.scs.notification.template;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Рендеринг email-шаблонов уведомлений.
+ * - Шаблон выбирается по типу события и локали (delivery-status-created_ru → delivery-status-created →
+ *   delivery-status) один раз, имя запоминается; разобранные шаблоны кэширует сам Thymeleaf,
+ *   а прогрев при старте переносит разбор с первого события на запуск сервиса.
+ * - Параметры передаются в контекст без копирования (MapTemplateContext).
+ * - Вывод пишется в переиспользуемый буфер потока.
+ * - Темы писем вычисляются один раз на тип события.
+ */
+@Component
+@Slf4j
+public class NotificationTemplateRenderer {
+
+    static final String BASE_TEMPLATE = "email-templates/delivery-status";
+    private static final List<String> KNOWN_EVENT_TYPES = List.of("CREATED", "UPDATED", "COMPLETED");
+    // Буферы больше этого размера не удерживаются за потоком
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private final ITemplateEngine templateEngine;
+    private final ResourceLoader resourceLoader;
+    private final String templatePrefix;
+    private final String templateSuffix;
+    private final Locale locale;
+
+    private final Map<String, String> templateNames = new ConcurrentHashMap<>();
+    private final Map<String, String> subjects = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringWriter> buffers = ThreadLocal.withInitial(() -> new StringWriter(8 * 1024));
+
+    public NotificationTemplateRenderer(
+            ITemplateEngine templateEngine,
+            ResourceLoader resourceLoader,
+            @Value("${spring.thymeleaf.prefix:classpath:/templates/}") String templatePrefix,
+            @Value("${spring.thymeleaf.suffix:.html}") String templateSuffix,
+            @Value("${notification.templates.locale:ru}") Locale locale) {
+        this.templateEngine = templateEngine;
+        this.resourceLoader = resourceLoader;
+        this.templatePrefix = templatePrefix;
+        this.templateSuffix = templateSuffix;
+        this.locale = locale;
+    }
+
+    /**
+     * Рендерит письмо о событии доставки
+     */
+    public String render(String eventType, Map<String, Object> params) {
+        StringWriter buffer = buffers.get();
+        buffer.getBuffer().setLength(0);
+
+        templateEngine.process(templateName(eventType), new MapTemplateContext(locale, params), buffer);
+        String content = buffer.toString();
+
+        if (buffer.getBuffer().capacity() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+        return content;
+    }
+
+    /**
+     * Тема письма по типу события
+     */
+    public String subject(String eventType) {
+        return subjects.computeIfAbsent(eventType, type -> switch (type) {
+            case "CREATED" -> "Ваш заказ принят в обработку";
+            case "UPDATED" -> "Статус вашего заказа изменен";
+            case "COMPLETED" -> "Ваш заказ доставлен";
+            default -> "Обновление статуса доставки";
+        });
+    }
+
+    /**
+     * Имя шаблона для типа события: самый специфичный из существующих вариантов
+     */
+    String templateName(String eventType) {
+        return templateNames.computeIfAbsent(eventType, type -> {
+            String typed = BASE_TEMPLATE + "-" + type.toLowerCase(Locale.ROOT);
+            for (String candidate : List.of(typed + "_" + locale.getLanguage(), typed)) {
+                if (resourceLoader.getResource(templatePrefix + candidate + templateSuffix).exists()) {
+                    return candidate;
+                }
+            }
+            return BASE_TEMPLATE;
+        });
+    }
+
+    /**
+     * Разбирает шаблоны известных типов событий до прихода первых событий
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        TemplateParams sample = new TemplateParams("warmup", "TRACK0", "PENDING", Map.of());
+        for (String eventType : KNOWN_EVENT_TYPES) {
+            try {
+                render(eventType, sample);
+                subject(eventType);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось прогреть шаблон для события {}: {}", eventType, e.getMessage());
+            }
+        }
+        log.info("Notification templates warmed up: {}", templateNames);
+    }
+}
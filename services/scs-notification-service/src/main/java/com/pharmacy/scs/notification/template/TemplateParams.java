@@ -0,0 +1,94 @@
+package com.pharmacy.scs.notification.template;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Параметры шаблона уведомления без копирования данных события.
+ * Базовые параметры (userName, trackingNumber, status, statusDescription, trackingUrl) хранятся в полях,
+ * additionalData события используется по ссылке и, как и раньше, перекрывает базовые параметры
+ * непустыми значениями. trackingUrl строится при первом обращении.
+ * Полный набор записей (entrySet) собирается только по требованию — например, для логирования.
+ */
+public final class TemplateParams extends AbstractMap<String, Object> {
+
+    private static final String TRACKING_URL_PREFIX = "http://tracking.pharmacy.com/";
+
+    // Отображаемые статусы
+    private static final Map<String, String> STATUS_DESCRIPTIONS = Map.of(
+            "PENDING", "Ожидает отправки",
+            "IN_TRANSIT", "В пути",
+            "DELIVERED", "Доставлено",
+            "CANCELLED", "Отменено");
+
+    private final String userName;
+    private final String trackingNumber;
+    private final String status;
+    private final Map<String, Object> additionalData;
+    private String trackingUrl;
+
+    public TemplateParams(String userName, String trackingNumber, String status, Map<String, Object> additionalData) {
+        this.userName = userName;
+        this.trackingNumber = trackingNumber;
+        this.status = status;
+        this.additionalData = additionalData != null ? additionalData : Map.of();
+    }
+
+    public static String statusDescription(String status) {
+        return status != null ? STATUS_DESCRIPTIONS.getOrDefault(status, status) : null;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = additionalData.get(key);
+        if (value != null) {
+            return value;
+        }
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        return switch (name) {
+            case "userName" -> userName;
+            case "trackingNumber" -> trackingNumber;
+            case "status" -> status;
+            case "statusDescription" -> statusDescription(status);
+            case "trackingUrl" -> trackingUrl();
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null || isBaseKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("userName", userName);
+        params.put("trackingNumber", trackingNumber);
+        params.put("status", status);
+        params.put("trackingUrl", trackingUrl());
+        params.put("statusDescription", statusDescription(status));
+        additionalData.forEach((key, value) -> {
+            if (value != null) {
+                params.put(key, value);
+            }
+        });
+        return params.entrySet();
+    }
+
+    private String trackingUrl() {
+        if (trackingUrl == null) {
+            trackingUrl = TRACKING_URL_PREFIX + get("trackingNumber");
+        }
+        return trackingUrl;
+    }
+
+    private static boolean isBaseKey(Object key) {
+        return "userName".equals(key) || "trackingNumber".equals(key) || "status".equals(key)
+                || "statusDescription".equals(key) || "trackingUrl".equals(key);
+    }
+}
@@ -0,0 +1,16 @@
+-- Переход ID уведомлений с IDENTITY на последовательность с шагом 50
+-- (оптимизатор pooled в Hibernate: nextval = X резервирует ID X-49..X),
+-- чтобы пакетный слушатель мог сохранять уведомления JDBC-пакетами.
+-- Выполнить до запуска новой версии сервиса.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS notifications_seq INCREMENT BY 50;
+
+-- Следующий nextval должен вернуть MAX(id) + 50, чтобы первый блок начинался с MAX(id) + 1
+SELECT setval('notifications_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM notifications), false);
+
+ALTER TABLE notifications ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE notifications ALTER COLUMN id DROP DEFAULT;
+
+COMMIT;
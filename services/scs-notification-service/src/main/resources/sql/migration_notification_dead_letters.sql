@@ -0,0 +1,38 @@
+-- Хранилище событий notification-dlq (см. DeadLetterService) и retry-топики delivery-updates.
+-- Позиция записи в DLQ уникальна: повторное чтение DLQ не создаёт дубликатов (INSERT ... ON CONFLICT DO NOTHING).
+-- Retry-топики delivery-updates-retry-0..2 и notification-dlq создаёт KafkaAdmin при старте сервиса.
+
+CREATE SEQUENCE IF NOT EXISTS notification_dead_letters_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS notification_dead_letters (
+    id                BIGINT PRIMARY KEY,
+    source_topic      VARCHAR(255) NOT NULL,
+    source_partition  INTEGER,
+    source_offset     BIGINT,
+    dlq_partition     INTEGER      NOT NULL,
+    dlq_offset        BIGINT       NOT NULL,
+    message_key       VARCHAR(255),
+    payload           BYTEA,
+    compressed        BOOLEAN      NOT NULL,
+    exception_class   VARCHAR(255),
+    exception_message VARCHAR(1000),
+    failed_at         TIMESTAMP    NOT NULL,
+    status            VARCHAR(255) NOT NULL,
+    replayed_at       TIMESTAMP,
+    replay_job_id     VARCHAR(36),
+    replay_claimed_at TIMESTAMP,
+    CONSTRAINT uk_notification_dead_letters_dlq_position UNIQUE (dlq_partition, dlq_offset)
+);
+
+-- Захват повторной публикации (REPLAYING) для таблиц, созданных до его появления
+ALTER TABLE notification_dead_letters ADD COLUMN IF NOT EXISTS replay_job_id VARCHAR(36);
+ALTER TABLE notification_dead_letters ADD COLUMN IF NOT EXISTS replay_claimed_at TIMESTAMP;
+
+-- Повторная публикация захватывает NEW и REPLAYING с истекшей арендой по возрастанию id;
+-- переотправленные события в индекс не попадают
+CREATE INDEX IF NOT EXISTS idx_notification_dead_letters_replay_queue
+    ON notification_dead_letters (id)
+    WHERE status IN ('NEW', 'REPLAYING');
+
+-- Прежний индекс под тем же именем мог быть создан по (status, id) из описания сущности
+DROP INDEX IF EXISTS idx_notification_dead_letters_status_id;
@@ -0,0 +1,20 @@
+-- Индексы для keyset-пагинации истории уведомлений:
+-- WHERE user_id = ? AND id < ? ORDER BY id DESC LIMIT ? (аналогично для delivery_id).
+-- INCLUDE делает индексы покрывающими для краткой записи истории (type, status, sent_at, event_type),
+-- поэтому страница читается index-only scan без обращения к строкам с содержимым писем.
+-- Индексы принадлежат миграции: сущность Notification их не объявляет, и ddl-auto=update
+-- не может занять эти имена обычными индексами, из-за которых IF NOT EXISTS пропустил бы покрывающие.
+-- CONCURRENTLY не блокирует запись; команды выполняются вне транзакции.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_user_history
+    ON notifications (user_id, id) INCLUDE (type, status, sent_at, event_type);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_delivery_history
+    ON notifications (delivery_id, id) INCLUDE (type, status, sent_at, event_type);
+
+-- Прежние индексы (из @Index сущности или первой версии миграции) дублируют покрывающие
+DROP INDEX CONCURRENTLY IF EXISTS idx_notifications_user_id_id;
+DROP INDEX CONCURRENTLY IF EXISTS idx_notifications_delivery_id_id;
+
+-- Карта видимости должна быть актуальной, иначе index-only scan обращается к таблице
+VACUUM (ANALYZE) notifications;
@@ -0,0 +1,24 @@
+-- Расписание повторных отправок: next_attempt_at и частичный индекс для захвата
+-- SELECT ... WHERE status IN ('PENDING', 'FAILED', 'RETRY') AND next_attempt_at <= now() ORDER BY next_attempt_at
+-- FOR UPDATE SKIP LOCKED. PENDING попадает в индекс, пока слушатель держит аренду захвата ключа: после её
+-- истечения уведомление отправляет планировщик. Отправленные уведомления в индекс не попадают, поэтому он
+-- остаётся маленьким.
+-- Индекс принадлежит миграции: сущность Notification его не объявляет, иначе ddl-auto=update мог бы
+-- занять имя обычным индексом, и IF NOT EXISTS пропустил бы частичный.
+-- CREATE/DROP INDEX CONCURRENTLY выполняются вне транзакции.
+
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
+
+-- Уже накопленные неудачные уведомления становятся доступны планировщику сразу.
+-- PENDING-строки, оставшиеся до появления аренды, не переносятся: содержимое письма в них не сохранено
+UPDATE notifications
+SET next_attempt_at = created_at
+WHERE status IN ('FAILED', 'RETRY') AND next_attempt_at IS NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_next_attempt
+    ON notifications (next_attempt_at)
+    WHERE status IN ('PENDING', 'FAILED', 'RETRY');
+
+-- Прежние индексы (из @Index сущности и ранних версий миграции) без PENDING в предикате больше не нужны
+DROP INDEX CONCURRENTLY IF EXISTS idx_notifications_retry_schedule;
+DROP INDEX CONCURRENTLY IF EXISTS idx_notifications_retry_due;
@@ -0,0 +1,19 @@
+-- Уникальный ключ идемпотентности уведомлений (delivery_id, event_type, type).
+-- Сервис вставляет уведомления через INSERT ... ON CONFLICT DO NOTHING, поэтому
+-- повторная обработка события не создаёт дубликат даже при гонке потоков слушателя.
+-- Выполнить до запуска новой версии сервиса.
+
+BEGIN;
+
+-- Удаляем накопившиеся дубликаты, оставляя самое раннее уведомление
+DELETE FROM notifications n
+USING notifications d
+WHERE n.delivery_id = d.delivery_id
+  AND n.event_type = d.event_type
+  AND n.type = d.type
+  AND n.id > d.id;
+
+ALTER TABLE notifications
+    ADD CONSTRAINT uk_notifications_delivery_event_type UNIQUE (delivery_id, event_type, type);
+
+COMMIT;
@@ -0,0 +1,83 @@
+package com.pharmacy.scs.notification.config;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeliveryRetryTopicsTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final DeliveryRetryTopics retryTopics =
+            new DeliveryRetryTopics("delivery-updates", "notification-dlq", List.of(5_000L, 30_000L, 300_000L));
+
+    private final RuntimeException failure = new ListenerExecutionFailedException("failed");
+
+    @Test
+    void names_OneTopicPerDelay() {
+        // Act & Assert
+        assertArrayEquals(
+                new String[]{"delivery-updates-retry-0", "delivery-updates-retry-1", "delivery-updates-retry-2"},
+                retryTopics.names());
+    }
+
+    @Test
+    void destination_WalksRetryTopicsThenDlq() {
+        // Arrange
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("delivery-updates", 0, 10L, "delivery-1", "{}");
+
+        // Act & Assert — каждый шаг получает заголовки предыдущей пересылки
+        for (int attempt = 0; attempt < 3; attempt++) {
+            TopicPartition destination = retryTopics.destination(record, failure);
+            assertEquals("delivery-updates-retry-" + attempt, destination.topic());
+            assertEquals(-1, destination.partition());
+
+            ConsumerRecord<String, String> forwarded =
+                    new ConsumerRecord<>(destination.topic(), 0, attempt, "delivery-1", "{}");
+            retryTopics.headers(record, NOW).forEach(header -> forwarded.headers().add(header));
+            record = forwarded;
+        }
+        assertEquals(new TopicPartition("notification-dlq", -1), retryTopics.destination(record, failure));
+    }
+
+    @Test
+    void headers_NextAttemptDueAfterTopicDelay() {
+        // Arrange
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("delivery-updates-retry-0", 0, 0L, "delivery-1", "{}");
+        retryTopics.headers(new ConsumerRecord<>("delivery-updates", 0, 0L, "delivery-1", "{}"), NOW)
+                .forEach(header -> record.headers().add(header));
+
+        // Act
+        Headers headers = retryTopics.headers(record, NOW);
+
+        // Assert
+        assertEquals(NOW + 5_000L, retryTopics.dueAt(record));
+        ConsumerRecord<String, String> next = new ConsumerRecord<>("delivery-updates-retry-1", 0, 0L, "delivery-1", "{}");
+        headers.forEach(header -> next.headers().add(header));
+        assertEquals(2, retryTopics.attempt(next));
+        assertEquals(NOW + 30_000L, retryTopics.dueAt(next));
+    }
+
+    @Test
+    void destination_DeserializationFailureGoesStraightToDlq() {
+        // Arrange
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("delivery-updates", 0, 10L, "delivery-1", null);
+        record.headers().add(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, new byte[]{1});
+        Exception wrapped = new ListenerExecutionFailedException("failed",
+                new DeserializationException("bad json", new byte[]{'x'}, false, new IllegalStateException()));
+
+        // Act & Assert
+        assertEquals("notification-dlq", retryTopics.destination(record, failure).topic());
+        assertEquals("notification-dlq", retryTopics.destination(
+                new ConsumerRecord<>("delivery-updates", 0, 11L, "delivery-1", null), wrapped).topic());
+    }
+}
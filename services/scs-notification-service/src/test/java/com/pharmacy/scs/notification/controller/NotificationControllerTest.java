@@ -0,0 +1,103 @@
+package com.pharmacy.scs.notification.controller;
+
+import com.pharmacy.scs.notification.entity.Notification.NotificationStatus;
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import com.pharmacy.scs.notification.repository.NotificationRepository.NotificationSummary;
+import com.pharmacy.scs.notification.service.NotificationStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationControllerTest {
+
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationStatsService notificationStatsService;
+
+    @InjectMocks
+    private NotificationController notificationController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(notificationController).build();
+    }
+
+    @Test
+    void getNotificationsByUser_ReturnsFirstPageWithCursor() throws Exception {
+        // Arrange
+        when(notificationRepository.findSummariesByUserId(10L, Long.MAX_VALUE, PageRequest.of(0, 2)))
+                .thenReturn(List.of(summary(15L), summary(12L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/notifications/user/10").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(15)))
+                .andExpect(jsonPath("$.items[0].status", is("SENT")))
+                .andExpect(jsonPath("$.items[0].content").doesNotExist())
+                .andExpect(jsonPath("$.nextBeforeId", is(12)));
+    }
+
+    @Test
+    void getNotificationsByDelivery_LastPageHasNoCursor() throws Exception {
+        // Arrange
+        when(notificationRepository.findSummariesByDeliveryId(5L, 12L, PageRequest.of(0, 50)))
+                .thenReturn(List.of(summary(7L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/notifications/delivery/5").param("beforeId", "12"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.nextBeforeId", nullValue()));
+    }
+
+    @Test
+    void getNotificationsByUser_RejectsTooLargePage() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/notifications/user/10").param("limit", "1000"))
+                .andExpect(status().isBadRequest());
+        verify(notificationRepository, never()).findSummariesByUserId(anyLong(), anyLong(), any(Pageable.class));
+    }
+
+    private NotificationSummary summary(Long id) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", id);
+        values.put("type", NotificationType.EMAIL);
+        values.put("status", NotificationStatus.SENT);
+        values.put("sentAt", null);
+        values.put("eventType", "UPDATED");
+        return projectionFactory.createProjection(NotificationSummary.class, values);
+    }
+}
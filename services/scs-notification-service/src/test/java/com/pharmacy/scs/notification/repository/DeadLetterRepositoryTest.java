@@ -0,0 +1,131 @@
+package com.pharmacy.scs.notification.repository;
+
+import com.pharmacy.scs.notification.entity.DeadLetter;
+import com.pharmacy.scs.notification.repository.DeadLetterRepository.DeadLetterSummary;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.annotations.SQLInsert;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DeadLetterRepositoryTest {
+
+    @Autowired
+    private DeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void saveAll_SkipsAlreadyStoredDlqPositions() {
+        // Arrange
+        deadLetterRepository.saveAndFlush(deadLetter(0, 1L, "first"));
+
+        // Act — DLQ перечитан после сбоя: та же позиция и новая запись в одном пакете
+        deadLetterRepository.saveAll(List.of(deadLetter(0, 1L, "again"), deadLetter(0, 2L, "second")));
+        deadLetterRepository.flush();
+        entityManager.clear();
+
+        // Assert
+        List<DeadLetter> stored = deadLetterRepository.findAll();
+        assertEquals(2, stored.size());
+        assertEquals("first", stored.stream()
+                .filter(d -> d.getDlqOffset() == 1L)
+                .findFirst()
+                .map(d -> new String(d.getPayload(), StandardCharsets.UTF_8))
+                .orElseThrow());
+    }
+
+    @Test
+    void claimForReplay_ReturnsNewAndExpiredClaimsInIdOrder() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        DeadLetter replayed = deadLetter(0, 10L, "replayed");
+        replayed.markAsReplayed();
+        DeadLetter expiredClaim = deadLetter(1, 10L, "expired");
+        expiredClaim.claimForReplay("crashed-job", now.minusMinutes(10));
+        DeadLetter activeClaim = deadLetter(1, 11L, "active");
+        activeClaim.claimForReplay("running-job", now.minusMinutes(1));
+        deadLetterRepository.saveAll(List.of(
+                deadLetter(0, 11L, "a"), replayed, expiredClaim, activeClaim, deadLetter(1, 12L, "b")));
+        deadLetterRepository.flush();
+        entityManager.clear();
+
+        // Act
+        List<DeadLetter> claimed = deadLetterRepository.claimForReplay(now.minusMinutes(5), 10);
+
+        // Assert
+        assertEquals(List.of("a", "expired", "b"), claimed.stream()
+                .map(d -> new String(d.getPayload(), StandardCharsets.UTF_8))
+                .toList());
+        assertEquals(2, deadLetterRepository.claimForReplay(now.minusMinutes(5), 2).size());
+        assertEquals(1L, deadLetterRepository.countByStatus(DeadLetter.Status.REPLAYED));
+        assertEquals(2L, deadLetterRepository.countByStatus(DeadLetter.Status.REPLAYING));
+
+        List<DeadLetterSummary> summaries = deadLetterRepository.findSummaries(Long.MAX_VALUE, PageRequest.of(0, 10));
+        assertEquals(5, summaries.size());
+        assertTrue(summaries.get(0).getId() > summaries.get(4).getId());
+        assertEquals("delivery-updates", summaries.get(0).getSourceTopic());
+    }
+
+    @Test
+    void sqlInsert_ColumnOrderMatchesHibernateBindOrder() {
+        // Arrange — Hibernate связывает параметры INSERT в порядке атрибутов персистера, ID — последним
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(DeadLetter.class);
+        List<String> bindOrder = new ArrayList<>();
+        for (int i = 0; i < persister.getPropertyNames().length; i++) {
+            if (persister.getPropertyInsertability()[i]) {
+                bindOrder.addAll(List.of(persister.getPropertyColumnNames(i)));
+            }
+        }
+        bindOrder.addAll(List.of(persister.getIdentifierColumnNames()));
+
+        // Act
+        String sql = DeadLetter.class.getAnnotation(SQLInsert.class).sql();
+        List<String> columns = Arrays.stream(sql.substring(sql.indexOf('(') + 1, sql.indexOf(')')).split(","))
+                .map(String::trim)
+                .toList();
+
+        // Assert
+        assertEquals(bindOrder, columns);
+    }
+
+    private static DeadLetter deadLetter(int dlqPartition, long dlqOffset, String payload) {
+        return DeadLetter.builder()
+                .sourceTopic("delivery-updates")
+                .sourcePartition(0)
+                .sourceOffset(dlqOffset)
+                .dlqPartition(dlqPartition)
+                .dlqOffset(dlqOffset)
+                .messageKey("delivery-" + dlqOffset)
+                .payload(payload.getBytes(StandardCharsets.UTF_8))
+                .exceptionClass("java.lang.IllegalStateException")
+                .exceptionMessage("failed")
+                .failedAt(LocalDateTime.now())
+                .status(DeadLetter.Status.NEW)
+                .build();
+    }
+}
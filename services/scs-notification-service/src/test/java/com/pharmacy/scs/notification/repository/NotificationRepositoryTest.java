@@ -0,0 +1,343 @@
+package com.pharmacy.scs.notification.repository;
+
+import com.pharmacy.scs.notification.entity.Notification;
+import com.pharmacy.scs.notification.entity.Notification.NotificationStatus;
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.annotations.SQLInsert;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class NotificationRepositoryTest {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void saveAll_SkipsDuplicateIdempotencyKeys() {
+        // Arrange
+        notificationRepository.saveAndFlush(notification(1L, "UPDATED", "first@example.com"));
+
+        // Act — дубликат ключа в том же пакете, что и новое уведомление
+        notificationRepository.saveAll(List.of(
+                notification(1L, "UPDATED", "second@example.com"),
+                notification(2L, "UPDATED", "other@example.com")));
+        notificationRepository.flush();
+
+        // Assert
+        List<Notification> stored = notificationRepository.findByDeliveryId(1L);
+        assertEquals(1, stored.size());
+        assertEquals("first@example.com", stored.get(0).getRecipient());
+        assertEquals(1, notificationRepository.findByDeliveryId(2L).size());
+    }
+
+    @Test
+    void save_StoresAllColumns() {
+        // Arrange
+        Notification notification = notification(3L, "CREATED", "user@example.com");
+        notification.setContent("<html>content</html>");
+        notification.markAsFailed("SMTP error");
+
+        // Act
+        notificationRepository.saveAndFlush(notification);
+
+        // Assert
+        Notification stored = notificationRepository.findByDeliveryId(3L).get(0);
+        assertEquals(10L, stored.getUserId());
+        assertEquals("CREATED", stored.getEventType());
+        assertEquals(NotificationType.EMAIL, stored.getType());
+        assertEquals("user@example.com", stored.getRecipient());
+        assertEquals("<html>content</html>", stored.getContent());
+        assertEquals(NotificationStatus.FAILED, stored.getStatus());
+        assertEquals("SMTP error", stored.getErrorMessage());
+        assertEquals(0, stored.getRetryCount());
+        assertNotNull(stored.getCreatedAt());
+        assertEquals(stored.getCreatedAt(), stored.getNextAttemptAt());
+        assertTrue(notificationRepository.existsByDeliveryIdAndEventTypeAndType(3L, "CREATED", NotificationType.EMAIL));
+        assertFalse(notificationRepository.existsByDeliveryIdAndEventTypeAndType(3L, "CREATED", NotificationType.SMS));
+    }
+
+    @Test
+    void sqlInsert_ColumnOrderMatchesHibernateBindOrder() {
+        // Arrange — Hibernate связывает параметры INSERT в порядке атрибутов персистера, ID — последним
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Notification.class);
+        List<String> bindOrder = new ArrayList<>();
+        for (int i = 0; i < persister.getPropertyNames().length; i++) {
+            if (persister.getPropertyInsertability()[i]) {
+                bindOrder.addAll(List.of(persister.getPropertyColumnNames(i)));
+            }
+        }
+        bindOrder.addAll(List.of(persister.getIdentifierColumnNames()));
+
+        // Act
+        String sql = Notification.class.getAnnotation(SQLInsert.class).sql();
+        List<String> columns = Arrays.stream(sql.substring(sql.indexOf('(') + 1, sql.indexOf(')')).split(","))
+                .map(String::trim)
+                .toList();
+
+        // Assert
+        assertEquals(bindOrder, columns);
+    }
+
+    @Test
+    void save_StoresDistinctTimestampsInTheirColumns() {
+        // Arrange — у однотипных столбцов разные значения: перестановка в @SQLInsert была бы заметна
+        Notification notification = notification(7L, "UPDATED", "user@example.com");
+        notification.markAsSent();
+        notification.setSentAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        notification.setNextAttemptAt(LocalDateTime.of(2024, 2, 2, 11, 0));
+        notification.setRetryCount(2);
+
+        // Act
+        notificationRepository.saveAndFlush(notification);
+
+        // Assert
+        Notification stored = notificationRepository.findByDeliveryId(7L).get(0);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), stored.getSentAt());
+        assertEquals(LocalDateTime.of(2024, 2, 2, 11, 0), stored.getNextAttemptAt());
+        assertNotEquals(stored.getSentAt(), stored.getCreatedAt());
+        assertEquals(2, stored.getRetryCount());
+        assertEquals(NotificationStatus.SENT, stored.getStatus());
+    }
+
+    @Test
+    void findExistingIds_ExcludesRowsSkippedByConflict() {
+        // Arrange
+        notificationRepository.saveAndFlush(notification(8L, "UPDATED", "first@example.com"));
+        Notification duplicate = notification(8L, "UPDATED", "second@example.com");
+        Notification fresh = notification(9L, "UPDATED", "other@example.com");
+
+        // Act — захват: дубликат получает ID из последовательности, но строка не вставляется
+        notificationRepository.saveAllAndFlush(List.of(duplicate, fresh));
+        List<Long> existing = notificationRepository.findExistingIds(List.of(duplicate.getId(), fresh.getId()));
+
+        // Assert
+        assertEquals(List.of(fresh.getId()), existing);
+    }
+
+    @Test
+    void findKeysByTypeAndCreatedAtAfter_ReturnsRecentKeys() {
+        // Arrange
+        notificationRepository.saveAndFlush(notification(4L, "COMPLETED", "user@example.com"));
+
+        // Act
+        List<NotificationRepository.NotificationKey> keys = notificationRepository
+                .findKeysByTypeAndCreatedAtAfter(NotificationType.EMAIL, LocalDateTime.now().minusHours(1));
+
+        // Assert
+        assertTrue(keys.stream().anyMatch(key -> key.getDeliveryId() == 4L && "COMPLETED".equals(key.getEventType())));
+    }
+
+    @Test
+    void countByStatus_GroupsByStatus() {
+        // Arrange
+        Notification failed = notification(5L, "UPDATED", "user@example.com");
+        failed.markAsFailed("SMTP error");
+        notificationRepository.saveAll(List.of(notification(6L, "UPDATED", "user@example.com"), failed));
+        notificationRepository.flush();
+
+        // Act
+        Map<NotificationStatus, Long> counts = new EnumMap<>(NotificationStatus.class);
+        notificationRepository.countByStatus().forEach(count -> counts.put(count.getStatus(), count.getCount()));
+
+        // Assert
+        assertEquals(1L, counts.get(NotificationStatus.PENDING));
+        assertEquals(1L, counts.get(NotificationStatus.FAILED));
+        assertEquals(2L, counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void findSummariesByUserId_ReturnsKeysetPagesNewestFirst() {
+        // Arrange
+        for (long deliveryId = 100; deliveryId < 105; deliveryId++) {
+            Notification notification = notification(deliveryId, "UPDATED", "user@example.com");
+            notification.setUserId(77L);
+            notificationRepository.save(notification);
+        }
+        notificationRepository.flush();
+
+        // Act
+        List<NotificationRepository.NotificationSummary> first = notificationRepository
+                .findSummariesByUserId(77L, Long.MAX_VALUE, PageRequest.of(0, 3));
+        List<NotificationRepository.NotificationSummary> second = notificationRepository
+                .findSummariesByUserId(77L, first.get(2).getId(), PageRequest.of(0, 3));
+
+        // Assert
+        assertEquals(3, first.size());
+        assertEquals(2, second.size());
+        assertTrue(first.get(0).getId() > first.get(1).getId());
+        assertTrue(first.get(2).getId() > second.get(0).getId());
+        assertEquals("UPDATED", second.get(0).getEventType());
+        assertEquals(NotificationStatus.PENDING, second.get(0).getStatus());
+        assertEquals(NotificationType.EMAIL, second.get(0).getType());
+        assertEquals(1, notificationRepository.findSummariesByDeliveryId(104L, Long.MAX_VALUE, PageRequest.of(0, 3)).size());
+    }
+
+    @Test
+    void claimDueRetries_ReturnsOnlyDueRetriesInAttemptOrder() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        Notification later = failed(200L, now.minusMinutes(1), 0);
+        Notification earlier = failed(201L, now.minusMinutes(5), 1);
+        Notification notDue = failed(202L, now.plusMinutes(5), 0);
+        Notification exhausted = failed(203L, now.minusMinutes(5), 3);
+        Notification expiredLease = failed(204L, now.minusMinutes(2), 1);
+        expiredLease.setStatus(NotificationStatus.RETRY);
+        Notification sent = notification(205L, "UPDATED", "user@example.com");
+        sent.markAsSent();
+        notificationRepository.saveAll(List.of(later, earlier, notDue, exhausted, expiredLease, sent));
+        notificationRepository.flush();
+
+        // Act
+        List<Notification> claimed = notificationRepository.claimDueRetries(now, 3, 10);
+
+        // Assert
+        assertEquals(List.of(201L, 204L, 200L), claimed.stream().map(Notification::getDeliveryId).toList());
+        assertEquals(2, notificationRepository.claimDueRetries(now, 3, 2).size());
+    }
+
+    @Test
+    void claimDueRetries_ReclaimsPendingAfterClaimLeaseExpires() {
+        // Arrange — слушатель захватил ключи с арендой 5 минут и упал до отправки
+        LocalDateTime claimedAt = LocalDateTime.now();
+        Notification crashed = notification(210L, "UPDATED", "user@example.com");
+        crashed.setContent("<p>UPDATED</p>");
+        crashed.setNextAttemptAt(claimedAt.plusMinutes(5));
+        Notification staleCrash = notification(211L, "UPDATED", "user@example.com");
+        staleCrash.setContent("<p>UPDATED</p>");
+        staleCrash.setNextAttemptAt(claimedAt.minusMinutes(1));
+        notificationRepository.saveAll(List.of(crashed, staleCrash));
+        notificationRepository.flush();
+
+        // Act
+        List<Notification> duringLease = notificationRepository.claimDueRetries(claimedAt, 3, 10);
+        List<Notification> afterLease = notificationRepository.claimDueRetries(claimedAt.plusMinutes(6), 3, 10);
+
+        // Assert — пока аренда действует, уведомление принадлежит слушателю
+        assertEquals(List.of(211L), duringLease.stream().map(Notification::getDeliveryId).toList());
+        assertEquals(List.of(211L, 210L), afterLease.stream().map(Notification::getDeliveryId).toList());
+        assertEquals("<p>UPDATED</p>", afterLease.get(1).getContent());
+    }
+
+    @Test
+    void claimExhaustedRetries_ReturnsOnlyDueRowsWithoutAttemptsLeft() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        Notification retryable = failed(220L, now.minusMinutes(1), 2);
+        Notification crashedOnLastAttempt = failed(221L, now.minusMinutes(1), 3);
+        crashedOnLastAttempt.setStatus(NotificationStatus.RETRY);
+        Notification leaseActive = failed(222L, now.plusMinutes(5), 3);
+        leaseActive.setStatus(NotificationStatus.RETRY);
+        Notification terminal = failed(223L, null, 3);
+        notificationRepository.saveAll(List.of(retryable, crashedOnLastAttempt, leaseActive, terminal));
+        notificationRepository.flush();
+
+        // Act
+        List<Notification> exhausted = notificationRepository.claimExhaustedRetries(now, 3, 10);
+
+        // Assert
+        assertEquals(List.of(221L), exhausted.stream().map(Notification::getDeliveryId).toList());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void claimDueRetries_SkipsRowsLockedByAnotherTransaction() throws Exception {
+        // Arrange
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        notificationRepository.saveAll(List.of(
+                failed(300L, now.minusMinutes(2), 0),
+                failed(301L, now.minusMinutes(1), 0)));
+
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Первый экземпляр держит блокировку строки 300 (незавершённая транзакция с UPDATE)
+            Future<?> first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                Notification locked = notificationRepository.findByDeliveryId(300L).get(0);
+                locked.setErrorMessage("in progress");
+                notificationRepository.flush();
+                firstClaimed.countDown();
+                await(secondDone);
+            }));
+            assertTrue(firstClaimed.await(10, TimeUnit.SECONDS));
+
+            // Act — второй экземпляр не ждёт блокировку, а получает оставшуюся строку
+            List<Long> second = transactionTemplate.execute(status -> notificationRepository
+                    .claimDueRetries(now, 3, 10).stream().map(Notification::getDeliveryId).toList());
+            secondDone.countDown();
+
+            // Assert
+            first.get(10, TimeUnit.SECONDS);
+            assertEquals(List.of(301L), second);
+        } finally {
+            secondDone.countDown();
+            executor.shutdownNow();
+            notificationRepository.deleteAll();
+        }
+    }
+
+    private static Notification failed(Long deliveryId, LocalDateTime nextAttemptAt, int retryCount) {
+        Notification notification = notification(deliveryId, "UPDATED", "user@example.com");
+        notification.markAsFailed("SMTP error");
+        notification.setNextAttemptAt(nextAttemptAt);
+        notification.setRetryCount(retryCount);
+        return notification;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Notification notification(Long deliveryId, String eventType, String recipient) {
+        return Notification.builder()
+                .userId(10L)
+                .deliveryId(deliveryId)
+                .eventType(eventType)
+                .type(NotificationType.EMAIL)
+                .recipient(recipient)
+                .status(NotificationStatus.PENDING)
+                .build();
+    }
+}
@@ -0,0 +1,202 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.dto.DeadLetterReplayJob;
+import com.pharmacy.scs.notification.entity.DeadLetter;
+import com.pharmacy.scs.notification.exception.NotificationException;
+import com.pharmacy.scs.notification.repository.DeadLetterRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterServiceTest {
+
+    @Mock
+    private DeadLetterRepository deadLetterRepository;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> byteArrayKafkaTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DeadLetterService deadLetterService;
+
+    @BeforeEach
+    void setUp() {
+        deadLetterService = new DeadLetterService(deadLetterRepository, byteArrayKafkaTemplate, transactionManager,
+                "delivery-updates", 64, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        deadLetterService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void store_KeepsOriginalCoordinatesAndCompressesLargePayloads() {
+        // Arrange
+        byte[] small = "{\"deliveryId\":1}".getBytes(StandardCharsets.UTF_8);
+        byte[] large = ("{\"deliveryId\":2,\"status\":\"" + "IN_TRANSIT".repeat(50) + "\"}").getBytes(StandardCharsets.UTF_8);
+
+        ConsumerRecord<String, byte[]> fromRetry = new ConsumerRecord<>("notification-dlq", 1, 7L, "delivery-1", small);
+        fromRetry.headers().add(KafkaHeaders.DLT_ORIGINAL_TOPIC, "delivery-updates".getBytes(StandardCharsets.UTF_8));
+        fromRetry.headers().add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(4).putInt(2).array());
+        fromRetry.headers().add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(8).putLong(42L).array());
+        fromRetry.headers().add(KafkaHeaders.DLT_EXCEPTION_FQCN,
+                "org.springframework.kafka.listener.ListenerExecutionFailedException".getBytes(StandardCharsets.UTF_8));
+        fromRetry.headers().add(KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN,
+                "java.lang.IllegalStateException".getBytes(StandardCharsets.UTF_8));
+        fromRetry.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, "x".repeat(5_000).getBytes(StandardCharsets.UTF_8));
+        ConsumerRecord<String, byte[]> direct = new ConsumerRecord<>("notification-dlq", 1, 8L, "delivery-2", large);
+
+        when(deadLetterRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<DeadLetter> stored = deadLetterService.store(List.of(fromRetry, direct));
+
+        // Assert
+        DeadLetter first = stored.get(0);
+        assertEquals("delivery-updates", first.getSourceTopic());
+        assertEquals(2, first.getSourcePartition());
+        assertEquals(42L, first.getSourceOffset());
+        assertEquals(1, first.getDlqPartition());
+        assertEquals(7L, first.getDlqOffset());
+        assertEquals("java.lang.IllegalStateException", first.getExceptionClass());
+        assertEquals(DeadLetter.MAX_EXCEPTION_MESSAGE_LENGTH, first.getExceptionMessage().length());
+        assertFalse(first.isCompressed());
+        assertArrayEquals(small, first.getPayload());
+        assertEquals(DeadLetter.Status.NEW, first.getStatus());
+
+        DeadLetter second = stored.get(1);
+        assertEquals("notification-dlq", second.getSourceTopic());
+        assertNull(second.getSourceOffset());
+        assertTrue(second.isCompressed());
+        assertTrue(second.getPayload().length < large.length);
+        assertArrayEquals(large, DeadLetterService.payload(second));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_PublishesOriginalBytesAndMarksReplayed() throws InterruptedException {
+        // Arrange
+        List<DeadLetter> firstChunk = deadLetters(1, 100);
+        List<DeadLetter> secondChunk = deadLetters(101, 150);
+        when(deadLetterRepository.claimForReplay(any(LocalDateTime.class), anyInt()))
+                .thenReturn(firstChunk, secondChunk);
+        when(byteArrayKafkaTemplate.send(eq("delivery-updates"), any(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        DeadLetterReplayJob job = new DeadLetterReplayJob(150, 1_000);
+
+        // Act
+        long start = System.nanoTime();
+        deadLetterService.replay(job);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert — 150 отправок при 1000/с занимают не меньше ~149 мс
+        assertEquals(150, job.getReplayed());
+        assertTrue(elapsedMs >= 140, "elapsed: " + elapsedMs);
+        assertTrue(firstChunk.stream().allMatch(d -> d.getStatus() == DeadLetter.Status.REPLAYED));
+        assertEquals(job.getId(), firstChunk.get(0).getReplayJobId());
+        assertNotNull(secondChunk.get(0).getReplayedAt());
+        verify(byteArrayKafkaTemplate).send("delivery-updates", "delivery-1", "{\"deliveryId\":1}".getBytes(StandardCharsets.UTF_8));
+        verify(deadLetterRepository, times(2)).saveAll(anyList());
+
+        ArgumentCaptor<Integer> limit = ArgumentCaptor.forClass(Integer.class);
+        verify(deadLetterRepository, times(2)).claimForReplay(any(LocalDateTime.class), limit.capture());
+        assertEquals(List.of(100, 50), limit.getAllValues());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_StopsOnSendFailureAndReleasesUnsentClaims() {
+        // Arrange
+        List<DeadLetter> chunk = deadLetters(1, 3);
+        when(deadLetterRepository.claimForReplay(any(LocalDateTime.class), anyInt())).thenReturn(chunk);
+        when(byteArrayKafkaTemplate.send(eq("delivery-updates"), any(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker unavailable")));
+        DeadLetterReplayJob job = new DeadLetterReplayJob(10, 1_000);
+
+        // Act
+        assertThrows(NotificationException.class, () -> deadLetterService.replay(job));
+
+        // Assert — неотправленные события снова доступны для захвата
+        assertEquals(1, job.getReplayed());
+        assertEquals(DeadLetter.Status.REPLAYED, chunk.get(0).getStatus());
+        assertEquals(DeadLetter.Status.NEW, chunk.get(1).getStatus());
+        assertNull(chunk.get(1).getReplayJobId());
+        assertEquals(DeadLetter.Status.NEW, chunk.get(2).getStatus());
+        verify(deadLetterRepository).saveAll(chunk);
+        verify(deadLetterRepository, times(1)).claimForReplay(any(LocalDateTime.class), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void startReplay_RunsJobInBackgroundAndReportsProgress() {
+        // Arrange
+        when(deadLetterRepository.claimForReplay(any(LocalDateTime.class), anyInt()))
+                .thenReturn(deadLetters(1, 2), List.of());
+        when(byteArrayKafkaTemplate.send(eq("delivery-updates"), any(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        // Act
+        DeadLetterReplayJob job = deadLetterService.startReplay(10, 1_000);
+
+        // Assert
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> job.getStatus() == DeadLetterReplayJob.Status.COMPLETED);
+        assertEquals(2, job.getReplayed());
+        assertSame(job, deadLetterService.getReplayJob(job.getId()).orElseThrow());
+        assertTrue(deadLetterService.getReplayJob("unknown").isEmpty());
+    }
+
+    private static List<DeadLetter> deadLetters(long fromId, long toId) {
+        List<DeadLetter> deadLetters = new ArrayList<>();
+        LongStream.rangeClosed(fromId, toId).forEach(id -> deadLetters.add(DeadLetter.builder()
+                .id(id)
+                .sourceTopic("delivery-updates")
+                .messageKey("delivery-" + id)
+                .payload(("{\"deliveryId\":" + id + "}").getBytes(StandardCharsets.UTF_8))
+                .status(DeadLetter.Status.NEW)
+                .build()));
+        return deadLetters;
+    }
+}
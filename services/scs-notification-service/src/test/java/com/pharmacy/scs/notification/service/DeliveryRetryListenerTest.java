@@ -0,0 +1,123 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.config.DeliveryRetryTopics;
+import com.pharmacy.scs.notification.dto.DeliveryEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryRetryListenerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("delivery-updates-retry-0", 1);
+
+    @Mock
+    private KafkaListenerService kafkaListenerService;
+
+    @Mock
+    private ListenerContainerPauseService pauseService;
+
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private Consumer<String, DeliveryEvent> consumer;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private final DeliveryRetryTopics retryTopics =
+            new DeliveryRetryTopics("delivery-updates", "notification-dlq", List.of(60_000L, 120_000L));
+
+    private DeliveryRetryListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new DeliveryRetryListener(kafkaListenerService, retryTopics, pauseService, registry);
+    }
+
+    @Test
+    void listenDeliveryUpdatesRetry_PausesPartitionUntilDue() {
+        // Arrange
+        ConsumerRecord<String, DeliveryEvent> record = forwarded(5L);
+        when(consumer.position(PARTITION)).thenReturn(6L);
+        when(registry.getListenerContainer("deliveryUpdatesRetry")).thenReturn(container);
+
+        // Act
+        listener.listenDeliveryUpdatesRetry(record, acknowledgment, consumer);
+
+        // Assert — запись будет прочитана снова, когда пауза снимется
+        verify(consumer).seek(PARTITION, 5L);
+        ArgumentCaptor<Duration> pause = ArgumentCaptor.forClass(Duration.class);
+        verify(pauseService).pausePartition(eq(container), eq(PARTITION), pause.capture());
+        assertTrue(pause.getValue().toMillis() > 0 && pause.getValue().toMillis() <= 60_000L);
+        verifyNoInteractions(kafkaListenerService);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdatesRetry_SkipsRecordsAfterRewoundOffset() {
+        // Arrange — более ранняя запись этого poll уже вернула партицию к офсету 5
+        when(consumer.position(PARTITION)).thenReturn(5L);
+
+        // Act
+        listener.listenDeliveryUpdatesRetry(forwarded(6L), acknowledgment, consumer);
+
+        // Assert
+        verify(consumer, never()).seek(any(TopicPartition.class), any(Long.class));
+        verifyNoInteractions(pauseService, kafkaListenerService);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdatesRetry_ProcessesDueRecordAndAcknowledges() {
+        // Arrange — записи без срока обрабатываются сразу
+        DeliveryEvent event = new DeliveryEvent();
+        event.setDeliveryId(1L);
+        ConsumerRecord<String, DeliveryEvent> record =
+                new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), 5L, "delivery-1", event);
+        when(consumer.position(PARTITION)).thenReturn(6L);
+
+        // Act
+        listener.listenDeliveryUpdatesRetry(record, acknowledgment, consumer);
+
+        // Assert
+        verify(kafkaListenerService).processRetry(event);
+        verify(acknowledgment).acknowledge();
+        verifyNoInteractions(pauseService);
+    }
+
+    private ConsumerRecord<String, DeliveryEvent> forwarded(long offset) {
+        DeliveryEvent event = new DeliveryEvent();
+        event.setDeliveryId(1L);
+        ConsumerRecord<String, DeliveryEvent> record =
+                new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "delivery-1", event);
+        retryTopics.headers(new ConsumerRecord<>("delivery-updates", 0, 0L, "delivery-1", event), null)
+                .forEach(header -> record.headers().add(header));
+        return record;
+    }
+}
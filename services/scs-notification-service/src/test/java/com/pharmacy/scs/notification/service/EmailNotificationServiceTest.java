@@ -4,16 +4,16 @@ import com.pharmacy.scs.notification.dto.DeliveryEvent;
 import com.pharmacy.scs.notification.entity.Notification;
 import com.pharmacy.scs.notification.entity.Notification.NotificationStatus;
 import com.pharmacy.scs.notification.repository.NotificationRepository;
-import jakarta.mail.internet.MimeMessage;
+import com.pharmacy.scs.notification.template.NotificationTemplateRenderer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.IContext;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -22,6 +22,7 @@ import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -32,14 +33,11 @@ class EmailNotificationServiceTest {
     private JavaMailSender mailSender;
 
     @Mock
-    private TemplateEngine templateEngine;
+    private NotificationTemplateRenderer templateRenderer;
 
     @Mock
     private NotificationRepository notificationRepository;
 
-    @Mock
-    private MimeMessage mimeMessage;
-
     @InjectMocks
     private EmailNotificationService emailService;
 
@@ -72,24 +70,11 @@ class EmailNotificationServiceTest {
         String recipientEmail = "test@example.com";
         String emailContent = "<html><body>Test email content</body></html>";
 
-        // Mock поведение templateEngine
-        when(templateEngine.process(anyString(), any(IContext.class))).thenReturn(emailContent);
-
-        // Mock поведение mailSender
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
-
-        // Mock поведение repository
-        Notification savedNotification = new Notification();
-        savedNotification.setId(1L);
-        savedNotification.setStatus(NotificationStatus.PENDING);
-
-        Notification updatedNotification = new Notification();
-        updatedNotification.setId(1L);
-        updatedNotification.setStatus(NotificationStatus.SENT);
+        // Mock поведение templateRenderer
+        when(templateRenderer.render(anyString(), anyMap())).thenReturn(emailContent);
 
-        when(notificationRepository.save(any(Notification.class)))
-                .thenReturn(savedNotification)
-                .thenReturn(updatedNotification);
+        // Mock поведение repository: уведомление сохраняется один раз, уже с итоговым статусом
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         CompletableFuture<Notification> future = emailService.sendNotification(
@@ -99,12 +84,14 @@ class EmailNotificationServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(NotificationStatus.SENT, result.getStatus());
+        assertEquals(emailContent, result.getContent());
+        assertNotNull(result.getSentAt());
 
         // Verify
-        verify(templateEngine).process(eq("email-templates/delivery-status"), any(IContext.class));
-        verify(mailSender).createMimeMessage();
-        verify(mailSender).send(any(MimeMessage.class));
-        verify(notificationRepository, times(2)).save(any(Notification.class));
+        verify(templateRenderer).render(eq("UPDATED"), eq(templateParams));
+        verify(notificationRepository, times(1)).save(any(Notification.class));
+        // Отправка письма симулируется, почтовый сервер не вызывается
+        verifyNoInteractions(mailSender);
     }
 
     @Test
@@ -112,27 +99,12 @@ class EmailNotificationServiceTest {
         // Arrange
         String recipientEmail = "test@example.com";
 
-        // Mock поведение templateEngine
-        when(templateEngine.process(anyString(), any(IContext.class)))
-                .thenReturn("Test email content");
-
-        // Mock поведение mailSender
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
-        doThrow(new RuntimeException("SMTP server error"))
-                .when(mailSender).send(any(MimeMessage.class));
+        // Mock поведение templateRenderer
+        when(templateRenderer.render(anyString(), anyMap()))
+                .thenThrow(new IllegalStateException("Template not found"));
 
         // Mock поведение repository
-        Notification savedNotification = new Notification();
-        savedNotification.setId(1L);
-        savedNotification.setStatus(NotificationStatus.PENDING);
-
-        Notification updatedNotification = new Notification();
-        updatedNotification.setId(1L);
-        updatedNotification.setStatus(NotificationStatus.FAILED);
-
-        when(notificationRepository.save(any(Notification.class)))
-                .thenReturn(savedNotification)
-                .thenReturn(updatedNotification);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         CompletableFuture<Notification> future = emailService.sendNotification(
@@ -142,11 +114,47 @@ class EmailNotificationServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(NotificationStatus.FAILED, result.getStatus());
+        assertEquals("Template not found", result.getErrorMessage());
 
         // Verify
-        verify(mailSender).createMimeMessage();
-        verify(mailSender).send(any(MimeMessage.class));
-        verify(notificationRepository, times(2)).save(any(Notification.class));
+        verify(notificationRepository, times(1)).save(any(Notification.class));
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void resendNotification_WithoutContent_FailsTerminally() throws Exception {
+        // Arrange
+        Notification notification = retrying(null);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Notification result = emailService.resendNotification(notification).get();
+
+        // Assert
+        assertEquals(NotificationStatus.FAILED, result.getStatus());
+        assertNull(result.getNextAttemptAt());
+        verify(notificationRepository).save(notification);
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void resendNotification_UnexpectedException_SavedAsFailedWithScheduledAttempt() throws Exception {
+        // Arrange
+        Notification notification = retrying("<p>UPDATED</p>");
+        LocalDateTime nextAttemptAt = notification.getNextAttemptAt();
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        when(templateRenderer.subject("UPDATED")).thenReturn("Subject");
+        doThrow(new IllegalStateException("Connection pool closed")).when(mailSender).send(any(MimeMessage.class));
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Notification result = emailService.resendNotification(notification).get();
+
+        // Assert
+        assertEquals(NotificationStatus.FAILED, result.getStatus());
+        assertEquals("Connection pool closed", result.getErrorMessage());
+        assertEquals(nextAttemptAt, result.getNextAttemptAt());
+        verify(notificationRepository).save(notification);
     }
 
     @Test
@@ -155,4 +163,19 @@ class EmailNotificationServiceTest {
         assertTrue(emailService.supports(Notification.NotificationType.EMAIL));
         assertFalse(emailService.supports(Notification.NotificationType.SMS));
     }
-}
\ No newline at end of file
+
+    private static Notification retrying(String content) {
+        // Планировщик уже назначил время следующей попытки на случай неудачи
+        return Notification.builder()
+                .id(1L)
+                .deliveryId(1L)
+                .type(Notification.NotificationType.EMAIL)
+                .eventType("UPDATED")
+                .recipient("test@example.com")
+                .content(content)
+                .status(NotificationStatus.RETRY)
+                .retryCount(1)
+                .nextAttemptAt(LocalDateTime.now().plusMinutes(1))
+                .build();
+    }
+}
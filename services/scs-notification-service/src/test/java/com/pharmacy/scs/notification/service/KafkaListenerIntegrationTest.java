@@ -1,10 +1,14 @@
 package com.pharmacy.scs.notification.service;
 
+import com.pharmacy.scs.notification.dto.DeadLetterReplayJob;
 import com.pharmacy.scs.notification.dto.DeliveryEvent;
+import com.pharmacy.scs.notification.entity.DeadLetter;
 import com.pharmacy.scs.notification.entity.Notification;
+import com.pharmacy.scs.notification.repository.DeadLetterRepository;
 import com.pharmacy.scs.notification.repository.NotificationRepository;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +27,7 @@ import org.springframework.kafka.test.utils.KafkaTestUtils;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -30,10 +35,14 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.when;
 
 /**
@@ -52,6 +61,12 @@ class KafkaListenerIntegrationTest {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private DeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private DeadLetterService deadLetterService;
+
     @MockBean
     private UserServiceClient userServiceClient;
 
@@ -77,9 +92,11 @@ class KafkaListenerIntegrationTest {
         userDTO.setPhoneNumber("+11234567890");
 
         when(userServiceClient.getUserById(anyLong())).thenReturn(userDTO);
+        when(userServiceClient.getUsersByIds(anyCollection())).thenReturn(Map.of(123L, userDTO));
 
         // Очищаем репозиторий перед каждым тестом
         notificationRepository.deleteAll();
+        deadLetterRepository.deleteAll();
     }
 
     @Test
@@ -123,4 +140,83 @@ class KafkaListenerIntegrationTest {
         assertEquals("test@example.com", notification.getRecipient());
         assertNotNull(notification.getSentAt());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPoisonMessageStoredAsDeadLetterWithoutStallingPartition() {
+        // Arrange — запись, которую невозможно десериализовать, и корректное событие за ней
+        byte[] poison = "{not json".getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(embeddedKafkaBroker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        KafkaTemplate<String, byte[]> rawTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+
+        // Act
+        rawTemplate.send("delivery-updates", "delivery-2", poison);
+        kafkaTemplate.send("delivery-updates", "delivery-3", event(3L, 123L));
+
+        // Assert
+        await()
+                .atMost(20, TimeUnit.SECONDS)
+                .until(() -> deadLetterRepository.count() == 1 && notificationRepository.findByDeliveryId(3L).size() == 1);
+
+        DeadLetter deadLetter = deadLetterRepository.findAll().get(0);
+        assertEquals("delivery-updates", deadLetter.getSourceTopic());
+        assertEquals("delivery-2", deadLetter.getMessageKey());
+        assertArrayEquals(poison, deadLetter.getPayload());
+        assertEquals(DeadLetter.Status.NEW, deadLetter.getStatus());
+    }
+
+    @Test
+    void testFailingEventRetriedThroughRetryTopicsThenReplayedFromDeadLetters() {
+        // Arrange — User Service недоступен: событие проходит retry-топики и попадает в DLQ
+        when(userServiceClient.getUsersByIds(anyCollection())).thenThrow(new IllegalStateException("User Service unavailable"));
+        when(userServiceClient.getUserById(anyLong())).thenThrow(new IllegalStateException("User Service unavailable"));
+
+        // Act
+        kafkaTemplate.send("delivery-updates", "delivery-4", event(4L, 456L));
+
+        // Assert
+        await()
+                .atMost(30, TimeUnit.SECONDS)
+                .until(() -> deadLetterRepository.count() == 1);
+        DeadLetter deadLetter = deadLetterRepository.findAll().get(0);
+        assertEquals("delivery-updates", deadLetter.getSourceTopic());
+        assertEquals("delivery-4", deadLetter.getMessageKey());
+        assertTrue(deadLetter.getExceptionMessage().contains("User Service unavailable"));
+        assertTrue(notificationRepository.findByDeliveryId(4L).isEmpty());
+
+        // Act — сервис восстановлен, событие переотправляется из хранилища DLQ
+        KafkaListenerService.UserDTO user = new KafkaListenerService.UserDTO();
+        user.setId(456L);
+        user.setUsername("Replayed User");
+        user.setEmail("replayed@example.com");
+        reset(userServiceClient);
+        when(userServiceClient.getUsersByIds(anyCollection())).thenReturn(Map.of(456L, user));
+        DeadLetterReplayJob job = deadLetterService.startReplay(10, 100);
+
+        // Assert
+        await()
+                .atMost(10, TimeUnit.SECONDS)
+                .until(() -> job.getStatus() == DeadLetterReplayJob.Status.COMPLETED);
+        assertEquals(1, job.getReplayed());
+        await()
+                .atMost(20, TimeUnit.SECONDS)
+                .until(() -> notificationRepository.findByDeliveryId(4L).size() == 1);
+        assertEquals(1L, deadLetterRepository.countByStatus(DeadLetter.Status.REPLAYED));
+    }
+
+    private static DeliveryEvent event(long deliveryId, long userId) {
+        DeliveryEvent event = new DeliveryEvent();
+        event.setEventType("UPDATED");
+        event.setDeliveryId(deliveryId);
+        event.setStatus("IN_TRANSIT");
+        event.setTimestamp(LocalDateTime.now());
+
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("trackingNumber", "TRACK" + deliveryId);
+        additionalData.put("userId", userId);
+        additionalData.put("deliveryAddress", "Test Address");
+        event.setAdditionalData(additionalData);
+        return event;
+    }
+}
@@ -0,0 +1,170 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.dto.DeliveryEvent;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Обработка событий доставки обоими слушателями: по одной записи и пакетным.
+ * Оба контейнера создаются остановленными (notification.listener.mode=none) и запускаются по очереди
+ * на своей порции событий (свой диапазон ID доставок); каждый должен сохранить ровно одно
+ * отправленное уведомление на событие.
+ * Пропускная способность режимов сравнивается в JMH (src/jmh: KafkaListenerBenchmark).
+ */
+@SpringBootTest(properties = {
+        "notification.listener.mode=none",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.pharmacy.scs=INFO",
+        "logging.level.org.springframework.kafka=WARN",
+        "logging.level.org.apache.kafka=WARN"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 3, topics = {"delivery-updates", "notification-dlq"})
+class KafkaListenerModesTest {
+
+    private static final int EVENTS = 500;
+    private static final int USERS = 200;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserServiceClient userServiceClient;
+
+    @Test
+    void bothListenersSaveOneSentNotificationPerEvent() {
+        // Arrange
+        stubUsers();
+        KafkaTemplate<String, DeliveryEvent> kafkaTemplate = kafkaTemplate();
+        notificationRepository.deleteAll();
+
+        // Act
+        process(kafkaTemplate, "deliveryUpdatesSingle", 0);
+        process(kafkaTemplate, "deliveryUpdatesBatch", EVENTS);
+
+        // Assert
+        assertEquals(EVENTS, sentNotifications(0));
+        assertEquals(EVENTS, sentNotifications(EVENTS));
+        assertEquals(2L * EVENTS, notificationRepository.count());
+    }
+
+    /**
+     * Отправляет EVENTS событий с ID доставок после offset, запускает контейнер
+     * и ждёт, пока по всем событиям будут сохранены уведомления
+     */
+    private void process(KafkaTemplate<String, DeliveryEvent> kafkaTemplate, String listenerId, long offset) {
+        for (long deliveryId = offset + 1; deliveryId <= offset + EVENTS; deliveryId++) {
+            kafkaTemplate.send("delivery-updates", "delivery-" + deliveryId, event(deliveryId));
+        }
+        kafkaTemplate.flush();
+
+        MessageListenerContainer container = registry.getListenerContainer(listenerId);
+        container.start();
+        try {
+            await()
+                    .atMost(2, TimeUnit.MINUTES)
+                    .pollInterval(Duration.ofMillis(50))
+                    .untilAsserted(() -> assertEquals(EVENTS, processedEvents(offset), listenerId));
+        } finally {
+            container.stop();
+        }
+    }
+
+    /**
+     * Количество отправленных уведомлений порции
+     */
+    private long sentNotifications(long offset) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notifications WHERE delivery_id > ? AND delivery_id <= ? AND status = 'SENT'",
+                Long.class, offset, offset + EVENTS);
+    }
+
+    /**
+     * Количество доставок порции, по которым уже сохранён итоговый статус уведомления
+     */
+    private long processedEvents(long offset) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT delivery_id) FROM notifications " +
+                        "WHERE delivery_id > ? AND delivery_id <= ? AND status <> 'PENDING'",
+                Long.class, offset, offset + EVENTS);
+    }
+
+    private void stubUsers() {
+        when(userServiceClient.getUserById(anyLong()))
+                .thenAnswer(invocation -> user(invocation.getArgument(0)));
+        when(userServiceClient.getUsersByIds(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, KafkaListenerService.UserDTO> users = new HashMap<>();
+            for (Long userId : invocation.<Collection<Long>>getArgument(0)) {
+                users.put(userId, user(userId));
+            }
+            return users;
+        });
+    }
+
+    private KafkaTemplate<String, DeliveryEvent> kafkaTemplate() {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(embeddedKafkaBroker);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+    }
+
+    private static DeliveryEvent event(long deliveryId) {
+        DeliveryEvent event = new DeliveryEvent();
+        event.setEventType("UPDATED");
+        event.setDeliveryId(deliveryId);
+        event.setStatus("IN_TRANSIT");
+        event.setTimestamp(LocalDateTime.now());
+
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("trackingNumber", "TRACK" + deliveryId);
+        additionalData.put("userId", deliveryId % USERS + 1);
+        additionalData.put("deliveryAddress", "Address " + deliveryId);
+        event.setAdditionalData(additionalData);
+        return event;
+    }
+
+    private static KafkaListenerService.UserDTO user(Long userId) {
+        KafkaListenerService.UserDTO user = new KafkaListenerService.UserDTO();
+        user.setId(userId);
+        user.setUsername("User " + userId);
+        user.setEmail("user" + userId + "@example.com");
+        return user;
+    }
+}
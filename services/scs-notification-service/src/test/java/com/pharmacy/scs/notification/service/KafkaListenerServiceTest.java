@@ -0,0 +1,405 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.dto.DeliveryEvent;
+import com.pharmacy.scs.notification.entity.Notification;
+import com.pharmacy.scs.notification.entity.Notification.NotificationStatus;
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import com.pharmacy.scs.notification.exception.NotificationException;
+import com.pharmacy.scs.notification.exception.UserServiceUnavailableException;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import com.pharmacy.scs.notification.repository.NotificationRepository.NotificationKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaListenerServiceTest {
+
+    @Mock
+    private NotificationService emailService;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private UserServiceClient userServiceClient;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private RecentNotificationFilter recentNotifications;
+
+    private NotificationStatsService statsService;
+
+    private KafkaListenerService listenerService;
+
+    @BeforeEach
+    void setUp() {
+        UserProfileCache userProfileCache = new UserProfileCache(userServiceClient, 1000, Duration.ofMinutes(10));
+        NotificationDispatcher dispatcher = new NotificationDispatcher(executor, 4, 4);
+        recentNotifications = new RecentNotificationFilter(notificationRepository, 1000, 0.001, Duration.ofHours(1));
+        statsService = new NotificationStatsService(notificationRepository, Duration.ofSeconds(30));
+        listenerService = new KafkaListenerService(
+                List.of(emailService), notificationRepository, userProfileCache, dispatcher, recentNotifications,
+                statsService,
+                new TransactionTemplate(transactionManager), Duration.ofMinutes(5));
+
+        lenient().when(emailService.supports(NotificationType.EMAIL)).thenReturn(true);
+        lenient().when(userServiceClient.getUsersByIds(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, KafkaListenerService.UserDTO> users = new HashMap<>();
+            for (Long userId : invocation.<Collection<Long>>getArgument(0)) {
+                users.put(userId, user(userId));
+            }
+            return users;
+        });
+        lenient().when(emailService.prepareNotification(any(DeliveryEvent.class), anyString(), anyMap()))
+                .thenAnswer(invocation -> pending(invocation.getArgument(0), invocation.getArgument(1)));
+        lenient().when(emailService.deliverNotification(any(Notification.class)))
+                .thenAnswer(invocation -> {
+                    Notification notification = invocation.getArgument(0);
+                    notification.markAsSent();
+                    return notification;
+                });
+
+        // Захват: сохранение выдаёт ID, по умолчанию все строки вставлены
+        AtomicLong ids = new AtomicLong();
+        lenient().when(notificationRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Notification> pending = invocation.getArgument(0);
+            pending.forEach(notification -> notification.setId(ids.incrementAndGet()));
+            return pending;
+        });
+        lenient().when(notificationRepository.findExistingIds(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<Long>>getArgument(0)));
+        lenient().when(notificationRepository.save(any(Notification.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void listenDeliveryUpdatesBatch_DeduplicatesAndSavesOnce() {
+        // Arrange
+        List<DeliveryEvent> events = List.of(
+                event(1L, "UPDATED", 10L),
+                event(1L, "UPDATED", 10L), // повтор в пределах пакета
+                event(2L, "UPDATED", 10L),
+                event(3L, "CREATED", 20L));
+
+        // Act
+        listenerService.listenDeliveryUpdatesBatch(events, acknowledgment);
+
+        // Assert
+        ArgumentCaptor<List<Notification>> claimed = listCaptor();
+        verify(notificationRepository).saveAllAndFlush(claimed.capture());
+        assertEquals(3, claimed.getValue().size());
+
+        ArgumentCaptor<List<Notification>> saved = listCaptor();
+        verify(notificationRepository).saveAll(saved.capture());
+        assertEquals(3, saved.getValue().size());
+        assertTrue(saved.getValue().stream().allMatch(n -> n.getStatus() == NotificationStatus.SENT));
+
+        verify(userServiceClient).getUsersByIds(Set.of(10L, 20L));
+        // Ключей нет в фильтре недавних уведомлений — предварительная проверка не нужна, решает захват
+        verify(notificationRepository, never())
+                .findKeysByDeliveryIdInAndType(anyCollection(), any(NotificationType.class));
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdatesBatch_CommitsClaimBeforeSending() {
+        // Arrange
+        List<DeliveryEvent> events = List.of(event(1L, "UPDATED", 10L), event(2L, "UPDATED", 10L));
+
+        // Act
+        listenerService.listenDeliveryUpdatesBatch(events, acknowledgment);
+
+        // Assert — захват фиксируется отдельной транзакцией до отправки, статусы — после
+        InOrder inOrder = inOrder(notificationRepository, transactionManager, emailService, acknowledgment);
+        inOrder.verify(notificationRepository).saveAllAndFlush(anyList());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(emailService, times(2)).deliverNotification(any(Notification.class));
+        inOrder.verify(notificationRepository).findAllById(anyList());
+        inOrder.verify(notificationRepository).saveAll(anyCollection());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdatesBatch_ClaimsWithContentAndLease() {
+        // Arrange — состояние строк на момент захвата (до отправки)
+        List<Notification> atClaim = new ArrayList<>();
+        when(notificationRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Notification> pending = invocation.getArgument(0);
+            pending.forEach(notification -> {
+                notification.setId(notification.getDeliveryId());
+                atClaim.add(Notification.builder()
+                        .status(notification.getStatus())
+                        .content(notification.getContent())
+                        .nextAttemptAt(notification.getNextAttemptAt())
+                        .build());
+            });
+            return pending;
+        });
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        listenerService.listenDeliveryUpdatesBatch(List.of(event(1L, "UPDATED", 10L)), acknowledgment);
+
+        // Assert — если статус не будет сохранён, по окончании аренды уведомление отправит планировщик повторов
+        Notification claimed = atClaim.get(0);
+        assertEquals(NotificationStatus.PENDING, claimed.getStatus());
+        assertEquals("<p>UPDATED</p>", claimed.getContent());
+        assertFalse(claimed.getNextAttemptAt().isBefore(before.plusMinutes(5)));
+    }
+
+    @Test
+    void listenDeliveryUpdatesBatch_SkipsAlreadySentNotifications() {
+        // Arrange
+        List<DeliveryEvent> events = List.of(
+                event(1L, "UPDATED", 10L),
+                event(2L, "UPDATED", 10L));
+
+        recentNotifications.put(1L, "UPDATED", NotificationType.EMAIL);
+        NotificationKey existingKey = key(1L, "UPDATED");
+        when(notificationRepository.findKeysByDeliveryIdInAndType(Set.of(1L), NotificationType.EMAIL))
+                .thenReturn(List.of(existingKey));
+
+        // Act
+        listenerService.listenDeliveryUpdatesBatch(events, acknowledgment);
+
+        // Assert
+        ArgumentCaptor<List<Notification>> saved = listCaptor();
+        verify(notificationRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(2L, saved.getValue().get(0).getDeliveryId());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdatesBatch_DoesNotSendKeysClaimedElsewhere() {
+        // Arrange — ключ доставки 1 фильтру неизвестен, но уже занят в БД (другой экземпляр или старое уведомление)
+        List<DeliveryEvent> events = List.of(
+                event(1L, "UPDATED", 10L),
+                event(2L, "UPDATED", 10L));
+        when(notificationRepository.findExistingIds(anyCollection())).thenReturn(List.of(2L));
+
+        // Act
+        listenerService.listenDeliveryUpdatesBatch(events, acknowledgment);
+
+        // Assert
+        ArgumentCaptor<Notification> delivered = ArgumentCaptor.forClass(Notification.class);
+        verify(emailService, times(1)).deliverNotification(delivered.capture());
+        assertEquals(2L, delivered.getValue().getDeliveryId());
+
+        ArgumentCaptor<List<Notification>> saved = listCaptor();
+        verify(notificationRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertTrue(recentNotifications.mightContain(1L, "UPDATED", NotificationType.EMAIL));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdatesBatch_RemembersSavedNotifications() {
+        // Arrange
+        listenerService.listenDeliveryUpdatesBatch(List.of(event(1L, "UPDATED", 10L)), acknowledgment);
+
+        when(notificationRepository.findKeysByDeliveryIdInAndType(Set.of(1L), NotificationType.EMAIL))
+                .thenReturn(List.of(key(1L, "UPDATED")));
+
+        // Act — повторная доставка того же события
+        listenerService.listenDeliveryUpdatesBatch(List.of(event(1L, "UPDATED", 10L)), acknowledgment);
+
+        // Assert
+        assertTrue(recentNotifications.mightContain(1L, "UPDATED", NotificationType.EMAIL));
+        verify(emailService, times(1)).deliverNotification(any(Notification.class));
+        verify(notificationRepository, times(1)).saveAllAndFlush(anyList());
+        verify(notificationRepository, times(1)).findKeysByDeliveryIdInAndType(Set.of(1L), NotificationType.EMAIL);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listenDeliveryUpdatesBatch_RecordsClaimAndSendInStats() {
+        // Act
+        listenerService.listenDeliveryUpdatesBatch(
+                List.of(event(1L, "UPDATED", 10L), event(2L, "UPDATED", 10L)), acknowledgment);
+
+        // Assert — учитываются оба перехода: захват ключа и итог отправки
+        Map<String, Object> windows = (Map<String, Object>) statsService.getStats().get("windows");
+        Map<String, Object> fiveMinutes = (Map<String, Object>) windows.get("5m");
+        assertEquals(Map.of("PENDING", 2L, "SENT", 2L), fiveMinutes.get("byStatus"));
+    }
+
+    @Test
+    void listenDeliveryUpdatesBatch_AcknowledgesBatchWithoutUserIds() {
+        // Arrange
+        DeliveryEvent event = event(1L, "UPDATED", 10L);
+        event.getAdditionalData().remove("userId");
+
+        // Act
+        listenerService.listenDeliveryUpdatesBatch(List.of(event), acknowledgment);
+
+        // Assert
+        verify(notificationRepository, never()).saveAllAndFlush(anyList());
+        verify(notificationRepository, never()).saveAll(anyCollection());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdatesBatch_RethrowsWithoutAcknowledgeWhenUserServiceFails() {
+        // Arrange
+        when(userServiceClient.getUsersByIds(anyCollection()))
+                .thenThrow(new UserServiceUnavailableException("User Service unavailable", null));
+
+        // Act & Assert — пакет уходит на повтор, а не подтверждается без уведомлений
+        assertThrows(NotificationException.class,
+                () -> listenerService.listenDeliveryUpdatesBatch(List.of(event(1L, "UPDATED", 10L)), acknowledgment));
+        verify(emailService, never()).prepareNotification(any(DeliveryEvent.class), anyString(), anyMap());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdates_AcknowledgesAfterNotificationSaved() {
+        // Arrange
+        DeliveryEvent event = event(1L, "UPDATED", 10L);
+        when(userServiceClient.getUserById(10L)).thenReturn(user(10L));
+
+        // Act
+        listenerService.listenDeliveryUpdates(event, "delivery-updates", 0, 0L, acknowledgment);
+
+        // Assert
+        verify(notificationRepository).saveAllAndFlush(anyList());
+        ArgumentCaptor<Notification> saved = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationRepository).save(saved.capture());
+        assertEquals(NotificationStatus.SENT, saved.getValue().getStatus());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdates_SkipsKeyClaimedElsewhere() {
+        // Arrange
+        DeliveryEvent event = event(1L, "UPDATED", 10L);
+        when(userServiceClient.getUserById(10L)).thenReturn(user(10L));
+        when(notificationRepository.findExistingIds(anyCollection())).thenReturn(List.of());
+
+        // Act
+        listenerService.listenDeliveryUpdates(event, "delivery-updates", 0, 0L, acknowledgment);
+
+        // Assert
+        verify(emailService, never()).deliverNotification(any(Notification.class));
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void listenDeliveryUpdates_RethrowsWithoutAcknowledgeOnFailure() {
+        // Arrange
+        DeliveryEvent event = event(1L, "UPDATED", 10L);
+        when(userServiceClient.getUserById(10L)).thenReturn(user(10L));
+        when(notificationRepository.save(any(Notification.class)))
+                .thenThrow(new IllegalStateException("Database unavailable"));
+
+        // Act & Assert — ошибка уходит обработчику ошибок контейнера, офсет не подтверждается
+        NotificationException thrown = assertThrows(NotificationException.class,
+                () -> listenerService.listenDeliveryUpdates(event, "delivery-updates", 0, 0L, acknowledgment));
+        assertEquals("Database unavailable", thrown.getCause().getMessage());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static DeliveryEvent event(Long deliveryId, String eventType, Long userId) {
+        DeliveryEvent event = new DeliveryEvent();
+        event.setEventType(eventType);
+        event.setDeliveryId(deliveryId);
+        event.setStatus("IN_TRANSIT");
+        event.setTimestamp(LocalDateTime.now());
+
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("trackingNumber", "TRACK" + deliveryId);
+        additionalData.put("userId", userId);
+        event.setAdditionalData(additionalData);
+        return event;
+    }
+
+    private static KafkaListenerService.UserDTO user(Long userId) {
+        KafkaListenerService.UserDTO user = new KafkaListenerService.UserDTO();
+        user.setId(userId);
+        user.setUsername("User " + userId);
+        user.setEmail("user" + userId + "@example.com");
+        return user;
+    }
+
+    private static Notification pending(DeliveryEvent event, String recipient) {
+        return Notification.builder()
+                .userId(event.getUserId())
+                .deliveryId(event.getDeliveryId())
+                .eventType(event.getEventType())
+                .type(NotificationType.EMAIL)
+                .recipient(recipient)
+                .content("<p>" + event.getEventType() + "</p>")
+                .status(NotificationStatus.PENDING)
+                .build();
+    }
+
+    private static NotificationKey key(Long deliveryId, String eventType) {
+        return new NotificationKey() {
+            @Override
+            public Long getDeliveryId() {
+                return deliveryId;
+            }
+
+            @Override
+            public String getEventType() {
+                return eventType;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Notification>> listCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
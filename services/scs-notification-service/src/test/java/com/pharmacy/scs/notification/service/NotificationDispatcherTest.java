@@ -0,0 +1,92 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationDispatcherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new NotificationDispatcher(executor, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void dispatch_LimitsConcurrencyPerChannel() {
+        // Arrange
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // Act
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(dispatcher.dispatch(NotificationType.EMAIL, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(20);
+                return running.decrementAndGet();
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        // Assert
+        assertTrue(maxRunning.get() <= 2, "одновременно выполнялось: " + maxRunning.get());
+    }
+
+    @Test
+    void dispatch_ChannelLimitDoesNotBlockOtherChannel() {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> emails = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            emails.add(dispatcher.dispatch(NotificationType.EMAIL, () -> await(release)));
+        }
+
+        // Act
+        boolean smsDone = dispatcher.dispatch(NotificationType.SMS, () -> true)
+                .completeOnTimeout(false, 5, TimeUnit.SECONDS)
+                .join();
+        release.countDown();
+        emails.forEach(CompletableFuture::join);
+
+        // Assert
+        assertTrue(smsDone);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
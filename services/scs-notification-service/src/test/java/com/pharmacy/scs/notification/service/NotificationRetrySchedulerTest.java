@@ -0,0 +1,287 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification;
+import com.pharmacy.scs.notification.entity.Notification.NotificationStatus;
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationRetrySchedulerTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationService emailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private NotificationStatsService statsService;
+
+    private NotificationRetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        NotificationDispatcher dispatcher = new NotificationDispatcher(executor, 4, 4);
+        statsService = new NotificationStatsService(notificationRepository, Duration.ofSeconds(30));
+        scheduler = new NotificationRetryScheduler(notificationRepository, List.of(emailService), dispatcher,
+                new ChannelRateLimiter(1000, 1000), statsService, transactionManager,
+                true, MAX_ATTEMPTS, BATCH_SIZE, 10, 10, Duration.ofMinutes(5), 1000, 2, 8000);
+
+        lenient().when(emailService.supports(NotificationType.EMAIL)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void retryDueNotifications_ClaimsBatchesUntilQueueDrained() {
+        // Arrange
+        Notification first = failed(1L, 0);
+        Notification second = failed(2L, 0);
+        Notification third = failed(3L, 1);
+        when(notificationRepository.claimDueRetries(any(LocalDateTime.class), eq(MAX_ATTEMPTS), eq(BATCH_SIZE)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        when(emailService.resendNotification(any(Notification.class))).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            notification.markAsSent();
+            return CompletableFuture.completedFuture(notification);
+        });
+
+        // Act
+        scheduler.retryDueNotifications();
+
+        // Assert
+        verify(notificationRepository, times(2)).claimDueRetries(any(LocalDateTime.class), anyInt(), anyInt());
+        verify(emailService, times(3)).resendNotification(any(Notification.class));
+        assertEquals(1, first.getRetryCount());
+        assertEquals(2, third.getRetryCount());
+        assertNull(third.getNextAttemptAt());
+        assertEquals(NotificationStatus.SENT, third.getStatus());
+    }
+
+    @Test
+    void retryDueNotifications_FailedRetryScheduledWithBackoff() {
+        // Arrange
+        Notification notification = failed(1L, 1);
+        when(notificationRepository.claimDueRetries(any(LocalDateTime.class), eq(MAX_ATTEMPTS), eq(BATCH_SIZE)))
+                .thenReturn(List.of(notification));
+        when(emailService.resendNotification(any(Notification.class))).thenAnswer(invocation -> {
+            Notification retried = invocation.getArgument(0);
+            retried.markAsFailed("SMTP error");
+            return CompletableFuture.completedFuture(retried);
+        });
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        scheduler.retryDueNotifications();
+
+        // Assert — вторая попытка: задержка 2 с, из них не меньше половины фиксирована
+        assertEquals(NotificationStatus.FAILED, notification.getStatus());
+        assertEquals(2, notification.getRetryCount());
+        assertFalse(notification.getNextAttemptAt().isBefore(before.plusSeconds(1)));
+        assertFalse(notification.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(2)));
+    }
+
+    @Test
+    void retryDueNotifications_LastAttemptIsNotRescheduled() {
+        // Arrange
+        Notification notification = failed(1L, MAX_ATTEMPTS - 1);
+        when(notificationRepository.claimDueRetries(any(LocalDateTime.class), eq(MAX_ATTEMPTS), eq(BATCH_SIZE)))
+                .thenReturn(List.of(notification));
+        when(emailService.resendNotification(any(Notification.class))).thenAnswer(invocation -> {
+            Notification retried = invocation.getArgument(0);
+            retried.markAsFailed("SMTP error");
+            return CompletableFuture.completedFuture(retried);
+        });
+
+        // Act
+        scheduler.retryDueNotifications();
+
+        // Assert
+        assertEquals(MAX_ATTEMPTS, notification.getRetryCount());
+        assertNull(notification.getNextAttemptAt());
+    }
+
+    @Test
+    void retryDueNotifications_SendsPendingLeftAfterListenerCrash() {
+        // Arrange — аренда захвата истекла, итоговый статус слушатель не сохранил
+        Notification pending = failed(1L, 0);
+        pending.setStatus(NotificationStatus.PENDING);
+        pending.setErrorMessage(null);
+        pending.setContent("<p>UPDATED</p>");
+        when(notificationRepository.claimDueRetries(any(LocalDateTime.class), eq(MAX_ATTEMPTS), eq(BATCH_SIZE)))
+                .thenReturn(List.of(pending));
+        when(emailService.resendNotification(any(Notification.class))).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            notification.markAsSent();
+            return CompletableFuture.completedFuture(notification);
+        });
+
+        // Act
+        scheduler.retryDueNotifications();
+
+        // Assert
+        verify(emailService).resendNotification(pending);
+        assertEquals(NotificationStatus.SENT, pending.getStatus());
+        assertEquals(1, pending.getRetryCount());
+        assertNull(pending.getNextAttemptAt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retryDueNotifications_MarksExhaustedRetryAsTerminalFailure() {
+        // Arrange — экземпляр упал во время последней попытки, аренда истекла
+        Notification exhausted = failed(1L, MAX_ATTEMPTS);
+        exhausted.setStatus(NotificationStatus.RETRY);
+        when(notificationRepository.claimExhaustedRetries(any(LocalDateTime.class), eq(MAX_ATTEMPTS), eq(BATCH_SIZE)))
+                .thenReturn(List.of(exhausted));
+        when(notificationRepository.claimDueRetries(any(LocalDateTime.class), eq(MAX_ATTEMPTS), eq(BATCH_SIZE)))
+                .thenReturn(List.of());
+
+        // Act
+        scheduler.retryDueNotifications();
+
+        // Assert
+        assertEquals(NotificationStatus.FAILED, exhausted.getStatus());
+        assertNull(exhausted.getNextAttemptAt());
+        assertEquals(MAX_ATTEMPTS, exhausted.getRetryCount());
+        verify(emailService, never()).resendNotification(any(Notification.class));
+        Map<String, Object> windows = (Map<String, Object>) statsService.getStats().get("windows");
+        Map<String, Object> fiveMinutes = (Map<String, Object>) windows.get("5m");
+        assertEquals(Map.of("FAILED", 1L), fiveMinutes.get("byStatus"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retryDueNotifications_RecordsClaimAndResultInStats() {
+        // Arrange
+        when(notificationRepository.claimDueRetries(any(LocalDateTime.class), eq(MAX_ATTEMPTS), eq(BATCH_SIZE)))
+                .thenReturn(List.of(failed(1L, 0), failed(2L, 0)))
+                .thenReturn(List.of());
+        when(emailService.resendNotification(any(Notification.class))).thenAnswer(invocation -> {
+            Notification retried = invocation.getArgument(0);
+            if (retried.getId() == 1L) {
+                retried.markAsSent();
+            } else {
+                retried.markAsFailed("SMTP error");
+            }
+            return CompletableFuture.completedFuture(retried);
+        });
+
+        // Act
+        scheduler.retryDueNotifications();
+
+        // Assert
+        Map<String, Object> windows = (Map<String, Object>) statsService.getStats().get("windows");
+        Map<String, Object> fiveMinutes = (Map<String, Object>) windows.get("5m");
+        assertEquals(Map.of("RETRY", 2L, "SENT", 1L, "FAILED", 1L), fiveMinutes.get("byStatus"));
+    }
+
+    @Test
+    void start_RunsRetryJobOnDedicatedThread() throws Exception {
+        // Arrange
+        CompletableFuture<String> jobThread = new CompletableFuture<>();
+        when(notificationRepository.claimDueRetries(any(LocalDateTime.class), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    jobThread.complete(Thread.currentThread().getName());
+                    return List.of();
+                });
+
+        // Act
+        scheduler.start();
+
+        // Assert — ожидание ограничителя скорости не занимает общий поток @Scheduled
+        assertEquals("notification-retry", jobThread.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void retryDueNotifications_DoesNothingWhenNothingDue() {
+        // Arrange
+        when(notificationRepository.claimDueRetries(any(LocalDateTime.class), anyInt(), anyInt())).thenReturn(List.of());
+
+        // Act
+        scheduler.retryDueNotifications();
+
+        // Assert
+        verify(emailService, never()).resendNotification(any(Notification.class));
+    }
+
+    @Test
+    void backoff_GrowsExponentiallyWithJitterUpToMaxInterval() {
+        // Act & Assert
+        for (int i = 0; i < 100; i++) {
+            long first = scheduler.backoff(1).toMillis();
+            long third = scheduler.backoff(3).toMillis();
+            long capped = scheduler.backoff(10).toMillis();
+            assertTrue(first >= 500 && first <= 1000, "first: " + first);
+            assertTrue(third >= 2000 && third <= 4000, "third: " + third);
+            assertTrue(capped >= 4000 && capped <= 8000, "capped: " + capped);
+        }
+    }
+
+    @Test
+    void channelRateLimiter_SpacesPermits() throws Exception {
+        // Arrange
+        ChannelRateLimiter rateLimiter = new ChannelRateLimiter(100, 100);
+        long start = System.nanoTime();
+
+        // Act
+        for (int i = 0; i < 11; i++) {
+            rateLimiter.acquire(NotificationType.EMAIL);
+        }
+
+        // Assert — 10 интервалов по 10 мс
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 90);
+    }
+
+    private static Notification failed(Long deliveryId, int retryCount) {
+        return Notification.builder()
+                .id(deliveryId)
+                .userId(10L)
+                .deliveryId(deliveryId)
+                .eventType("UPDATED")
+                .type(NotificationType.EMAIL)
+                .status(NotificationStatus.FAILED)
+                .retryCount(retryCount)
+                .nextAttemptAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification;
+import com.pharmacy.scs.notification.entity.Notification.NotificationStatus;
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import com.pharmacy.scs.notification.repository.NotificationRepository.StatusCount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationStatsServiceTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private NotificationStatsService statsService;
+
+    @BeforeEach
+    void setUp() {
+        statsService = new NotificationStatsService(notificationRepository, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void getStats_TotalsFromSingleGroupByQuery() {
+        // Arrange
+        when(notificationRepository.countByStatus()).thenReturn(List.of(
+                count(NotificationStatus.SENT, 8),
+                count(NotificationStatus.FAILED, 1),
+                count(NotificationStatus.PENDING, 1)));
+
+        // Act
+        Map<String, Object> stats = statsService.getStats(NOW);
+        statsService.getStats(NOW + 10_000); // в пределах totals-ttl
+
+        // Assert
+        assertEquals(10L, stats.get("totalCount"));
+        assertEquals(8L, stats.get("sentCount"));
+        assertEquals(1L, stats.get("failedCount"));
+        assertEquals(1L, stats.get("pendingCount"));
+        assertEquals(0L, stats.get("retryCount"));
+        assertEquals(0.8, stats.get("successRate"));
+        assertEquals("instance", stats.get("windowsScope"));
+        verify(notificationRepository, times(1)).countByStatus();
+    }
+
+    @Test
+    void getStats_WindowsCountRecentNotifications() {
+        // Arrange
+        when(notificationRepository.countByStatus()).thenReturn(List.of());
+        statsService.record(notification("UPDATED", NotificationStatus.SENT), NOW);
+        statsService.record(notification("CREATED", NotificationStatus.FAILED), NOW - 3 * MINUTE);
+        statsService.record(notification("UPDATED", NotificationStatus.SENT), NOW - 30 * MINUTE);
+        statsService.record(notification("UPDATED", NotificationStatus.SENT), NOW - 10 * 60 * MINUTE);
+        statsService.record(notification("UPDATED", NotificationStatus.SENT), NOW - 25 * 60 * MINUTE); // вне суток
+
+        // Act
+        Map<String, Object> windows = windows(statsService.getStats(NOW));
+
+        // Assert
+        Map<String, Object> fiveMinutes = window(windows, "5m");
+        assertEquals(2L, fiveMinutes.get("total"));
+        assertEquals(Map.of("CREATED", 1L, "UPDATED", 1L), fiveMinutes.get("byEventType"));
+        assertEquals(Map.of("FAILED", 1L, "SENT", 1L), fiveMinutes.get("byStatus"));
+        assertEquals(Map.of("EMAIL", 2L), fiveMinutes.get("byType"));
+        assertEquals(0.4, fiveMinutes.get("perMinute"));
+
+        assertEquals(3L, window(windows, "1h").get("total"));
+        assertEquals(4L, window(windows, "24h").get("total"));
+    }
+
+    @Test
+    void record_ReplacesBucketFromPreviousDay() {
+        // Arrange
+        when(notificationRepository.countByStatus()).thenReturn(List.of());
+        statsService.record(notification("UPDATED", NotificationStatus.SENT), NOW - 24 * 60 * MINUTE);
+
+        // Act — та же ячейка кольца сутки спустя
+        statsService.record(notification("CREATED", NotificationStatus.SENT), NOW);
+
+        // Assert
+        Map<String, Object> day = window(windows(statsService.getStats(NOW)), "24h");
+        assertEquals(1L, day.get("total"));
+        assertEquals(Map.of("CREATED", 1L), day.get("byEventType"));
+    }
+
+    private static Notification notification(String eventType, NotificationStatus status) {
+        return Notification.builder()
+                .deliveryId(1L)
+                .eventType(eventType)
+                .type(NotificationType.EMAIL)
+                .status(status)
+                .build();
+    }
+
+    private static StatusCount count(NotificationStatus status, long count) {
+        return new StatusCount() {
+            @Override
+            public NotificationStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> windows(Map<String, Object> stats) {
+        return (Map<String, Object>) stats.get("windows");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> window(Map<String, Object> windows, String name) {
+        return (Map<String, Object>) windows.get(name);
+    }
+}
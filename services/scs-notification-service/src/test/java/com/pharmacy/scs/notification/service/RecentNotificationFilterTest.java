@@ -0,0 +1,112 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.entity.Notification.NotificationType;
+import com.pharmacy.scs.notification.repository.NotificationRepository;
+import com.pharmacy.scs.notification.repository.NotificationRepository.NotificationKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecentNotificationFilterTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Test
+    void mightContain_TrueForPutKeys() {
+        // Arrange
+        RecentNotificationFilter filter = new RecentNotificationFilter(notificationRepository, 10_000, 0.001, Duration.ofHours(1));
+        for (long deliveryId = 1; deliveryId <= 5_000; deliveryId++) {
+            filter.put(deliveryId, "UPDATED", NotificationType.EMAIL);
+        }
+
+        // Act & Assert
+        for (long deliveryId = 1; deliveryId <= 5_000; deliveryId++) {
+            assertTrue(filter.mightContain(deliveryId, "UPDATED", NotificationType.EMAIL));
+        }
+        assertFalse(filter.mightContain(1L, "UPDATED", NotificationType.SMS));
+        assertFalse(filter.mightContain(1L, "CREATED", NotificationType.EMAIL));
+    }
+
+    @Test
+    void mightContain_FalsePositiveRateWithinBound() {
+        // Arrange
+        RecentNotificationFilter filter = new RecentNotificationFilter(notificationRepository, 10_000, 0.01, Duration.ofHours(1));
+        for (long deliveryId = 1; deliveryId < 10_000; deliveryId++) {
+            filter.put(deliveryId, "UPDATED", NotificationType.EMAIL);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (long deliveryId = 100_000; deliveryId < 200_000; deliveryId++) {
+            if (filter.mightContain(deliveryId, "UPDATED", NotificationType.EMAIL)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void put_RotatesGenerationsAndForgetsOldestKeys() {
+        // Arrange
+        RecentNotificationFilter filter = new RecentNotificationFilter(notificationRepository, 100, 0.001, Duration.ofHours(1));
+        filter.put(1L, "UPDATED", NotificationType.EMAIL);
+
+        // Act — первое поколение заполняется и становится предыдущим, затем отбрасывается
+        for (long deliveryId = 1_000; deliveryId < 1_198; deliveryId++) {
+            filter.put(deliveryId, "UPDATED", NotificationType.EMAIL);
+        }
+        boolean afterFirstRotation = filter.mightContain(1L, "UPDATED", NotificationType.EMAIL);
+        filter.put(2_000L, "UPDATED", NotificationType.EMAIL);
+
+        // Assert
+        assertTrue(afterFirstRotation);
+        assertFalse(filter.mightContain(1L, "UPDATED", NotificationType.EMAIL));
+        assertTrue(filter.mightContain(1_197L, "UPDATED", NotificationType.EMAIL));
+    }
+
+    @Test
+    void warmUp_LoadsRecentKeys() {
+        // Arrange
+        RecentNotificationFilter filter = new RecentNotificationFilter(notificationRepository, 1000, 0.001, Duration.ofHours(1));
+        when(notificationRepository.findKeysByTypeAndCreatedAtAfter(eq(NotificationType.EMAIL), any(LocalDateTime.class)))
+                .thenReturn(List.of(key(7L, "CREATED")));
+        when(notificationRepository.findKeysByTypeAndCreatedAtAfter(eq(NotificationType.SMS), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        // Act
+        filter.warmUp();
+
+        // Assert
+        assertTrue(filter.mightContain(7L, "CREATED", NotificationType.EMAIL));
+        assertFalse(filter.mightContain(7L, "CREATED", NotificationType.SMS));
+    }
+
+    private static NotificationKey key(Long deliveryId, String eventType) {
+        return new NotificationKey() {
+            @Override
+            public Long getDeliveryId() {
+                return deliveryId;
+            }
+
+            @Override
+            public String getEventType() {
+                return eventType;
+            }
+        };
+    }
+}
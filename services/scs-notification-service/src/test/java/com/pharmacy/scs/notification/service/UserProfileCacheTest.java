@@ -0,0 +1,147 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.exception.UserServiceUnavailableException;
+import com.pharmacy.scs.notification.service.KafkaListenerService.UserDTO;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileCacheTest {
+
+    @Mock
+    private UserServiceClient userServiceClient;
+
+    private UserProfileCache userProfileCache;
+
+    @BeforeEach
+    void setUp() {
+        userProfileCache = new UserProfileCache(userServiceClient, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void get_LoadsOnceAndServesFromCache() {
+        // Arrange
+        UserDTO user = user(1L, "first@example.com");
+        when(userServiceClient.getUserById(1L)).thenReturn(user);
+
+        // Act
+        UserDTO first = userProfileCache.get(1L);
+        UserDTO second = userProfileCache.get(1L);
+
+        // Assert
+        assertSame(user, first);
+        assertSame(user, second);
+        verify(userServiceClient, times(1)).getUserById(1L);
+    }
+
+    @Test
+    void get_DoesNotCacheMissingUser() {
+        // Arrange
+        when(userServiceClient.getUserById(anyLong())).thenReturn(null);
+
+        // Act
+        userProfileCache.get(1L);
+        UserDTO result = userProfileCache.get(1L);
+
+        // Assert
+        assertNull(result);
+        verify(userServiceClient, times(2)).getUserById(1L);
+    }
+
+    @Test
+    void getAll_LoadsOnlyMissingUsers() {
+        // Arrange
+        userProfileCache.put(user(1L, "first@example.com"));
+        when(userServiceClient.getUsersByIds(anyCollection()))
+                .thenReturn(Map.of(2L, user(2L, "second@example.com")));
+
+        // Act
+        Map<Long, UserDTO> users = userProfileCache.getAll(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(Set.of(1L, 2L), users.keySet());
+        verify(userServiceClient).getUsersByIds(Set.of(2L));
+    }
+
+    @Test
+    void getAll_DoesNotCacheMissingUsers() {
+        // Arrange
+        when(userServiceClient.getUsersByIds(anyCollection()))
+                .thenReturn(Map.of(2L, user(2L, "second@example.com")))
+                .thenReturn(Map.of());
+
+        // Act
+        Map<Long, UserDTO> first = userProfileCache.getAll(List.of(2L, 3L));
+        Map<Long, UserDTO> second = userProfileCache.getAll(List.of(2L, 3L));
+
+        // Assert — отсутствующий пользователь запрашивается снова, найденный берётся из кэша
+        assertEquals(Set.of(2L), first.keySet());
+        assertEquals(Set.of(2L), second.keySet());
+        verify(userServiceClient).getUsersByIds(Set.of(2L, 3L));
+        verify(userServiceClient).getUsersByIds(Set.of(3L));
+    }
+
+    @Test
+    void getAll_RethrowsUserServiceFailureWithoutCaching() {
+        // Arrange
+        userProfileCache.put(user(1L, "first@example.com"));
+        when(userServiceClient.getUsersByIds(anyCollection()))
+                .thenThrow(new UserServiceUnavailableException("User Service unavailable", null))
+                .thenReturn(Map.of(2L, user(2L, "second@example.com")));
+
+        // Act
+        assertThrows(UserServiceUnavailableException.class, () -> userProfileCache.getAll(List.of(1L, 2L)));
+        Map<Long, UserDTO> retried = userProfileCache.getAll(List.of(1L, 2L));
+
+        // Assert — повтор снова запрашивает пользователя, которого не удалось загрузить
+        assertEquals(Set.of(1L, 2L), retried.keySet());
+        verify(userServiceClient, times(2)).getUsersByIds(Set.of(2L));
+    }
+
+    @Test
+    void userUpdatesListener_RefreshesAndEvictsProfiles() {
+        // Arrange
+        UserUpdatesListener listener = new UserUpdatesListener(userProfileCache);
+        userProfileCache.put(user(1L, "old@example.com"));
+        userProfileCache.put(user(2L, "deleted@example.com"));
+        when(userServiceClient.getUserById(2L)).thenReturn(null);
+
+        // Act
+        listener.onUserUpdates(List.of(
+                new ConsumerRecord<>("user-updates", 0, 0L, "1", user(1L, "new@example.com")),
+                new ConsumerRecord<>("user-updates", 0, 1L, "2", null)));
+
+        // Assert
+        assertEquals("new@example.com", userProfileCache.get(1L).getEmail());
+        assertNull(userProfileCache.get(2L));
+        verify(userServiceClient, never()).getUserById(1L);
+    }
+
+    private static UserDTO user(Long id, String email) {
+        UserDTO user = new UserDTO();
+        user.setId(id);
+        user.setUsername("User " + id);
+        user.setEmail(email);
+        return user;
+    }
+}
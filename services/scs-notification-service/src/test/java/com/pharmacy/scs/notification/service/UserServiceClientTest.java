@@ -0,0 +1,174 @@
+package com.pharmacy.scs.notification.service;
+
+import com.pharmacy.scs.notification.exception.UserServiceUnavailableException;
+import com.pharmacy.scs.notification.service.KafkaListenerService.UserDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class UserServiceClientTest {
+
+    private static final int THREADS = 20;
+    private static final long MISSING_FROM = 1000;
+
+    private MockRestServiceServer server;
+    private UserServiceClient userServiceClient;
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private final Map<Integer, Integer> batchSizes = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        userServiceClient = new UserServiceClient(restTemplate, "http://user-service", 50, 200, 2000);
+
+        // Сервер возвращает всех запрошенных пользователей, кроме несуществующих (ID от MISSING_FROM)
+        server.expect(ExpectedCount.manyTimes(), requestTo("http://user-service/api/users/batch"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(request -> {
+                    String body = ((MockClientHttpRequest) request).getBodyAsString(StandardCharsets.UTF_8);
+                    List<String> ids = List.of(body.replaceAll("[\\[\\]\\s]", "").split(","));
+                    batchSizes.put(batchRequests.incrementAndGet(), ids.size());
+                    String json = ids.stream()
+                            .filter(id -> Long.parseLong(id) < MISSING_FROM)
+                            .map(id -> "{\"id\":" + id + ",\"username\":\"user" + id
+                                    + "\",\"email\":\"user" + id + "@example.com\"}")
+                            .collect(Collectors.joining(",", "[", "]"));
+                    return withSuccess(json, MediaType.APPLICATION_JSON).createResponse(request);
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        userServiceClient.shutdown();
+    }
+
+    @Test
+    void getUserById_CoalescesConcurrentLookups() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act
+        List<Future<UserDTO>> results = IntStream.rangeClosed(1, THREADS)
+                .mapToObj(i -> executor.submit(() -> {
+                    start.await();
+                    return userServiceClient.getUserById((long) i);
+                }))
+                .toList();
+        start.countDown();
+
+        // Assert
+        for (int i = 0; i < THREADS; i++) {
+            UserDTO user = results.get(i).get();
+            assertEquals(i + 1L, user.getId());
+            assertEquals("user" + (i + 1) + "@example.com", user.getEmail());
+        }
+        executor.shutdown();
+
+        assertTrue(batchRequests.get() < THREADS,
+                "ожидалось объединение запросов, выполнено HTTP-запросов: " + batchRequests.get());
+        assertEquals(THREADS, batchSizes.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void getUsersByIds_SplitsIntoBatches() {
+        // Arrange
+        List<Long> ids = IntStream.rangeClosed(1, 450).mapToObj(Long::valueOf).toList();
+
+        // Act
+        Map<Long, UserDTO> users = userServiceClient.getUsersByIds(ids);
+
+        // Assert
+        assertEquals(450, users.size());
+        assertEquals(3, batchRequests.get());
+    }
+
+    @Test
+    void getUsersByIds_OmitsMissingUsers() {
+        // Act
+        Map<Long, UserDTO> users = userServiceClient.getUsersByIds(List.of(1L, MISSING_FROM));
+
+        // Assert — вместо ненайденного пользователя не подставляется заглушка
+        assertEquals(Set.of(1L), users.keySet());
+    }
+
+    @Test
+    void getUserById_ReturnsNullForMissingUser() {
+        // Act & Assert
+        assertNull(userServiceClient.getUserById(MISSING_FROM));
+        assertEquals("user1@example.com", userServiceClient.getUserById(1L).getEmail());
+    }
+
+    @Test
+    void getUsersByIds_ThrowsWhenUserServiceFails() {
+        // Arrange
+        UserServiceClient failingClient = clientRespondingWith(withServerError());
+
+        // Act & Assert — ошибка сервера не выдаётся за отсутствие пользователей
+        assertThrows(UserServiceUnavailableException.class, () -> failingClient.getUsersByIds(List.of(1L, 2L)));
+        failingClient.shutdown();
+    }
+
+    @Test
+    void getUserById_ThrowsWhenUserServiceFails() {
+        // Arrange
+        UserServiceClient failingClient = clientRespondingWith(withServerError());
+
+        // Act & Assert
+        assertThrows(UserServiceUnavailableException.class, () -> failingClient.getUserById(1L));
+        failingClient.shutdown();
+    }
+
+    @Test
+    void getUsersByIds_TreatsNotFoundAsMissingUsers() {
+        // Arrange
+        UserServiceClient notFoundClient = clientRespondingWith(withStatus(HttpStatus.NOT_FOUND));
+
+        // Act
+        Map<Long, UserDTO> users = notFoundClient.getUsersByIds(List.of(1L, 2L));
+
+        // Assert
+        assertTrue(users.isEmpty());
+        notFoundClient.shutdown();
+    }
+
+    private static UserServiceClient clientRespondingWith(ResponseCreator response) {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer.bindTo(restTemplate).build()
+                .expect(ExpectedCount.manyTimes(), requestTo("http://user-service/api/users/batch"))
+                .andRespond(response);
+        return new UserServiceClient(restTemplate, "http://user-service", 5, 200, 2000);
+    }
+}
@@ -0,0 +1,101 @@
+package com.pharmacy.scs.notification.template;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationTemplateRendererTest {
+
+    private NotificationTemplateRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        renderer = new NotificationTemplateRenderer(templateEngine, new DefaultResourceLoader(),
+                "classpath:/templates/", ".html", Locale.forLanguageTag("ru"));
+    }
+
+    @Test
+    void render_UsesTemplateParams() {
+        // Arrange
+        TemplateParams params = new TemplateParams("Test User", "TRACK123", "IN_TRANSIT", Map.of());
+
+        // Act
+        String content = renderer.render("UPDATED", params);
+
+        // Assert
+        assertTrue(content.contains("Test User"));
+        assertTrue(content.contains("TRACK123"));
+        assertTrue(content.contains("В пути"));
+        assertTrue(content.contains("http://tracking.pharmacy.com/TRACK123"));
+    }
+
+    @Test
+    void templateName_ResolvesEventTypeVariant() {
+        // Act & Assert
+        assertEquals("email-templates/delivery-status-created", renderer.templateName("CREATED"));
+        assertEquals("email-templates/delivery-status", renderer.templateName("UPDATED"));
+        assertTrue(renderer.render("CREATED", new TemplateParams("Test User", "TRACK123", "PENDING", Map.of()))
+                .contains("принят в обработку"));
+    }
+
+    @Test
+    void render_ReusesBufferBetweenCalls() {
+        // Act
+        String first = renderer.render("UPDATED", new TemplateParams("First", "TRACK1", "PENDING", Map.of()));
+        String second = renderer.render("UPDATED", new TemplateParams("Second", "TRACK2", "DELIVERED", Map.of()));
+
+        // Assert
+        assertFalse(second.contains("First"));
+        assertTrue(second.contains("Second"));
+        assertEquals(first.length() - "First".length() - "TRACK1".length() * 2 - "Ожидает отправки".length(),
+                second.length() - "Second".length() - "TRACK2".length() * 2 - "Доставлено".length());
+    }
+
+    @Test
+    void subject_ByEventType() {
+        // Act & Assert
+        assertEquals("Ваш заказ принят в обработку", renderer.subject("CREATED"));
+        assertEquals("Ваш заказ доставлен", renderer.subject("COMPLETED"));
+        assertEquals("Обновление статуса доставки", renderer.subject("UNKNOWN"));
+        assertSame(renderer.subject("UPDATED"), renderer.subject("UPDATED"));
+    }
+
+    @Test
+    void templateParams_AdditionalDataOverridesBaseParams() {
+        // Arrange
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("trackingUrl", "http://example.com/custom");
+        additionalData.put("userName", null);
+        additionalData.put("deliveryAddress", "Address 1");
+
+        // Act
+        TemplateParams params = new TemplateParams("Test User", "TRACK123", "CANCELLED", additionalData);
+
+        // Assert
+        assertEquals("http://example.com/custom", params.get("trackingUrl"));
+        assertEquals("Test User", params.get("userName"));
+        assertEquals("Отменено", params.get("statusDescription"));
+        assertEquals("Address 1", params.get("deliveryAddress"));
+        assertTrue(params.containsKey("deliveryAddress"));
+        assertFalse(params.containsKey("missing"));
+        assertEquals(6, params.size());
+    }
+}